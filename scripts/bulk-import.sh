@@ -0,0 +1,19 @@
+#!/bin/bash
+set -e
+
+# Imports a directory of price files (api json responses, or api csv downloads named SYMBOL.csv) into the
+# configured metrics repository without starting the web server, eg:
+#   ./scripts/bulk-import.sh ~/prices
+# Run again after an interruption to import only the files not yet imported
+cd "$(dirname "$0")/.."
+
+if [ -z "$1" ]; then
+  echo "Usage: $0 <directory>"
+  exit 1
+fi
+
+mvn -B -q spring-boot:run -Dspring-boot.run.arguments="\
+--app.bulk-import.enabled=true \
+--app.bulk-import.directory=$(cd "$1" && pwd) \
+--app.warm-up.enabled=false \
+--spring.main.web-application-type=none"
@@ -0,0 +1,19 @@
+#!/bin/bash
+set -e
+
+# Exports the stored daily metrics to a file without starting the web server, eg:
+#   ./scripts/export.sh ~/metrics.ndjson
+#   ./scripts/export.sh ~/metrics.csv --app.export.format=csv --app.export.symbol-prefix=IB --app.export.from=2024-01-01
+cd "$(dirname "$0")/.."
+
+if [ -z "$1" ]; then
+  echo "Usage: $0 <file> [--app.export.format=csv] [--app.export.symbol-prefix=...] [--app.export.from=...] [--app.export.to=...]"
+  exit 1
+fi
+output="$(cd "$(dirname "$1")" && pwd)/$(basename "$1")"
+shift
+
+mvn -B -q spring-boot:run -Dspring-boot.run.arguments="\
+--app.export.output=$output \
+--app.warm-up.enabled=false \
+--spring.main.web-application-type=none $*"
@@ -0,0 +1,13 @@
+#!/bin/bash
+set -e
+
+# Drives a request mix at the current build and writes a json report, eg:
+#   ./scripts/load-test.sh --label=$(git rev-parse --short HEAD) --rate=200 --duration=60s
+#   ./scripts/load-test.sh --label=candidate --baseline=target/load-test/baseline.json
+# Options and their defaults are listed in LoadTestOptions
+cd "$(dirname "$0")/.."
+
+mvn -B -q test-compile dependency:build-classpath -Dmdep.outputFile=target/test-classpath.txt -Dmdep.includeScope=test
+java ${JAVA_OPTS:---add-modules jdk.incubator.vector} \
+  -cp "target/classes:target/test-classes:$(cat target/test-classpath.txt)" \
+  com.github.jaycleverly.stock_info.loadtest.LoadTestHarness "$@"
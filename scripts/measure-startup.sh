@@ -0,0 +1,24 @@
+#!/bin/bash
+set -e
+
+# Measures time until readiness and resident memory of a build, eg:
+#   ./scripts/measure-startup.sh java -jar target/stock-info-0.0.1-SNAPSHOT.jar
+#   ./scripts/measure-startup.sh target/stock-info
+PORT=${PORT:-18080}
+
+start=$(date +%s%N)
+"$@" --server.port="$PORT" > /tmp/measure-startup.log 2>&1 &
+app=$!
+trap 'kill $app 2>/dev/null' EXIT
+
+until curl -sf "http://localhost:$PORT/actuator/health/readiness" > /dev/null; do
+  if ! kill -0 $app 2>/dev/null; then
+    echo "Application exited, see /tmp/measure-startup.log"
+    exit 1
+  fi
+  sleep 0.05
+done
+
+ready=$(( ($(date +%s%N) - start) / 1000000 ))
+rss=$(grep VmRSS /proc/$app/status | awk '{print $2}')
+echo "Ready in ${ready} ms, RSS $(( rss / 1024 )) MB"
@@ -28,4 +28,18 @@ aws dynamodb create-table \
   --output text \
   --no-cli-pager
 
+echo "Adding refresh lease table to local docker instance..."
+AWS_ACCESS_KEY_ID=dummyId AWS_SECRET_ACCESS_KEY=dummySecret \
+aws dynamodb create-table \
+  --table-name StockRefreshLeases \
+  --attribute-definitions \
+      AttributeName=symbol,AttributeType=S \
+  --key-schema \
+      AttributeName=symbol,KeyType=HASH \
+  --provisioned-throughput ReadCapacityUnits=5,WriteCapacityUnits=5 \
+  --endpoint-url http://localhost:8000 \
+  --region eu-west-2 \
+  --output text \
+  --no-cli-pager
+
 echo "Application running locally, ready for use!"
@@ -0,0 +1,96 @@
+package com.github.jaycleverly.stock_info.client;
+
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import com.github.jaycleverly.stock_info.config.properties.AppUpstreamProperties.CsvProviderProperties;
+import com.github.jaycleverly.stock_info.exception.ParserException;
+import com.github.jaycleverly.stock_info.exception.TimeSeriesApiException;
+import com.github.jaycleverly.stock_info.model.DailyStockRecord;
+import com.github.jaycleverly.stock_info.parser.StockRecordsParser;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+
+/**
+ * Class to get records from an api serving daily prices as csv (a header naming date, open, high, low and close
+ * columns, then a row per day), such as stooq's download url. Responses are converted to the normalized format.
+ */
+public class CsvTimeSeriesProvider implements TimeSeriesProvider {
+    private final String name;
+    private final String url;
+    private final String token;
+    private final RestTemplate restTemplate;
+    private final CircuitBreaker circuitBreaker;
+
+    /**
+     * Creates a new provider that calls a csv api to get stock time series data
+     *
+     * @param properties the properties of the csv api, its url taking the symbol then any token
+     * @param circuitBreaker the circuit breaker that fails calls fast while the api is failing or slow
+     */
+    public CsvTimeSeriesProvider(CsvProviderProperties properties, CircuitBreaker circuitBreaker) {
+        this.name = properties.name();
+        this.url = properties.url();
+        this.token = properties.token() == null ? "" : properties.token();
+        this.circuitBreaker = circuitBreaker;
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        if (properties.connectTimeout() != null) {
+            requestFactory.setConnectTimeout(properties.connectTimeout());
+        }
+        if (properties.readTimeout() != null) {
+            requestFactory.setReadTimeout(properties.readTimeout());
+        }
+        this.restTemplate = new RestTemplate(requestFactory);
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Returns the normalized daily time series of a stock
+     *
+     * @param symbol the stock to get records for
+     * @return json stock records in the normalized format
+     * @throws TimeSeriesApiException if an error occurs while processing the api request, with a 404 status if the
+     *         api has no prices for the stock and a 503 status while the circuit is open
+     */
+    @Override
+    public String getDailyTimeSeries(String symbol) throws TimeSeriesApiException {
+        try {
+            return circuitBreaker.executeSupplier(() -> requestDailyTimeSeries(symbol));
+        } catch (CallNotPermittedException exception) {
+            throw new TimeSeriesApiException(
+                String.format("API %s unavailable when getting records for %s, circuit is open!", name, symbol), HttpStatus.SERVICE_UNAVAILABLE.value(), exception);
+        }
+    }
+
+    private String requestDailyTimeSeries(String symbol) throws TimeSeriesApiException {
+        try {
+            String response = restTemplate.getForObject(String.format(url, symbol, token), String.class);
+            // Unknown stocks get a short message (eg: "No data") or a header alone rather than an error status
+            if (response == null || response.strip().lines().count() < 2) {
+                throw new HttpClientErrorException(HttpStatus.NOT_FOUND, String.format("Symbol %s not found!", symbol));
+            }
+
+            List<DailyStockRecord> records = StockRecordsParser.parseCsv(symbol, response);
+            return StockRecordsParser.normalize(symbol, name, records);
+
+        } catch (HttpClientErrorException exception) {
+            throw new TimeSeriesApiException(String.format("Encountered a 4xx error when getting records for %s from %s!", symbol, name), exception.getStatusCode().value(), exception);
+        } catch (HttpServerErrorException exception) {
+            throw new TimeSeriesApiException(String.format("Encountered a 5xx error when getting records for %s from %s!", symbol, name), exception.getStatusCode().value(), exception);
+        } catch (RestClientException | ParserException exception) {
+            throw new TimeSeriesApiException(String.format("Error when getting %s response for symbol %s!", name, symbol), HttpStatus.INTERNAL_SERVER_ERROR.value(), exception);
+        }
+    }
+}
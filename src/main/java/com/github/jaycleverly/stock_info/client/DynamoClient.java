@@ -1,31 +1,67 @@
 package com.github.jaycleverly.stock_info.client;
 
+import java.time.Duration;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
+import com.github.jaycleverly.stock_info.config.beans.ResilienceConfig;
+import com.github.jaycleverly.stock_info.config.properties.DynamoDbProperties;
 import com.github.jaycleverly.stock_info.exception.DynamoClientException;
 
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
 import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteResult;
+import software.amazon.awssdk.enhanced.dynamodb.model.GetItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.PutItemEnhancedRequest;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.WriteBatch;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
 
 /*
  * Client for dynamo db operations
  */
 @Component
 public class DynamoClient {
+    private static final int MAX_BATCH_WRITE_ITEMS = 25;
+    private static final int MAX_BATCH_WRITE_ATTEMPTS = 5;
+    private static final Duration BATCH_WRITE_BACKOFF = Duration.ofMillis(50);
+
     private final DynamoDbEnhancedClient client;
+    private final CircuitBreaker circuitBreaker;
+    private final ReadHedger readHedger;
+    private final Map<Class<?>, TableSchema<?>> schemas = new ConcurrentHashMap<>();
 
     /**
      * Creates a new client for interacting with dynamo db
      * 
      * @param instance the aws sdk dynamo instance to use
+     * @param tableSchemas schemas to use for item types instead of reading their bean annotations
+     * @param circuitBreaker the circuit breaker that fails calls fast while dynamo is failing or slow
+     * @param properties the properties set for dynamodb, for the deadline and hedging of reads
      */
-    public DynamoClient(DynamoDbEnhancedClient instance) {
+    public DynamoClient(DynamoDbEnhancedClient instance,
+                        List<TableSchema<?>> tableSchemas,
+                        @Qualifier(ResilienceConfig.DYNAMO_CIRCUIT_BREAKER) CircuitBreaker circuitBreaker,
+                        DynamoDbProperties properties) {
         this.client = instance;
+        this.circuitBreaker = circuitBreaker;
+        this.readHedger = new ReadHedger(properties.readDeadline(), properties.hedging());
+        tableSchemas.forEach(schema -> schemas.put(schema.itemType().rawClass(), schema));
     }
 
     /**
@@ -37,15 +73,99 @@ public class DynamoClient {
      */
     public <T> void putItem(String tableName, T item, Class<T> type) {
         try {
-            DynamoDbTable<T> table = client.table(tableName, TableSchema.fromBean(type));
-            table.putItem(item);
+            DynamoDbTable<T> table = client.table(tableName, schema(type));
+            circuitBreaker.executeRunnable(() -> table.putItem(item));
 
+        } catch (CallNotPermittedException e) {
+            throw unavailable(tableName, e);
         } catch (Exception e) {
             throw new DynamoClientException(
                 String.format("Exception when putting an item into table (%s)", tableName), e);
         }
     }
 
+    /**
+     * Puts an item into a table if a condition on the item it would replace holds
+     *
+     * @param tableName the name of the table to put the item into
+     * @param item the item to put into the table
+     * @param condition the condition the existing item must meet
+     * @param type the type of item to put into the table
+     * @return true if the item was put, false if the condition did not hold
+     */
+    public <T> boolean putItemIf(String tableName, T item, Expression condition, Class<T> type) {
+        try {
+            DynamoDbTable<T> table = client.table(tableName, schema(type));
+            PutItemEnhancedRequest<T> request = PutItemEnhancedRequest.builder(type)
+                .item(item)
+                .conditionExpression(condition)
+                .build();
+
+            // A failed condition is an answer rather than a failure, so is not counted by the circuit breaker
+            return circuitBreaker.executeCallable(() -> {
+                try {
+                    table.putItem(request);
+                    return true;
+                } catch (ConditionalCheckFailedException e) {
+                    return false;
+                }
+            });
+
+        } catch (CallNotPermittedException e) {
+            throw unavailable(tableName, e);
+        } catch (Exception e) {
+            throw new DynamoClientException(
+                String.format("Exception when conditionally putting an item into table (%s)", tableName), e);
+        }
+    }
+
+    /**
+     * Reads an item from a table with a strongly consistent read
+     *
+     * @param tableName the name of the table to look in
+     * @param key the key of the item to read
+     * @param type the type of the item to be returned
+     * @return the item, or null if there is none with the key
+     */
+    public <T> T getItem(String tableName, Key key, Class<T> type) {
+        try {
+            DynamoDbTable<T> table = client.table(tableName, schema(type));
+            return circuitBreaker.executeCallable(() -> table.getItem(GetItemEnhancedRequest.builder()
+                .key(key)
+                .consistentRead(true)
+                .build()));
+
+        } catch (CallNotPermittedException e) {
+            throw unavailable(tableName, e);
+        } catch (Exception e) {
+            throw new DynamoClientException(
+                String.format("Exception when getting an item from table (%s)", tableName), e);
+        }
+    }
+
+    /**
+     * Puts items into a table with as few batch writes as possible, retrying any items the table did not process
+     *
+     * @param tableName the name of the table to put the items into
+     * @param items the items to put into the table
+     * @param type the type of items to put into the table
+     */
+    public <T> void batchPutItems(String tableName, List<T> items, Class<T> type) {
+        try {
+            DynamoDbTable<T> table = client.table(tableName, schema(type));
+            for (int from = 0; from < items.size(); from += MAX_BATCH_WRITE_ITEMS) {
+                List<T> batch = items.subList(from, Math.min(items.size(), from + MAX_BATCH_WRITE_ITEMS));
+                circuitBreaker.executeCallable(() -> writeBatch(table, batch, type));
+            }
+
+        } catch (CallNotPermittedException e) {
+            throw unavailable(tableName, e);
+        } catch (Exception e) {
+            throw new DynamoClientException(
+                String.format("Exception when putting %d items into table (%s)", items.size(), tableName), e);
+        }
+    }
+
     /**
      * Queries a table with a custom expression
      *
@@ -57,18 +177,186 @@ public class DynamoClient {
      */
     public <T> List<T> query(String tableName, QueryConditional condition, int maxRecords, Class<T> type) {
         try {
-            DynamoDbTable<T> table = client.table(tableName, TableSchema.fromBean(type));
-            return table.query(QueryEnhancedRequest.builder()
+            DynamoDbTable<T> table = client.table(tableName, schema(type));
+            return circuitBreaker.executeCallable(() -> readHedger.read(() -> table.query(QueryEnhancedRequest.builder()
                     .queryConditional(condition)
                     .limit(maxRecords)
                     .build())
                     .items()
                     .stream()
-                    .toList();
+                    .toList()));
 
+        } catch (CallNotPermittedException e) {
+            throw unavailable(tableName, e);
         } catch (Exception e) {
             throw new DynamoClientException(
                 String.format("Exception when querying table (%s)", tableName), e);
         }
     }
+
+    /**
+     * Queries a table for the items of a partition with the highest sort keys
+     *
+     * @param tableName the name of the table to look in
+     * @param partitionValue the partition key of the items to read
+     * @param maxRecords the maximum number of records to return
+     * @param type the type of the values to be returned
+     * @return up to maxRecords items with the highest sort keys, in ascending sort key order
+     */
+    public <T> List<T> queryLatest(String tableName, String partitionValue, int maxRecords, Class<T> type) {
+        try {
+            DynamoDbTable<T> table = client.table(tableName, schema(type));
+
+            // Read backwards from the end of the partition so only the requested items are read
+            return circuitBreaker.executeCallable(() -> readHedger.read(() -> table.query(QueryEnhancedRequest.builder()
+                    .queryConditional(QueryConditional.keyEqualTo(Key.builder().partitionValue(partitionValue).build()))
+                    .scanIndexForward(false)
+                    .limit(maxRecords)
+                    .build())
+                    .items()
+                    .stream()
+                    .limit(maxRecords)
+                    .toList()
+                    .reversed()));
+
+        } catch (CallNotPermittedException e) {
+            throw unavailable(tableName, e);
+        } catch (Exception e) {
+            throw new DynamoClientException(
+                String.format("Exception when querying table (%s)", tableName), e);
+        }
+    }
+
+    /**
+     * Queries a table for the items of a partition with a sort key between two values (inclusive)
+     *
+     * @param tableName the name of the table to look in
+     * @param partitionValue the partition key of the items to read
+     * @param sortFrom the lowest sort key value to read
+     * @param sortTo the highest sort key value to read
+     * @param maxRecords the maximum number of records to return
+     * @param type the type of the values to be returned
+     * @return the matching items in ascending sort key order
+     */
+    public <T> List<T> queryBetween(String tableName,
+                                    String partitionValue,
+                                    String sortFrom,
+                                    String sortTo,
+                                    int maxRecords,
+                                    Class<T> type) {
+        try {
+            DynamoDbTable<T> table = client.table(tableName, schema(type));
+            QueryConditional condition = QueryConditional.sortBetween(
+                Key.builder().partitionValue(partitionValue).sortValue(sortFrom).build(),
+                Key.builder().partitionValue(partitionValue).sortValue(sortTo).build());
+
+            // Stop paging once enough items are read rather than draining the whole partition
+            return circuitBreaker.executeCallable(() -> readHedger.read(() -> table.query(QueryEnhancedRequest.builder()
+                    .queryConditional(condition)
+                    .limit(maxRecords)
+                    .build())
+                    .items()
+                    .stream()
+                    .limit(maxRecords)
+                    .toList()));
+
+        } catch (CallNotPermittedException e) {
+            throw unavailable(tableName, e);
+        } catch (Exception e) {
+            throw new DynamoClientException(
+                String.format("Exception when querying table (%s)", tableName), e);
+        }
+    }
+
+    /**
+     * Scans one segment of a table page by page, so a parallel scan holds no more than a page per segment at once
+     *
+     * @param tableName the name of the table to scan
+     * @param segment the segment to scan, from 0
+     * @param totalSegments the number of segments the table is divided into
+     * @param filter the condition items must meet to be returned, null for every item
+     * @param pageSize the maximum number of items read by each request
+     * @param type the type of the values to be returned
+     * @param pageConsumer called with the matching items of each page in turn
+     */
+    public <T> void scanSegment(String tableName,
+                                int segment,
+                                int totalSegments,
+                                Expression filter,
+                                int pageSize,
+                                Class<T> type,
+                                Consumer<List<T>> pageConsumer) {
+        try {
+            DynamoDbTable<T> table = client.table(tableName, schema(type));
+            Iterator<Page<T>> pages = table.scan(ScanEnhancedRequest.builder()
+                    .segment(segment)
+                    .totalSegments(totalSegments)
+                    .filterExpression(filter)
+                    .limit(pageSize)
+                    .build())
+                .iterator();
+
+            // Each page is read by its own request, so is guarded by the circuit breaker on its own
+            while (pages.hasNext()) {
+                List<T> items = circuitBreaker.executeCallable(pages::next).items();
+                if (!items.isEmpty()) {
+                    pageConsumer.accept(items);
+                }
+            }
+
+        } catch (CallNotPermittedException e) {
+            throw unavailable(tableName, e);
+        } catch (Exception e) {
+            throw new DynamoClientException(
+                String.format("Exception when scanning segment %d of %d of table (%s)", segment, totalSegments, tableName), e);
+        }
+    }
+
+    /**
+     * Builds the schema of an item type and round trips to a table, so later calls avoid the setup cost
+     *
+     * @param tableName the name of the table to describe
+     * @param type the type of item stored in the table
+     */
+    public <T> void warmUp(String tableName, Class<T> type) {
+        try {
+            client.table(tableName, schema(type)).describeTable();
+
+        } catch (Exception e) {
+            throw new DynamoClientException(
+                String.format("Exception when describing table (%s)", tableName), e);
+        }
+    }
+
+    // Unprocessed items are throttled by the table, so are retried with an exponential backoff
+    private <T> Void writeBatch(DynamoDbTable<T> table, List<T> batch, Class<T> type) throws InterruptedException {
+        List<T> pending = batch;
+        for (int attempt = 0; !pending.isEmpty(); attempt++) {
+            if (attempt == MAX_BATCH_WRITE_ATTEMPTS) {
+                throw new DynamoClientException(String.format(
+                    "%d items were not processed by table (%s) after %d attempts", pending.size(), table.tableName(), attempt), null);
+            }
+            if (attempt > 0) {
+                Thread.sleep(BATCH_WRITE_BACKOFF.multipliedBy(1L << (attempt - 1)));
+            }
+
+            WriteBatch.Builder<T> writeBatch = WriteBatch.builder(type).mappedTableResource(table);
+            pending.forEach(writeBatch::addPutItem);
+            BatchWriteResult result = client.batchWriteItem(BatchWriteItemEnhancedRequest.builder()
+                .writeBatches(writeBatch.build())
+                .build());
+            pending = result.unprocessedPutItemsForTable(table);
+        }
+        return null;
+    }
+
+    private static DynamoClientException unavailable(String tableName, CallNotPermittedException cause) {
+        return new DynamoClientException(String.format("Table (%s) unavailable, circuit is open", tableName), cause);
+    }
+
+    // Bean schemas are built by reflection so are expensive to create on every call, registered schemas take priority
+    @SuppressWarnings("unchecked")
+    private <T> TableSchema<T> schema(Class<T> type) {
+        return (TableSchema<T>) schemas.computeIfAbsent(type, TableSchema::fromBean);
+    }
 }
@@ -0,0 +1,280 @@
+package com.github.jaycleverly.stock_info.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.github.jaycleverly.stock_info.config.beans.ResilienceConfig;
+import com.github.jaycleverly.stock_info.config.properties.AppApiProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppIntradayProperties;
+import com.github.jaycleverly.stock_info.exception.ParserException;
+import com.github.jaycleverly.stock_info.exception.TimeSeriesApiException;
+import com.github.jaycleverly.stock_info.model.IntradayInterval;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+
+/**
+ * Class to get intraday bars from an api returning intraday time series stock data (Alpha Vantage).
+ *
+ * Responses are read as a stream of tokens straight into primitive arrays, timestamps and field names compared as
+ * characters, so reading bars builds no tree or object per bar. Bars arrive newest first and are passed on oldest first.
+ */
+@Component
+public class IntradayApiClient {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final String TIME_SERIES_PREFIX = "Time Series";
+    private static final int TIMESTAMP_LENGTH = 16;
+
+    private final String apiUrl;
+    private final String apiToken;
+    private final RestTemplate restTemplate;
+    private final CircuitBreaker circuitBreaker;
+
+    /**
+     * Bars read from a response, in the order read
+     */
+    private static final class Bars {
+        private long[] minutes = new long[128];
+        private double[] open = new double[128];
+        private double[] high = new double[128];
+        private double[] low = new double[128];
+        private double[] close = new double[128];
+        private long[] volume = new long[128];
+        private int size;
+        private boolean found;
+
+        private void add(long minute, double barOpen, double barHigh, double barLow, double barClose, long barVolume) {
+            if (size == minutes.length) {
+                int grown = size * 2;
+                minutes = Arrays.copyOf(minutes, grown);
+                open = Arrays.copyOf(open, grown);
+                high = Arrays.copyOf(high, grown);
+                low = Arrays.copyOf(low, grown);
+                close = Arrays.copyOf(close, grown);
+                volume = Arrays.copyOf(volume, grown);
+            }
+            minutes[size] = minute;
+            open[size] = barOpen;
+            high[size] = barHigh;
+            low[size] = barLow;
+            close[size] = barClose;
+            volume[size] = barVolume;
+            size++;
+        }
+    }
+
+    /**
+     * Creates a new client that calls an api to get intraday stock time series data
+     *
+     * @param apiProperties the properties of the external api, for its token and timeouts
+     * @param intradayProperties the properties set for intraday bars, for the api url
+     * @param circuitBreaker the circuit breaker that fails calls fast while the api is failing or slow
+     */
+    public IntradayApiClient(AppApiProperties apiProperties,
+                             AppIntradayProperties intradayProperties,
+                             @Qualifier(ResilienceConfig.UPSTREAM_API_CIRCUIT_BREAKER) CircuitBreaker circuitBreaker) {
+        this.apiUrl = intradayProperties.url();
+        this.apiToken = apiProperties.token() == null ? "" : apiProperties.token();
+        this.circuitBreaker = circuitBreaker;
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        if (apiProperties.connectTimeout() != null) {
+            requestFactory.setConnectTimeout(apiProperties.connectTimeout());
+        }
+        if (apiProperties.readTimeout() != null) {
+            requestFactory.setReadTimeout(apiProperties.readTimeout());
+        }
+        this.restTemplate = new RestTemplate(requestFactory);
+    }
+
+    /**
+     * Reads the intraday bars of a stock newer than those already held into a sink, oldest first
+     *
+     * @param symbol the stock to get bars for
+     * @param interval the bar size
+     * @param full if true request every bar the api holds (about a month), else only the latest hundred
+     * @param after the start of the latest bar already held in minutes since the epoch, {@link Long#MIN_VALUE} if none
+     * @param sink the receiver of the newer bars, told first if the response did not reach back to the latest bar held
+     * @return the number of bars passed to the sink
+     * @throws TimeSeriesApiException if an error occurs while processing the api request, with a 404 status if the
+     *         api does not know the stock and a 503 status while the circuit is open
+     */
+    public int getIntradayBars(String symbol,
+                               IntradayInterval interval,
+                               boolean full,
+                               long after,
+                               IntradayBarSink sink) throws TimeSeriesApiException {
+        try {
+            return circuitBreaker.executeSupplier(() -> requestIntradayBars(symbol, interval, full, after, sink));
+        } catch (CallNotPermittedException exception) {
+            throw new TimeSeriesApiException(
+                String.format("API unavailable when getting intraday bars for %s, circuit is open!", symbol), HttpStatus.SERVICE_UNAVAILABLE.value(), exception);
+        }
+    }
+
+    private int requestIntradayBars(String symbol,
+                                    IntradayInterval interval,
+                                    boolean full,
+                                    long after,
+                                    IntradayBarSink sink) throws TimeSeriesApiException {
+        try {
+            // User must have entered a token into application properties
+            if (apiToken.isBlank()) {
+                throw new HttpClientErrorException(HttpStatus.UNAUTHORIZED, "Invalid token!");
+            }
+
+            String url = String.format(apiUrl, symbol, interval.getLabel(), full ? "full" : "compact", apiToken);
+            Bars bars = restTemplate.execute(url, HttpMethod.GET, null, response -> readBars(symbol, response.getBody()));
+            if (bars == null || !bars.found) {
+                throw new ParserException(String.format("No intraday time series in response for %s!", symbol), null);
+            }
+            return passOn(bars, after, sink);
+
+        } catch (HttpClientErrorException exception) {
+            throw new TimeSeriesApiException(String.format("Encountered a 4xx error when getting intraday bars for %s!", symbol), exception.getStatusCode().value(), exception);
+        } catch (HttpServerErrorException exception) {
+            throw new TimeSeriesApiException(String.format("Encountered a 5xx error when getting intraday bars for %s!", symbol), exception.getStatusCode().value(), exception);
+        } catch (RestClientException | ParserException exception) {
+            throw new TimeSeriesApiException(String.format("Error when getting intraday API response for symbol %s!", symbol), HttpStatus.INTERNAL_SERVER_ERROR.value(), exception);
+        }
+    }
+
+    private static Bars readBars(String symbol, InputStream body) throws IOException {
+        Bars bars = new Bars();
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new ParserException(String.format("Intraday response for %s is not a JSON object!", symbol), null);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if (field.equals("Error Message")) {
+                    throw new HttpClientErrorException(HttpStatus.NOT_FOUND, String.format("Symbol %s not found!", symbol));
+                }
+                if (field.equals("Information") || field.equals("Note")) {
+                    throw new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS, "API rate limit hit! (Refreshes every day)");
+                }
+                if (field.startsWith(TIME_SERIES_PREFIX)) {
+                    readSeries(parser, bars);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return bars;
+    }
+
+    private static void readSeries(JsonParser parser, Bars bars) throws IOException {
+        bars.found = true;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            long minute = epochMinute(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new ParserException("Intraday bar is not a JSON object!", null);
+            }
+
+            double barOpen = Double.NaN;
+            double barHigh = Double.NaN;
+            double barLow = Double.NaN;
+            double barClose = Double.NaN;
+            long barVolume = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                // Fields are numbered, eg: "1. open"
+                char number = parser.getTextLength() > 0 ? parser.getTextCharacters()[parser.getTextOffset()] : ' ';
+                parser.nextToken();
+                switch (number) {
+                    case '1' -> barOpen = parser.getValueAsDouble(Double.NaN);
+                    case '2' -> barHigh = parser.getValueAsDouble(Double.NaN);
+                    case '3' -> barLow = parser.getValueAsDouble(Double.NaN);
+                    case '4' -> barClose = parser.getValueAsDouble(Double.NaN);
+                    case '5' -> barVolume = parser.getValueAsLong(0);
+                    default -> parser.skipChildren();
+                }
+            }
+            if (Double.isNaN(barOpen) || Double.isNaN(barHigh) || Double.isNaN(barLow) || Double.isNaN(barClose)) {
+                throw new ParserException("Intraday bar is missing a price!", null);
+            }
+            bars.add(minute, barOpen, barHigh, barLow, barClose, barVolume);
+        }
+    }
+
+    private static int passOn(Bars bars, long after, IntradayBarSink sink) {
+        if (bars.size == 0) {
+            return 0;
+        }
+        boolean newestFirst = bars.minutes[0] > bars.minutes[bars.size - 1];
+        long oldest = newestFirst ? bars.minutes[bars.size - 1] : bars.minutes[0];
+        if (after != Long.MIN_VALUE && oldest > after) {
+            sink.missedBars();
+        }
+
+        int passed = 0;
+        for (int i = 0; i < bars.size; i++) {
+            int bar = newestFirst ? bars.size - 1 - i : i;
+            if (bars.minutes[bar] > after) {
+                sink.accept(bars.minutes[bar], bars.open[bar], bars.high[bar], bars.low[bar], bars.close[bar], bars.volume[bar]);
+                passed++;
+            }
+        }
+        return passed;
+    }
+
+    /**
+     * Reads a timestamp such as 2025-08-27 15:55:00 as minutes since the epoch, seconds ignored
+     *
+     * @param text the characters holding the timestamp
+     * @param offset the position of the timestamp in the characters
+     * @param length the length of the timestamp
+     * @return the minutes from 1970-01-01 00:00 to the timestamp, read as if in UTC
+     * @throws ParserException if the characters are not a timestamp
+     */
+    static long epochMinute(char[] text, int offset, int length) throws ParserException {
+        if (length < TIMESTAMP_LENGTH || text[offset + 4] != '-' || text[offset + 7] != '-' || text[offset + 13] != ':') {
+            throw new ParserException(String.format("Invalid intraday timestamp %s!", new String(text, offset, length)), null);
+        }
+        long year = digits(text, offset, 4);
+        int month = (int) digits(text, offset + 5, 2);
+        int day = (int) digits(text, offset + 8, 2);
+        long hour = digits(text, offset + 11, 2);
+        long minute = digits(text, offset + 14, 2);
+        if (month < 1 || month > 12 || day < 1 || day > 31 || hour > 23 || minute > 59) {
+            throw new ParserException(String.format("Invalid intraday timestamp %s!", new String(text, offset, length)), null);
+        }
+        return epochDay(year, month, day) * 24 * 60 + hour * 60 + minute;
+    }
+
+    private static long digits(char[] text, int offset, int count) throws ParserException {
+        long value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            char next = text[i];
+            if (next < '0' || next > '9') {
+                throw new ParserException(String.format("Invalid intraday timestamp %s!", new String(text, offset, count)), null);
+            }
+            value = value * 10 + (next - '0');
+        }
+        return value;
+    }
+
+    // Days from 1970-01-01 to a date of the proleptic gregorian calendar, as LocalDate#toEpochDay without the object
+    private static long epochDay(long year, int month, int day) {
+        long shiftedYear = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(shiftedYear, 400);
+        long yearOfEra = shiftedYear - era * 400;
+        long dayOfYear = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.jaycleverly.stock_info.client;
+
+/**
+ * Receives the intraday bars read from an api response as primitives, oldest first
+ */
+public interface IntradayBarSink {
+    /**
+     * Told before any bars when the response did not reach back to the last bar already held, so bars between may be missing
+     */
+    void missedBars();
+
+    /**
+     * Receives a bar newer than any received before
+     *
+     * @param minute the start of the bar in minutes since the epoch, in exchange local time
+     * @param open the opening price of the bar
+     * @param high the highest price of the bar
+     * @param low the lowest price of the bar
+     * @param close the closing price of the bar
+     * @param volume the shares traded in the bar
+     */
+    void accept(long minute, double open, double high, double low, double close, long volume);
+}
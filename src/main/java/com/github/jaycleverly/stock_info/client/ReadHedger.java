@@ -0,0 +1,152 @@
+package com.github.jaycleverly.stock_info.client;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.jaycleverly.stock_info.config.properties.DynamoDbProperties.HedgingProperties;
+import com.github.jaycleverly.stock_info.util.LatencyHistogram;
+
+/**
+ * Runs reads within a deadline, sending a second (hedged) read when the first is slower than most recent reads.
+ *
+ * The hedge delay is a percentile of recently observed read latencies, never below a floor so ordinary jitter does
+ * not hedge. Each read earns a fraction of a hedge (the max rate) up to a small burst, so hedges are capped at that
+ * fraction of reads and a slow dependency cannot be overloaded by doubled traffic.
+ * The first read to succeed is returned and the other is cancelled.
+ */
+class ReadHedger {
+    private static final long TOKEN = 1_000;
+    private static final long MAX_TOKENS = 10 * TOKEN;
+
+    private final Duration deadline;
+    private final boolean enabled;
+    private final double percentile;
+    private final Duration minDelay;
+    private final long tokensPerRead;
+    private final int minSamples;
+    private final LatencyHistogram latencies;
+    private final AtomicLong hedgeTokens = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Creates a new hedger
+     *
+     * @param deadline the longest a read may take including any hedge, null for no deadline
+     * @param properties the properties set for hedging, null to disable hedging
+     */
+    ReadHedger(Duration deadline, HedgingProperties properties) {
+        this.deadline = deadline;
+        this.enabled = properties != null && properties.enabled();
+        this.percentile = enabled ? properties.percentile() : 1;
+        this.minDelay = enabled ? properties.minDelay() : Duration.ZERO;
+        this.tokensPerRead = enabled ? Math.round(properties.maxRate() * TOKEN) : 0;
+        this.minSamples = enabled ? properties.minSamples() : Integer.MAX_VALUE;
+        this.latencies = new LatencyHistogram(enabled ? properties.windowSize() : 1);
+    }
+
+    /**
+     * Runs a read, hedging it if it is slow
+     *
+     * @param read the read to run, must be safe to run twice at once
+     * @return the result of the first read to succeed
+     * @throws TimeoutException if no read succeeds within the deadline
+     * @throws Exception the failure of the read if every attempt fails
+     */
+    <T> T read(Callable<T> read) throws Exception {
+        if (deadline == null && !enabled) {
+            return read.call();
+        }
+
+        long start = System.nanoTime();
+        long deadlineNanos = deadline != null ? start + deadline.toNanos() : Long.MAX_VALUE;
+        hedgeTokens.getAndUpdate(tokens -> Math.min(MAX_TOKENS, tokens + tokensPerRead));
+
+        CompletionService<T> attempts = new ExecutorCompletionService<>(executor);
+        Future<T> primary = attempts.submit(timed(read));
+        Future<T> hedge = null;
+        try {
+            Future<T> first = attempts.poll(Math.min(hedgeDelay().toNanos(), remaining(deadlineNanos)), TimeUnit.NANOSECONDS);
+            if (first == null && System.nanoTime() < deadlineNanos && tryHedge()) {
+                hedge = attempts.submit(timed(read));
+            }
+
+            ExecutionException failure = null;
+            for (int pending = hedge != null ? 2 : 1; pending > 0; pending--) {
+                Future<T> completed = first != null ? first : attempts.poll(remaining(deadlineNanos), TimeUnit.NANOSECONDS);
+                first = null;
+                if (completed == null) {
+                    throw new TimeoutException(String.format("Read did not complete within %s", deadline));
+                }
+                try {
+                    return completed.get();
+                } catch (ExecutionException exception) {
+                    failure = failure != null ? failure : exception;
+                }
+            }
+            throw failure.getCause() instanceof Exception cause ? cause : failure;
+
+        } finally {
+            // A first read still running lost the race, count the time it ran for so the delay is not biased to fast reads
+            if (!primary.isDone() && primary.cancel(true)) {
+                latencies.record(Duration.ofNanos(System.nanoTime() - start));
+            }
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * @return the current delay before a read is hedged
+     */
+    Duration hedgeDelay() {
+        if (!enabled || latencies.count() < minSamples) {
+            return deadline != null ? deadline : Duration.ofNanos(Long.MAX_VALUE);
+        }
+        Duration observed = latencies.percentile(percentile);
+        return observed.compareTo(minDelay) > 0 ? observed : minDelay;
+    }
+
+    /**
+     * @return the number of hedged reads sent
+     */
+    long hedgeCount() {
+        return hedges.get();
+    }
+
+    private boolean tryHedge() {
+        while (true) {
+            long tokens = hedgeTokens.get();
+            if (tokens < TOKEN) {
+                return false;
+            }
+            if (hedgeTokens.compareAndSet(tokens, tokens - TOKEN)) {
+                hedges.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    private <T> Callable<T> timed(Callable<T> read) {
+        return () -> {
+            long start = System.nanoTime();
+            T result = read.call();
+            latencies.record(Duration.ofNanos(System.nanoTime() - start));
+            return result;
+        };
+    }
+
+    private static long remaining(long deadlineNanos) {
+        return Math.max(0, deadlineNanos - System.nanoTime());
+    }
+}
@@ -1,6 +1,8 @@
 package com.github.jaycleverly.stock_info.client;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
@@ -10,30 +12,54 @@ import org.springframework.web.client.RestTemplate;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.jaycleverly.stock_info.config.beans.ResilienceConfig;
 import com.github.jaycleverly.stock_info.config.properties.AppApiProperties;
 import com.github.jaycleverly.stock_info.exception.TimeSeriesApiException;
 
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import software.amazon.awssdk.http.HttpStatusCode;
 
 /**
- * Class to get records from an api returning daily time series stock data
+ * Class to get records from an api returning daily time series stock data (Alpha Vantage), whose responses are in
+ * the normalized format as they are
  */
 @Component
-public class TimeSeriesApiClient {
-    private static final RestTemplate REST_TEMPLATE = new RestTemplate();
+public class TimeSeriesApiClient implements TimeSeriesProvider {
+    public static final String NAME = "alpha-vantage";
+
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
     private final String apiUrl;
     private final String apiToken;
+    private final RestTemplate restTemplate;
+    private final CircuitBreaker circuitBreaker;
 
     /**
      * Creates a new client that calls an api to get stock time series data
      * 
      * @param apiProperties the properties of the external api
+     * @param circuitBreaker the circuit breaker that fails calls fast while the api is failing or slow
      */
-    public TimeSeriesApiClient(AppApiProperties apiProperties) {
+    public TimeSeriesApiClient(AppApiProperties apiProperties,
+                               @Qualifier(ResilienceConfig.UPSTREAM_API_CIRCUIT_BREAKER) CircuitBreaker circuitBreaker) {
         this.apiUrl = apiProperties.url();
         this.apiToken = apiProperties.token();
+        this.circuitBreaker = circuitBreaker;
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        if (apiProperties.connectTimeout() != null) {
+            requestFactory.setConnectTimeout(apiProperties.connectTimeout());
+        }
+        if (apiProperties.readTimeout() != null) {
+            requestFactory.setReadTimeout(apiProperties.readTimeout());
+        }
+        this.restTemplate = new RestTemplate(requestFactory);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
     }
 
     /**
@@ -41,16 +67,26 @@ public class TimeSeriesApiClient {
      * 
      * @param symbol the stock to get a response for
      * @return json stock records
-     * @throws TimeSeriesApiException if an error occurs while processing the api request
+     * @throws TimeSeriesApiException if an error occurs while processing the api request, with a 503 status while the circuit is open
      */
+    @Override
     public String getDailyTimeSeries(String symbol) throws TimeSeriesApiException {
+        try {
+            return circuitBreaker.executeSupplier(() -> requestDailyTimeSeries(symbol));
+        } catch (CallNotPermittedException exception) {
+            throw new TimeSeriesApiException(
+                String.format("API unavailable when getting records for %s, circuit is open!", symbol), HttpStatusCode.SERVICE_UNAVAILABLE, exception);
+        }
+    }
+
+    private String requestDailyTimeSeries(String symbol) throws TimeSeriesApiException {
         try {
             // User must have entered a token into application properties
             if (apiToken.isBlank()) {
                 throw new HttpClientErrorException(HttpStatus.UNAUTHORIZED, String.format("Invalid token!", symbol));
             }
 
-            String response = REST_TEMPLATE.getForObject(String.format(apiUrl, symbol, apiToken), String.class);
+            String response = restTemplate.getForObject(String.format(apiUrl, symbol, apiToken), String.class);
             JsonNode jsonResponse = OBJECT_MAPPER.readTree(response);
 
             if (jsonResponse.has("Error Message")) {
@@ -0,0 +1,27 @@
+package com.github.jaycleverly.stock_info.client;
+
+import com.github.jaycleverly.stock_info.exception.TimeSeriesApiException;
+
+/**
+ * A source of daily time series stock data.
+ *
+ * Whatever a provider's own response looks like, it returns the normalized daily time series json read by
+ * {@link com.github.jaycleverly.stock_info.parser.StockRecordsParser#parse}, so the rest of the app, and the payloads
+ * stored from it, need not know which provider answered.
+ */
+public interface TimeSeriesProvider {
+    /**
+     * @return the name of the provider, eg: alpha-vantage
+     */
+    String name();
+
+    /**
+     * Returns the normalized daily time series of a stock
+     * 
+     * @param symbol the stock to get records for
+     * @return json stock records in the normalized format
+     * @throws TimeSeriesApiException if the records cannot be got, with a 404 status for an unknown stock, a 429 status
+     *         once the provider's quota is used up and a 503 status while the provider is unavailable
+     */
+    String getDailyTimeSeries(String symbol) throws TimeSeriesApiException;
+}
@@ -0,0 +1,185 @@
+package com.github.jaycleverly.stock_info.client;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+
+import com.github.jaycleverly.stock_info.config.properties.AppUpstreamProperties;
+import com.github.jaycleverly.stock_info.exception.TimeSeriesApiException;
+
+/**
+ * Gets each stock's records from whichever upstream provider is fastest and has quota left, failing over to the
+ * others in turn when it fails.
+ *
+ * Each provider's latency is averaged over its recent calls (exponentially weighted), failed calls counting a penalty
+ * on top so a failing provider drops behind the working ones. Providers not yet called are tried first, to measure
+ * them. Calls are counted against each provider's daily quota (reset at midnight UTC) and a provider is skipped once
+ * its quota is used up, or for a while after it reports a rate limit; providers with little quota left are only
+ * tried after those with more. If every provider fails the same way that failure is passed on, so a stock no
+ * provider knows is still reported as not found; mixed failures are reported as unavailable.
+ */
+public class TimeSeriesRouter implements TimeSeriesProvider {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimeSeriesRouter.class);
+
+    public static final String NAME = "router";
+
+    private final List<Route> routes = new ArrayList<>();
+    private final double latencySmoothing;
+    private final long failurePenaltyNanos;
+    private final long rateLimitedForMillis;
+    private final double lowQuotaShare;
+    private final Clock clock;
+
+    /**
+     * A provider with its quota and observed latency
+     */
+    private static final class Route {
+        private final TimeSeriesProvider provider;
+        private final int dailyQuota;
+        private LocalDate quotaDay;
+        private int used;
+        private long rateLimitedUntil;
+        private double latencyNanos = -1;
+
+        private Route(TimeSeriesProvider provider, int dailyQuota) {
+            this.provider = provider;
+            this.dailyQuota = dailyQuota;
+        }
+
+        // Share of today's quota left, 1 for an unlimited provider and 0 while rate limited
+        private synchronized double remainingShare(LocalDate today, long nowMillis) {
+            if (nowMillis < rateLimitedUntil) {
+                return 0;
+            }
+            if (dailyQuota <= 0) {
+                return 1;
+            }
+            return today.equals(quotaDay) ? (double) (dailyQuota - used) / dailyQuota : 1;
+        }
+
+        private synchronized boolean tryReserve(LocalDate today, long nowMillis) {
+            if (nowMillis < rateLimitedUntil) {
+                return false;
+            }
+            if (!today.equals(quotaDay)) {
+                quotaDay = today;
+                used = 0;
+            }
+            if (dailyQuota > 0 && used >= dailyQuota) {
+                return false;
+            }
+            used++;
+            return true;
+        }
+
+        private synchronized void recordLatency(long nanos, double smoothing) {
+            latencyNanos = latencyNanos < 0 ? nanos : latencyNanos + smoothing * (nanos - latencyNanos);
+        }
+
+        private synchronized void rateLimitUntil(long untilMillis) {
+            rateLimitedUntil = untilMillis;
+        }
+
+        private synchronized double latencyNanos() {
+            return latencyNanos;
+        }
+    }
+
+    /**
+     * A route's standing at the start of a call
+     */
+    private record Candidate(Route route, boolean lowQuota, double latencyNanos) {}
+
+    /**
+     * Creates a new router over upstream providers
+     *
+     * @param properties the properties set for routing between upstream providers
+     * @param providers the providers to route between, earlier ones preferred while latencies are equal
+     */
+    public TimeSeriesRouter(AppUpstreamProperties properties, List<TimeSeriesProvider> providers) {
+        this(properties, providers, Clock.systemUTC());
+    }
+
+    TimeSeriesRouter(AppUpstreamProperties properties, List<TimeSeriesProvider> providers, Clock clock) {
+        Map<String, Integer> dailyQuotas = properties.dailyQuotas() == null ? Map.of() : properties.dailyQuotas();
+        for (TimeSeriesProvider provider : providers) {
+            routes.add(new Route(provider, dailyQuotas.getOrDefault(provider.name(), 0)));
+        }
+        this.latencySmoothing = properties.latencySmoothing();
+        this.failurePenaltyNanos = properties.failurePenalty() == null ? 0 : properties.failurePenalty().toNanos();
+        this.rateLimitedForMillis = properties.rateLimitedFor() == null ? 0 : properties.rateLimitedFor().toMillis();
+        this.lowQuotaShare = properties.lowQuotaShare();
+        this.clock = clock;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    /**
+     * Returns the normalized daily time series of a stock from the first provider to succeed
+     *
+     * @param symbol the stock to get records for
+     * @return json stock records in the normalized format
+     * @throws TimeSeriesApiException if no provider succeeds: the providers' failure if they all failed the same way,
+     *         a 429 status if none had quota left, else a 503 status
+     */
+    @Override
+    public String getDailyTimeSeries(String symbol) throws TimeSeriesApiException {
+        List<TimeSeriesApiException> failures = new ArrayList<>();
+        for (Route route : byPreference()) {
+            if (!route.tryReserve(LocalDate.now(clock), clock.millis())) {
+                continue;
+            }
+            if (!failures.isEmpty()) {
+                LOGGER.warn(String.format("Failing over to provider %s for stock %s (%s)", route.provider.name(), symbol, failures.getLast().getMessage()));
+            }
+
+            long start = System.nanoTime();
+            try {
+                String response = route.provider.getDailyTimeSeries(symbol);
+                route.recordLatency(System.nanoTime() - start, latencySmoothing);
+                return response;
+
+            } catch (TimeSeriesApiException exception) {
+                long elapsed = System.nanoTime() - start;
+                if (exception.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+                    route.rateLimitUntil(clock.millis() + rateLimitedForMillis);
+                }
+                // Not knowing a stock is an answer, not a failure of the provider
+                route.recordLatency(exception.getStatusCode() == HttpStatus.NOT_FOUND.value() ? elapsed : elapsed + failurePenaltyNanos, latencySmoothing);
+                failures.add(exception);
+            }
+        }
+
+        if (failures.isEmpty()) {
+            throw new TimeSeriesApiException(
+                String.format("No upstream provider has quota left to get records for %s!", symbol), HttpStatus.TOO_MANY_REQUESTS.value(), null);
+        }
+        int firstStatus = failures.getFirst().getStatusCode();
+        if (failures.stream().allMatch(failure -> failure.getStatusCode() == firstStatus)) {
+            throw failures.getLast();
+        }
+        throw new TimeSeriesApiException(
+            String.format("Every upstream provider failed to get records for %s!", symbol), HttpStatus.SERVICE_UNAVAILABLE.value(), failures.getLast());
+    }
+
+    // Providers with quota to spare first, then the fastest, unmeasured ones counting as fastest
+    private List<Route> byPreference() {
+        LocalDate today = LocalDate.now(clock);
+        long now = clock.millis();
+        return routes.stream()
+            .map(route -> new Candidate(route, route.remainingShare(today, now) < lowQuotaShare, route.latencyNanos()))
+            .sorted(Comparator.comparing(Candidate::lowQuota).thenComparingDouble(Candidate::latencyNanos))
+            .map(Candidate::route)
+            .toList();
+    }
+}
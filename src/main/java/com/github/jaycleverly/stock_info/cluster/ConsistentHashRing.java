@@ -0,0 +1,83 @@
+package com.github.jaycleverly.stock_info.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Assigns keys to members by consistent hashing, so adding or removing a member only moves the keys it gains or loses.
+ *
+ * Each member is placed on a ring of 64 bit hashes at many points (virtual nodes), which evens out the share of keys
+ * each member owns. A key belongs to the member at the first point at or after the key's hash. Hashes are computed
+ * the same way on every instance, so instances configured with the same members agree on every key's owner.
+ */
+public class ConsistentHashRing {
+    private final List<String> members;
+    private final long[] points;
+    private final int[] owners;
+
+    /**
+     * Creates a new ring
+     *
+     * @param members the members to assign keys to
+     * @param virtualNodes the number of points each member is placed at
+     * @throws IllegalArgumentException if there are no members or virtual nodes
+     */
+    public ConsistentHashRing(List<String> members, int virtualNodes) throws IllegalArgumentException {
+        if (members.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("A hash ring needs at least one member and virtual node!");
+        }
+        this.members = List.copyOf(members);
+
+        // Sorted by hash with each point's member alongside
+        long[][] placed = new long[members.size() * virtualNodes][];
+        for (int member = 0; member < members.size(); member++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                placed[member * virtualNodes + node] = new long[] {hash(members.get(member) + "#" + node), member};
+            }
+        }
+        Arrays.sort(placed, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        this.points = new long[placed.length];
+        this.owners = new int[placed.length];
+        for (int i = 0; i < placed.length; i++) {
+            points[i] = placed[i][0];
+            owners[i] = (int) placed[i][1];
+        }
+    }
+
+    /**
+     * @param key the key to look up
+     * @return the member owning the key
+     */
+    public String ownerOf(String key) {
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        // Past the last point wraps around to the first
+        return members.get(owners[index == points.length ? 0 : index]);
+    }
+
+    /**
+     * @return the members of the ring
+     */
+    public List<String> members() {
+        return new ArrayList<>(members);
+    }
+
+    // FNV-1a then the murmur3 finalizer, so similar keys land far apart
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
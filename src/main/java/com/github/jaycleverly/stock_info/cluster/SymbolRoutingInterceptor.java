@@ -0,0 +1,196 @@
+package com.github.jaycleverly.stock_info.cluster;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.ResponseErrorHandler;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.github.jaycleverly.stock_info.config.properties.AppClusterProperties;
+import com.github.jaycleverly.stock_info.controller.StockMetricsController;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Routes each stock's metrics requests to the instance owning the stock on a consistent hash ring of the cluster's
+ * members, so each stock is cached and refreshed by a single instance.
+ *
+ * Requests are either forwarded to the owner with the response relayed back, or redirected to it. Forwarded requests
+ * name the instance they came through in a header and are always served where they land, so instances that briefly
+ * disagree on the members cannot pass a request back and forth. An owner that cannot be reached is skipped for a
+ * while and its stocks are served by whichever instance receives them, unless part of its response has already been
+ * relayed. A client going away mid-response does not count against the owner.
+ */
+public class SymbolRoutingInterceptor implements HandlerInterceptor {
+    public static final String FORWARDED_BY_HEADER = "X-Stock-Info-Forwarded-By";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SymbolRoutingInterceptor.class);
+    private static final List<String> FORWARDED_REQUEST_HEADERS = List.of(
+        HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING, HttpHeaders.IF_NONE_MATCH, HttpHeaders.IF_MODIFIED_SINCE);
+    private static final List<String> RELAYED_RESPONSE_HEADERS = List.of(
+        HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_ENCODING, HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED,
+        HttpHeaders.CACHE_CONTROL, HttpHeaders.VARY);
+
+    private final String self;
+    private final ConsistentHashRing ring;
+    private final AppClusterProperties.Routing routing;
+    private final RestTemplate restTemplate;
+    private final long memberDownForNanos;
+    private final Map<String, Long> downUntil = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new interceptor routing requests across the cluster
+     *
+     * @param properties the properties set for the cluster
+     * @throws IllegalArgumentException if this instance is not one of the members
+     */
+    public SymbolRoutingInterceptor(AppClusterProperties properties) throws IllegalArgumentException {
+        if (!properties.members().contains(properties.self())) {
+            throw new IllegalArgumentException(String.format(
+                "Cluster members %s must include this instance (%s)!", properties.members(), properties.self()));
+        }
+        this.self = properties.self();
+        this.ring = new ConsistentHashRing(properties.members(), properties.virtualNodes());
+        this.routing = properties.routing();
+        this.memberDownForNanos = properties.memberDownFor().toNanos();
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(properties.connectTimeout());
+        requestFactory.setReadTimeout(properties.readTimeout());
+        this.restTemplate = new RestTemplate(requestFactory);
+        // Error responses from the owner are relayed as they are
+        this.restTemplate.setErrorHandler(new ResponseErrorHandler() {
+            @Override
+            public boolean hasError(ClientHttpResponse response) {
+                return false;
+            }
+        });
+    }
+
+    /**
+     * @param symbol the symbol of a stock
+     * @return the member owning the stock
+     */
+    public String ownerOf(String symbol) {
+        return ring.ownerOf(symbol.toUpperCase());
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        String symbol = routedSymbol(request, handler);
+        if (symbol == null || request.getHeader(FORWARDED_BY_HEADER) != null) {
+            return true;
+        }
+        String owner = ownerOf(symbol);
+        if (owner.equals(self) || isDown(owner)) {
+            return true;
+        }
+
+        URI target = UriComponentsBuilder.fromUriString(owner)
+            .path(request.getRequestURI())
+            .query(request.getQueryString())
+            .build(true)
+            .toUri();
+        if (routing == AppClusterProperties.Routing.REDIRECT) {
+            response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+            response.setHeader(HttpHeaders.LOCATION, target.toString());
+            return false;
+        }
+
+        try {
+            forward(request, response, target);
+            return false;
+        } catch (UncheckedIOException exception) {
+            // Our own client went away, the owner is fine
+            LOGGER.warn(String.format("Exception when relaying stock %s from %s to the client", symbol, owner), exception);
+            return false;
+        } catch (RestClientException exception) {
+            downUntil.put(owner, System.nanoTime() + memberDownForNanos);
+            // Part of the owner's response may already have been sent, so it cannot be replaced by a local one
+            if (response.isCommitted()) {
+                LOGGER.warn(String.format("Exception when forwarding stock %s to %s after relaying began, abandoning the response", symbol, owner), exception);
+                return false;
+            }
+            response.reset();
+            LOGGER.warn(String.format("Exception when forwarding stock %s to %s, serving its stocks locally for now", symbol, owner), exception);
+            return true;
+        }
+    }
+
+    private void forward(HttpServletRequest request, HttpServletResponse response, URI target) {
+        restTemplate.execute(target, HttpMethod.GET,
+            forwarded -> {
+                for (String header : FORWARDED_REQUEST_HEADERS) {
+                    Collections.list(request.getHeaders(header)).forEach(value -> forwarded.getHeaders().add(header, value));
+                }
+                forwarded.getHeaders().set(FORWARDED_BY_HEADER, self);
+            },
+            relayed -> {
+                response.setStatus(relayed.getStatusCode().value());
+                for (String header : RELAYED_RESPONSE_HEADERS) {
+                    relayed.getHeaders().getOrEmpty(header).forEach(value -> response.addHeader(header, value));
+                }
+                relay(relayed.getBody(), response);
+                return null;
+            });
+    }
+
+    // Failures reading the owner's body surface as IOExceptions, failures writing to the client as UncheckedIOExceptions
+    private static void relay(InputStream body, HttpServletResponse response) throws IOException {
+        byte[] buffer = new byte[StreamUtils.BUFFER_SIZE];
+        for (int read = body.read(buffer); read != -1; read = body.read(buffer)) {
+            try {
+                response.getOutputStream().write(buffer, 0, read);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+        try {
+            response.flushBuffer();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private boolean isDown(String member) {
+        Long until = downUntil.get(member);
+        if (until == null) {
+            return false;
+        }
+        if (System.nanoTime() - until >= 0) {
+            downUntil.remove(member, until);
+            return false;
+        }
+        return true;
+    }
+
+    // Only requests for a single stock's metrics are routed, others are served by any instance
+    @SuppressWarnings("unchecked")
+    private static String routedSymbol(HttpServletRequest request, Object handler) {
+        if (!(handler instanceof HandlerMethod method) || method.getBeanType() != StockMetricsController.class) {
+            return null;
+        }
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        return variables == null ? null : variables.get("symbol");
+    }
+}
@@ -4,12 +4,44 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.context.annotation.Configuration;
 
 import com.github.jaycleverly.stock_info.config.properties.AppApiProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppBulkImportProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppClusterProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppCorrelationProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppExportProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppHttpCacheProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppIntradayProperties;
 import com.github.jaycleverly.stock_info.config.properties.AppLimitsProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppLoadSheddingProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppMetricsRepositoryProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppPayloadStoreProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppPushProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppRefreshLeaseProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppResilienceProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppScreenerProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppSymbolsProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppUpstreamProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppWarmUpProperties;
 
 @Configuration
 @EnableConfigurationProperties({
     AppLimitsProperties.class,
-    AppApiProperties.class
+    AppApiProperties.class,
+    AppHttpCacheProperties.class,
+    AppPayloadStoreProperties.class,
+    AppWarmUpProperties.class,
+    AppPushProperties.class,
+    AppCorrelationProperties.class,
+    AppScreenerProperties.class,
+    AppResilienceProperties.class,
+    AppMetricsRepositoryProperties.class,
+    AppRefreshLeaseProperties.class,
+    AppClusterProperties.class,
+    AppBulkImportProperties.class,
+    AppExportProperties.class,
+    AppLoadSheddingProperties.class,
+    AppSymbolsProperties.class,
+    AppUpstreamProperties.class,
+    AppIntradayProperties.class
 })
 public class AppConfig {
 }
@@ -0,0 +1,30 @@
+package com.github.jaycleverly.stock_info.config.beans;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.github.jaycleverly.stock_info.cluster.SymbolRoutingInterceptor;
+import com.github.jaycleverly.stock_info.config.properties.AppClusterProperties;
+
+@Configuration
+@ConditionalOnProperty(prefix = "app.cluster", name = "enabled", havingValue = "true")
+public class ClusterConfig implements WebMvcConfigurer {
+    private final AppClusterProperties properties;
+
+    public ClusterConfig(AppClusterProperties properties) {
+        this.properties = properties;
+    }
+
+    @Bean
+    public SymbolRoutingInterceptor symbolRoutingInterceptor() {
+        return new SymbolRoutingInterceptor(properties);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(symbolRoutingInterceptor()).addPathPatterns("/stocks/*");
+    }
+}
@@ -1,15 +1,24 @@
 package com.github.jaycleverly.stock_info.config.beans;
 
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primarySortKey;
+
 import java.net.URI;
+import java.time.LocalDate;
 
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import com.github.jaycleverly.stock_info.config.properties.DynamoDbProperties;
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+import com.github.jaycleverly.stock_info.model.RefreshLease;
 
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticTableSchema;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
@@ -21,7 +30,11 @@ public class DynamoDbConfig {
     public DynamoDbClient dynamoDbClient(DynamoDbProperties properties) {
         DynamoDbClientBuilder builder = DynamoDbClient.builder()
             .region(Region.of(properties.region()))
-            .credentialsProvider(DefaultCredentialsProvider.builder().build());
+            .credentialsProvider(DefaultCredentialsProvider.builder().build())
+            // Bounds every call including retries, so a slow table cannot hold request threads indefinitely
+            .overrideConfiguration(ClientOverrideConfiguration.builder()
+                .apiCallTimeout(properties.apiCallTimeout())
+                .build());
 
         // For local testing purposes
         properties.endpoint()
@@ -37,4 +50,67 @@ public class DynamoDbConfig {
             .dynamoDbClient(dynamoDbClient)
             .build();
     }
+
+    /**
+     * Schema matching the bean annotations of the metrics model, declared statically so no
+     * reflection or runtime lambda generation is needed (unsupported in a native image)
+     */
+    @Bean
+    public TableSchema<DailyStockMetrics> dailyStockMetricsSchema() {
+        return StaticTableSchema.builder(DailyStockMetrics.class)
+            .newItemSupplier(DailyStockMetrics::new)
+            .addAttribute(String.class, a -> a.name("symbol")
+                .getter(DailyStockMetrics::getSymbol)
+                .setter(DailyStockMetrics::setSymbol)
+                .tags(primaryPartitionKey()))
+            .addAttribute(LocalDate.class, a -> a.name("date")
+                .getter(DailyStockMetrics::getDate)
+                .setter(DailyStockMetrics::setDate)
+                .tags(primarySortKey()))
+            .addAttribute(Double.class, a -> a.name("close")
+                .getter(DailyStockMetrics::getClose)
+                .setter(DailyStockMetrics::setClose))
+            .addAttribute(Double.class, a -> a.name("previousCloseChange")
+                .getter(DailyStockMetrics::getPreviousCloseChange)
+                .setter(DailyStockMetrics::setPreviousCloseChange))
+            .addAttribute(Double.class, a -> a.name("movingAverage")
+                .getter(DailyStockMetrics::getMovingAverage)
+                .setter(DailyStockMetrics::setMovingAverage))
+            .addAttribute(Double.class, a -> a.name("volatility")
+                .getter(DailyStockMetrics::getVolatility)
+                .setter(DailyStockMetrics::setVolatility))
+            .addAttribute(Double.class, a -> a.name("momentum")
+                .getter(DailyStockMetrics::getMomentum)
+                .setter(DailyStockMetrics::setMomentum))
+            .addAttribute(Double.class, a -> a.name("open")
+                .getter(DailyStockMetrics::getOpen)
+                .setter(DailyStockMetrics::setOpen))
+            .addAttribute(Double.class, a -> a.name("high")
+                .getter(DailyStockMetrics::getHigh)
+                .setter(DailyStockMetrics::setHigh))
+            .addAttribute(Double.class, a -> a.name("low")
+                .getter(DailyStockMetrics::getLow)
+                .setter(DailyStockMetrics::setLow))
+            .build();
+    }
+
+    @Bean
+    public TableSchema<RefreshLease> refreshLeaseSchema() {
+        return StaticTableSchema.builder(RefreshLease.class)
+            .newItemSupplier(RefreshLease::new)
+            .addAttribute(String.class, a -> a.name("symbol")
+                .getter(RefreshLease::getSymbol)
+                .setter(RefreshLease::setSymbol)
+                .tags(primaryPartitionKey()))
+            .addAttribute(String.class, a -> a.name("owner")
+                .getter(RefreshLease::getOwner)
+                .setter(RefreshLease::setOwner))
+            .addAttribute(Long.class, a -> a.name("token")
+                .getter(RefreshLease::getToken)
+                .setter(RefreshLease::setToken))
+            .addAttribute(Long.class, a -> a.name("expiresAt")
+                .getter(RefreshLease::getExpiresAt)
+                .setter(RefreshLease::setExpiresAt))
+            .build();
+    }
 }
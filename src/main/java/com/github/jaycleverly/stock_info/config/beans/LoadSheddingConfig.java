@@ -0,0 +1,34 @@
+package com.github.jaycleverly.stock_info.config.beans;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.github.jaycleverly.stock_info.config.properties.AppLoadSheddingProperties;
+import com.github.jaycleverly.stock_info.service.MetricsVersionService;
+import com.github.jaycleverly.stock_info.shedding.LoadSheddingInterceptor;
+
+@Configuration
+@ConditionalOnProperty(prefix = "app.load-shedding", name = "enabled", havingValue = "true")
+public class LoadSheddingConfig implements WebMvcConfigurer {
+    private final AppLoadSheddingProperties properties;
+    private final MetricsVersionService metricsVersionService;
+
+    public LoadSheddingConfig(AppLoadSheddingProperties properties, MetricsVersionService metricsVersionService) {
+        this.properties = properties;
+        this.metricsVersionService = metricsVersionService;
+    }
+
+    @Bean
+    public LoadSheddingInterceptor loadSheddingInterceptor() {
+        return new LoadSheddingInterceptor(properties, metricsVersionService);
+    }
+
+    // After cluster routing, so only requests served by this instance count towards its limits
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(loadSheddingInterceptor()).addPathPatterns("/stocks/*").order(1);
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.jaycleverly.stock_info.config.beans;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+
+/**
+ * Reachability metadata for a GraalVM native image, covering what spring's AOT processing cannot see.
+ *
+ * Configuration properties records are registered by spring itself and dynamo uses a static table schema,
+ * so only the metrics model, the jackson tree nodes and msgpack's reflectively loaded buffers are listed here.
+ */
+@Configuration
+@ImportRuntimeHints(NativeImageHints.Registrar.class)
+public class NativeImageHints {
+    static class Registrar implements RuntimeHintsRegistrar {
+        private static final String[] MESSAGE_BUFFER_TYPES = {
+            "org.msgpack.core.buffer.MessageBuffer",
+            "org.msgpack.core.buffer.MessageBufferBE",
+            "org.msgpack.core.buffer.MessageBufferU"
+        };
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            hints.reflection().registerType(DailyStockMetrics.class,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+            hints.reflection().registerType(ObjectNode.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+            hints.reflection().registerType(ArrayNode.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+
+            // Picked by name at runtime depending on byte order and unsafe support
+            for (String type : MESSAGE_BUFFER_TYPES) {
+                hints.reflection().registerType(TypeReference.of(type),
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.DECLARED_FIELDS);
+            }
+        }
+    }
+}
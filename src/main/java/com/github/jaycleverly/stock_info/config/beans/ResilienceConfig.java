@@ -0,0 +1,90 @@
+package com.github.jaycleverly.stock_info.config.beans;
+
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.jaycleverly.stock_info.config.properties.AppResilienceProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppResilienceProperties.BulkheadProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppResilienceProperties.CircuitBreakerProperties;
+import com.github.jaycleverly.stock_info.exception.TimeSeriesApiException;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+
+/**
+ * Circuit breakers around the upstream api and dynamo, and separate bulkheads for refresh and read-only work,
+ * so a slow dependency fails fast instead of holding every request thread
+ */
+@Configuration
+public class ResilienceConfig {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResilienceConfig.class);
+
+    public static final String UPSTREAM_API_CIRCUIT_BREAKER = "upstreamApiCircuitBreaker";
+    public static final String DYNAMO_CIRCUIT_BREAKER = "dynamoCircuitBreaker";
+    public static final String REFRESH_BULKHEAD = "refreshBulkhead";
+    public static final String READ_BULKHEAD = "readBulkhead";
+
+    /**
+     * Only server side failures count towards opening the circuit, unknown symbols and rate limits do not
+     */
+    @Bean(UPSTREAM_API_CIRCUIT_BREAKER)
+    public CircuitBreaker upstreamApiCircuitBreaker(AppResilienceProperties properties) {
+        return upstreamApiCircuitBreaker("upstream-api", properties);
+    }
+
+    @Bean(DYNAMO_CIRCUIT_BREAKER)
+    public CircuitBreaker dynamoCircuitBreaker(AppResilienceProperties properties) {
+        return circuitBreaker("dynamo", properties.dynamo(), exception -> true);
+    }
+
+    @Bean(REFRESH_BULKHEAD)
+    public Bulkhead refreshBulkhead(AppResilienceProperties properties) {
+        return bulkhead("refresh", properties.refresh());
+    }
+
+    @Bean(READ_BULKHEAD)
+    public Bulkhead readBulkhead(AppResilienceProperties properties) {
+        return bulkhead("read", properties.read());
+    }
+
+    /**
+     * Creates a circuit breaker for one more upstream provider, configured as the one around the upstream api
+     */
+    static CircuitBreaker upstreamApiCircuitBreaker(String name, AppResilienceProperties properties) {
+        return circuitBreaker(name, properties.upstreamApi(),
+            exception -> !(exception instanceof TimeSeriesApiException apiException) || apiException.getStatusCode() >= 500);
+    }
+
+    private static CircuitBreaker circuitBreaker(String name, CircuitBreakerProperties properties, Predicate<Throwable> isFailure) {
+        CircuitBreaker circuitBreaker = CircuitBreaker.of(name, CircuitBreakerConfig.custom()
+            .failureRateThreshold(properties.failureRateThreshold())
+            .slowCallRateThreshold(properties.slowCallRateThreshold())
+            .slowCallDurationThreshold(properties.slowCallDuration())
+            .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+            .slidingWindowSize(properties.windowSize())
+            .minimumNumberOfCalls(properties.minimumCalls())
+            .waitDurationInOpenState(properties.openDuration())
+            .recordException(isFailure)
+            .build());
+
+        circuitBreaker.getEventPublisher().onStateTransition(event -> LOGGER.warn(String.format(
+            "Circuit breaker %s moved from %s to %s",
+            name,
+            event.getStateTransition().getFromState(),
+            event.getStateTransition().getToState())));
+        return circuitBreaker;
+    }
+
+    private static Bulkhead bulkhead(String name, BulkheadProperties properties) {
+        return Bulkhead.of(name, BulkheadConfig.custom()
+            .maxConcurrentCalls(properties.maxConcurrentCalls())
+            .maxWaitDuration(properties.maxWait())
+            .build());
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.jaycleverly.stock_info.config.beans;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import com.github.jaycleverly.stock_info.client.CsvTimeSeriesProvider;
+import com.github.jaycleverly.stock_info.client.TimeSeriesApiClient;
+import com.github.jaycleverly.stock_info.client.TimeSeriesProvider;
+import com.github.jaycleverly.stock_info.client.TimeSeriesRouter;
+import com.github.jaycleverly.stock_info.config.properties.AppResilienceProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppUpstreamProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppUpstreamProperties.CsvProviderProperties;
+
+/**
+ * The upstream providers of stock records, Alpha Vantage first then any csv apis configured, behind a router that
+ * is the provider the rest of the app is given
+ */
+@Configuration
+public class UpstreamConfig {
+    @Bean
+    @Primary
+    public TimeSeriesRouter timeSeriesRouter(AppUpstreamProperties properties,
+                                             AppResilienceProperties resilienceProperties,
+                                             TimeSeriesApiClient alphaVantage) {
+        List<TimeSeriesProvider> providers = new ArrayList<>();
+        providers.add(alphaVantage);
+        if (properties.csvProviders() != null) {
+            for (CsvProviderProperties csvProvider : properties.csvProviders()) {
+                // Each provider has its own circuit, so one failing does not cut the others off
+                providers.add(new CsvTimeSeriesProvider(csvProvider,
+                    ResilienceConfig.upstreamApiCircuitBreaker(String.format("upstream-%s", csvProvider.name()), resilienceProperties)));
+            }
+        }
+        return new TimeSeriesRouter(properties, providers);
+    }
+}
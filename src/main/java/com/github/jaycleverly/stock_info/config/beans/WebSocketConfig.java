@@ -0,0 +1,26 @@
+package com.github.jaycleverly.stock_info.config.beans;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+import com.github.jaycleverly.stock_info.push.MetricsUpdateHub;
+import com.github.jaycleverly.stock_info.push.MetricsWebSocketHandler;
+
+@Configuration
+@EnableWebSocket
+@ConditionalOnProperty(prefix = "app.push", name = "websocket-enabled", havingValue = "true")
+public class WebSocketConfig implements WebSocketConfigurer {
+    private final MetricsUpdateHub metricsUpdateHub;
+
+    public WebSocketConfig(MetricsUpdateHub metricsUpdateHub) {
+        this.metricsUpdateHub = metricsUpdateHub;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(new MetricsWebSocketHandler(metricsUpdateHub), "/stocks/ws");
+    }
+}
@@ -1,9 +1,13 @@
 package com.github.jaycleverly.stock_info.config.properties;
 
+import java.time.Duration;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 @ConfigurationProperties(prefix = "app.external-api")
 public record AppApiProperties(
     String url,
-    String token
+    String token,
+    Duration connectTimeout,
+    Duration readTimeout
 ) {}
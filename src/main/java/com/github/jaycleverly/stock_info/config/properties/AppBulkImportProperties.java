@@ -0,0 +1,16 @@
+package com.github.jaycleverly.stock_info.config.properties;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.bulk-import")
+public record AppBulkImportProperties(
+    boolean enabled,
+    String directory,
+    int parallelism,
+    int writeConcurrency,
+    int maxWriteAttempts,
+    Duration writeBackoff,
+    Duration progressInterval
+) {}
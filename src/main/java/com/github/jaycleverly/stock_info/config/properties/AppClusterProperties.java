@@ -0,0 +1,23 @@
+package com.github.jaycleverly.stock_info.config.properties;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.cluster")
+public record AppClusterProperties(
+    boolean enabled,
+    String self,
+    List<String> members,
+    int virtualNodes,
+    Routing routing,
+    Duration connectTimeout,
+    Duration readTimeout,
+    Duration memberDownFor
+) {
+    public enum Routing {
+        FORWARD,
+        REDIRECT
+    }
+}
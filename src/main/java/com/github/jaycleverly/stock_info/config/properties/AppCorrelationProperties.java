@@ -0,0 +1,10 @@
+package com.github.jaycleverly.stock_info.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.correlation")
+public record AppCorrelationProperties(
+    int maxSymbols,
+    int maxDays,
+    int readConcurrency
+) {}
@@ -0,0 +1,18 @@
+package com.github.jaycleverly.stock_info.config.properties;
+
+import java.time.LocalDate;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.export")
+public record AppExportProperties(
+    int segments,
+    int pageSize,
+    int maxRowsPerSecond,
+    int maxConcurrentExports,
+    String output,
+    String symbolPrefix,
+    LocalDate from,
+    LocalDate to,
+    String format
+) {}
@@ -0,0 +1,9 @@
+package com.github.jaycleverly.stock_info.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.http-cache")
+public record AppHttpCacheProperties(
+    String dataVersion,
+    int maxRequestCounts
+) {}
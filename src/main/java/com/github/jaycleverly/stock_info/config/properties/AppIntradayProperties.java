@@ -0,0 +1,16 @@
+package com.github.jaycleverly.stock_info.config.properties;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.intraday")
+public record AppIntradayProperties(
+    String url,
+    int sessionMinutes,
+    int movingAverageBars,
+    int volatilityBars,
+    int momentumBars,
+    int maxSeries,
+    Duration compactionInterval
+) {}
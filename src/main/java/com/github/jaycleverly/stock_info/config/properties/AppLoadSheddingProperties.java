@@ -0,0 +1,23 @@
+package com.github.jaycleverly.stock_info.config.properties;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.load-shedding")
+public record AppLoadSheddingProperties(
+    boolean enabled,
+    LimitProperties cachedReads,
+    LimitProperties refreshes,
+    double refreshPriorityThreshold,
+    double latencyTolerance,
+    double smoothing,
+    int baselineWindow,
+    Duration retryAfter
+) {
+    public record LimitProperties(
+        int initialLimit,
+        int minLimit,
+        int maxLimit
+    ) {}
+}
@@ -0,0 +1,16 @@
+package com.github.jaycleverly.stock_info.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@ConfigurationProperties(prefix = "app.metrics-repository")
+public record AppMetricsRepositoryProperties(
+    Type type,
+    String directory,
+    DataSize compactionThreshold
+) {
+    public enum Type {
+        DYNAMO,
+        LOCAL
+    }
+}
@@ -0,0 +1,13 @@
+package com.github.jaycleverly.stock_info.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@ConfigurationProperties(prefix = "app.payload-store")
+public record AppPayloadStoreProperties(
+    boolean enabled,
+    String directory,
+    DataSize maxSize,
+    DataSize segmentSize,
+    boolean replayOnStartup
+) {}
@@ -0,0 +1,13 @@
+package com.github.jaycleverly.stock_info.config.properties;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.push")
+public record AppPushProperties(
+    int queueCapacity,
+    int maxSymbols,
+    Duration timeout,
+    boolean websocketEnabled
+) {}
@@ -0,0 +1,14 @@
+package com.github.jaycleverly.stock_info.config.properties;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.refresh-lease")
+public record AppRefreshLeaseProperties(
+    boolean enabled,
+    String tableName,
+    Duration duration,
+    Duration maxWait,
+    Duration pollInterval
+) {}
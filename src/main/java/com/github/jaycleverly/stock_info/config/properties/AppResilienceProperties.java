@@ -0,0 +1,27 @@
+package com.github.jaycleverly.stock_info.config.properties;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.resilience")
+public record AppResilienceProperties(
+    CircuitBreakerProperties upstreamApi,
+    CircuitBreakerProperties dynamo,
+    BulkheadProperties refresh,
+    BulkheadProperties read
+) {
+    public record CircuitBreakerProperties(
+        int failureRateThreshold,
+        int slowCallRateThreshold,
+        Duration slowCallDuration,
+        int windowSize,
+        int minimumCalls,
+        Duration openDuration
+    ) {}
+
+    public record BulkheadProperties(
+        int maxConcurrentCalls,
+        Duration maxWait
+    ) {}
+}
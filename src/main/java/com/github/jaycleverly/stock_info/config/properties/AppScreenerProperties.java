@@ -0,0 +1,11 @@
+package com.github.jaycleverly.stock_info.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.screener")
+public record AppScreenerProperties(
+    int defaultLimit,
+    int maxLimit,
+    boolean seedOnStartup,
+    int seedSegments
+) {}
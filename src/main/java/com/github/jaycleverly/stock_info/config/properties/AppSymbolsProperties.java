@@ -0,0 +1,14 @@
+package com.github.jaycleverly.stock_info.config.properties;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.symbols")
+public record AppSymbolsProperties(
+    String listingFile,
+    Duration notFoundTtl,
+    int maxNotFound,
+    int searchDefaultLimit,
+    int searchMaxLimit
+) {}
@@ -0,0 +1,25 @@
+package com.github.jaycleverly.stock_info.config.properties;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.upstream")
+public record AppUpstreamProperties(
+    Map<String, Integer> dailyQuotas,
+    List<CsvProviderProperties> csvProviders,
+    double latencySmoothing,
+    Duration failurePenalty,
+    Duration rateLimitedFor,
+    double lowQuotaShare
+) {
+    public record CsvProviderProperties(
+        String name,
+        String url,
+        String token,
+        Duration connectTimeout,
+        Duration readTimeout
+    ) {}
+}
@@ -0,0 +1,15 @@
+package com.github.jaycleverly.stock_info.config.properties;
+
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "app.warm-up")
+public record AppWarmUpProperties(
+    boolean enabled,
+    @DefaultValue List<String> symbols,
+    String snapshotFile,
+    int maxSymbols,
+    int iterations
+) {}
@@ -1,5 +1,6 @@
 package com.github.jaycleverly.stock_info.config.properties;
 
+import java.time.Duration;
 import java.util.Optional;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -8,5 +9,17 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 public record DynamoDbProperties(
         String region,
         Optional<String> endpoint,
-        String tableName
-) {}
+        String tableName,
+        Duration apiCallTimeout,
+        Duration readDeadline,
+        HedgingProperties hedging
+) {
+    public record HedgingProperties(
+        boolean enabled,
+        double percentile,
+        Duration minDelay,
+        double maxRate,
+        int minSamples,
+        int windowSize
+    ) {}
+}
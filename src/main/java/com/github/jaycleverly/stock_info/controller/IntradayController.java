@@ -0,0 +1,42 @@
+package com.github.jaycleverly.stock_info.controller;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.github.jaycleverly.stock_info.service.IntradayService;
+
+/**
+ * Class to control the endpoint serving the intraday bars of a stock
+ */
+@RestController
+public class IntradayController {
+    private final IntradayService intradayService;
+
+    /**
+     * Creates a new rest controller for intraday bars
+     * 
+     * @param intradayService the service to provide intraday bars
+     */
+    public IntradayController(IntradayService intradayService) {
+        this.intradayService = intradayService;
+    }
+
+    /**
+     * Returns the bars of the supplied stock's current session with rolling metrics
+     * 
+     * @param symbol the stock to look at
+     * @param interval the bar size (1min / 5min / 15min)
+     * @return a response containing the bars as JSON, most recent first
+     */
+    @GetMapping("stocks/{symbol}/intraday")
+    public ResponseEntity<byte[]> getIntraday(@PathVariable String symbol,
+                                              @RequestParam(required = false, defaultValue = "5min") String interval) {
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(intradayService.produceIntraday(symbol.toUpperCase(), interval));
+    }
+}
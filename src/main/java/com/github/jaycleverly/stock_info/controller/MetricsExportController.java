@@ -0,0 +1,68 @@
+package com.github.jaycleverly.stock_info.controller;
+
+import java.time.LocalDate;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.github.jaycleverly.stock_info.exception.ClientErrorException;
+import com.github.jaycleverly.stock_info.repository.MetricsScanFilter;
+import com.github.jaycleverly.stock_info.serializer.ExportFormat;
+import com.github.jaycleverly.stock_info.service.MetricsExportService;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Class to control the endpoint that exports stored metrics
+ */
+@RestController
+public class MetricsExportController {
+    private final MetricsExportService metricsExportService;
+
+    /**
+     * Creates a new rest controller for exporting stored metrics
+     *
+     * @param metricsExportService the service to export stored metrics
+     */
+    public MetricsExportController(MetricsExportService metricsExportService) {
+        this.metricsExportService = metricsExportService;
+    }
+
+    /**
+     * Streams the stored daily metrics of every stock as a file, written as they are read
+     *
+     * @param symbolPrefix the prefix of the symbols to export, eg: IB (defaults to every stock)
+     * @param from the earliest date to export (defaults to the earliest stored)
+     * @param to the latest date to export (defaults to the latest stored)
+     * @param format the format of the file (ndjson / csv)
+     * @param response the response the file is written to
+     */
+    @GetMapping("stocks/export")
+    public void exportStockMetrics(@RequestParam(required = false) String symbolPrefix,
+                                   @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+                                   @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate to,
+                                   @RequestParam(required = false, defaultValue = "ndjson") String format,
+                                   HttpServletResponse response) {
+        ExportFormat exportFormat = ExportFormat.parse(format)
+            .orElseThrow(() -> new ClientErrorException(
+                String.format("Unknown export format (%s), expected ndjson or csv!", format), HttpStatus.BAD_REQUEST, null));
+        MetricsScanFilter filter = new MetricsScanFilter(
+            symbolPrefix == null || symbolPrefix.isBlank() ? null : symbolPrefix.trim().toUpperCase(), from, to);
+
+        // Headers are only set once the export may start, so a rejected export gets a plain error response
+        metricsExportService.export(filter, exportFormat, () -> {
+            response.setContentType(exportFormat.getMediaType().toString());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("stock-metrics." + exportFormat.getExtension())
+                .build()
+                .toString());
+            return response.getOutputStream();
+        });
+    }
+}
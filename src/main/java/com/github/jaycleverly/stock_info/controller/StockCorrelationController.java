@@ -0,0 +1,48 @@
+package com.github.jaycleverly.stock_info.controller;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.github.jaycleverly.stock_info.service.CorrelationService;
+
+/**
+ * Class to control the endpoints that compare stocks
+ */
+@RestController
+public class StockCorrelationController {
+    private final CorrelationService correlationService;
+
+    /**
+     * Creates a new rest controller for comparing stocks
+     * 
+     * @param correlationService the service to correlate stocks
+     */
+    public StockCorrelationController(CorrelationService correlationService) {
+        this.correlationService = correlationService;
+    }
+
+    /**
+     * Returns the pairwise covariance and correlation of daily returns between the supplied stocks
+     * 
+     * @param symbols the stocks to correlate, eg: IBM,AAPL
+     * @param from the earliest date to include
+     * @param to the latest date to include (defaults to today)
+     * @return a response containing the matrices as JSON
+     */
+    @GetMapping("stocks/correlation")
+    public ResponseEntity<byte[]> getCorrelation(@RequestParam List<String> symbols,
+                                                 @RequestParam @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+                                                 @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(correlationService.produceCorrelation(symbols, from, to != null ? to : LocalDate.now()));
+    }
+}
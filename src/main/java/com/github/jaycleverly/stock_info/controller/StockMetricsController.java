@@ -1,12 +1,29 @@
 package com.github.jaycleverly.stock_info.controller;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.github.jaycleverly.stock_info.exception.ClientErrorException;
+import com.github.jaycleverly.stock_info.model.Resolution;
+import com.github.jaycleverly.stock_info.serializer.ResponseFormat;
+import com.github.jaycleverly.stock_info.serializer.StockMetricsSerializer;
+import com.github.jaycleverly.stock_info.service.MetricsVersionService;
 import com.github.jaycleverly.stock_info.service.StockAnalysisService;
+import com.github.jaycleverly.stock_info.util.MarketCalendar;
 
 /**
  * Class to control the endpoints of the application
@@ -14,14 +31,17 @@ import com.github.jaycleverly.stock_info.service.StockAnalysisService;
 @RestController
 public class StockMetricsController {
     private StockAnalysisService stockAnalysisService;
+    private MetricsVersionService metricsVersionService;
 
     /**
      * Creates a new rest controller for the application
      * 
      * @param stockAnalysisService the service to provide an analysis on an inputted stock
+     * @param metricsVersionService the service to provide the version of a stock's metrics
      */
-    public StockMetricsController(StockAnalysisService stockAnalysisService) {
+    public StockMetricsController(StockAnalysisService stockAnalysisService, MetricsVersionService metricsVersionService) {
         this.stockAnalysisService = stockAnalysisService;
+        this.metricsVersionService = metricsVersionService;
     }
 
     /**
@@ -29,12 +49,115 @@ public class StockMetricsController {
      * 
      * @param symbol the stock to look at
      * @param outputSize the output size of the response (compact / full)
-     * @return a json formatted response containing stock metrics
+     * @param from the earliest date to return, overrides the output size when supplied
+     * @param to the latest date to return (defaults to today)
+     * @param resolution the bar size to return (daily / weekly / monthly)
+     * @param maxPoints the most records to return, downsampled to keep the shape of the series (at least 2)
+     * @param requestHeaders the headers of the request, used for content negotiation and conditional requests
+     * @return a response containing stock metrics in the negotiated format, or 304 if the client copy is current
      */
     @GetMapping("stocks/{symbol}")
-    public ResponseEntity<String> getStockMetrics(@PathVariable String symbol,
-                                                  @RequestParam(required = false, defaultValue = "compact") String outputSize) {
-        return ResponseEntity.ok(
-            stockAnalysisService.produceAnalysis(symbol.toUpperCase(), outputSize.equalsIgnoreCase("full")));
+    public ResponseEntity<byte[]> getStockMetrics(@PathVariable String symbol,
+                                                  @RequestParam(required = false, defaultValue = "compact") String outputSize,
+                                                  @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+                                                  @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate to,
+                                                  @RequestParam(required = false, defaultValue = "daily") String resolution,
+                                                  @RequestParam(required = false) Integer maxPoints,
+                                                  @RequestHeader HttpHeaders requestHeaders) {
+        if (from == null && to != null) {
+            throw new ClientErrorException("A date range end requires a start (from)!", HttpStatus.BAD_REQUEST, null);
+        }
+        Resolution barResolution = Resolution.parse(resolution)
+            .orElseThrow(() -> new ClientErrorException(
+                String.format("Unknown resolution (%s), expected daily, weekly or monthly!", resolution), HttpStatus.BAD_REQUEST, null));
+        if (maxPoints != null && maxPoints < 2) {
+            throw new ClientErrorException(
+                String.format("A point budget (maxPoints) must be at least 2, was %d!", maxPoints), HttpStatus.BAD_REQUEST, null);
+        }
+        String stockSymbol = symbol.toUpperCase();
+        LocalDate rangeEnd = to != null ? to : LocalDate.now();
+        boolean fullOutputSize = outputSize.equalsIgnoreCase("full");
+        // No error body can be written in a media type the client does not accept
+        Optional<ResponseFormat> negotiatedFormat = ResponseFormat.negotiate(requestHeaders.getAccept());
+        if (negotiatedFormat.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
+        }
+        ResponseFormat format = negotiatedFormat.get();
+        boolean gzip = acceptsGzip(requestHeaders);
+
+        // Each representation is a distinct entity so needs its own strong ETag
+        String variant = String.join("_",
+            from != null ? from + "_" + rangeEnd : (fullOutputSize ? "full" : "compact"),
+            format.name(),
+            gzip ? "gzip" : "identity");
+        if (barResolution != Resolution.DAILY) {
+            variant = String.join("_", variant, barResolution.name());
+        }
+        if (maxPoints != null) {
+            variant = String.join("_", variant, "max" + maxPoints);
+        }
+
+        // Revalidate against the tracked version before reading or serializing any metrics
+        Optional<LocalDate> knownLatestDate = metricsVersionService.freshLatestDate(stockSymbol);
+        if (knownLatestDate.isPresent() && isNotModified(requestHeaders, stockSymbol, knownLatestDate.get(), variant)) {
+            metricsVersionService.recordRequest(stockSymbol);
+            return withCacheHeaders(ResponseEntity.status(HttpStatus.NOT_MODIFIED), stockSymbol, knownLatestDate.get(), variant)
+                .build();
+        }
+
+        byte[] analysis = (from != null)
+            ? stockAnalysisService.produceAnalysis(stockSymbol, barResolution, from, rangeEnd, maxPoints, format)
+            : stockAnalysisService.produceAnalysis(stockSymbol, barResolution, fullOutputSize, maxPoints, format);
+        // Only stocks that were served are counted, so unknown symbols cannot fill the counts
+        metricsVersionService.recordRequest(stockSymbol);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .contentType(format.getMediaType());
+        if (gzip) {
+            analysis = StockMetricsSerializer.gzip(analysis);
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        // Spring answers any remaining conditional headers from the ETag and Last-Modified set here
+        Optional<LocalDate> latestDate = metricsVersionService.latestDate(stockSymbol);
+        if (latestDate.isEmpty()) {
+            return response.varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING).body(analysis);
+        }
+        return withCacheHeaders(response, stockSymbol, latestDate.get(), variant).body(analysis);
+    }
+
+    private boolean acceptsGzip(HttpHeaders requestHeaders) {
+        return requestHeaders.getValuesAsList(HttpHeaders.ACCEPT_ENCODING).stream()
+            .map(coding -> coding.split(";"))
+            .anyMatch(coding -> coding[0].trim().equalsIgnoreCase("gzip")
+                && (coding.length == 1 || !coding[1].trim().matches("q=0(\\.0*)?")));
+    }
+
+    private boolean isNotModified(HttpHeaders requestHeaders, String symbol, LocalDate latestDate, String variant) {
+        if (!requestHeaders.getIfNoneMatch().isEmpty()) {
+            String etag = metricsVersionService.etag(symbol, latestDate, variant);
+            return requestHeaders.getIfNoneMatch().stream().anyMatch(tag -> tag.equals("*") || tag.equals(etag));
+        }
+        long ifModifiedSince = requestHeaders.getIfModifiedSince();
+        return ifModifiedSince >= 0
+            && MarketCalendar.marketClose(latestDate).toEpochSecond() <= ifModifiedSince / 1000;
+    }
+
+    private ResponseEntity.BodyBuilder withCacheHeaders(ResponseEntity.BodyBuilder builder,
+                                                        String symbol,
+                                                        LocalDate latestDate,
+                                                        String variant) {
+        ZonedDateTime now = ZonedDateTime.now(MarketCalendar.MARKET_ZONE);
+
+        // Current content can only change once the next close is published. Stale content is a fallback while the
+        // api cannot be reached, so caches must revalidate it rather than hold it until the next close
+        CacheControl cacheControl = MetricsVersionService.isStale(latestDate)
+            ? CacheControl.noCache()
+            : CacheControl.maxAge(Duration.between(now, MarketCalendar.nextMarketClose(now))).cachePublic();
+        return builder
+            .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+            .eTag(metricsVersionService.etag(symbol, latestDate, variant))
+            .lastModified(MarketCalendar.marketClose(latestDate))
+            .cacheControl(cacheControl);
     }
 }
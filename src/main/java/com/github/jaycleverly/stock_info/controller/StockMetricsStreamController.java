@@ -0,0 +1,60 @@
+package com.github.jaycleverly.stock_info.controller;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.github.jaycleverly.stock_info.config.properties.AppPushProperties;
+import com.github.jaycleverly.stock_info.push.MetricsUpdateHub;
+
+/**
+ * Class to control the endpoints that push metrics updates to clients
+ */
+@RestController
+public class StockMetricsStreamController {
+    private final MetricsUpdateHub metricsUpdateHub;
+    private final long timeoutMillis;
+
+    /**
+     * Creates a new rest controller for metrics subscriptions
+     * 
+     * @param metricsUpdateHub the hub that fans metrics updates out to subscribers
+     * @param pushProperties the properties set for push subscriptions
+     */
+    public StockMetricsStreamController(MetricsUpdateHub metricsUpdateHub, AppPushProperties pushProperties) {
+        this.metricsUpdateHub = metricsUpdateHub;
+        this.timeoutMillis = pushProperties.timeout().toMillis();
+    }
+
+    /**
+     * Streams the latest metrics of the supplied stocks as server-sent events whenever they are refreshed
+     * 
+     * @param symbols the stocks to subscribe to, eg: IBM,AAPL
+     * @return an event stream with one event per update, named after the stock
+     */
+    @GetMapping(path = "stocks/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamStockMetrics(@RequestParam List<String> symbols) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        MetricsUpdateHub.Subscription subscription = metricsUpdateHub.subscribe(symbols, new MetricsUpdateHub.Subscriber() {
+            @Override
+            public void send(String symbol, byte[] update) throws IOException {
+                emitter.send(SseEmitter.event().name(symbol).data(update, MediaType.APPLICATION_JSON));
+            }
+
+            @Override
+            public void close() {
+                emitter.complete();
+            }
+        });
+
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(exception -> subscription.cancel());
+        return emitter;
+    }
+}
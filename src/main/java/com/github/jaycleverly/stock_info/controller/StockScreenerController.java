@@ -0,0 +1,41 @@
+package com.github.jaycleverly.stock_info.controller;
+
+import java.util.Map;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.github.jaycleverly.stock_info.service.ScreenerService;
+
+/**
+ * Class to control the endpoints that screen stocks
+ */
+@RestController
+public class StockScreenerController {
+    private final ScreenerService screenerService;
+
+    /**
+     * Creates a new rest controller for screening stocks
+     * 
+     * @param screenerService the service to screen stocks
+     */
+    public StockScreenerController(ScreenerService screenerService) {
+        this.screenerService = screenerService;
+    }
+
+    /**
+     * Returns the latest metrics of the stocks matching a screen
+     * 
+     * @param parameters metric ranges (eg: momentum=5..&volatility=..2), an optional sort (eg: -momentum) and limit
+     * @return a response containing the matching stocks as JSON
+     */
+    @GetMapping("stocks/screener")
+    public ResponseEntity<byte[]> getScreen(@RequestParam Map<String, String> parameters) {
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(screenerService.produceScreen(parameters));
+    }
+}
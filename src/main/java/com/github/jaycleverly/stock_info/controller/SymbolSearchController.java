@@ -0,0 +1,41 @@
+package com.github.jaycleverly.stock_info.controller;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.github.jaycleverly.stock_info.service.SymbolSearchService;
+
+/**
+ * Class to control the endpoint that searches the listed stocks
+ */
+@RestController
+public class SymbolSearchController {
+    private final SymbolSearchService symbolSearchService;
+
+    /**
+     * Creates a new rest controller for searching the listed stocks
+     * 
+     * @param symbolSearchService the service to search the listed stocks
+     */
+    public SymbolSearchController(SymbolSearchService symbolSearchService) {
+        this.symbolSearchService = symbolSearchService;
+    }
+
+    /**
+     * Returns the listed stocks whose symbol or company name starts with a query, for autocompletion
+     * 
+     * @param query the start of a symbol or company name (eg: IB, or inter bus)
+     * @param limit the most matches to return
+     * @return a response containing the matching stocks as JSON, best first
+     */
+    @GetMapping("stocks/search")
+    public ResponseEntity<byte[]> getSearch(@RequestParam("q") String query,
+                                            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(symbolSearchService.produceSearch(query, limit));
+    }
+}
@@ -0,0 +1,10 @@
+package com.github.jaycleverly.stock_info.exception;
+
+/**
+ * Custom exception to throw when a bulk import of price files cannot run
+ */
+public class BulkImportException extends RuntimeException {
+    public BulkImportException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
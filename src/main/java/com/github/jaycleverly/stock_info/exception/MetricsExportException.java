@@ -0,0 +1,10 @@
+package com.github.jaycleverly.stock_info.exception;
+
+/**
+ * Custom exception to throw when an export of stored metrics fails part way through
+ */
+public class MetricsExportException extends RuntimeException {
+    public MetricsExportException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,10 @@
+package com.github.jaycleverly.stock_info.exception;
+
+/**
+ * Custom exception to throw when handling errors in a metrics repository
+ */
+public class MetricsRepositoryException extends RuntimeException {
+    public MetricsRepositoryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,314 @@
+package com.github.jaycleverly.stock_info.intraday;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import com.github.jaycleverly.stock_info.client.IntradayBarSink;
+import com.github.jaycleverly.stock_info.model.DailyStockRecord;
+import com.github.jaycleverly.stock_info.model.IntradayInterval;
+import com.github.jaycleverly.stock_info.model.IntradaySnapshot;
+
+/**
+ * The intraday bars of one stock's current session at one interval, with rolling metrics kept up to date as bars arrive.
+ *
+ * Bars are held in a ring of parallel primitive arrays allocated once, sized for a whole session, so appending a bar
+ * writes a slot and never allocates; should a session outgrow the ring its oldest bars are overwritten. Each metric is
+ * updated in constant time from running sums: the bar leaving a window is read back from the ring and subtracted
+ * rather than the window being summed again. Metrics restart with each session (the bars of a day), as overnight gaps
+ * would distort them, and the finished session's open, high, low and close are kept until compacted into a daily
+ * record. Only sessions seen from their first bar are compacted, a session joined part way through is not.
+ */
+public class IntradaySeries implements IntradayBarSink {
+    /**
+     * Held in place of a minute or day before there is one
+     */
+    public static final long NONE = Long.MIN_VALUE;
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final int capacity;
+    private final int movingAverageBars;
+    private final int volatilityBars;
+    private final int momentumBars;
+
+    private final long[] minutes;
+    private final double[] open;
+    private final double[] high;
+    private final double[] low;
+    private final double[] close;
+    private final long[] volume;
+    private final double[] returns;
+    private final double[] movingAverage;
+    private final double[] volatility;
+    private final double[] momentum;
+    private final double[] vwap;
+    private int start;
+    private int count;
+
+    // The session held, its aggregates and the running sums of its windows
+    private long sessionDay = NONE;
+    private int sessionBars;
+    private boolean sessionFromOpen;
+    private double sessionOpen;
+    private double sessionHigh;
+    private double sessionLow;
+    private long sessionVolume;
+    private double closeSum;
+    private double returnSum;
+    private double returnSquareSum;
+    private double priceVolumeSum;
+    private boolean continuous;
+
+    // The last finished session, until compacted
+    private long finishedDay = NONE;
+    private double finishedOpen;
+    private double finishedHigh;
+    private double finishedLow;
+    private double finishedClose;
+    private long compactedDay = NONE;
+
+    /**
+     * Creates a new empty series
+     *
+     * @param sessionBars the bars a session is expected to hold, the ring holds at least one more than the longest window
+     * @param movingAverageBars the bars each moving average is over
+     * @param volatilityBars the returns each volatility is over
+     * @param momentumBars the bars each momentum is over
+     */
+    public IntradaySeries(int sessionBars, int movingAverageBars, int volatilityBars, int momentumBars) {
+        this.capacity = Math.max(sessionBars, Math.max(movingAverageBars, Math.max(volatilityBars, momentumBars)) + 1);
+        this.movingAverageBars = movingAverageBars;
+        this.volatilityBars = volatilityBars;
+        this.momentumBars = momentumBars;
+        this.minutes = new long[capacity];
+        this.open = new double[capacity];
+        this.high = new double[capacity];
+        this.low = new double[capacity];
+        this.close = new double[capacity];
+        this.volume = new long[capacity];
+        this.returns = new double[capacity];
+        this.movingAverage = new double[capacity];
+        this.volatility = new double[capacity];
+        this.momentum = new double[capacity];
+        this.vwap = new double[capacity];
+    }
+
+    /**
+     * Appends a bar, starting a new session if it falls on a later day. Bars no newer than the latest held are ignored.
+     *
+     * @param minute the start of the bar in minutes since the epoch, in exchange local time
+     * @param barOpen the opening price of the bar
+     * @param barHigh the highest price of the bar
+     * @param barLow the lowest price of the bar
+     * @param barClose the closing price of the bar
+     * @param barVolume the shares traded in the bar
+     */
+    @Override
+    public synchronized void accept(long minute, double barOpen, double barHigh, double barLow, double barClose, long barVolume) {
+        if (count > 0 && minute <= minutes[newest()]) {
+            return;
+        }
+        long day = Math.floorDiv(minute, MINUTES_PER_DAY);
+        if (day != sessionDay) {
+            startSession(day);
+        }
+
+        int slot = (start + count) % capacity;
+        if (count == capacity) {
+            start = (start + 1) % capacity;
+        } else {
+            count++;
+        }
+        minutes[slot] = minute;
+        open[slot] = barOpen;
+        high[slot] = barHigh;
+        low[slot] = barLow;
+        close[slot] = barClose;
+        volume[slot] = barVolume;
+
+        sessionBars++;
+        if (sessionBars == 1) {
+            sessionOpen = barOpen;
+        }
+        sessionHigh = Math.max(sessionHigh, barHigh);
+        sessionLow = Math.min(sessionLow, barLow);
+        sessionVolume += barVolume;
+
+        closeSum += barClose;
+        if (sessionBars > movingAverageBars) {
+            closeSum -= close[back(slot, movingAverageBars)];
+        }
+        movingAverage[slot] = sessionBars >= movingAverageBars ? closeSum / movingAverageBars : Double.NaN;
+
+        int returnCount = sessionBars - 1;
+        if (returnCount > 0) {
+            double previous = close[back(slot, 1)];
+            double barReturn = (barClose - previous) / previous;
+            returns[slot] = barReturn;
+            returnSum += barReturn;
+            returnSquareSum += barReturn * barReturn;
+            if (returnCount > volatilityBars) {
+                double leaving = returns[back(slot, volatilityBars)];
+                returnSum -= leaving;
+                returnSquareSum -= leaving * leaving;
+            }
+        } else {
+            returns[slot] = Double.NaN;
+        }
+        volatility[slot] = returnCount >= volatilityBars ? standardDeviation() * 100 : Double.NaN;
+
+        if (sessionBars > momentumBars) {
+            double then = close[back(slot, momentumBars)];
+            momentum[slot] = ((barClose - then) / then) * 100;
+        } else {
+            momentum[slot] = Double.NaN;
+        }
+
+        priceVolumeSum += ((barHigh + barLow + barClose) / 3) * barVolume;
+        vwap[slot] = sessionVolume > 0 ? priceVolumeSum / sessionVolume : Double.NaN;
+        continuous = true;
+    }
+
+    /**
+     * Marks the bars held as not running on to the next bar appended, so a session continued or started by it is not
+     * complete
+     */
+    @Override
+    public synchronized void missedBars() {
+        continuous = false;
+        sessionFromOpen = false;
+    }
+
+    /**
+     * @return the start of the latest bar held in minutes since the epoch, {@link #NONE} if there is none
+     */
+    public synchronized long latestMinute() {
+        return count == 0 ? NONE : minutes[newest()];
+    }
+
+    /**
+     * @return the number of bars held
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * @return the most bars held at once
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Copies the bars held and their metrics
+     *
+     * @param symbol the stock symbol
+     * @param interval the bar size
+     * @return the bars of the current session, oldest first
+     */
+    public synchronized IntradaySnapshot snapshot(String symbol, IntradayInterval interval) {
+        return new IntradaySnapshot(
+            symbol,
+            interval,
+            ordered(minutes),
+            ordered(open),
+            ordered(high),
+            ordered(low),
+            ordered(close),
+            ordered(volume),
+            ordered(movingAverage),
+            ordered(volatility),
+            ordered(momentum),
+            ordered(vwap),
+            movingAverageBars,
+            volatilityBars,
+            momentumBars);
+    }
+
+    /**
+     * Returns the earliest complete session not yet compacted: the session before the current one, or the current one
+     * once its day has passed
+     *
+     * @param symbol the stock symbol
+     * @param today the current date at the exchange
+     * @return the session as a daily record, empty if there is none to compact
+     */
+    public synchronized Optional<DailyStockRecord> completedSession(String symbol, LocalDate today) {
+        if (finishedDay != NONE && finishedDay > compactedDay) {
+            return Optional.of(new DailyStockRecord(
+                symbol, LocalDate.ofEpochDay(finishedDay), finishedOpen, finishedHigh, finishedLow, finishedClose));
+        }
+        if (sessionBars > 0 && sessionFromOpen && sessionDay < today.toEpochDay() && sessionDay > compactedDay) {
+            return Optional.of(new DailyStockRecord(
+                symbol, LocalDate.ofEpochDay(sessionDay), sessionOpen, sessionHigh, sessionLow, close[newest()]));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Marks the sessions up to a day as compacted, so they are not returned as completed again
+     *
+     * @param date the day of the latest session compacted
+     */
+    public synchronized void markCompacted(LocalDate date) {
+        compactedDay = Math.max(compactedDay, date.toEpochDay());
+        if (finishedDay <= compactedDay) {
+            finishedDay = NONE;
+        }
+    }
+
+    private void startSession(long day) {
+        if (sessionBars > 0 && sessionFromOpen) {
+            finishedDay = sessionDay;
+            finishedOpen = sessionOpen;
+            finishedHigh = sessionHigh;
+            finishedLow = sessionLow;
+            finishedClose = close[newest()];
+        }
+
+        sessionDay = day;
+        sessionBars = 0;
+        sessionFromOpen = continuous;
+        sessionHigh = Double.NEGATIVE_INFINITY;
+        sessionLow = Double.POSITIVE_INFINITY;
+        sessionVolume = 0;
+        closeSum = 0;
+        returnSum = 0;
+        returnSquareSum = 0;
+        priceVolumeSum = 0;
+        start = 0;
+        count = 0;
+    }
+
+    // Population standard deviation of the returns in the volatility window, as for daily volatility
+    private double standardDeviation() {
+        double mean = returnSum / volatilityBars;
+        return Math.sqrt(Math.max(0, returnSquareSum / volatilityBars - mean * mean));
+    }
+
+    private int newest() {
+        return (start + count - 1) % capacity;
+    }
+
+    // The slot a number of bars before another, always still held as the ring outlasts every window
+    private int back(int slot, int bars) {
+        return (slot - bars + capacity) % capacity;
+    }
+
+    private double[] ordered(double[] ring) {
+        double[] copy = new double[count];
+        int first = Math.min(count, capacity - start);
+        System.arraycopy(ring, start, copy, 0, first);
+        System.arraycopy(ring, 0, copy, first, count - first);
+        return copy;
+    }
+
+    private long[] ordered(long[] ring) {
+        long[] copy = new long[count];
+        int first = Math.min(count, capacity - start);
+        System.arraycopy(ring, start, copy, 0, first);
+        System.arraycopy(ring, 0, copy, first, count - first);
+        return copy;
+    }
+}
@@ -0,0 +1,245 @@
+package com.github.jaycleverly.stock_info.lease;
+
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.github.jaycleverly.stock_info.client.DynamoClient;
+import com.github.jaycleverly.stock_info.config.properties.AppRefreshLeaseProperties;
+import com.github.jaycleverly.stock_info.exception.DynamoClientException;
+import com.github.jaycleverly.stock_info.model.RefreshLease;
+
+import jakarta.annotation.PreDestroy;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Grants each stock's refresh to one instance at a time, through a lease item per stock in a dynamo table.
+ *
+ * A lease is taken with a put conditioned on the item it replaces, so of several instances racing for the same
+ * stock only one succeeds. Each grant carries a fencing token one higher than the last, and the holder renews the
+ * lease every third of its duration while refreshing. A holder that crashes stops renewing, so its lease expires and
+ * the next instance to find the stock stale takes over. Releasing a lease expires it rather than deleting it, so
+ * tokens keep increasing. If the table cannot be reached the refresh goes ahead without a lease, so an outage of the
+ * lease table costs duplicated refreshes rather than failed requests.
+ */
+@Component
+public class RefreshLeaseManager {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RefreshLeaseManager.class);
+
+    private final boolean enabled;
+    private final String tableName;
+    private final Duration duration;
+    private final Duration maxWait;
+    private final Duration pollInterval;
+    private final DynamoClient dynamoClient;
+    private final Clock clock;
+    private final String owner;
+    private final ScheduledExecutorService renewals;
+
+    /**
+     * A lease on refreshing a stock, renewed until closed
+     */
+    public final class Lease implements AutoCloseable {
+        private final String symbol;
+        private final long token;
+        private final boolean fenced;
+        private volatile boolean held = true;
+        private ScheduledFuture<?> renewal;
+
+        private Lease(String symbol, long token, boolean fenced) {
+            this.symbol = symbol;
+            this.token = token;
+            this.fenced = fenced;
+        }
+
+        /**
+         * @return the fencing token of the lease, higher than that of every earlier lease on the stock
+         */
+        public long token() {
+            return token;
+        }
+
+        /**
+         * Renews the lease, so a write made straight after cannot overwrite one made under a later lease
+         *
+         * @return false if the lease has been lost to another instance
+         */
+        public boolean confirm() {
+            return held && (!fenced || renew(this));
+        }
+
+        /**
+         * Stops renewing the lease and releases it, so waiting instances need not wait for it to expire
+         */
+        @Override
+        public void close() {
+            if (renewal != null) {
+                renewal.cancel(false);
+            }
+            if (fenced && held) {
+                release(this);
+            }
+            held = false;
+        }
+    }
+
+    /**
+     * Creates a new manager of refresh leases
+     *
+     * @param properties the properties set for refresh leases
+     * @param dynamoClient the client to handle dynamo db interactions
+     */
+    @Autowired
+    public RefreshLeaseManager(AppRefreshLeaseProperties properties, DynamoClient dynamoClient) {
+        this(properties, dynamoClient, Clock.systemUTC());
+    }
+
+    RefreshLeaseManager(AppRefreshLeaseProperties properties, DynamoClient dynamoClient, Clock clock) {
+        this.enabled = properties.enabled();
+        this.tableName = properties.tableName();
+        this.duration = properties.duration();
+        this.maxWait = properties.maxWait();
+        this.pollInterval = properties.pollInterval();
+        this.dynamoClient = dynamoClient;
+        this.clock = clock;
+        // Unique per process, so a restarted instance never mistakes its predecessor's lease for its own
+        this.owner = String.format("%s/%s", ManagementFactory.getRuntimeMXBean().getName(), UUID.randomUUID());
+        this.renewals = enabled
+            ? Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("refresh-lease-renewal").daemon().factory())
+            : null;
+    }
+
+    /**
+     * Takes the lease on refreshing a stock, unless another refresh of it holds one
+     *
+     * @param symbol the symbol of the stock to refresh
+     * @return the lease, empty if another refresh of the stock holds it
+     */
+    public Optional<Lease> tryAcquire(String symbol) {
+        if (!enabled) {
+            return Optional.of(new Lease(symbol, 0, false));
+        }
+
+        try {
+            RefreshLease current = dynamoClient.getItem(tableName, key(symbol), RefreshLease.class);
+            long now = clock.millis();
+            if (current != null && current.getExpiresAt() > now) {
+                return Optional.empty();
+            }
+
+            long token = current == null ? 1 : current.getToken() + 1;
+            RefreshLease next = new RefreshLease(symbol, owner, token, now + duration.toMillis());
+            Expression unchanged = current == null
+                ? Expression.builder()
+                    .expression("attribute_not_exists(#symbol)")
+                    .putExpressionName("#symbol", "symbol")
+                    .build()
+                : Expression.builder()
+                    .expression("#token = :token")
+                    .putExpressionName("#token", "token")
+                    .putExpressionValue(":token", AttributeValue.fromN(String.valueOf(current.getToken())))
+                    .build();
+            // Fails if another instance took the lease since it was read
+            if (!dynamoClient.putItemIf(tableName, next, unchanged, RefreshLease.class)) {
+                return Optional.empty();
+            }
+
+            Lease lease = new Lease(symbol, token, true);
+            long renewEvery = Math.max(1, duration.toMillis() / 3);
+            lease.renewal = renewals.scheduleAtFixedRate(() -> renew(lease), renewEvery, renewEvery, TimeUnit.MILLISECONDS);
+            return Optional.of(lease);
+
+        } catch (DynamoClientException exception) {
+            LOGGER.warn(String.format("Exception when taking refresh lease on stock %s, refreshing without one", symbol), exception);
+            return Optional.of(new Lease(symbol, 0, false));
+        }
+    }
+
+    /**
+     * Waits for another refresh of a stock to release or lose its lease
+     *
+     * @param symbol the symbol of the stock being refreshed
+     * @return true if the lease was released within the maximum wait
+     */
+    public boolean awaitRelease(String symbol) {
+        if (!enabled) {
+            return true;
+        }
+
+        long deadline = clock.millis() + maxWait.toMillis();
+        try {
+            while (clock.millis() < deadline) {
+                Thread.sleep(pollInterval);
+                RefreshLease current = dynamoClient.getItem(tableName, key(symbol), RefreshLease.class);
+                if (current == null || current.getExpiresAt() <= clock.millis()) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (DynamoClientException exception) {
+            LOGGER.warn(String.format("Exception when waiting for refresh lease on stock %s", symbol), exception);
+        }
+        return false;
+    }
+
+    /**
+     * Stops renewing leases, those still held expire
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (renewals != null) {
+            renewals.shutdownNow();
+        }
+    }
+
+    private boolean renew(Lease lease) {
+        return extend(lease, clock.millis() + duration.toMillis(), "renewing");
+    }
+
+    private void release(Lease lease) {
+        extend(lease, 0, "releasing");
+    }
+
+    // Rewrites the lease with a new expiry if this instance still holds it under the same token
+    private boolean extend(Lease lease, long expiresAt, String action) {
+        Expression stillHeld = Expression.builder()
+            .expression("#owner = :owner AND #token = :token")
+            .putExpressionName("#owner", "owner")
+            .putExpressionName("#token", "token")
+            .putExpressionValue(":owner", AttributeValue.fromS(owner))
+            .putExpressionValue(":token", AttributeValue.fromN(String.valueOf(lease.token)))
+            .build();
+        try {
+            if (!dynamoClient.putItemIf(tableName, new RefreshLease(lease.symbol, owner, lease.token, expiresAt), stillHeld, RefreshLease.class)) {
+                LOGGER.warn(String.format("Lost refresh lease on stock %s (token %d)", lease.symbol, lease.token));
+                lease.held = false;
+                if (lease.renewal != null) {
+                    lease.renewal.cancel(false);
+                }
+            }
+        } catch (DynamoClientException exception) {
+            // Possibly still held, the next renewal may succeed, but a write cannot be fenced by it
+            LOGGER.warn(String.format("Exception when %s refresh lease on stock %s", action, lease.symbol), exception);
+            return false;
+        }
+        return lease.held;
+    }
+
+    private static Key key(String symbol) {
+        return Key.builder().partitionValue(symbol).build();
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.jaycleverly.stock_info.model;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Pairwise covariance and correlation of daily returns, matrix indexes follow the order of the symbols
+ *
+ * @param symbols the stocks in the matrix
+ * @param from the first date with a close common to every stock
+ * @param to the last date with a close common to every stock
+ * @param observations the number of daily returns used
+ * @param covariance the sample covariance of daily returns
+ * @param correlation the correlation of daily returns, NaN where a stock's close did not change
+ */
+public record CorrelationMatrix(
+    List<String> symbols,
+    LocalDate from,
+    LocalDate to,
+    int observations,
+    double[][] covariance,
+    double[][] correlation
+) {}
@@ -15,6 +15,10 @@ public class DailyStockMetrics {
     private Double movingAverage;
     private Double volatility;
     private Double momentum;
+    // Only set on weekly and monthly rollups, the close is the bar's last
+    private Double open;
+    private Double high;
+    private Double low;
 
     public DailyStockMetrics() {}
 
@@ -91,4 +95,28 @@ public class DailyStockMetrics {
     public void setMomentum(Double momentum) {
         this.momentum = momentum;
     }
+
+    public Double getOpen() {
+        return open;
+    }
+
+    public void setOpen(Double open) {
+        this.open = open;
+    }
+
+    public Double getHigh() {
+        return high;
+    }
+
+    public void setHigh(Double high) {
+        this.high = high;
+    }
+
+    public Double getLow() {
+        return low;
+    }
+
+    public void setLow(Double low) {
+        this.low = low;
+    }
 }
\ No newline at end of file
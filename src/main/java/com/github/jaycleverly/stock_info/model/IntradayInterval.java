@@ -0,0 +1,47 @@
+package com.github.jaycleverly.stock_info.model;
+
+import java.util.Optional;
+
+/**
+ * The bar sizes intraday prices are served at, as named by the api
+ */
+public enum IntradayInterval {
+    ONE_MINUTE("1min", 1),
+    FIVE_MINUTES("5min", 5),
+    FIFTEEN_MINUTES("15min", 15);
+
+    private final String label;
+    private final int minutes;
+
+    IntradayInterval(String label, int minutes) {
+        this.label = label;
+        this.minutes = minutes;
+    }
+
+    /**
+     * @return the name of the interval as written in requests and responses, eg: 5min
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return the length of each bar in minutes
+     */
+    public int getMinutes() {
+        return minutes;
+    }
+
+    /**
+     * @param value the interval as given in a request, eg: 5min
+     * @return the matching interval, empty if there is none
+     */
+    public static Optional<IntradayInterval> parse(String value) {
+        for (IntradayInterval interval : values()) {
+            if (interval.label.equalsIgnoreCase(value)) {
+                return Optional.of(interval);
+            }
+        }
+        return Optional.empty();
+    }
+}
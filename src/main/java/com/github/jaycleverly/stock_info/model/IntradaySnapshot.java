@@ -0,0 +1,46 @@
+package com.github.jaycleverly.stock_info.model;
+
+/**
+ * A copy of the bars of a stock's current intraday session and their metrics, one array per field with indexes lining
+ * up, oldest bar first. Metrics not yet defined for a bar (too few bars before it in the session) are NaN.
+ *
+ * @param symbol the stock symbol
+ * @param interval the bar size
+ * @param minutes the start of each bar in minutes since the epoch, in exchange local time
+ * @param open the opening price of each bar
+ * @param high the highest price of each bar
+ * @param low the lowest price of each bar
+ * @param close the closing price of each bar
+ * @param volume the shares traded in each bar
+ * @param movingAverage the average close over the moving average window ending at each bar
+ * @param volatility the standard deviation of bar returns (%) over the volatility window ending at each bar
+ * @param momentum the change in close (%) over the momentum window ending at each bar
+ * @param vwap the volume weighted average price of the session up to each bar
+ * @param movingAverageBars the bars each moving average is over
+ * @param volatilityBars the returns each volatility is over
+ * @param momentumBars the bars each momentum is over
+ */
+public record IntradaySnapshot(
+    String symbol,
+    IntradayInterval interval,
+    long[] minutes,
+    double[] open,
+    double[] high,
+    double[] low,
+    double[] close,
+    long[] volume,
+    double[] movingAverage,
+    double[] volatility,
+    double[] momentum,
+    double[] vwap,
+    int movingAverageBars,
+    int volatilityBars,
+    int momentumBars
+) {
+    /**
+     * @return the number of bars held
+     */
+    public int size() {
+        return minutes.length;
+    }
+}
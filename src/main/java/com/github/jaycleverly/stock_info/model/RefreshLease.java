@@ -0,0 +1,54 @@
+package com.github.jaycleverly.stock_info.model;
+
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+
+@DynamoDbBean
+public class RefreshLease {
+    private String symbol;
+    private String owner;
+    private Long token;
+    private Long expiresAt;
+
+    public RefreshLease() {}
+
+    public RefreshLease(String symbol, String owner, Long token, Long expiresAt) {
+        this.symbol = symbol;
+        this.owner = owner;
+        this.token = token;
+        this.expiresAt = expiresAt;
+    }
+
+    @DynamoDbPartitionKey
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public Long getToken() {
+        return token;
+    }
+
+    public void setToken(Long token) {
+        this.token = token;
+    }
+
+    public Long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.jaycleverly.stock_info.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * The bar sizes metrics are served at. Weekly and monthly bars are rolled up from daily records and stored alongside
+ * them, under their own partition of each stock
+ */
+public enum Resolution {
+    DAILY("Daily", "d"),
+    WEEKLY("Weekly", "w"),
+    MONTHLY("Monthly", "m");
+
+    /**
+     * Separates the symbol from the resolution in the partition key of rolled up bars, never found in a daily key
+     */
+    public static final String KEY_SEPARATOR = "#";
+
+    private final String label;
+    private final String periodUnit;
+
+    Resolution(String label, String periodUnit) {
+        this.label = label;
+        this.periodUnit = periodUnit;
+    }
+
+    /**
+     * @return the name of the resolution as written in responses, eg: Weekly
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return the unit indicator periods are counted in, eg: w for weeks
+     */
+    public String getPeriodUnit() {
+        return periodUnit;
+    }
+
+    /**
+     * @param date a trading day
+     * @return the first day of the bar holding the trading day, which the bar is stored under
+     */
+    public LocalDate periodStart(LocalDate date) {
+        return switch (this) {
+            case DAILY -> date;
+            case WEEKLY -> date.with(DayOfWeek.MONDAY);
+            case MONTHLY -> date.withDayOfMonth(1);
+        };
+    }
+
+    /**
+     * @param symbol the stock symbol
+     * @return the partition key the stock's bars at this resolution are stored under
+     */
+    public String storageKey(String symbol) {
+        return this == DAILY ? symbol : symbol + KEY_SEPARATOR + name();
+    }
+
+    /**
+     * @param value the resolution as given in a request, eg: weekly
+     * @return the matching resolution, empty if there is none
+     */
+    public static Optional<Resolution> parse(String value) {
+        for (Resolution resolution : values()) {
+            if (resolution.name().equalsIgnoreCase(value)) {
+                return Optional.of(resolution);
+            }
+        }
+        return Optional.empty();
+    }
+}
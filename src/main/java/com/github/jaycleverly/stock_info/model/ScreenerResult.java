@@ -0,0 +1,14 @@
+package com.github.jaycleverly.stock_info.model;
+
+import java.util.List;
+
+/**
+ * The stocks matching a screen
+ *
+ * @param indexedStocks the number of stocks that were screened
+ * @param matches the latest metrics of each matching stock, in the requested order
+ */
+public record ScreenerResult(
+    int indexedStocks,
+    List<DailyStockMetrics> matches
+) {}
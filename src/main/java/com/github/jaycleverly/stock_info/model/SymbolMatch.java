@@ -0,0 +1,18 @@
+package com.github.jaycleverly.stock_info.model;
+
+import java.time.LocalDate;
+
+/**
+ * A listed stock matching a symbol search
+ *
+ * @param symbol the symbol of the stock
+ * @param name the company name of the stock, empty if unknown
+ * @param latestDate the date of the latest metrics held for the stock, null if none are known to be held
+ * @param warm true if the held metrics are up to date, so a request for them is served without calling the api
+ */
+public record SymbolMatch(
+    String symbol,
+    String name,
+    LocalDate latestDate,
+    boolean warm
+) {}
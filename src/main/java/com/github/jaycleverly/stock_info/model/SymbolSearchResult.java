@@ -0,0 +1,16 @@
+package com.github.jaycleverly.stock_info.model;
+
+import java.util.List;
+
+/**
+ * The listed stocks matching a symbol search
+ *
+ * @param query the searched for start of a symbol or company name
+ * @param listedStocks the number of stocks that were searched
+ * @param matches the matching stocks, best first
+ */
+public record SymbolSearchResult(
+    String query,
+    int listedStocks,
+    List<SymbolMatch> matches
+) {}
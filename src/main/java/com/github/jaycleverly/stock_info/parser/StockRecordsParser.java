@@ -1,17 +1,26 @@
 package com.github.jaycleverly.stock_info.parser;
 
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.github.jaycleverly.stock_info.exception.ParserException;
 import com.github.jaycleverly.stock_info.model.DailyStockRecord;
 
 /**
  * Parser to convert a json response into a custom object. 
+ *
+ * The json read is the normalized daily time series format every upstream provider returns, modelled on Alpha
+ * Vantage's TIME_SERIES_DAILY response: the symbol under "Meta Data" and each day's prices under
+ * "Time Series (Daily)", most recent day first. Providers with another response shape convert to it with
+ * {@link #normalize}.
  */
 public class StockRecordsParser {
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
@@ -42,6 +51,86 @@ public class StockRecordsParser {
         }
     }
 
+    /**
+     * Writes stock records in the normalized daily time series format
+     * 
+     * @param symbol the symbol of the stock
+     * @param provider the name of the provider the records came from
+     * @param records the daily records of the stock, more recent records at higher indexes
+     * @return json stock records that {@link #parse} reads back to the same records
+     * @throws ParserException if the records cannot be written as json
+     */
+    public static String normalize(String symbol, String provider, List<DailyStockRecord> records) throws ParserException {
+        ObjectNode root = OBJECT_MAPPER.createObjectNode();
+        ObjectNode metaData = root.putObject("Meta Data");
+        metaData.put("1. Information", String.format("Daily Prices (from %s)", provider));
+        metaData.put("2. Symbol", symbol);
+        if (!records.isEmpty()) {
+            metaData.put("3. Last Refreshed", records.getLast().getDate().toString());
+        }
+
+        ObjectNode timeSeries = root.putObject("Time Series (Daily)");
+        for (DailyStockRecord record : records.reversed()) {
+            ObjectNode day = timeSeries.putObject(record.getDate().toString());
+            day.put("1. open", record.getOpen());
+            day.put("2. high", record.getHigh());
+            day.put("3. low", record.getLow());
+            day.put("4. close", record.getClose());
+        }
+
+        try {
+            return OBJECT_MAPPER.writeValueAsString(root);
+        } catch (JsonProcessingException exception) {
+            throw new ParserException(String.format("Exception when normalizing stock records for %s!", symbol), exception);
+        }
+    }
+
+    /**
+     * Parses a csv file in the api's csv format (a header row naming timestamp, open, high, low and close columns,
+     * then one row per day) to a list of stock records
+     * 
+     * @param symbol the symbol of the stock, which the csv format does not carry
+     * @param stockData stock data in a csv format
+     * @return a list of daily stock records, more recent records at higher indexes
+     * @throws ParserException if a record cannot be parsed from the csv
+     */
+    public static List<DailyStockRecord> parseCsv(String symbol, String stockData) throws ParserException {
+        try {
+            String[] lines = stockData.strip().split("\\R");
+            List<String> header = Arrays.stream(lines[0].split(",")).map(column -> column.strip().toLowerCase()).toList();
+            int date = header.indexOf("timestamp") >= 0 ? header.indexOf("timestamp") : header.indexOf("date");
+            int open = header.indexOf("open");
+            int high = header.indexOf("high");
+            int low = header.indexOf("low");
+            int close = header.indexOf("close");
+            if (date < 0 || open < 0 || high < 0 || low < 0 || close < 0) {
+                throw new ParserException(String.format("Missing columns in csv header (%s)!", lines[0]), null);
+            }
+
+            List<DailyStockRecord> records = new ArrayList<>(lines.length - 1);
+            for (int line = 1; line < lines.length; line++) {
+                if (lines[line].isBlank()) {
+                    continue;
+                }
+                String[] values = lines[line].split(",");
+                records.add(new DailyStockRecord(
+                    symbol,
+                    LocalDate.parse(values[date].strip()),
+                    Double.parseDouble(values[open]),
+                    Double.parseDouble(values[high]),
+                    Double.parseDouble(values[low]),
+                    Double.parseDouble(values[close])));
+            }
+
+            // The api writes the most recent day first, files from elsewhere may not
+            records.sort(Comparator.comparing(DailyStockRecord::getDate));
+            return records;
+
+        } catch (DateTimeParseException | NumberFormatException | ArrayIndexOutOfBoundsException exception) {
+            throw new ParserException("Exception when parsing stock records from csv!", exception);
+        }
+    }
+
     private static DailyStockRecord toRecord(String symbol, LocalDate infoOriginDate, JsonNode stockInfo) {
         return new DailyStockRecord(
             symbol,
@@ -0,0 +1,212 @@
+package com.github.jaycleverly.stock_info.push;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import com.github.jaycleverly.stock_info.config.properties.AppPushProperties;
+import com.github.jaycleverly.stock_info.exception.ClientErrorException;
+import com.github.jaycleverly.stock_info.exception.SerializerException;
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+import com.github.jaycleverly.stock_info.serializer.ResponseFormat;
+import com.github.jaycleverly.stock_info.serializer.StockMetricsSerializer;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Fans newly computed metrics out to the subscribers of each stock.
+ *
+ * An update is serialized once and the same bytes are queued for every subscriber. Each subscriber has a bounded
+ * queue drained on its own virtual thread, so a slow connection never delays the others and is evicted once its queue is full.
+ */
+@Component
+public class MetricsUpdateHub {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricsUpdateHub.class);
+
+    private final int queueCapacity;
+    private final int maxSymbols;
+    private final Map<String, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * A connection that metrics updates are written to
+     */
+    public interface Subscriber {
+        /**
+         * Writes an update to the connection, only ever called by one thread at a time
+         *
+         * @param symbol the stock the update is for
+         * @param update the serialized update, shared between subscribers so must not be modified
+         * @throws IOException if the update cannot be written
+         */
+        void send(String symbol, byte[] update) throws IOException;
+
+        /**
+         * Closes the connection
+         */
+        void close();
+    }
+
+    private record Update(String symbol, byte[] bytes) {}
+
+    /**
+     * Creates a new hub for pushing metrics updates
+     *
+     * @param properties the properties set for push subscriptions
+     */
+    public MetricsUpdateHub(AppPushProperties properties) {
+        this.queueCapacity = properties.queueCapacity();
+        this.maxSymbols = properties.maxSymbols();
+    }
+
+    /**
+     * Subscribes a connection to updates for a set of stocks
+     *
+     * @param symbols the stocks to receive updates for
+     * @param subscriber the connection to write updates to
+     * @return the subscription, cancelled when the connection ends
+     * @throws ClientErrorException if no stocks or too many stocks are requested
+     */
+    public Subscription subscribe(Collection<String> symbols, Subscriber subscriber) throws ClientErrorException {
+        Set<String> stockSymbols = symbols.stream()
+            .map(String::trim)
+            .filter(symbol -> !symbol.isEmpty())
+            .map(String::toUpperCase)
+            .collect(Collectors.toUnmodifiableSet());
+        if (stockSymbols.isEmpty() || stockSymbols.size() > maxSymbols) {
+            throw new ClientErrorException(
+                String.format("Between 1 and %d symbols must be subscribed to!", maxSymbols), HttpStatus.BAD_REQUEST, null);
+        }
+
+        Subscription subscription = new Subscription(stockSymbols, subscriber);
+        stockSymbols.forEach(symbol -> subscriptions.computeIfAbsent(symbol, key -> ConcurrentHashMap.newKeySet()).add(subscription));
+        return subscription;
+    }
+
+    /**
+     * Pushes the latest metrics of a stock to its subscribers
+     *
+     * @param latest the newly computed metrics
+     */
+    public void publish(DailyStockMetrics latest) {
+        Set<Subscription> subscribers = subscriptions.get(latest.getSymbol());
+        if (subscribers == null || subscribers.isEmpty()) {
+            return;
+        }
+
+        try {
+            Update update = new Update(
+                latest.getSymbol(), StockMetricsSerializer.serialize(List.of(latest), ResponseFormat.COMPACT_JSON));
+            subscribers.forEach(subscription -> subscription.offer(update));
+        } catch (SerializerException exception) {
+            LOGGER.error(String.format("Exception when serializing update for stock (%s), not pushed", latest.getSymbol()), exception);
+        }
+    }
+
+    /**
+     * Returns the number of connections subscribed to a stock
+     *
+     * @param symbol the stock symbol
+     * @return the number of subscribers
+     */
+    public int subscriberCount(String symbol) {
+        return subscriptions.getOrDefault(symbol, Set.of()).size();
+    }
+
+    /**
+     * Closes every subscribed connection on shutdown
+     */
+    @PreDestroy
+    public void close() {
+        subscriptions.values().stream()
+            .flatMap(Set::stream)
+            .distinct()
+            .toList()
+            .forEach(Subscription::cancel);
+        sender.shutdown();
+    }
+
+    /**
+     * A connection's interest in a set of stocks and the updates waiting to be written to it
+     */
+    public final class Subscription {
+        private final Set<String> symbols;
+        private final Subscriber subscriber;
+        private final BlockingQueue<Update> pending;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+
+        private Subscription(Set<String> symbols, Subscriber subscriber) {
+            this.symbols = symbols;
+            this.subscriber = subscriber;
+            this.pending = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        /**
+         * Stops sending updates and closes the connection, safe to call more than once
+         */
+        public void cancel() {
+            if (!cancelled.compareAndSet(false, true)) {
+                return;
+            }
+            symbols.forEach(symbol -> subscriptions.computeIfPresent(symbol, (key, subscribers) -> {
+                subscribers.remove(this);
+                return subscribers.isEmpty() ? null : subscribers;
+            }));
+            pending.clear();
+            subscriber.close();
+        }
+
+        private void offer(Update update) {
+            if (cancelled.get()) {
+                return;
+            }
+            if (!pending.offer(update)) {
+                LOGGER.warn(String.format("Evicting slow subscriber to %s with %d updates pending", symbols, pending.size()));
+                cancel();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                Update update;
+                while (!cancelled.get() && (update = pending.poll()) != null) {
+                    subscriber.send(update.symbol(), update.bytes());
+                }
+            } catch (IOException | RuntimeException exception) {
+                LOGGER.info(String.format("Subscriber to %s disconnected: %s", symbols, exception.getMessage()));
+                draining.set(false);
+                cancel();
+                return;
+            }
+            draining.set(false);
+
+            // An update may have been queued after the last poll but before draining was cleared
+            if (!pending.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+}
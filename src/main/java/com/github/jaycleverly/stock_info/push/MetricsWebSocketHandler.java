@@ -0,0 +1,73 @@
+package com.github.jaycleverly.stock_info.push;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.github.jaycleverly.stock_info.exception.ClientErrorException;
+
+/**
+ * Pushes metrics updates over a websocket, the stocks to subscribe to are read from the symbols query parameter
+ */
+public class MetricsWebSocketHandler extends TextWebSocketHandler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricsWebSocketHandler.class);
+    private static final String SUBSCRIPTION_ATTRIBUTE = "subscription";
+
+    private final MetricsUpdateHub metricsUpdateHub;
+
+    /**
+     * Creates a new handler for websocket subscriptions
+     *
+     * @param metricsUpdateHub the hub that fans metrics updates out to subscribers
+     */
+    public MetricsWebSocketHandler(MetricsUpdateHub metricsUpdateHub) {
+        this.metricsUpdateHub = metricsUpdateHub;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws IOException {
+        List<String> symbols = UriComponentsBuilder.fromUri(session.getUri()).build()
+            .getQueryParams()
+            .getOrDefault("symbols", List.of())
+            .stream()
+            .flatMap(value -> Arrays.stream(value.split(",")))
+            .toList();
+
+        try {
+            MetricsUpdateHub.Subscription subscription = metricsUpdateHub.subscribe(symbols, new MetricsUpdateHub.Subscriber() {
+                @Override
+                public void send(String symbol, byte[] update) throws IOException {
+                    session.sendMessage(new TextMessage(update));
+                }
+
+                @Override
+                public void close() {
+                    try {
+                        session.close();
+                    } catch (IOException exception) {
+                        LOGGER.debug("Exception when closing websocket session", exception);
+                    }
+                }
+            });
+            session.getAttributes().put(SUBSCRIPTION_ATTRIBUTE, subscription);
+
+        } catch (ClientErrorException exception) {
+            session.close(CloseStatus.BAD_DATA.withReason(exception.getMessage()));
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        if (session.getAttributes().remove(SUBSCRIPTION_ATTRIBUTE) instanceof MetricsUpdateHub.Subscription subscription) {
+            subscription.cancel();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.github.jaycleverly.stock_info.repository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.github.jaycleverly.stock_info.client.DynamoClient;
+import com.github.jaycleverly.stock_info.config.properties.DynamoDbProperties;
+import com.github.jaycleverly.stock_info.exception.DynamoClientException;
+import com.github.jaycleverly.stock_info.exception.MetricsRepositoryException;
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+import com.github.jaycleverly.stock_info.model.Resolution;
+
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Metrics repository backed by a dynamo table partitioned by symbol and sorted by date
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.metrics-repository", name = "type", havingValue = "dynamo", matchIfMissing = true)
+public class DynamoMetricsRepository implements MetricsRepository {
+    private final String tableName;
+    private final DynamoClient dynamoClient;
+
+    /**
+     * Creates a new repository reading and writing a dynamo table
+     *
+     * @param dynamoDbProperties the properties set for dynamodb
+     * @param dynamoClient the client to handle dynamo db interactions
+     */
+    public DynamoMetricsRepository(DynamoDbProperties dynamoDbProperties, DynamoClient dynamoClient) {
+        this.tableName = dynamoDbProperties.tableName();
+        this.dynamoClient = dynamoClient;
+    }
+
+    @Override
+    public List<DailyStockMetrics> findLatest(String symbol, int maxRecords) throws MetricsRepositoryException {
+        try {
+            return dynamoClient.queryLatest(tableName, symbol, maxRecords, DailyStockMetrics.class);
+        } catch (DynamoClientException exception) {
+            throw new MetricsRepositoryException(
+                String.format("Exception when reading the latest %d metrics of %s", maxRecords, symbol), exception);
+        }
+    }
+
+    @Override
+    public List<DailyStockMetrics> findBetween(String symbol, LocalDate from, LocalDate to, int maxRecords) throws MetricsRepositoryException {
+        try {
+            return dynamoClient.queryBetween(tableName, symbol, from.toString(), to.toString(), maxRecords, DailyStockMetrics.class);
+        } catch (DynamoClientException exception) {
+            throw new MetricsRepositoryException(
+                String.format("Exception when reading metrics of %s between %s and %s", symbol, from, to), exception);
+        }
+    }
+
+    @Override
+    public void upsertAll(List<DailyStockMetrics> metrics) throws MetricsRepositoryException {
+        try {
+            dynamoClient.batchPutItems(tableName, metrics, DailyStockMetrics.class);
+        } catch (DynamoClientException exception) {
+            throw new MetricsRepositoryException(String.format("Exception when storing %d metrics", metrics.size()), exception);
+        }
+    }
+
+    @Override
+    public void scan(MetricsScanFilter filter,
+                     int segment,
+                     int totalSegments,
+                     int pageSize,
+                     Consumer<List<DailyStockMetrics>> pageConsumer) throws MetricsRepositoryException {
+        try {
+            dynamoClient.scanSegment(tableName, segment, totalSegments, filterExpression(filter), pageSize, DailyStockMetrics.class, pageConsumer);
+        } catch (DynamoClientException exception) {
+            throw new MetricsRepositoryException(
+                String.format("Exception when scanning segment %d of %d of stored metrics", segment, totalSegments), exception);
+        }
+    }
+
+    @Override
+    public void warmUp() throws MetricsRepositoryException {
+        try {
+            dynamoClient.warmUp(tableName, DailyStockMetrics.class);
+        } catch (DynamoClientException exception) {
+            throw new MetricsRepositoryException("Exception when warming up dynamo connection", exception);
+        }
+    }
+
+    // Filtered by the table so only matching items are sent back, though every item is still read
+    static Expression filterExpression(MetricsScanFilter filter) {
+        List<String> conditions = new ArrayList<>();
+        Expression.Builder expression = Expression.builder()
+            .putExpressionName("#symbol", "symbol")
+            .putExpressionValue(":separator", AttributeValue.fromS(Resolution.KEY_SEPARATOR));
+        conditions.add("NOT contains(#symbol, :separator)");
+
+        if (filter.symbolPrefix() != null) {
+            conditions.add("begins_with(#symbol, :prefix)");
+            expression.putExpressionValue(":prefix", AttributeValue.fromS(filter.symbolPrefix()));
+        }
+        if (filter.from() != null || filter.to() != null) {
+            expression.putExpressionName("#date", "date");
+        }
+        if (filter.from() != null) {
+            conditions.add("#date >= :from");
+            expression.putExpressionValue(":from", AttributeValue.fromS(filter.from().toString()));
+        }
+        if (filter.to() != null) {
+            conditions.add("#date <= :to");
+            expression.putExpressionValue(":to", AttributeValue.fromS(filter.to().toString()));
+        }
+        return expression.expression(String.join(" AND ", conditions)).build();
+    }
+}
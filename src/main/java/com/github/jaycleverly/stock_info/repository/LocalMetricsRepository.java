@@ -0,0 +1,428 @@
+package com.github.jaycleverly.stock_info.repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.github.jaycleverly.stock_info.config.properties.AppMetricsRepositoryProperties;
+import com.github.jaycleverly.stock_info.exception.MetricsRepositoryException;
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Embedded metrics repository kept on local disk, so reads are served from memory without a network round trip.
+ *
+ * The metrics of each stock are held as arrays of epoch days and metric values sorted by day, so reads are a binary
+ * search, and are replaced rather than modified so reads never lock. Each batch of upserts is appended to a log and forced
+ * to disk before it is applied, so an upsert that returns survives a crash. Each record is laid out as
+ * [record length][crc32][symbol length][symbol][count][count x (epoch day, close, previous close change, moving average, volatility, momentum, open, high, low)]
+ * with missing values written as NaN. The log is replayed on startup, a window at a time. Once it exceeds the compaction threshold and is
+ * over twice the size of the live metrics, it is rewritten with a single record per stock.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.metrics-repository", name = "type", havingValue = "local")
+public class LocalMetricsRepository implements MetricsRepository {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocalMetricsRepository.class);
+    private static final String LOG_FILE = "metrics.log";
+    private static final String COMPACTING_FILE = "metrics.log.compacting";
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+    private static final int VALUES = 8;
+    private static final int ENTRY_BYTES = Long.BYTES + VALUES * Double.BYTES;
+    private static final int REPLAY_WINDOW_BYTES = 64 * 1024 * 1024;
+
+    private final Path directory;
+    private final Path logFile;
+    private final long compactionThreshold;
+    private final int replayWindowBytes;
+    private final Map<String, Series> stocks = new ConcurrentHashMap<>();
+    private FileChannel log;
+    private long logBytes;
+    private long liveBytes;
+
+    /**
+     * Metrics of one stock sorted by day, the values of each day stored together
+     */
+    private record Series(long[] days, double[] values) {
+        int size() {
+            return days.length;
+        }
+    }
+
+    /**
+     * Creates a new repository, replaying the log already on disk
+     *
+     * @param properties the properties set for the metrics repository
+     * @throws MetricsRepositoryException if the log cannot be opened
+     */
+    public LocalMetricsRepository(AppMetricsRepositoryProperties properties) throws MetricsRepositoryException {
+        this(properties, REPLAY_WINDOW_BYTES);
+    }
+
+    LocalMetricsRepository(AppMetricsRepositoryProperties properties, int replayWindowBytes) throws MetricsRepositoryException {
+        this.replayWindowBytes = replayWindowBytes;
+        this.directory = Path.of(properties.directory());
+        this.logFile = directory.resolve(LOG_FILE);
+        this.compactionThreshold = properties.compactionThreshold().toBytes();
+
+        try {
+            Files.createDirectories(directory);
+            // Left by a crash part way through compaction, the log it was replacing is still whole
+            Files.deleteIfExists(directory.resolve(COMPACTING_FILE));
+            log = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            logBytes = replay();
+            LOGGER.info(String.format("Loaded metrics of %d stocks from %s", stocks.size(), logFile));
+
+        } catch (IOException exception) {
+            throw new MetricsRepositoryException(String.format("Exception when opening metrics store (%s)", directory), exception);
+        }
+    }
+
+    @Override
+    public List<DailyStockMetrics> findLatest(String symbol, int maxRecords) {
+        Series series = stocks.get(symbol);
+        if (series == null) {
+            return List.of();
+        }
+        return toMetrics(symbol, series, Math.max(0, series.size() - maxRecords), series.size());
+    }
+
+    @Override
+    public List<DailyStockMetrics> findBetween(String symbol, LocalDate from, LocalDate to, int maxRecords) {
+        Series series = stocks.get(symbol);
+        if (series == null) {
+            return List.of();
+        }
+        int start = firstIndexFrom(series.days(), from.toEpochDay());
+        int end = firstIndexFrom(series.days(), to.toEpochDay() + 1);
+        return toMetrics(symbol, series, start, Math.min(end, start + Math.max(0, maxRecords)));
+    }
+
+    @Override
+    public synchronized void upsertAll(List<DailyStockMetrics> metrics) throws MetricsRepositoryException {
+        Map<String, List<DailyStockMetrics>> bySymbol = new LinkedHashMap<>();
+        metrics.forEach(metric -> bySymbol.computeIfAbsent(metric.getSymbol(), symbol -> new ArrayList<>()).add(metric));
+        Map<String, Series> updates = new LinkedHashMap<>();
+        bySymbol.forEach((symbol, stockMetrics) -> updates.put(symbol, toSeries(stockMetrics)));
+
+        // The whole batch is on disk before any of it is served
+        long batchStart = logBytes;
+        String symbol = null;
+        try {
+            for (Map.Entry<String, Series> update : updates.entrySet()) {
+                symbol = update.getKey();
+                ByteBuffer record = encode(symbol, update.getValue());
+                while (record.hasRemaining()) {
+                    log.write(record, logBytes + record.position());
+                }
+                logBytes += record.limit();
+            }
+            log.force(false);
+        } catch (IOException exception) {
+            logBytes = batchStart;
+            discardPartialRecord();
+            throw new MetricsRepositoryException(String.format("Exception when storing metrics of %s", symbol), exception);
+        }
+
+        for (Map.Entry<String, Series> update : updates.entrySet()) {
+            Series current = stocks.get(update.getKey());
+            Series merged = current == null ? update.getValue() : merge(current, update.getValue());
+            stocks.put(update.getKey(), merged);
+            liveBytes += recordBytes(update.getKey(), merged) - (current == null ? 0 : recordBytes(update.getKey(), current));
+        }
+
+        if (logBytes > compactionThreshold && logBytes > 2 * liveBytes) {
+            compact();
+        }
+    }
+
+    // Stocks are divided between segments by the hash of their symbol
+    @Override
+    public void scan(MetricsScanFilter filter,
+                     int segment,
+                     int totalSegments,
+                     int pageSize,
+                     Consumer<List<DailyStockMetrics>> pageConsumer) {
+        for (Map.Entry<String, Series> stock : stocks.entrySet()) {
+            String symbol = stock.getKey();
+            if (Math.floorMod(symbol.hashCode(), totalSegments) != segment || !filter.includes(symbol)) {
+                continue;
+            }
+
+            Series series = stock.getValue();
+            int start = filter.from() == null ? 0 : firstIndexFrom(series.days(), filter.from().toEpochDay());
+            int end = filter.to() == null ? series.size() : firstIndexFrom(series.days(), filter.to().toEpochDay() + 1);
+            for (int from = start; from < end; from += pageSize) {
+                pageConsumer.accept(toMetrics(symbol, series, from, Math.min(end, from + pageSize)));
+            }
+        }
+    }
+
+    @Override
+    public void warmUp() {
+        // Reads are served from memory, there is no connection to set up
+    }
+
+    /**
+     * @return the size of the log on disk in bytes
+     */
+    synchronized long logBytes() {
+        return logBytes;
+    }
+
+    /**
+     * Closes the log
+     */
+    @PreDestroy
+    public synchronized void close() {
+        try {
+            log.close();
+        } catch (IOException exception) {
+            LOGGER.warn(String.format("Exception when closing metrics store (%s)", logFile), exception);
+        }
+    }
+
+    // Reads the log a window at a time, as a single mapping cannot pass 2 GiB
+    private long replay() throws IOException {
+        long size = log.size();
+        long position = 0;
+        long windowStart = 0;
+        ByteBuffer window = ByteBuffer.allocate(0);
+        while (size - position >= HEADER_BYTES) {
+            if (position + HEADER_BYTES > windowStart + window.limit()) {
+                window = map(position, HEADER_BYTES, size);
+                windowStart = position;
+            }
+            int offset = (int) (position - windowStart);
+            int length = window.getInt(offset);
+            int crc = window.getInt(offset + Integer.BYTES);
+            if (length <= 0 || length > size - position - HEADER_BYTES) {
+                break;
+            }
+            if (position + HEADER_BYTES + length > windowStart + window.limit()) {
+                window = map(position, HEADER_BYTES + (long) length, size);
+                windowStart = position;
+                offset = 0;
+            }
+
+            ByteBuffer body = window.slice(offset + HEADER_BYTES, length);
+            if (checksum(body) != crc) {
+                break;
+            }
+            byte[] symbolBytes = new byte[body.getShort()];
+            body.get(symbolBytes);
+            String symbol = new String(symbolBytes, StandardCharsets.UTF_8);
+            Series update = decode(body);
+
+            Series current = stocks.get(symbol);
+            Series merged = current == null ? update : merge(current, update);
+            stocks.put(symbol, merged);
+            liveBytes += recordBytes(symbol, merged) - (current == null ? 0 : recordBytes(symbol, current));
+            position += HEADER_BYTES + length;
+        }
+
+        // Drop a record torn by a crash part way through an upsert
+        if (position < size) {
+            LOGGER.warn(String.format("Truncating torn record at offset %d of %s", position, logFile));
+            log.truncate(position);
+        }
+        return position;
+    }
+
+    // Maps the log from a position, covering at least the bytes needed and otherwise up to a window
+    private MappedByteBuffer map(long position, long needed, long size) throws IOException {
+        return log.map(FileChannel.MapMode.READ_ONLY, position, Math.min(size - position, Math.max(needed, replayWindowBytes)));
+    }
+
+    // Rewrites the log with one record per stock, swapped in atomically so a crash leaves either log whole
+    private void compact() {
+        Path compacting = directory.resolve(COMPACTING_FILE);
+        long compactedBytes = 0;
+        try (FileChannel out = FileChannel.open(compacting, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Map.Entry<String, Series> stock : stocks.entrySet()) {
+                ByteBuffer record = encode(stock.getKey(), stock.getValue());
+                while (record.hasRemaining()) {
+                    compactedBytes += out.write(record, compactedBytes);
+                }
+            }
+            out.force(true);
+        } catch (IOException exception) {
+            LOGGER.warn(String.format("Exception when compacting metrics store (%s), continuing with the current log", logFile), exception);
+            return;
+        }
+
+        try {
+            log.close();
+            Files.move(compacting, logFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            LOGGER.info(String.format("Compacted metrics store from %d to %d bytes", logBytes, compactedBytes));
+            logBytes = compactedBytes;
+        } catch (IOException exception) {
+            LOGGER.warn(String.format("Exception when replacing metrics log (%s), continuing with the current log", logFile), exception);
+        } finally {
+            reopen();
+        }
+    }
+
+    private void reopen() {
+        try {
+            log = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            logBytes = log.size();
+        } catch (IOException exception) {
+            throw new MetricsRepositoryException(String.format("Exception when reopening metrics store (%s)", logFile), exception);
+        }
+    }
+
+    private void discardPartialRecord() {
+        try {
+            log.truncate(logBytes);
+        } catch (IOException exception) {
+            LOGGER.warn(String.format("Exception when discarding partial record of %s", logFile), exception);
+        }
+    }
+
+    private static List<DailyStockMetrics> toMetrics(String symbol, Series series, int from, int to) {
+        List<DailyStockMetrics> metrics = new ArrayList<>(Math.max(0, to - from));
+        double[] values = series.values();
+        for (int i = from; i < to; i++) {
+            int offset = i * VALUES;
+            DailyStockMetrics metric = new DailyStockMetrics(
+                symbol,
+                LocalDate.ofEpochDay(series.days()[i]),
+                valueOf(values[offset]),
+                valueOf(values[offset + 1]),
+                valueOf(values[offset + 2]),
+                valueOf(values[offset + 3]),
+                valueOf(values[offset + 4]));
+            metric.setOpen(valueOf(values[offset + 5]));
+            metric.setHigh(valueOf(values[offset + 6]));
+            metric.setLow(valueOf(values[offset + 7]));
+            metrics.add(metric);
+        }
+        return metrics;
+    }
+
+    // Sorted by day, the last of any metrics sharing a day is kept
+    private static Series toSeries(List<DailyStockMetrics> metrics) {
+        List<DailyStockMetrics> sorted = new ArrayList<>(metrics);
+        sorted.sort(Comparator.comparing(DailyStockMetrics::getDate));
+
+        long[] days = new long[sorted.size()];
+        double[] values = new double[sorted.size() * VALUES];
+        int size = 0;
+        for (DailyStockMetrics metric : sorted) {
+            long day = metric.getDate().toEpochDay();
+            if (size == 0 || days[size - 1] != day) {
+                size++;
+            }
+            days[size - 1] = day;
+            int offset = (size - 1) * VALUES;
+            values[offset] = valueOf(metric.getClose());
+            values[offset + 1] = valueOf(metric.getPreviousCloseChange());
+            values[offset + 2] = valueOf(metric.getMovingAverage());
+            values[offset + 3] = valueOf(metric.getVolatility());
+            values[offset + 4] = valueOf(metric.getMomentum());
+            values[offset + 5] = valueOf(metric.getOpen());
+            values[offset + 6] = valueOf(metric.getHigh());
+            values[offset + 7] = valueOf(metric.getLow());
+        }
+        return new Series(Arrays.copyOf(days, size), Arrays.copyOf(values, size * VALUES));
+    }
+
+    // Merges two series, the update replacing any day held by both
+    private static Series merge(Series current, Series update) {
+        long[] days = new long[current.size() + update.size()];
+        double[] values = new double[days.length * VALUES];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < current.size() || j < update.size()) {
+            boolean takeUpdate = i == current.size() || (j < update.size() && update.days()[j] <= current.days()[i]);
+            if (takeUpdate) {
+                if (i < current.size() && current.days()[i] == update.days()[j]) {
+                    i++;
+                }
+                days[size] = update.days()[j];
+                System.arraycopy(update.values(), j++ * VALUES, values, size++ * VALUES, VALUES);
+            } else {
+                days[size] = current.days()[i];
+                System.arraycopy(current.values(), i++ * VALUES, values, size++ * VALUES, VALUES);
+            }
+        }
+        return new Series(Arrays.copyOf(days, size), Arrays.copyOf(values, size * VALUES));
+    }
+
+    private static ByteBuffer encode(String symbol, Series series) {
+        byte[] symbolBytes = symbol.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(recordBytes(symbol, series));
+        record.position(HEADER_BYTES);
+        record.putShort((short) symbolBytes.length).put(symbolBytes).putInt(series.size());
+        for (int i = 0; i < series.size(); i++) {
+            record.putLong(series.days()[i]);
+            for (int value = 0; value < VALUES; value++) {
+                record.putDouble(series.values()[i * VALUES + value]);
+            }
+        }
+
+        ByteBuffer body = record.slice(HEADER_BYTES, record.capacity() - HEADER_BYTES);
+        record.putInt(0, body.capacity()).putInt(Integer.BYTES, checksum(body));
+        return record.flip();
+    }
+
+    private static Series decode(ByteBuffer body) {
+        int size = body.getInt();
+        long[] days = new long[size];
+        double[] values = new double[size * VALUES];
+        for (int i = 0; i < size; i++) {
+            days[i] = body.getLong();
+            for (int value = 0; value < VALUES; value++) {
+                values[i * VALUES + value] = body.getDouble();
+            }
+        }
+        return new Series(days, values);
+    }
+
+    private static int recordBytes(String symbol, Series series) {
+        return HEADER_BYTES + Short.BYTES + symbol.getBytes(StandardCharsets.UTF_8).length + Integer.BYTES + series.size() * ENTRY_BYTES;
+    }
+
+    // First index holding a day on or after the given day
+    private static int firstIndexFrom(long[] days, long day) {
+        int index = Arrays.binarySearch(days, day);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static double valueOf(Double value) {
+        return value == null ? Double.NaN : value;
+    }
+
+    private static Double valueOf(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+
+    private static int checksum(ByteBuffer body) {
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        return (int) crc.getValue();
+    }
+}
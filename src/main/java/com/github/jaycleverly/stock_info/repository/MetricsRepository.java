@@ -0,0 +1,68 @@
+package com.github.jaycleverly.stock_info.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.github.jaycleverly.stock_info.exception.MetricsRepositoryException;
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+
+/**
+ * Storage of the daily metrics of every stock, keyed by symbol and date.
+ * The backend is chosen by app.metrics-repository.type
+ */
+public interface MetricsRepository {
+    /**
+     * Reads the most recent metrics of a stock
+     *
+     * @param symbol the stock symbol
+     * @param maxRecords the maximum number of records to return
+     * @return up to the latest maxRecords metrics in ascending date order, empty if none are stored
+     * @throws MetricsRepositoryException if the metrics cannot be read
+     */
+    List<DailyStockMetrics> findLatest(String symbol, int maxRecords) throws MetricsRepositoryException;
+
+    /**
+     * Reads the metrics of a stock between two dates (inclusive)
+     *
+     * @param symbol the stock symbol
+     * @param from the earliest date to read
+     * @param to the latest date to read
+     * @param maxRecords the maximum number of records to return
+     * @return up to the earliest maxRecords metrics in the range in ascending date order
+     * @throws MetricsRepositoryException if the metrics cannot be read
+     */
+    List<DailyStockMetrics> findBetween(String symbol, LocalDate from, LocalDate to, int maxRecords) throws MetricsRepositoryException;
+
+    /**
+     * Stores metrics, replacing any already stored for the same stock and date
+     *
+     * @param metrics the metrics to store
+     * @throws MetricsRepositoryException if the metrics cannot be stored
+     */
+    void upsertAll(List<DailyStockMetrics> metrics) throws MetricsRepositoryException;
+
+    /**
+     * Reads one segment of the stored daily metrics page by page, so no more than a page is held at once. Scanning
+     * every segment from 0 to totalSegments - 1, in any order or in parallel, reads each stored metric once
+     *
+     * @param filter the metrics to read
+     * @param segment the segment to read
+     * @param totalSegments the number of segments the metrics are divided into
+     * @param pageSize the maximum number of metrics read at once
+     * @param pageConsumer called with each page of matching metrics in turn
+     * @throws MetricsRepositoryException if the metrics cannot be read
+     */
+    void scan(MetricsScanFilter filter,
+              int segment,
+              int totalSegments,
+              int pageSize,
+              Consumer<List<DailyStockMetrics>> pageConsumer) throws MetricsRepositoryException;
+
+    /**
+     * Makes a round trip to the backend so later calls avoid any connection or setup cost
+     *
+     * @throws MetricsRepositoryException if the backend cannot be reached
+     */
+    void warmUp() throws MetricsRepositoryException;
+}
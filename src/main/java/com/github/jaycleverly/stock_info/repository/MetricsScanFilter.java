@@ -0,0 +1,22 @@
+package com.github.jaycleverly.stock_info.repository;
+
+import java.time.LocalDate;
+
+import com.github.jaycleverly.stock_info.model.Resolution;
+
+/**
+ * The daily metrics a scan of the repository returns, rolled up bars are never returned
+ *
+ * @param symbolPrefix the prefix of the symbols to return, null for every stock
+ * @param from the earliest date to return (inclusive), null for no bound
+ * @param to the latest date to return (inclusive), null for no bound
+ */
+public record MetricsScanFilter(String symbolPrefix, LocalDate from, LocalDate to) {
+    /**
+     * @param symbol the partition key metrics are stored under
+     * @return true if metrics stored under the key may be returned
+     */
+    public boolean includes(String symbol) {
+        return !symbol.contains(Resolution.KEY_SEPARATOR) && (symbolPrefix == null || symbol.startsWith(symbolPrefix));
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.jaycleverly.stock_info.runner;
+
+import java.nio.file.Path;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.github.jaycleverly.stock_info.config.properties.AppBulkImportProperties;
+import com.github.jaycleverly.stock_info.service.BulkImportService;
+
+/**
+ * Imports a directory of price files into the metrics repository when the application starts, see
+ * scripts/bulk-import.sh
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.bulk-import", name = "enabled", havingValue = "true")
+public class BulkImportRunner implements ApplicationRunner {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BulkImportRunner.class);
+
+    private final Path directory;
+    private final BulkImportService bulkImportService;
+
+    /**
+     * Creates a new runner that imports price files
+     * 
+     * @param properties the properties set for bulk imports
+     * @param bulkImportService the service to import the files with
+     */
+    public BulkImportRunner(AppBulkImportProperties properties, BulkImportService bulkImportService) {
+        this.directory = Path.of(properties.directory());
+        this.bulkImportService = bulkImportService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        BulkImportService.Summary summary = bulkImportService.importDirectory(directory);
+        LOGGER.info(String.format("Imported %d of %d price files (%d already imported, %d failed), %d rows in %s at %.0f rows/s",
+            summary.imported(), summary.files(), summary.skipped(), summary.failed(), summary.rows(), summary.elapsed(), summary.rowsPerSecond()));
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.jaycleverly.stock_info.runner;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.github.jaycleverly.stock_info.config.properties.AppExportProperties;
+import com.github.jaycleverly.stock_info.repository.MetricsScanFilter;
+import com.github.jaycleverly.stock_info.serializer.ExportFormat;
+import com.github.jaycleverly.stock_info.service.MetricsExportService;
+
+/**
+ * Exports the stored metrics to a file when the application starts, see scripts/export.sh
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.export", name = "output")
+public class MetricsExportRunner implements ApplicationRunner {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricsExportRunner.class);
+
+    private final Path output;
+    private final MetricsScanFilter filter;
+    private final ExportFormat format;
+    private final MetricsExportService metricsExportService;
+
+    /**
+     * Creates a new runner that exports stored metrics
+     *
+     * @param properties the properties set for exports, naming the file and the metrics to export
+     * @param metricsExportService the service to export the metrics with
+     */
+    public MetricsExportRunner(AppExportProperties properties, MetricsExportService metricsExportService) {
+        this.output = Path.of(properties.output());
+        this.filter = new MetricsScanFilter(properties.symbolPrefix(), properties.from(), properties.to());
+        this.format = ExportFormat.parse(properties.format() == null ? "ndjson" : properties.format())
+            .orElseThrow(() -> new IllegalArgumentException(
+                String.format("Unknown export format (%s), expected ndjson or csv", properties.format())));
+        this.metricsExportService = metricsExportService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long rows = metricsExportService.export(filter, format, () -> Files.newOutputStream(output));
+        LOGGER.info(String.format("Exported %d rows of stored metrics to %s", rows, output.toAbsolutePath()));
+    }
+}
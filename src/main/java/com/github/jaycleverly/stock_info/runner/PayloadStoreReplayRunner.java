@@ -0,0 +1,37 @@
+package com.github.jaycleverly.stock_info.runner;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.github.jaycleverly.stock_info.service.StockAnalysisService;
+
+/**
+ * Rebuilds the metrics table from the local payload store when the application starts
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.payload-store", name = "replay-on-startup", havingValue = "true")
+public class PayloadStoreReplayRunner implements ApplicationRunner {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PayloadStoreReplayRunner.class);
+
+    private final StockAnalysisService stockAnalysisService;
+
+    /**
+     * Creates a new runner that replays stored api responses into dynamo
+     * 
+     * @param stockAnalysisService the service to rebuild metrics with
+     */
+    public PayloadStoreReplayRunner(StockAnalysisService stockAnalysisService) {
+        this.stockAnalysisService = stockAnalysisService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        LOGGER.info("Rebuilding dynamo records from stored API responses...");
+        int rebuilt = stockAnalysisService.rebuildFromPayloadStore();
+        LOGGER.info(String.format("Rebuilt dynamo records for %d stocks", rebuilt));
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.jaycleverly.stock_info.runner;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import com.github.jaycleverly.stock_info.config.properties.AppScreenerProperties;
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+import com.github.jaycleverly.stock_info.repository.MetricsRepository;
+import com.github.jaycleverly.stock_info.repository.MetricsScanFilter;
+import com.github.jaycleverly.stock_info.screener.MetricsScreenerIndex;
+
+/**
+ * Seeds the screener index with the latest stored metrics of every stock before the application reports itself ready,
+ * so screens cover every stored stock rather than only those analysed since startup.
+ *
+ * The repository is scanned in parallel segments, keeping only the latest metrics of each stock, and the index is
+ * built once from them.
+ */
+@Component
+public class ScreenerIndexRunner implements ApplicationRunner {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScreenerIndexRunner.class);
+    private static final MetricsScanFilter EVERY_STOCK = new MetricsScanFilter(null, null, null);
+    private static final int PAGE_SIZE = 500;
+
+    private final boolean seedOnStartup;
+    private final int segments;
+    private final MetricsRepository metricsRepository;
+    private final MetricsScreenerIndex screenerIndex;
+
+    /**
+     * Creates a new runner that seeds the screener index on startup
+     *
+     * @param screenerProperties the properties set for screener requests
+     * @param metricsRepository the repository storing calculated metrics
+     * @param screenerIndex the index of the latest metrics of every stock
+     */
+    public ScreenerIndexRunner(AppScreenerProperties screenerProperties,
+                               MetricsRepository metricsRepository,
+                               MetricsScreenerIndex screenerIndex) {
+        this.seedOnStartup = screenerProperties.seedOnStartup();
+        this.segments = Math.max(1, screenerProperties.seedSegments());
+        this.metricsRepository = metricsRepository;
+        this.screenerIndex = screenerIndex;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!seedOnStartup) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        Map<String, DailyStockMetrics> latest = new ConcurrentHashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> scans = IntStream.range(0, segments)
+                .<Future<?>>mapToObj(segment -> executor.submit(() -> metricsRepository.scan(EVERY_STOCK, segment, segments, PAGE_SIZE,
+                    page -> page.forEach(metrics -> latest.merge(metrics.getSymbol(), metrics,
+                        (current, seen) -> seen.getDate().isAfter(current.getDate()) ? seen : current)))))
+                .toList();
+            for (Future<?> scan : scans) {
+                scan.get();
+            }
+        } catch (ExecutionException exception) {
+            LOGGER.error("Exception when seeding screener index, the remaining stocks are indexed as they are analysed", exception.getCause());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        screenerIndex.updateAll(latest.values());
+        LOGGER.info(String.format("Seeded screener index with %d stocks in %d ms", latest.size(), (System.nanoTime() - start) / 1_000_000));
+    }
+}
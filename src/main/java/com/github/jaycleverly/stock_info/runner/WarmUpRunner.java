@@ -0,0 +1,152 @@
+package com.github.jaycleverly.stock_info.runner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.github.jaycleverly.stock_info.config.properties.AppWarmUpProperties;
+import com.github.jaycleverly.stock_info.exception.InternalServerErrorException;
+import com.github.jaycleverly.stock_info.exception.MetricsRepositoryException;
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+import com.github.jaycleverly.stock_info.model.DailyStockRecord;
+import com.github.jaycleverly.stock_info.parser.StockRecordsParser;
+import com.github.jaycleverly.stock_info.repository.MetricsRepository;
+import com.github.jaycleverly.stock_info.serializer.ResponseFormat;
+import com.github.jaycleverly.stock_info.serializer.StockMetricsSerializer;
+import com.github.jaycleverly.stock_info.service.MetricBuilderService;
+import com.github.jaycleverly.stock_info.service.MetricsVersionService;
+import com.github.jaycleverly.stock_info.service.StockAnalysisService;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Warms up the application before it reports itself ready for traffic.
+ *
+ * Application runners complete before spring publishes the readiness state, so the
+ * readiness probe stays down until the metrics repository, the request pipeline and the most requested stocks are warm.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.warm-up", name = "enabled", havingValue = "true")
+public class WarmUpRunner implements ApplicationRunner {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WarmUpRunner.class);
+    private static final String WARM_UP_SYMBOL = "WARMUP";
+    private static final int WARM_UP_DAYS = 60;
+
+    private final AppWarmUpProperties warmUpProperties;
+    private final MetricsRepository metricsRepository;
+    private final StockAnalysisService stockAnalysisService;
+    private final MetricBuilderService metricBuilderService;
+    private final MetricsVersionService metricsVersionService;
+
+    /**
+     * Creates a new runner that warms up the application on startup
+     *
+     * @param warmUpProperties the properties set for warm-up
+     * @param metricsRepository the repository storing calculated metrics
+     * @param stockAnalysisService the service to preload stocks with
+     * @param metricBuilderService the service to exercise metric calculations with
+     * @param metricsVersionService the service holding the most requested stocks
+     */
+    public WarmUpRunner(AppWarmUpProperties warmUpProperties,
+                        MetricsRepository metricsRepository,
+                        StockAnalysisService stockAnalysisService,
+                        MetricBuilderService metricBuilderService,
+                        MetricsVersionService metricsVersionService) {
+        this.warmUpProperties = warmUpProperties;
+        this.metricsRepository = metricsRepository;
+        this.stockAnalysisService = stockAnalysisService;
+        this.metricBuilderService = metricBuilderService;
+        this.metricsVersionService = metricsVersionService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+
+        try {
+            metricsRepository.warmUp();
+        } catch (MetricsRepositoryException exception) {
+            LOGGER.warn("Exception when warming up metrics repository, continuing", exception);
+        }
+
+        exercisePipeline(warmUpProperties.iterations());
+
+        int preloaded = 0;
+        for (String symbol : symbolsToPreload()) {
+            try {
+                preloaded += stockAnalysisService.preloadAnalysis(symbol) ? 1 : 0;
+            } catch (InternalServerErrorException exception) {
+                LOGGER.warn(String.format("Exception when preloading stock (%s), continuing", symbol), exception);
+            }
+        }
+
+        LOGGER.info(String.format("Warm-up finished in %d ms, preloaded %d stocks", (System.nanoTime() - start) / 1_000_000, preloaded));
+    }
+
+    /**
+     * Saves the most requested stocks so the next instance can preload them
+     */
+    @PreDestroy
+    public void saveSnapshot() {
+        try {
+            metricsVersionService.writeSnapshot(Path.of(warmUpProperties.snapshotFile()), warmUpProperties.maxSymbols());
+        } catch (IOException exception) {
+            LOGGER.warn("Exception when writing warm-up snapshot", exception);
+        }
+    }
+
+    List<String> symbolsToPreload() {
+        Set<String> symbols = new LinkedHashSet<>();
+        warmUpProperties.symbols().forEach(symbol -> symbols.add(symbol.toUpperCase()));
+
+        Path snapshot = Path.of(warmUpProperties.snapshotFile());
+        if (Files.exists(snapshot)) {
+            try {
+                symbols.addAll(metricsVersionService.loadSnapshot(snapshot));
+            } catch (IOException | RuntimeException exception) {
+                LOGGER.warn(String.format("Exception when reading warm-up snapshot (%s), continuing", snapshot), exception);
+            }
+        }
+        return symbols.stream().limit(warmUpProperties.maxSymbols()).toList();
+    }
+
+    // Runs synthetic records through parsing, calculation and every serializer so classes and jackson are initialised
+    private void exercisePipeline(int iterations) {
+        String stockData = syntheticStockData();
+        for (int i = 0; i < iterations; i++) {
+            List<DailyStockRecord> records = StockRecordsParser.parse(stockData);
+            List<DailyStockMetrics> metrics = metricBuilderService.calculateAllMetrics(records);
+
+            List<DailyStockMetrics> latestFirst = metrics.reversed();
+            for (ResponseFormat format : ResponseFormat.values()) {
+                StockMetricsSerializer.gzip(StockMetricsSerializer.serialize(latestFirst, format));
+            }
+        }
+    }
+
+    private static String syntheticStockData() {
+        StringBuilder timeSeries = new StringBuilder();
+        LocalDate date = LocalDate.of(2000, 1, 1);
+        for (int i = WARM_UP_DAYS; i > 0; i--) {
+            double close = 100 + Math.sin(i / 5.0) * 10;
+            timeSeries.append(String.format(
+                Locale.ROOT,
+                "\"%s\": {\"1. open\": \"%.2f\", \"2. high\": \"%.2f\", \"3. low\": \"%.2f\", \"4. close\": \"%.2f\"}%s",
+                date.plusDays(i), close, close + 1, close - 1, close, i > 1 ? "," : ""));
+        }
+        return String.format(
+            "{\"Meta Data\": {\"2. Symbol\": \"%s\"}, \"Time Series (Daily)\": {%s}}", WARM_UP_SYMBOL, timeSeries);
+    }
+}
@@ -0,0 +1,319 @@
+package com.github.jaycleverly.stock_info.screener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.springframework.stereotype.Component;
+
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+
+/**
+ * In-memory index over the latest metrics of every stock, for screening stocks by metric ranges.
+ *
+ * Each stock is given a dense id. For every metric the index keeps the value of each stock by id, plus the values
+ * and ids of all stocks holding that metric sorted by value, so a range is two binary searches. Updates copy the
+ * affected arrays into a new immutable snapshot, so screens never lock and always see a consistent view.
+ */
+@Component
+public class MetricsScreenerIndex {
+    private static final ScreenerField[] FIELDS = ScreenerField.values();
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private volatile Snapshot snapshot = emptySnapshot();
+
+    /**
+     * Values of one metric, by stock id and in ascending value order (ties by symbol)
+     */
+    private record Column(double[] byId, double[] sortedValues, int[] sortedIds) {}
+
+    private record Snapshot(DailyStockMetrics[] latest, Column[] columns) {}
+
+    /**
+     * Stocks within a range of a column's sorted order
+     */
+    private record Candidates(Column column, int from, int to) {
+        int size() {
+            return to - from;
+        }
+    }
+
+    /**
+     * Indexes the latest metrics of a stock, ignored if metrics for a later date are already indexed
+     *
+     * @param metrics the latest metrics of the stock
+     */
+    public synchronized void update(DailyStockMetrics metrics) {
+        Snapshot current = snapshot;
+        String symbol = metrics.getSymbol();
+        Integer existingId = ids.get(symbol);
+        if (existingId != null && current.latest()[existingId].getDate().isAfter(metrics.getDate())) {
+            return;
+        }
+
+        int id = existingId != null ? existingId : ids.size();
+        int size = Math.max(current.latest().length, id + 1);
+        DailyStockMetrics[] latest = Arrays.copyOf(current.latest(), size);
+        latest[id] = metrics;
+
+        Column[] columns = new Column[FIELDS.length];
+        for (ScreenerField field : FIELDS) {
+            Column column = current.columns()[field.ordinal()];
+            double[] byId = Arrays.copyOf(column.byId(), size);
+            double oldValue = existingId != null ? byId[id] : Double.NaN;
+            double newValue = field.valueOf(metrics);
+            byId[id] = newValue;
+            columns[field.ordinal()] = replace(column, byId, latest, id, oldValue, newValue);
+        }
+
+        ids.putIfAbsent(symbol, id);
+        snapshot = new Snapshot(latest, columns);
+    }
+
+    /**
+     * Indexes the latest metrics of many stocks at once, rebuilding the index a single time rather than once per stock.
+     * Metrics older than those already indexed for a stock are ignored
+     *
+     * @param metrics the latest metrics of the stocks
+     */
+    public synchronized void updateAll(Collection<DailyStockMetrics> metrics) {
+        DailyStockMetrics[] latest = Arrays.copyOf(snapshot.latest(), snapshot.latest().length + metrics.size());
+        int size = snapshot.latest().length;
+        for (DailyStockMetrics metric : metrics) {
+            Integer id = ids.get(metric.getSymbol());
+            if (id == null) {
+                ids.put(metric.getSymbol(), size);
+                latest[size++] = metric;
+            } else if (!latest[id].getDate().isAfter(metric.getDate())) {
+                latest[id] = metric;
+            }
+        }
+        latest = Arrays.copyOf(latest, size);
+
+        Column[] columns = new Column[FIELDS.length];
+        for (ScreenerField field : FIELDS) {
+            columns[field.ordinal()] = build(field, latest);
+        }
+        snapshot = new Snapshot(latest, columns);
+    }
+
+    /**
+     * Screens the indexed stocks
+     *
+     * @param query the ranges, order and limit of the screen
+     * @return the latest metrics of the matching stocks (equal values ordered by symbol), stocks without the sorted metric are excluded
+     */
+    public List<DailyStockMetrics> screen(ScreenerQuery query) {
+        Snapshot current = snapshot;
+        List<ScreenerRange> ranges = query.ranges();
+
+        // The range holding the fewest stocks bounds the candidates to test
+        Candidates candidates = null;
+        for (ScreenerRange range : ranges) {
+            Column column = current.columns()[range.field().ordinal()];
+            Candidates inRange = new Candidates(
+                column, lowerBound(column.sortedValues(), range.min()), upperBound(column.sortedValues(), range.max()));
+            if (candidates == null || inRange.size() < candidates.size()) {
+                candidates = inRange;
+            }
+        }
+
+        if (query.sortBy() != null) {
+            Column sortColumn = current.columns()[query.sortBy().ordinal()];
+            if (candidates != null && candidates.column() == sortColumn) {
+                return walkSorted(current, candidates, ranges, query);
+            }
+            // Walking the sort order tests about limit * stocks / candidates stocks, sorting the candidates tests them all
+            int sortedCount = sortColumn.sortedIds().length;
+            if (candidates == null || (long) candidates.size() * candidates.size() > (long) query.limit() * sortedCount) {
+                return walkSorted(current, new Candidates(sortColumn, 0, sortedCount), ranges, query);
+            }
+            Comparator<DailyStockMetrics> order = Comparator.comparingDouble(query.sortBy()::valueOf);
+            return matches(current, candidates, ranges)
+                .filter(id -> !Double.isNaN(sortColumn.byId()[id]))
+                .mapToObj(id -> current.latest()[id])
+                .sorted((query.descending() ? order.reversed() : order).thenComparing(DailyStockMetrics::getSymbol))
+                .limit(query.limit())
+                .toList();
+        }
+
+        return matches(current, candidates, ranges)
+            .mapToObj(id -> current.latest()[id])
+            .sorted(Comparator.comparing(DailyStockMetrics::getSymbol))
+            .limit(query.limit())
+            .toList();
+    }
+
+    /**
+     * @return the number of stocks indexed
+     */
+    public int size() {
+        return snapshot.latest().length;
+    }
+
+    private static Snapshot emptySnapshot() {
+        Column[] columns = new Column[FIELDS.length];
+        Arrays.fill(columns, new Column(new double[0], new double[0], new int[0]));
+        return new Snapshot(new DailyStockMetrics[0], columns);
+    }
+
+    // Tests stocks in the order of the sort column until the limit is reached
+    private static List<DailyStockMetrics> walkSorted(Snapshot current,
+                                                      Candidates sorted,
+                                                      List<ScreenerRange> ranges,
+                                                      ScreenerQuery query) {
+        double[] values = sorted.column().sortedValues();
+        int[] sortedIds = sorted.column().sortedIds();
+        List<DailyStockMetrics> matches = new ArrayList<>(Math.min(query.limit(), sorted.size()));
+        if (!query.descending()) {
+            for (int i = sorted.from(); i < sorted.to() && matches.size() < query.limit(); i++) {
+                addIfMatches(current, sortedIds[i], ranges, matches);
+            }
+            return matches;
+        }
+
+        // Descending walks back a group of equal values at a time, keeping each group in symbol order
+        int end = sorted.to();
+        while (end > sorted.from() && matches.size() < query.limit()) {
+            int start = end - 1;
+            while (start > sorted.from() && Double.compare(values[start - 1], values[end - 1]) == 0) {
+                start--;
+            }
+            for (int i = start; i < end && matches.size() < query.limit(); i++) {
+                addIfMatches(current, sortedIds[i], ranges, matches);
+            }
+            end = start;
+        }
+        return matches;
+    }
+
+    private static void addIfMatches(Snapshot current, int id, List<ScreenerRange> ranges, List<DailyStockMetrics> matches) {
+        if (matchesAll(current, id, ranges)) {
+            matches.add(current.latest()[id]);
+        }
+    }
+
+    private static IntStream matches(Snapshot current, Candidates candidates, List<ScreenerRange> ranges) {
+        IntStream ids = candidates == null
+            ? IntStream.range(0, current.latest().length)
+            : Arrays.stream(candidates.column().sortedIds(), candidates.from(), candidates.to());
+        return ids.filter(id -> matchesAll(current, id, ranges));
+    }
+
+    private static boolean matchesAll(Snapshot current, int id, List<ScreenerRange> ranges) {
+        for (ScreenerRange range : ranges) {
+            if (!range.contains(current.columns()[range.field().ordinal()].byId()[id])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Sorts the set values of a metric, in the same order as inserting them one at a time
+    private static Column build(ScreenerField field, DailyStockMetrics[] latest) {
+        double[] byId = new double[latest.length];
+        for (int id = 0; id < latest.length; id++) {
+            byId[id] = field.valueOf(latest[id]);
+        }
+        int[] sortedIds = IntStream.range(0, latest.length)
+            .filter(id -> !Double.isNaN(byId[id]))
+            .boxed()
+            .sorted(Comparator.comparingDouble((Integer id) -> byId[id]).thenComparing(id -> latest[id].getSymbol()))
+            .mapToInt(Integer::intValue)
+            .toArray();
+        double[] sortedValues = Arrays.stream(sortedIds).mapToDouble(id -> byId[id]).toArray();
+        return new Column(byId, sortedValues, sortedIds);
+    }
+
+    // Copies a column with a stock's old value removed and its new value inserted, unset (NaN) values are not sorted
+    private static Column replace(Column column, double[] byId, DailyStockMetrics[] latest, int id, double oldValue, double newValue) {
+        double[] values = column.sortedValues();
+        int[] sortedIds = column.sortedIds();
+        String symbol = latest[id].getSymbol();
+
+        if (!Double.isNaN(oldValue)) {
+            int position = position(values, sortedIds, latest, oldValue, symbol);
+            values = remove(values, position);
+            sortedIds = remove(sortedIds, position);
+        }
+        if (!Double.isNaN(newValue)) {
+            int position = position(values, sortedIds, latest, newValue, symbol);
+            double[] insertedValues = new double[values.length + 1];
+            int[] insertedIds = new int[sortedIds.length + 1];
+            System.arraycopy(values, 0, insertedValues, 0, position);
+            System.arraycopy(sortedIds, 0, insertedIds, 0, position);
+            insertedValues[position] = newValue;
+            insertedIds[position] = id;
+            System.arraycopy(values, position, insertedValues, position + 1, values.length - position);
+            System.arraycopy(sortedIds, position, insertedIds, position + 1, sortedIds.length - position);
+            values = insertedValues;
+            sortedIds = insertedIds;
+        }
+        return new Column(byId, values, sortedIds);
+    }
+
+    private static double[] remove(double[] values, int position) {
+        double[] removed = new double[values.length - 1];
+        System.arraycopy(values, 0, removed, 0, position);
+        System.arraycopy(values, position + 1, removed, position, removed.length - position);
+        return removed;
+    }
+
+    private static int[] remove(int[] ids, int position) {
+        int[] removed = new int[ids.length - 1];
+        System.arraycopy(ids, 0, removed, 0, position);
+        System.arraycopy(ids, position + 1, removed, position, removed.length - position);
+        return removed;
+    }
+
+    // First position not before (value, symbol)
+    private static int position(double[] values, int[] ids, DailyStockMetrics[] latest, double value, String symbol) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int compare = Double.compare(values[mid], value);
+            if (compare < 0 || (compare == 0 && latest[ids[mid]].getSymbol().compareTo(symbol) < 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // First position with a value of at least min
+    private static int lowerBound(double[] values, double min) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < min) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // First position with a value above max
+    private static int upperBound(double[] values, double max) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] <= max) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
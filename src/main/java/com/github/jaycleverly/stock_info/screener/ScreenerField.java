@@ -0,0 +1,54 @@
+package com.github.jaycleverly.stock_info.screener;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.function.Function;
+
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+
+/**
+ * The metrics that stocks can be screened and sorted on
+ */
+public enum ScreenerField {
+    CLOSE("close", DailyStockMetrics::getClose),
+    PREVIOUS_CLOSE_CHANGE("previousCloseChange", DailyStockMetrics::getPreviousCloseChange),
+    MOVING_AVERAGE("movingAverage", DailyStockMetrics::getMovingAverage),
+    VOLATILITY("volatility", DailyStockMetrics::getVolatility),
+    MOMENTUM("momentum", DailyStockMetrics::getMomentum);
+
+    private final String parameter;
+    private final Function<DailyStockMetrics, Double> getter;
+
+    ScreenerField(String parameter, Function<DailyStockMetrics, Double> getter) {
+        this.parameter = parameter;
+        this.getter = getter;
+    }
+
+    /**
+     * Finds the field with a request parameter name
+     *
+     * @param parameter the name used in requests, eg: momentum
+     * @return the matching field, empty if there is none
+     */
+    public static Optional<ScreenerField> fromParameter(String parameter) {
+        return Arrays.stream(values()).filter(field -> field.parameter.equals(parameter)).findFirst();
+    }
+
+    /**
+     * @return the name of the field used in requests
+     */
+    public String parameter() {
+        return parameter;
+    }
+
+    /**
+     * Reads the field from a metric
+     *
+     * @param metrics the metric to read
+     * @return the value of the field, NaN if it is not set
+     */
+    public double valueOf(DailyStockMetrics metrics) {
+        Double value = getter.apply(metrics);
+        return value != null ? value : Double.NaN;
+    }
+}
@@ -0,0 +1,18 @@
+package com.github.jaycleverly.stock_info.screener;
+
+import java.util.List;
+
+/**
+ * A screen over the latest metrics of every indexed stock
+ *
+ * @param ranges the ranges every matching stock must fall within
+ * @param sortBy the metric to order matches by, null to order by symbol
+ * @param descending true to order from the highest value
+ * @param limit the maximum number of matches to return
+ */
+public record ScreenerQuery(
+    List<ScreenerRange> ranges,
+    ScreenerField sortBy,
+    boolean descending,
+    int limit
+) {}
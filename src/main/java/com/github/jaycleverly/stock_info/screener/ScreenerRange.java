@@ -0,0 +1,24 @@
+package com.github.jaycleverly.stock_info.screener;
+
+/**
+ * An inclusive range that a metric must fall within, open ends are infinite
+ *
+ * @param field the metric to test
+ * @param min the lowest accepted value
+ * @param max the highest accepted value
+ */
+public record ScreenerRange(
+    ScreenerField field,
+    double min,
+    double max
+) {
+    /**
+     * Tests a value against the range, NaN (an unset metric) never matches
+     *
+     * @param value the value to test
+     * @return true if the value is within the range
+     */
+    public boolean contains(double value) {
+        return value >= min && value <= max;
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.jaycleverly.stock_info.serializer;
+
+import java.util.Locale;
+import java.util.Optional;
+
+import org.springframework.http.MediaType;
+
+/**
+ * The file formats stored metrics can be exported to, one row per stock and day
+ */
+public enum ExportFormat {
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+    CSV(MediaType.parseMediaType("text/csv"), "csv");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    ExportFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @param value the format as given in a request, eg: csv
+     * @return the matching format, empty if there is none
+     */
+    public static Optional<ExportFormat> parse(String value) {
+        try {
+            return Optional.of(valueOf(value.trim().toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException exception) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.github.jaycleverly.stock_info.serializer;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+
+/**
+ * Writes metrics to a stream as they arrive, one row at a time, so an export is never held in memory.
+ *
+ * Rows are written as newline delimited json objects or as csv lines under a header, with the same columns either
+ * way. Missing values are written as null in json and left empty in csv.
+ */
+public class MetricsExportWriter implements Closeable {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final List<Column> COLUMNS = List.of(
+        new Column("open", DailyStockMetrics::getOpen),
+        new Column("high", DailyStockMetrics::getHigh),
+        new Column("low", DailyStockMetrics::getLow),
+        new Column("close", DailyStockMetrics::getClose),
+        new Column("previousCloseChange", DailyStockMetrics::getPreviousCloseChange),
+        new Column("movingAverage", DailyStockMetrics::getMovingAverage),
+        new Column("volatility", DailyStockMetrics::getVolatility),
+        new Column("momentum", DailyStockMetrics::getMomentum));
+
+    private final ExportFormat format;
+    private final Writer writer;
+    private final JsonGenerator generator;
+
+    /**
+     * A value written for each row after its symbol and date
+     */
+    private record Column(String name, Function<DailyStockMetrics, Double> value) {}
+
+    /**
+     * Creates a new writer of exported metrics
+     *
+     * @param format the format to write rows in
+     * @param out the stream to write to, closed with the writer
+     * @throws IOException if the csv header cannot be written
+     */
+    public MetricsExportWriter(ExportFormat format, OutputStream out) throws IOException {
+        this.format = format;
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.generator = format == ExportFormat.NDJSON ? JSON_FACTORY.createGenerator(writer) : null;
+        if (format == ExportFormat.CSV) {
+            writer.write("symbol,date");
+            for (Column column : COLUMNS) {
+                writer.write(',');
+                writer.write(column.name());
+            }
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * Writes the row of a stock on a day
+     *
+     * @param metric the metrics to write
+     * @throws IOException if the row cannot be written
+     */
+    public void write(DailyStockMetrics metric) throws IOException {
+        switch (format) {
+            case NDJSON -> writeJson(metric);
+            case CSV -> writeCsv(metric);
+        }
+    }
+
+    /**
+     * Sends any buffered rows on to the stream
+     *
+     * @throws IOException if the rows cannot be sent
+     */
+    public void flush() throws IOException {
+        if (generator != null) {
+            generator.flush();
+        }
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (generator != null) {
+            generator.close();
+        }
+        writer.close();
+    }
+
+    private void writeJson(DailyStockMetrics metric) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("symbol", metric.getSymbol());
+        generator.writeStringField("date", metric.getDate().toString());
+        for (Column column : COLUMNS) {
+            Double value = column.value().apply(metric);
+            generator.writeFieldName(column.name());
+            if (value == null) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(value);
+            }
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    // Symbols are letters, digits and dots, so are never quoted
+    private void writeCsv(DailyStockMetrics metric) throws IOException {
+        writer.write(metric.getSymbol());
+        writer.write(',');
+        writer.write(metric.getDate().toString());
+        for (Column column : COLUMNS) {
+            writer.write(',');
+            Double value = column.value().apply(metric);
+            if (value != null) {
+                writer.write(value.toString());
+            }
+        }
+        writer.write('\n');
+    }
+}
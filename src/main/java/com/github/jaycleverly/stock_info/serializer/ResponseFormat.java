@@ -0,0 +1,46 @@
+package com.github.jaycleverly.stock_info.serializer;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.http.MediaType;
+
+/**
+ * The representations a metrics response can be serialized to
+ */
+public enum ResponseFormat {
+    JSON(MediaType.APPLICATION_JSON),
+    COMPACT_JSON(MediaType.parseMediaType("application/vnd.stock-info.compact+json")),
+    SMILE(MediaType.parseMediaType("application/x-jackson-smile")),
+    CBOR(MediaType.APPLICATION_CBOR),
+    MESSAGE_PACK(MediaType.parseMediaType("application/x-msgpack"));
+
+    private final MediaType mediaType;
+
+    ResponseFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Picks the format best matching the media types a client accepts
+     * 
+     * @param accepted the media types from the accept header of a request
+     * @return the preferred format (json if nothing is specified), empty if no format is acceptable
+     */
+    public static Optional<ResponseFormat> negotiate(List<MediaType> accepted) {
+        if (accepted.isEmpty()) {
+            return Optional.of(JSON);
+        }
+
+        return accepted.stream()
+            .sorted(Comparator.comparingDouble(MediaType::getQualityValue).reversed())
+            .filter(mediaType -> mediaType.getQualityValue() > 0)
+            .flatMap(mediaType -> List.of(values()).stream().filter(format -> mediaType.includes(format.mediaType)).limit(1))
+            .findFirst();
+    }
+}
@@ -1,21 +1,50 @@
 package com.github.jaycleverly.stock_info.serializer;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+import org.msgpack.jackson.dataformat.MessagePackMapper;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import com.github.jaycleverly.stock_info.exception.SerializerException;
+import com.github.jaycleverly.stock_info.model.CorrelationMatrix;
 import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+import com.github.jaycleverly.stock_info.model.IntradaySnapshot;
+import com.github.jaycleverly.stock_info.model.Resolution;
+import com.github.jaycleverly.stock_info.model.ScreenerResult;
+import com.github.jaycleverly.stock_info.model.SymbolMatch;
+import com.github.jaycleverly.stock_info.model.SymbolSearchResult;
 
 /**
  * Class to provide methods to serialize metric records to a json response
  */
 public class StockMetricsSerializer {
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final ObjectMapper SMILE_MAPPER = new SmileMapper();
+    private static final ObjectMapper CBOR_MAPPER = new CBORMapper();
+    private static final ObjectMapper MESSAGE_PACK_MAPPER = new MessagePackMapper();
     private static final JsonNodeFactory FACTORY = JsonNodeFactory.instance;
-    
+    private static final DateTimeFormatter INTRADAY_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * A value written for each bar, named as in the columnar layout
+     */
+    private record Field(String name, Function<DailyStockMetrics, Double> value) {}
+
     /**
      * Converts a list of metrics to a JSON response string
      * 
@@ -24,37 +53,325 @@ public class StockMetricsSerializer {
      * @throws SerializerException if the metrics cannot be written as JSON
      */
     public static String serialize(List<DailyStockMetrics> metrics) throws SerializerException {
+        return serialize(metrics, Resolution.DAILY);
+    }
+
+    /**
+     * Converts a list of metrics at a resolution to a JSON response string
+     * 
+     * @param metrics the metrics to serialize
+     * @param resolution the resolution of the metrics
+     * @return a JSON string
+     * @throws SerializerException if the metrics cannot be written as JSON
+     */
+    public static String serialize(List<DailyStockMetrics> metrics, Resolution resolution) throws SerializerException {
+        List<Field> fields = fields(resolution);
+        ObjectNode root = FACTORY.objectNode();
+        root.set("Meta Data", metaData(metrics, resolution));
+
+        // Time Series (Daily)
+        ObjectNode timeSeries = FACTORY.objectNode();
+        for (DailyStockMetrics metric : metrics) {
+            ObjectNode bar = FACTORY.objectNode();
+            for (int i = 0; i < fields.size(); i++) {
+                bar.put(numbered(i, fields.get(i)), doubleToString(fields.get(i).value().apply(metric)));
+            }
+            timeSeries.set(metric.getDate().toString(), bar);
+        }
+        root.set(timeSeriesName(resolution), timeSeries);
+
+        try {
+            return OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(root);
+        } catch(JsonProcessingException exception) {
+            throw new SerializerException("Exception when converting metrics to JSON!", exception);
+        }
+    }
+
+    /**
+     * Converts a list of metrics to a response in the requested format
+     * 
+     * @param metrics the metrics to serialize
+     * @param format the representation to produce
+     * @return the encoded response
+     * @throws SerializerException if the metrics cannot be written in the format
+     */
+    public static byte[] serialize(List<DailyStockMetrics> metrics, ResponseFormat format) throws SerializerException {
+        return serialize(metrics, format, Resolution.DAILY);
+    }
+
+    /**
+     * Converts a list of metrics at a resolution to a response in the requested format
+     * 
+     * @param metrics the metrics to serialize
+     * @param format the representation to produce
+     * @param resolution the resolution of the metrics
+     * @return the encoded response
+     * @throws SerializerException if the metrics cannot be written in the format
+     */
+    public static byte[] serialize(List<DailyStockMetrics> metrics, ResponseFormat format, Resolution resolution) throws SerializerException {
+        try {
+            return switch (format) {
+                case JSON -> serialize(metrics, resolution).getBytes(StandardCharsets.UTF_8);
+                case COMPACT_JSON -> OBJECT_MAPPER.writeValueAsBytes(numericTree(metrics, resolution));
+                case SMILE -> SMILE_MAPPER.writeValueAsBytes(numericTree(metrics, resolution));
+                case CBOR -> CBOR_MAPPER.writeValueAsBytes(numericTree(metrics, resolution));
+                case MESSAGE_PACK -> MESSAGE_PACK_MAPPER.writeValueAsBytes(columnarTree(metrics, resolution));
+            };
+        } catch (JsonProcessingException exception) {
+            throw new SerializerException(String.format("Exception when converting metrics to %s!", format), exception);
+        }
+    }
+
+    /**
+     * Converts a correlation matrix to a compact JSON response, undefined correlations are written as null
+     * 
+     * @param matrix the matrix to serialize
+     * @return the encoded response
+     * @throws SerializerException if the matrix cannot be written as JSON
+     */
+    public static byte[] serialize(CorrelationMatrix matrix) throws SerializerException {
         ObjectNode root = FACTORY.objectNode();
+        ObjectNode metaData = root.putObject("Meta Data");
+        metaData.put("1. Information", "Covariance and correlation of daily returns");
+        metaData.put("2. From", matrix.from().toString());
+        metaData.put("3. To", matrix.to().toString());
+        metaData.put("4. Observations", matrix.observations());
 
-        // Meta Data
+        ArrayNode symbols = root.putArray("symbols");
+        matrix.symbols().forEach(symbols::add);
+        putMatrix(root, "covariance", matrix.covariance());
+        putMatrix(root, "correlation", matrix.correlation());
+
+        try {
+            return OBJECT_MAPPER.writeValueAsBytes(root);
+        } catch (JsonProcessingException exception) {
+            throw new SerializerException("Exception when converting correlation matrix to JSON!", exception);
+        }
+    }
+
+    /**
+     * Converts the stocks matching a screen to a compact JSON response, numbers kept as numbers
+     * 
+     * @param result the matching stocks to serialize
+     * @return the encoded response
+     * @throws SerializerException if the stocks cannot be written as JSON
+     */
+    public static byte[] serialize(ScreenerResult result) throws SerializerException {
+        ObjectNode root = FACTORY.objectNode();
+        ObjectNode metaData = root.putObject("Meta Data");
+        metaData.put("1. Information", "Latest metrics of stocks matching the screen");
+        metaData.put("2. Stocks Screened", result.indexedStocks());
+        metaData.put("3. Match Count", result.matches().size());
+
+        ArrayNode matches = root.putArray("matches");
+        for (DailyStockMetrics metric : result.matches()) {
+            ObjectNode match = matches.addObject();
+            match.put("symbol", metric.getSymbol());
+            match.put("date", metric.getDate().toString());
+            match.put("1. close", metric.getClose());
+            match.put("2. previousCloseChange", metric.getPreviousCloseChange());
+            match.put("3. movingAverage(30d)", metric.getMovingAverage());
+            match.put("4. volatility(7d%)", metric.getVolatility());
+            match.put("5. momentum(14d%)", metric.getMomentum());
+        }
+
+        try {
+            return OBJECT_MAPPER.writeValueAsBytes(root);
+        } catch (JsonProcessingException exception) {
+            throw new SerializerException("Exception when converting screen to JSON!", exception);
+        }
+    }
+
+    /**
+     * Converts the stocks matching a symbol search to a compact JSON response
+     * 
+     * @param result the matching stocks to serialize
+     * @return the encoded response
+     * @throws SerializerException if the stocks cannot be written as JSON
+     */
+    public static byte[] serialize(SymbolSearchResult result) throws SerializerException {
+        ObjectNode root = FACTORY.objectNode();
+        ObjectNode metaData = root.putObject("Meta Data");
+        metaData.put("1. Information", "Listed stocks matching the search");
+        metaData.put("2. Query", result.query());
+        metaData.put("3. Stocks Listed", result.listedStocks());
+        metaData.put("4. Match Count", result.matches().size());
+
+        ArrayNode matches = root.putArray("matches");
+        for (SymbolMatch stock : result.matches()) {
+            ObjectNode match = matches.addObject();
+            match.put("symbol", stock.symbol());
+            match.put("name", stock.name());
+            match.put("latestDate", stock.latestDate() == null ? null : stock.latestDate().toString());
+            match.put("warm", stock.warm());
+        }
+
+        try {
+            return OBJECT_MAPPER.writeValueAsBytes(root);
+        } catch (JsonProcessingException exception) {
+            throw new SerializerException("Exception when converting symbol search to JSON!", exception);
+        }
+    }
+
+    /**
+     * Converts the bars of an intraday session and their metrics to a JSON response, in the layout of the daily response
+     * 
+     * @param snapshot the bars to serialize, holding at least one bar
+     * @return the encoded response, most recent bar first
+     * @throws SerializerException if the bars cannot be written as JSON
+     */
+    public static byte[] serialize(IntradaySnapshot snapshot) throws SerializerException {
+        String interval = snapshot.interval().getLabel();
+        ObjectNode root = FACTORY.objectNode();
+        ObjectNode metaData = root.putObject("Meta Data");
+        metaData.put("1. Information", String.format("Intraday (%s) Time Series with custom metrics", interval));
+        metaData.put("2. Symbol", snapshot.symbol());
+        metaData.put("3. Last Refreshed", intradayTimestamp(snapshot.minutes()[snapshot.size() - 1]));
+        metaData.put("4. Interval", interval);
+        metaData.put("5. Time Zone", "US/Eastern");
+        metaData.put("6. Record Count", snapshot.size());
+
+        String movingAverage = String.format("6. movingAverage(%d bars)", snapshot.movingAverageBars());
+        String volatility = String.format("7. volatility(%d bars%%)", snapshot.volatilityBars());
+        String momentum = String.format("8. momentum(%d bars%%)", snapshot.momentumBars());
+        ObjectNode timeSeries = root.putObject(String.format("Time Series (%s)", interval));
+        for (int i = snapshot.size() - 1; i >= 0; i--) {
+            ObjectNode bar = timeSeries.putObject(intradayTimestamp(snapshot.minutes()[i]));
+            bar.put("1. open", doubleToString(snapshot.open()[i]));
+            bar.put("2. high", doubleToString(snapshot.high()[i]));
+            bar.put("3. low", doubleToString(snapshot.low()[i]));
+            bar.put("4. close", doubleToString(snapshot.close()[i]));
+            bar.put("5. volume", String.valueOf(snapshot.volume()[i]));
+            bar.put(movingAverage, doubleToString(snapshot.movingAverage()[i]));
+            bar.put(volatility, doubleToString(snapshot.volatility()[i]));
+            bar.put(momentum, doubleToString(snapshot.momentum()[i]));
+            bar.put("9. vwap", doubleToString(snapshot.vwap()[i]));
+        }
+
+        try {
+            return OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValueAsBytes(root);
+        } catch (JsonProcessingException exception) {
+            throw new SerializerException("Exception when converting intraday bars to JSON!", exception);
+        }
+    }
+
+    /**
+     * Compresses a serialized response with gzip
+     * 
+     * @param response the serialized response
+     * @return the gzip encoded response
+     * @throws SerializerException if the response cannot be compressed
+     */
+    public static byte[] gzip(byte[] response) throws SerializerException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(response.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(response);
+        } catch (IOException exception) {
+            throw new SerializerException("Exception when compressing response!", exception);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static ObjectNode metaData(List<DailyStockMetrics> metrics, Resolution resolution) {
         DailyStockMetrics latest = metrics.getFirst();
         ObjectNode metaData = FACTORY.objectNode();
-        metaData.put("1. Information", "Daily Time Series with custom metrics");
+        metaData.put("1. Information", String.format("%s Time Series with custom metrics", resolution.getLabel()));
         metaData.put("2. Symbol", latest.getSymbol());
         metaData.put("3. Last Refreshed", latest.getDate().toString());
         metaData.put("4. Time Zone", "US/Eastern");
         metaData.put("5. Record Count", metrics.size());
-        root.set("Meta Data", metaData);
+        return metaData;
+    }
+
+    // Same layout as the json response with numbers kept as numbers
+    private static ObjectNode numericTree(List<DailyStockMetrics> metrics, Resolution resolution) {
+        List<Field> fields = fields(resolution);
+        ObjectNode root = FACTORY.objectNode();
+        root.set("Meta Data", metaData(metrics, resolution));
 
-        // Time Series (Daily)
         ObjectNode timeSeries = FACTORY.objectNode();
         for (DailyStockMetrics metric : metrics) {
-            ObjectNode daily = FACTORY.objectNode();
-            daily.put("1. close", doubleToString(metric.getClose()));
-            daily.put("2. previousCloseChange", doubleToString(metric.getPreviousCloseChange()));
-            daily.put("3. movingAverage(30d)", doubleToString(metric.getMovingAverage()));
-            daily.put("4. volatility(7d%)", doubleToString(metric.getVolatility()));
-            daily.put("5. momentum(14d%)", doubleToString(metric.getMomentum()));
+            ObjectNode bar = FACTORY.objectNode();
+            for (int i = 0; i < fields.size(); i++) {
+                bar.put(numbered(i, fields.get(i)), fields.get(i).value().apply(metric));
+            }
+            timeSeries.set(metric.getDate().toString(), bar);
+        }
+        root.set(timeSeriesName(resolution), timeSeries);
+        return root;
+    }
 
-            timeSeries.set(metric.getDate().toString(), daily);
+    // One array per field, indexes line up with the dates array
+    private static ObjectNode columnarTree(List<DailyStockMetrics> metrics, Resolution resolution) {
+        ObjectNode root = FACTORY.objectNode();
+        root.set("Meta Data", metaData(metrics, resolution));
+
+        ArrayNode dates = root.putArray("date");
+        metrics.forEach(metric -> dates.add(metric.getDate().toString()));
+        for (Field field : fields(resolution)) {
+            putColumn(root, field.name(), metrics, field.value());
         }
-        root.set("Time Series (Daily)", timeSeries);
+        return root;
+    }
 
-        try {
-            return OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(root);
-        } catch(JsonProcessingException exception) {
-            throw new SerializerException("Exception when converting metrics to JSON!", exception);
+    // Daily metrics carry only the close, rollups lead with the bar's open, high and low
+    private static List<Field> fields(Resolution resolution) {
+        String unit = resolution.getPeriodUnit();
+        List<Field> metrics = List.of(
+            new Field("close", DailyStockMetrics::getClose),
+            new Field("previousCloseChange", DailyStockMetrics::getPreviousCloseChange),
+            new Field(String.format("movingAverage(30%s)", unit), DailyStockMetrics::getMovingAverage),
+            new Field(String.format("volatility(7%s%%)", unit), DailyStockMetrics::getVolatility),
+            new Field(String.format("momentum(14%s%%)", unit), DailyStockMetrics::getMomentum));
+        if (resolution == Resolution.DAILY) {
+            return metrics;
         }
+
+        List<Field> fields = new ArrayList<>(List.of(
+            new Field("open", DailyStockMetrics::getOpen),
+            new Field("high", DailyStockMetrics::getHigh),
+            new Field("low", DailyStockMetrics::getLow)));
+        fields.addAll(metrics);
+        return fields;
+    }
+
+    private static String numbered(int index, Field field) {
+        return String.format("%d. %s", index + 1, field.name());
+    }
+
+    private static String timeSeriesName(Resolution resolution) {
+        return String.format("Time Series (%s)", resolution.getLabel());
+    }
+
+    private static void putColumn(ObjectNode root,
+                                  String name,
+                                  List<DailyStockMetrics> metrics,
+                                  Function<DailyStockMetrics, Double> field) {
+        ArrayNode column = root.putArray(name);
+        metrics.forEach(metric -> column.add(field.apply(metric)));
+    }
+
+    private static void putMatrix(ObjectNode root, String name, double[][] matrix) {
+        ArrayNode rows = root.putArray(name);
+        for (double[] values : matrix) {
+            ArrayNode row = rows.addArray();
+            for (double value : values) {
+                if (Double.isFinite(value)) {
+                    row.add(value);
+                } else {
+                    row.addNull();
+                }
+            }
+        }
+    }
+
+    private static String intradayTimestamp(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC).format(INTRADAY_TIMESTAMP);
+    }
+
+    // Metrics not yet defined for a bar are held as NaN
+    private static String doubleToString(double value) {
+        return Double.isNaN(value) ? null : doubleToString(Double.valueOf(value));
     }
 
     private static String doubleToString(Double value) {
@@ -0,0 +1,301 @@
+package com.github.jaycleverly.stock_info.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.github.jaycleverly.stock_info.config.properties.AppBulkImportProperties;
+import com.github.jaycleverly.stock_info.exception.BulkImportException;
+import com.github.jaycleverly.stock_info.exception.MetricBuilderException;
+import com.github.jaycleverly.stock_info.exception.MetricsRepositoryException;
+import com.github.jaycleverly.stock_info.exception.ParserException;
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+import com.github.jaycleverly.stock_info.model.DailyStockRecord;
+import com.github.jaycleverly.stock_info.parser.StockRecordsParser;
+import com.github.jaycleverly.stock_info.repository.MetricsRepository;
+import com.github.jaycleverly.stock_info.screener.MetricsScreenerIndex;
+
+/**
+ * Class to seed the metrics repository from a directory of price files, without calling the api.
+ *
+ * Each file holds the daily history of one stock, either as an api json response or as an api csv download named
+ * after its symbol (eg: IBM.csv). Files are parsed and their metrics calculated on as many threads as there are
+ * processors. At most as many files as there are parse and write slots are held at once, so a directory larger than
+ * memory can be imported. Writes run concurrently up to a limit that halves whenever a write fails (eg: the table is throttling)
+ * and creeps back up as writes succeed, so the import settles at what the table can absorb. A failed write is retried
+ * after a backoff. Every imported file is recorded in a checkpoint file in the directory, so an interrupted import
+ * resumes where it stopped when run again.
+ */
+@Service
+public class BulkImportService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BulkImportService.class);
+    static final String CHECKPOINT_FILE = ".bulk-import-done";
+
+    private final int parallelism;
+    private final int writeConcurrency;
+    private final int maxWriteAttempts;
+    private final Duration writeBackoff;
+    private final Duration progressInterval;
+    private final MetricsRepository metricsRepository;
+    private final MetricBuilderService metricBuilderService;
+    private final RollupService rollupService;
+    private final MetricsScreenerIndex screenerIndex;
+
+    /**
+     * The outcome of an import
+     *
+     * @param files the price files found
+     * @param imported the files imported by this run
+     * @param skipped the files already imported by an earlier run
+     * @param failed the files that could not be imported, retried by the next run
+     * @param rows the daily records written
+     * @param elapsed the time the import took
+     */
+    public record Summary(int files, int imported, int skipped, int failed, long rows, Duration elapsed) {
+        /**
+         * @return the rows written per second over the whole import
+         */
+        public double rowsPerSecond() {
+            return elapsed.isZero() ? 0 : rows / (elapsed.toNanos() / 1e9);
+        }
+    }
+
+    /**
+     * Creates a new service to import price files into the metrics repository
+     *
+     * @param properties the properties set for bulk imports
+     * @param metricsRepository the repository storing calculated metrics
+     * @param metricBuilderService the service to create metrics from stock records
+     * @param rollupService the service to maintain weekly and monthly rollups of stock records
+     * @param screenerIndex the index of the latest metrics of every stock
+     */
+    public BulkImportService(AppBulkImportProperties properties,
+                             MetricsRepository metricsRepository,
+                             MetricBuilderService metricBuilderService,
+                             RollupService rollupService,
+                             MetricsScreenerIndex screenerIndex) {
+        this.parallelism = properties.parallelism() > 0 ? properties.parallelism() : Runtime.getRuntime().availableProcessors();
+        this.writeConcurrency = Math.max(1, properties.writeConcurrency());
+        this.maxWriteAttempts = Math.max(1, properties.maxWriteAttempts());
+        this.writeBackoff = properties.writeBackoff();
+        this.progressInterval = properties.progressInterval();
+        this.metricsRepository = metricsRepository;
+        this.metricBuilderService = metricBuilderService;
+        this.rollupService = rollupService;
+        this.screenerIndex = screenerIndex;
+    }
+
+    /**
+     * Imports every price file in a directory not imported by an earlier run
+     *
+     * @param directory the directory holding the price files
+     * @return the outcome of the import
+     * @throws BulkImportException if the directory or its checkpoint cannot be read
+     */
+    public Summary importDirectory(Path directory) throws BulkImportException {
+        long start = System.nanoTime();
+        Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+        List<Path> files;
+        Set<String> done;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(BulkImportService::isPriceFile).sorted().toList();
+            done = Files.exists(checkpoint) ? new HashSet<>(Files.readAllLines(checkpoint)) : new HashSet<>();
+        } catch (IOException exception) {
+            throw new BulkImportException(String.format("Exception when listing price files in %s", directory), exception);
+        }
+
+        List<Path> pending = files.stream().filter(file -> !done.contains(file.getFileName().toString())).toList();
+        LOGGER.info(String.format("Importing %d price files from %s, %d already imported", pending.size(), directory, files.size() - pending.size()));
+
+        Progress progress = new Progress(pending.size(), new WriteLimiter(writeConcurrency));
+        Semaphore computeSlots = new Semaphore(parallelism);
+        // Held from parse to the end of the write, as parsed files would otherwise pile up waiting to be written
+        Semaphore fileSlots = new Semaphore(parallelism + writeConcurrency);
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("bulk-import-progress").daemon().factory());
+        reporter.scheduleAtFixedRate(() -> progress.log(start), progressInterval.toMillis(), progressInterval.toMillis(), TimeUnit.MILLISECONDS);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Path file : pending) {
+                fileSlots.acquire();
+                executor.submit(() -> {
+                    try {
+                        importFile(file, checkpoint, computeSlots, progress);
+                    } finally {
+                        fileSlots.release();
+                    }
+                });
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn(String.format("Interrupted when importing price files from %s, the rest are imported on the next run", directory));
+        } finally {
+            reporter.shutdownNow();
+        }
+
+        progress.log(start);
+        return new Summary(files.size(), progress.imported.get(), files.size() - pending.size(), progress.failed.get(),
+            progress.rows.get(), Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private void importFile(Path file, Path checkpoint, Semaphore computeSlots, Progress progress) {
+        try {
+            List<DailyStockRecord> records;
+            List<DailyStockMetrics> metrics;
+            computeSlots.acquire();
+            try {
+                records = parse(file);
+                metrics = metricBuilderService.calculateAllMetrics(records);
+            } finally {
+                computeSlots.release();
+            }
+
+            write(file, records, metrics, progress.writes);
+            if (!metrics.isEmpty()) {
+                screenerIndex.update(metrics.getLast());
+            }
+            recordDone(checkpoint, file);
+            progress.imported.incrementAndGet();
+            progress.rows.addAndGet(metrics.size());
+
+        } catch (IOException | ParserException | MetricBuilderException | MetricsRepositoryException | BulkImportException exception) {
+            LOGGER.error(String.format("Exception when importing price file %s, it is retried on the next run", file), exception);
+            progress.failed.incrementAndGet();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            progress.failed.incrementAndGet();
+        }
+    }
+
+    private static List<DailyStockRecord> parse(Path file) throws IOException, ParserException {
+        String fileName = file.getFileName().toString();
+        String stockData = Files.readString(file);
+        if (fileName.toLowerCase(Locale.ROOT).endsWith(".csv")) {
+            String symbol = fileName.substring(0, fileName.length() - ".csv".length()).toUpperCase(Locale.ROOT);
+            return StockRecordsParser.parseCsv(symbol, stockData);
+        }
+        return StockRecordsParser.parse(stockData);
+    }
+
+    // Writes are whole-stock upserts, so a retry after a partial write leaves the same rows
+    private void write(Path file,
+                       List<DailyStockRecord> records,
+                       List<DailyStockMetrics> metrics,
+                       WriteLimiter writes) throws InterruptedException, MetricBuilderException, MetricsRepositoryException {
+        for (int attempt = 1; ; attempt++) {
+            writes.acquire();
+            boolean failed = true;
+            try {
+                metricsRepository.upsertAll(metrics);
+                rollupService.update(records);
+                failed = false;
+                return;
+            } catch (MetricsRepositoryException exception) {
+                if (attempt >= maxWriteAttempts) {
+                    throw exception;
+                }
+                LOGGER.warn(String.format("Exception when writing metrics of %s (attempt %d), retrying", file.getFileName(), attempt));
+            } catch (MetricBuilderException exception) {
+                // A calculation error says nothing of what the repository can absorb
+                failed = false;
+                throw exception;
+            } finally {
+                writes.release(failed);
+            }
+            Thread.sleep(writeBackoff.multipliedBy(1L << Math.min(attempt - 1, 10)));
+        }
+    }
+
+    private static synchronized void recordDone(Path checkpoint, Path file) throws BulkImportException {
+        try {
+            Files.writeString(checkpoint, file.getFileName() + System.lineSeparator(),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+        } catch (IOException exception) {
+            throw new BulkImportException(String.format("Exception when recording %s as imported", file.getFileName()), exception);
+        }
+    }
+
+    private static boolean isPriceFile(Path file) {
+        String fileName = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return Files.isRegularFile(file) && (fileName.endsWith(".json") || fileName.endsWith(".csv"));
+    }
+
+    /**
+     * Counts of the files and rows handled so far by an import
+     */
+    private static class Progress {
+        private final int total;
+        private final WriteLimiter writes;
+        private final AtomicInteger imported = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicLong rows = new AtomicLong();
+
+        Progress(int total, WriteLimiter writes) {
+            this.total = total;
+            this.writes = writes;
+        }
+
+        void log(long start) {
+            double seconds = Math.max(1e-9, (System.nanoTime() - start) / 1e9);
+            LOGGER.info(String.format("Imported %d of %d price files (%d failed), %d rows at %.0f rows/s, writing up to %d stocks at once",
+                imported.get(), total, failed.get(), rows.get(), rows.get() / seconds, writes.limit()));
+        }
+    }
+
+    /**
+     * Bounds the writes in flight, halving the bound when a write fails and raising it by one after as many
+     * successful writes as the bound, up to its maximum
+     */
+    static class WriteLimiter {
+        private final int maxLimit;
+        private int limit;
+        private int inFlight;
+        private int successes;
+
+        WriteLimiter(int maxLimit) {
+            this.maxLimit = maxLimit;
+            this.limit = maxLimit;
+        }
+
+        synchronized void acquire() throws InterruptedException {
+            while (inFlight >= limit) {
+                wait();
+            }
+            inFlight++;
+        }
+
+        synchronized void release(boolean failed) {
+            inFlight--;
+            if (failed) {
+                limit = Math.max(1, limit / 2);
+                successes = 0;
+            } else if (++successes >= limit && limit < maxLimit) {
+                limit++;
+                successes = 0;
+            }
+            notifyAll();
+        }
+
+        synchronized int limit() {
+            return limit;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.github.jaycleverly.stock_info.service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import com.github.jaycleverly.stock_info.config.beans.ResilienceConfig;
+import com.github.jaycleverly.stock_info.config.properties.AppCorrelationProperties;
+import com.github.jaycleverly.stock_info.exception.ClientErrorException;
+import com.github.jaycleverly.stock_info.exception.InternalServerErrorException;
+import com.github.jaycleverly.stock_info.exception.SerializerException;
+import com.github.jaycleverly.stock_info.model.CorrelationMatrix;
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+import com.github.jaycleverly.stock_info.repository.MetricsRepository;
+import com.github.jaycleverly.stock_info.serializer.StockMetricsSerializer;
+import com.github.jaycleverly.stock_info.symbols.SymbolFilter;
+import com.github.jaycleverly.stock_info.util.CovarianceMatrix;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+
+/**
+ * Class to provide the covariance and correlation of daily returns between stocks
+ */
+@Service
+public class CorrelationService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CorrelationService.class);
+
+    private final int maxSymbols;
+    private final int maxDays;
+    private final int readConcurrency;
+    private final MetricsRepository metricsRepository;
+    private final SymbolFilter symbolFilter;
+    private final Bulkhead readBulkhead;
+
+    /**
+     * Creates a new service that can correlate stocks
+     * 
+     * @param correlationProperties the properties set for correlation requests
+     * @param metricsRepository the repository storing calculated metrics
+     * @param symbolFilter the filter rejecting unlisted and recently not found stocks
+     * @param readBulkhead the bulkhead bounding concurrent reads of stored metrics
+     */
+    public CorrelationService(AppCorrelationProperties correlationProperties,
+                              MetricsRepository metricsRepository,
+                              SymbolFilter symbolFilter,
+                              @Qualifier(ResilienceConfig.READ_BULKHEAD) Bulkhead readBulkhead) {
+        this.maxSymbols = correlationProperties.maxSymbols();
+        this.maxDays = correlationProperties.maxDays();
+        this.readConcurrency = Math.max(1, correlationProperties.readConcurrency());
+        this.metricsRepository = metricsRepository;
+        this.symbolFilter = symbolFilter;
+        this.readBulkhead = readBulkhead;
+    }
+
+    /**
+     * Produces a JSON response containing the pairwise covariance and correlation of daily returns between some stocks
+     * 
+     * @param symbols the stocks to correlate
+     * @param from the earliest date to include
+     * @param to the latest date to include
+     * @return the matrices as JSON
+     * @throws ClientErrorException if the request is invalid or the stocks do not have enough records in common
+     * @throws InternalServerErrorException if an error occurs while processing
+     */
+    public byte[] produceCorrelation(List<String> symbols, LocalDate from, LocalDate to) throws ClientErrorException, InternalServerErrorException {
+        CorrelationMatrix matrix = calculateCorrelation(symbols, from, to);
+        try {
+            return StockMetricsSerializer.serialize(matrix);
+        } catch (SerializerException exception) {
+            LOGGER.error("Exception when converting correlation matrix to JSON response", exception);
+            throw new InternalServerErrorException("Exception when producing correlation!", HttpStatus.INTERNAL_SERVER_ERROR, exception);
+        }
+    }
+
+    /**
+     * Calculates the pairwise covariance and correlation of daily returns from the stored closes of some stocks,
+     * using only the dates every stock has a close for
+     * 
+     * @param symbols the stocks to correlate
+     * @param from the earliest date to include
+     * @param to the latest date to include
+     * @return the covariance and correlation matrices
+     * @throws ClientErrorException if the request is invalid or the stocks do not have enough records in common
+     * @throws InternalServerErrorException if an error occurs while reading records
+     */
+    public CorrelationMatrix calculateCorrelation(List<String> symbols, LocalDate from, LocalDate to) throws ClientErrorException, InternalServerErrorException {
+        List<String> stockSymbols = symbols.stream()
+            .map(String::trim)
+            .filter(symbol -> !symbol.isEmpty())
+            .map(String::toUpperCase)
+            .distinct()
+            .toList();
+        if (stockSymbols.size() < 2 || stockSymbols.size() > maxSymbols) {
+            throw new ClientErrorException(
+                String.format("Between 2 and %d symbols must be correlated!", maxSymbols), HttpStatus.BAD_REQUEST, null);
+        }
+        if (from.isAfter(to) || ChronoUnit.DAYS.between(from, to) >= maxDays) {
+            throw new ClientErrorException(
+                String.format("Date range must be in order and at most %d days!", maxDays), HttpStatus.BAD_REQUEST, null);
+        }
+
+        stockSymbols.forEach(symbolFilter::check);
+
+        Map<String, List<DailyStockMetrics>> history = findAllStoredRecordsBetween(stockSymbols, from, to);
+        List<String> missing = stockSymbols.stream().filter(symbol -> history.get(symbol).isEmpty()).toList();
+        if (!missing.isEmpty()) {
+            throw new ClientErrorException(
+                String.format("No records for %s between %s and %s!", missing, from, to), HttpStatus.NOT_FOUND, null);
+        }
+
+        List<LocalDate> commonDates = commonDates(history.values());
+        if (commonDates.size() < 3) {
+            throw new ClientErrorException(
+                String.format("Fewer than 3 dates between %s and %s have records for every stock!", from, to), HttpStatus.NOT_FOUND, null);
+        }
+
+        double[][] returns = new double[stockSymbols.size()][];
+        for (int i = 0; i < returns.length; i++) {
+            returns[i] = dailyReturns(history.get(stockSymbols.get(i)), commonDates);
+        }
+        double[][] covariance = CovarianceMatrix.covariance(returns);
+
+        return new CorrelationMatrix(
+            stockSymbols,
+            commonDates.getFirst(),
+            commonDates.getLast(),
+            commonDates.size() - 1,
+            covariance,
+            CovarianceMatrix.correlation(covariance));
+    }
+
+    // Reads stocks concurrently, as the repository may block on network round trips rather than cpu, but only a few at
+    // a time and within the read bulkhead so one correlation cannot take the read capacity of live traffic
+    private Map<String, List<DailyStockMetrics>> findAllStoredRecordsBetween(List<String> symbols, LocalDate from, LocalDate to) {
+        int maxRecords = (int) ChronoUnit.DAYS.between(from, to) + 1;
+        Map<String, Future<List<DailyStockMetrics>>> reads = new LinkedHashMap<>();
+        Map<String, List<DailyStockMetrics>> history = new HashMap<>();
+        Semaphore readSlots = new Semaphore(readConcurrency);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String symbol : symbols) {
+                readSlots.acquire();
+                reads.put(symbol, executor.submit(() -> {
+                    try {
+                        return readBulkhead.executeSupplier(() -> metricsRepository.findBetween(symbol, from, to, maxRecords));
+                    } finally {
+                        readSlots.release();
+                    }
+                }));
+            }
+            for (Map.Entry<String, Future<List<DailyStockMetrics>>> read : reads.entrySet()) {
+                history.put(read.getKey(), read.getValue().get());
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InternalServerErrorException("Interrupted when producing correlation!", HttpStatus.INTERNAL_SERVER_ERROR, exception);
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof BulkheadFullException) {
+                throw new InternalServerErrorException("Too many concurrent reads to produce correlation!", HttpStatus.SERVICE_UNAVAILABLE, exception.getCause());
+            }
+            LOGGER.error(String.format("Exception when finding stored records between %s and %s for correlation", from, to));
+            throw new InternalServerErrorException("Exception when producing correlation!", HttpStatus.INTERNAL_SERVER_ERROR, exception.getCause());
+        }
+        return history;
+    }
+
+    private static List<LocalDate> commonDates(Iterable<List<DailyStockMetrics>> history) {
+        Set<LocalDate> common = null;
+        for (List<DailyStockMetrics> metrics : history) {
+            Set<LocalDate> dates = new TreeSet<>();
+            metrics.forEach(metric -> dates.add(metric.getDate()));
+            if (common == null) {
+                common = dates;
+            } else {
+                common.retainAll(dates);
+            }
+        }
+        return common == null ? List.of() : new ArrayList<>(common);
+    }
+
+    private static double[] dailyReturns(List<DailyStockMetrics> metrics, List<LocalDate> dates) {
+        Map<LocalDate, Double> closes = new HashMap<>();
+        metrics.forEach(metric -> closes.put(metric.getDate(), metric.getClose()));
+
+        double[] returns = new double[dates.size() - 1];
+        double previous = closes.get(dates.getFirst());
+        for (int t = 1; t < dates.size(); t++) {
+            double close = closes.get(dates.get(t));
+            returns[t - 1] = (close - previous) / previous;
+            previous = close;
+        }
+        return returns;
+    }
+}
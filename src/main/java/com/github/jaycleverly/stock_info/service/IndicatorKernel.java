@@ -0,0 +1,63 @@
+package com.github.jaycleverly.stock_info.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Calculates rolling indicators over an array of closes, output index i holds the indicator for close i.
+ *
+ * Implementations must produce results identical to {@link ScalarIndicatorKernel}, and leave outputs before the
+ * first complete window untouched.
+ */
+interface IndicatorKernel {
+    String VECTOR_MODULE = "jdk.incubator.vector";
+    String VECTOR_KERNEL = "com.github.jaycleverly.stock_info.service.VectorIndicatorKernel";
+
+    /**
+     * Calculates the change from the previous close, from index 1
+     */
+    void previousCloseChange(double[] closes, double[] out);
+
+    /**
+     * Calculates the average close over a period, from index period - 1
+     */
+    void movingAverage(double[] closes, int period, double[] out);
+
+    /**
+     * Calculates the fractional change from the previous close, from index 1
+     */
+    void returns(double[] closes, double[] out);
+
+    /**
+     * Calculates the percentage population standard deviation of returns over a period, from index period
+     */
+    void volatility(double[] returns, int period, double[] out);
+
+    /**
+     * Calculates the percentage change in close over a period, from index period
+     */
+    void momentum(double[] closes, int period, double[] out);
+
+    /**
+     * Returns the vector kernel when the incubating vector module is on the module path, else the scalar kernel
+     *
+     * @return the fastest kernel this runtime supports
+     */
+    static IndicatorKernel available() {
+        Logger logger = LoggerFactory.getLogger(IndicatorKernel.class);
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            logger.info(String.format("Module %s not added, using scalar indicator kernel", VECTOR_MODULE));
+            return new ScalarIndicatorKernel();
+        }
+
+        // Loaded by name so the vector classes are never linked when the module is missing
+        try {
+            IndicatorKernel kernel = (IndicatorKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+            logger.info(String.format("Using vector indicator kernel (%s)", kernel));
+            return kernel;
+        } catch (ReflectiveOperationException | LinkageError exception) {
+            logger.warn("Exception when loading vector indicator kernel, using scalar kernel", exception);
+            return new ScalarIndicatorKernel();
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.github.jaycleverly.stock_info.service;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import com.github.jaycleverly.stock_info.client.IntradayApiClient;
+import com.github.jaycleverly.stock_info.config.properties.AppIntradayProperties;
+import com.github.jaycleverly.stock_info.exception.ClientErrorException;
+import com.github.jaycleverly.stock_info.exception.InternalServerErrorException;
+import com.github.jaycleverly.stock_info.exception.MetricBuilderException;
+import com.github.jaycleverly.stock_info.exception.MetricsRepositoryException;
+import com.github.jaycleverly.stock_info.exception.SerializerException;
+import com.github.jaycleverly.stock_info.exception.TimeSeriesApiException;
+import com.github.jaycleverly.stock_info.intraday.IntradaySeries;
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+import com.github.jaycleverly.stock_info.model.DailyStockRecord;
+import com.github.jaycleverly.stock_info.model.IntradayInterval;
+import com.github.jaycleverly.stock_info.model.IntradaySnapshot;
+import com.github.jaycleverly.stock_info.repository.MetricsRepository;
+import com.github.jaycleverly.stock_info.screener.MetricsScreenerIndex;
+import com.github.jaycleverly.stock_info.serializer.StockMetricsSerializer;
+import com.github.jaycleverly.stock_info.symbols.SymbolFilter;
+import com.github.jaycleverly.stock_info.util.MarketCalendar;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Class to provide the intraday bars of a stock's current session with rolling metrics, and to compact finished
+ * sessions into the stored daily metrics.
+ *
+ * Each stock and interval requested gets an {@link IntradaySeries} held in memory, refreshed from the api on a read
+ * once its latest bar is an interval old; only bars newer than those held are appended. The number of series held is
+ * bounded, the least recently read being dropped for a new one. Finished sessions are compacted on a schedule into a
+ * daily record, calculated over the stored days before it, when the stock's stored daily metrics run up to the
+ * trading day before the session, so the next request for the stock is served without an api call. A session the
+ * daily store already holds, or that would leave a gap in it, is left to the daily refresh.
+ */
+@Service
+public class IntradayService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IntradayService.class);
+    // Bars in a compact response, a full one is requested if more may have passed since the latest bar held
+    private static final int COMPACT_BARS = 100;
+
+    private final int sessionMinutes;
+    private final int movingAverageBars;
+    private final int volatilityBars;
+    private final int momentumBars;
+    private final int maxSeries;
+    private final IntradayApiClient intradayApiClient;
+    private final SymbolFilter symbolFilter;
+    private final MetricsRepository metricsRepository;
+    private final MetricBuilderService metricBuilderService;
+    private final MetricsVersionService metricsVersionService;
+    private final MetricsScreenerIndex screenerIndex;
+    private final Clock clock;
+    private final Map<String, Held> held = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService compactions;
+
+    /**
+     * A series held for a stock and interval
+     */
+    private static final class Held {
+        private final String symbol;
+        private final IntradayInterval interval;
+        private final IntradaySeries series;
+        private long refreshedAt = Long.MIN_VALUE;
+        private volatile long readAt;
+
+        private Held(String symbol, IntradayInterval interval, IntradaySeries series) {
+            this.symbol = symbol;
+            this.interval = interval;
+            this.series = series;
+        }
+    }
+
+    /**
+     * Creates a new service that can provide intraday bars
+     *
+     * @param properties the properties set for intraday bars
+     * @param intradayApiClient the client to get intraday bars from the api
+     * @param symbolFilter the filter rejecting unlisted and recently not found stocks
+     * @param metricsRepository the repository storing calculated daily metrics
+     * @param metricBuilderService the service to create metrics from stock records
+     * @param metricsVersionService the service to track the latest metrics held for each stock
+     * @param screenerIndex the index of the latest metrics of every stock
+     */
+    @Autowired
+    public IntradayService(AppIntradayProperties properties,
+                           IntradayApiClient intradayApiClient,
+                           SymbolFilter symbolFilter,
+                           MetricsRepository metricsRepository,
+                           MetricBuilderService metricBuilderService,
+                           MetricsVersionService metricsVersionService,
+                           MetricsScreenerIndex screenerIndex) {
+        this(properties, intradayApiClient, symbolFilter, metricsRepository, metricBuilderService, metricsVersionService,
+            screenerIndex, Clock.systemUTC());
+    }
+
+    IntradayService(AppIntradayProperties properties,
+                    IntradayApiClient intradayApiClient,
+                    SymbolFilter symbolFilter,
+                    MetricsRepository metricsRepository,
+                    MetricBuilderService metricBuilderService,
+                    MetricsVersionService metricsVersionService,
+                    MetricsScreenerIndex screenerIndex,
+                    Clock clock) {
+        this.sessionMinutes = properties.sessionMinutes();
+        this.movingAverageBars = properties.movingAverageBars();
+        this.volatilityBars = properties.volatilityBars();
+        this.momentumBars = properties.momentumBars();
+        this.maxSeries = properties.maxSeries();
+        this.intradayApiClient = intradayApiClient;
+        this.symbolFilter = symbolFilter;
+        this.metricsRepository = metricsRepository;
+        this.metricBuilderService = metricBuilderService;
+        this.metricsVersionService = metricsVersionService;
+        this.screenerIndex = screenerIndex;
+        this.clock = clock;
+
+        Duration compactionInterval = properties.compactionInterval();
+        if (compactionInterval != null && compactionInterval.isPositive()) {
+            this.compactions = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("intraday-compaction").daemon().factory());
+            compactions.scheduleWithFixedDelay(
+                this::compactSessions, compactionInterval.toMillis(), compactionInterval.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            this.compactions = null;
+        }
+    }
+
+    /**
+     * Produces a JSON response containing the bars of a stock's current intraday session and their metrics
+     *
+     * @param symbol the upper case symbol of the stock
+     * @param interval the bar size as given in the request, eg: 5min
+     * @return the bars as JSON, most recent first
+     * @throws ClientErrorException if the interval is unknown, or the stock is unknown or has no intraday bars
+     * @throws InternalServerErrorException if an error occurs while processing, with a 503 status while the api is unavailable
+     */
+    public byte[] produceIntraday(String symbol, String interval) throws ClientErrorException, InternalServerErrorException {
+        IntradayInterval barInterval = IntradayInterval.parse(interval)
+            .orElseThrow(() -> new ClientErrorException(
+                String.format("Unknown interval (%s), expected 1min, 5min or 15min!", interval), HttpStatus.BAD_REQUEST, null));
+        symbolFilter.check(symbol);
+
+        Held series = series(symbol, barInterval);
+        series.readAt = clock.millis();
+        refresh(series);
+
+        IntradaySnapshot snapshot = series.series.snapshot(symbol, barInterval);
+        if (snapshot.size() == 0) {
+            throw new ClientErrorException(String.format("No intraday bars for %s!", symbol), HttpStatus.NOT_FOUND, null);
+        }
+        try {
+            return StockMetricsSerializer.serialize(snapshot);
+        } catch (SerializerException exception) {
+            LOGGER.error("Exception when converting intraday bars to JSON response", exception);
+            throw new InternalServerErrorException(
+                String.format("Exception when producing %s intraday bars!", symbol), HttpStatus.INTERNAL_SERVER_ERROR, exception);
+        }
+    }
+
+    /**
+     * Compacts every finished session held into the stored daily metrics, run on a schedule
+     */
+    public void compactSessions() {
+        LocalDate today = LocalDate.now(clock.withZone(MarketCalendar.MARKET_ZONE));
+        for (Held series : held.values()) {
+            try {
+                Optional<DailyStockRecord> session = series.series.completedSession(series.symbol, today);
+                while (session.isPresent()) {
+                    compact(session.get());
+                    series.series.markCompacted(session.get().getDate());
+                    session = series.series.completedSession(series.symbol, today);
+                }
+            } catch (MetricsRepositoryException | MetricBuilderException exception) {
+                LOGGER.warn(String.format("Exception when compacting intraday session of stock %s, retrying later", series.symbol), exception);
+            }
+        }
+    }
+
+    /**
+     * @return the number of series held
+     */
+    public int seriesCount() {
+        return held.size();
+    }
+
+    /**
+     * Stops compacting sessions, those not yet compacted are left to the daily refresh
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (compactions != null) {
+            compactions.shutdownNow();
+        }
+    }
+
+    private Held series(String symbol, IntradayInterval interval) {
+        String key = String.join("#", symbol, interval.name());
+        Held series = held.get(key);
+        if (series != null) {
+            return series;
+        }
+
+        if (held.size() >= maxSeries) {
+            held.entrySet().stream()
+                .min(Comparator.comparingLong(entry -> entry.getValue().readAt))
+                .ifPresent(oldest -> held.remove(oldest.getKey(), oldest.getValue()));
+        }
+        int sessionBars = Math.max(1, sessionMinutes / interval.getMinutes());
+        return held.computeIfAbsent(key,
+            ignored -> new Held(symbol, interval, new IntradaySeries(sessionBars, movingAverageBars, volatilityBars, momentumBars)));
+    }
+
+    // Serves the bars held if the api fails, once there are some
+    private void refresh(Held series) throws ClientErrorException, InternalServerErrorException {
+        long intervalMillis = Duration.ofMinutes(series.interval.getMinutes()).toMillis();
+        synchronized (series) {
+            long now = clock.millis();
+            if (series.refreshedAt != Long.MIN_VALUE && now - series.refreshedAt < intervalMillis) {
+                return;
+            }
+
+            long latest = series.series.latestMinute();
+            long nowMinute = LocalDateTime.now(clock.withZone(MarketCalendar.MARKET_ZONE)).toEpochSecond(ZoneOffset.UTC) / 60;
+            boolean full = latest == IntradaySeries.NONE || nowMinute - latest > (long) COMPACT_BARS * series.interval.getMinutes();
+            try {
+                int appended = intradayApiClient.getIntradayBars(series.symbol, series.interval, full, latest, series.series);
+                series.refreshedAt = now;
+                LOGGER.info(String.format("Appended %d %s bars for stock %s", appended, series.interval.getLabel(), series.symbol));
+
+            } catch (TimeSeriesApiException exception) {
+                if (series.series.size() > 0) {
+                    LOGGER.warn(String.format("API unavailable (%s), serving held intraday bars for stock %s", exception.getMessage(), series.symbol));
+                    return;
+                }
+                throw clientOrServerError(series, exception);
+            }
+        }
+    }
+
+    private RuntimeException clientOrServerError(Held series, TimeSeriesApiException exception) {
+        LOGGER.error(String.format("Exception when retrieving intraday bars from API for stock (%s)", series.symbol));
+        switch (exception.getStatusCode()) {
+            case 404:
+                held.remove(String.join("#", series.symbol, series.interval.name()), series);
+                symbolFilter.recordNotFound(series.symbol);
+                return new ClientErrorException(exception.getMessage(), HttpStatus.NOT_FOUND, exception);
+            case 401:
+            case 429:
+                return new ClientErrorException(exception.getMessage(), HttpStatus.valueOf(exception.getStatusCode()), exception);
+            default:
+                return new InternalServerErrorException(
+                    String.format("Exception when producing %s intraday bars!", series.symbol),
+                    exception.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE.value() ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.INTERNAL_SERVER_ERROR,
+                    exception);
+        }
+    }
+
+    // Stores the session as a daily metric if it is the next trading day after the stored ones
+    private void compact(DailyStockRecord session) throws MetricsRepositoryException, MetricBuilderException {
+        String symbol = session.getSymbol();
+        List<DailyStockMetrics> stored = metricsRepository.findLatest(symbol, metricBuilderService.longestPeriod() + 1);
+        if (stored.isEmpty() || !stored.getLast().getDate().isBefore(session.getDate())
+                || weekdayMissed(stored.getLast().getDate(), session.getDate())) {
+            return;
+        }
+
+        // Stored daily metrics keep only the close
+        List<DailyStockRecord> history = new ArrayList<>(stored.size() + 1);
+        for (DailyStockMetrics day : stored) {
+            double close = day.getClose();
+            history.add(new DailyStockRecord(symbol, day.getDate(), orElse(day.getOpen(), close), orElse(day.getHigh(), close), orElse(day.getLow(), close), close));
+        }
+        history.add(session);
+
+        DailyStockMetrics metrics = metricBuilderService.calculateAllMetrics(history).getLast();
+        metricsRepository.upsertAll(List.of(metrics));
+        metricsVersionService.recordLatestDate(symbol, session.getDate());
+        screenerIndex.update(metrics);
+        LOGGER.info(String.format("Compacted intraday session of %s for stock %s into its daily metrics", session.getDate(), symbol));
+    }
+
+    // Holidays are not considered, so a session after one is left to the daily refresh
+    private static boolean weekdayMissed(LocalDate latestStored, LocalDate session) {
+        for (LocalDate day = latestStored.plusDays(1); day.isBefore(session); day = day.plusDays(1)) {
+            if (day.getDayOfWeek() != DayOfWeek.SATURDAY && day.getDayOfWeek() != DayOfWeek.SUNDAY) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static double orElse(Double value, double fallback) {
+        return value == null ? fallback : value;
+    }
+}
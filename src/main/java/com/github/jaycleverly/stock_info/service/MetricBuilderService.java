@@ -1,6 +1,5 @@
 package com.github.jaycleverly.stock_info.service;
 
-import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -18,92 +17,78 @@ public class MetricBuilderService {
     private final int movingAveragePeriod = 30;
     private final int volatilityPeriod = 7;
     private final int momentumPeriod = 14;
+    private final IndicatorKernel kernel;
 
     /**
      * Creates a new service that can build metric objects from stock records
      */
-    public MetricBuilderService() {}   
+    public MetricBuilderService() {
+        this(IndicatorKernel.available());
+    }
+
+    MetricBuilderService(IndicatorKernel kernel) {
+        this.kernel = kernel;
+    }
     
     /**
-     * Calculates metrics for a specific date in a stock's records
+     * @return the most records before a record that its metrics are calculated from
+     */
+    public int longestPeriod() {
+        return Math.max(movingAveragePeriod - 1, Math.max(volatilityPeriod, momentumPeriod));
+    }
+
+    /**
+     * Calculates metrics for every record in a stock's history at once, over primitive arrays
      * 
-     * @param date the date of a record to calculate metrics for
-     * @param history all the records associated with the stock 
-     * @return an object containing all of the metrics
+     * @param history all the records associated with the stock, in date order
+     * @return the metrics of each record, in the same order
      * @throws MetricBuilderException if an error occurs during the metric calculation process
      */
-    public DailyStockMetrics caclculateMetrics(LocalDate date, List<DailyStockRecord> history) throws MetricBuilderException {
+    public List<DailyStockMetrics> calculateAllMetrics(List<DailyStockRecord> history) throws MetricBuilderException {
         try {
-            DailyStockRecord recordToAnalyse = history.stream()
-                .filter(r -> r.getDate().equals(date))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException(String.format("Date (%s) not found in records", date.toString())));
-        
-            String symbol = recordToAnalyse.getSymbol();
-            double close = round2dp(recordToAnalyse.getClose());
-            Double previousCloseChange = round2dp(calculateChangeFromPreviousClose(history, recordToAnalyse));
-            Double movingAverage = round2dp(calculateMovingAverage(history, recordToAnalyse));
-            Double volatility = round2dp(calculateVolatility(history, recordToAnalyse));
-            Double momentum = round2dp(calculateMomentum(history, recordToAnalyse));
-
-            return new DailyStockMetrics(symbol, date, close, previousCloseChange, movingAverage, volatility, momentum);
-        
-        } catch (Exception exception) {
-            throw new MetricBuilderException("Exception when building metrics for stock!", exception);
-        }
-    }
-
-    private Double calculateChangeFromPreviousClose(List<DailyStockRecord> records, DailyStockRecord recordToAnalyse) {
-        int index = records.indexOf(recordToAnalyse);
-
-        if (index >= 1) {
-            return records.get(index).getClose() - records.get(index - 1).getClose();
-        }
-        return null;
-    }
-
-    private Double calculateMovingAverage(List<DailyStockRecord> records, DailyStockRecord recordToAnalyse) {
-        int index = records.indexOf(recordToAnalyse);
-
-        if (index >= movingAveragePeriod - 1) {
-            double sum = 0;
-            for (int j = (index - movingAveragePeriod) + 1; j <= index; j++) {
-                sum += records.get(j).getClose();
+            int size = history.size();
+            double[] closes = new double[size];
+            for (int i = 0; i < size; i++) {
+                closes[i] = history.get(i).getClose();
             }
-            return sum / movingAveragePeriod;
-        }
-        return null;
-    }
 
-    private Double calculateVolatility(List<DailyStockRecord> records, DailyStockRecord recordToAnalyse) {
-        int index = records.indexOf(recordToAnalyse);
+            double[] previousCloseChanges = new double[size];
+            double[] movingAverages = new double[size];
+            double[] returns = new double[size];
+            double[] volatilities = new double[size];
+            double[] momentums = new double[size];
+            kernel.previousCloseChange(closes, previousCloseChanges);
+            kernel.movingAverage(closes, movingAveragePeriod, movingAverages);
+            kernel.returns(closes, returns);
+            kernel.volatility(returns, volatilityPeriod, volatilities);
+            kernel.momentum(closes, momentumPeriod, momentums);
+            round2dp(closes, previousCloseChanges, movingAverages, volatilities, momentums);
 
-        if (index > volatilityPeriod - 1) {
-            List<Double> returns = new ArrayList<>();
-            for (int j = (index - volatilityPeriod) + 1; j <= index; j++) {
-                double prevClose = records.get(j - 1).getClose();
-                returns.add((records.get(j).getClose() - prevClose) / prevClose);
+            List<DailyStockMetrics> metrics = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                DailyStockRecord record = history.get(i);
+                metrics.add(new DailyStockMetrics(
+                    record.getSymbol(),
+                    record.getDate(),
+                    closes[i],
+                    i >= 1 ? previousCloseChanges[i] : null,
+                    i >= movingAveragePeriod - 1 ? movingAverages[i] : null,
+                    i > volatilityPeriod - 1 ? volatilities[i] : null,
+                    i > momentumPeriod - 1 ? momentums[i] : null));
             }
-            double mean = returns.stream().mapToDouble(d -> d).average().orElse(0);
-            double variance = returns.stream().mapToDouble(r -> Math.pow(r - mean, 2)).sum() / returns.size();
-            return Math.sqrt(variance) * 100;
-        }
-        return null;
-    }
-
-    private Double calculateMomentum(List<DailyStockRecord> records, DailyStockRecord recordToAnalyse) {
-        int index = records.indexOf(recordToAnalyse);
+            return metrics;
 
-        if (index > momentumPeriod - 1) {
-            double historicalClose = records.get(index - momentumPeriod).getClose();
-            return ((recordToAnalyse.getClose() - historicalClose) / historicalClose) * 100;
+        } catch (Exception exception) {
+            throw new MetricBuilderException("Exception when building metrics for stock!", exception);
         }
-        return null;
     }
 
-    private Double round2dp(Double value) {
-        return value == null 
-            ? null 
-            : Math.round(value * 100.0) / 100.0;
+    // Rounds to 2dp, kept out of the object building loop so that loop stays small
+    private static void round2dp(double[]... columns) {
+        for (double[] column : columns) {
+            for (int i = 0; i < column.length; i++) {
+                column[i] = Math.round(column[i] * 100.0) / 100.0;
+            }
+        }
     }
 }
@@ -0,0 +1,172 @@
+package com.github.jaycleverly.stock_info.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import com.github.jaycleverly.stock_info.config.properties.AppExportProperties;
+import com.github.jaycleverly.stock_info.exception.ClientErrorException;
+import com.github.jaycleverly.stock_info.exception.MetricsExportException;
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+import com.github.jaycleverly.stock_info.repository.MetricsRepository;
+import com.github.jaycleverly.stock_info.repository.MetricsScanFilter;
+import com.github.jaycleverly.stock_info.serializer.ExportFormat;
+import com.github.jaycleverly.stock_info.serializer.MetricsExportWriter;
+import com.github.jaycleverly.stock_info.util.ThroughputThrottle;
+
+/**
+ * Class to stream the stored daily metrics of every stock out for offline analysis.
+ *
+ * The repository is scanned in several segments at once, each handing its pages to a small queue that a single
+ * writer drains, so an export holds a few pages in memory however large the repository is. A slow reader of the
+ * export holds the scans back rather than letting pages pile up. Reads of all exports together are throttled to a
+ * set number of rows per second, and only a set number of exports run at once, so exporting leaves the repository's
+ * capacity to live requests.
+ */
+@Service
+public class MetricsExportService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricsExportService.class);
+    private static final int QUEUED_PAGES_PER_SEGMENT = 2;
+
+    private final int segments;
+    private final int pageSize;
+    private final int maxConcurrentExports;
+    private final Semaphore exports;
+    private final ThroughputThrottle throttle;
+    private final MetricsRepository metricsRepository;
+
+    /**
+     * Where an export is written, opened once the export is allowed to start
+     */
+    @FunctionalInterface
+    public interface Destination {
+        OutputStream open() throws IOException;
+    }
+
+    /**
+     * A page read by a scan segment, or the end of the segment if it holds no metrics
+     */
+    private record Page(List<DailyStockMetrics> metrics, RuntimeException failure) {}
+
+    /**
+     * Creates a new service to export stored metrics
+     *
+     * @param properties the properties set for exports
+     * @param metricsRepository the repository storing calculated metrics
+     */
+    public MetricsExportService(AppExportProperties properties, MetricsRepository metricsRepository) {
+        this.segments = Math.max(1, properties.segments());
+        this.pageSize = Math.max(1, properties.pageSize());
+        this.maxConcurrentExports = Math.max(1, properties.maxConcurrentExports());
+        this.exports = new Semaphore(maxConcurrentExports);
+        this.throttle = new ThroughputThrottle(properties.maxRowsPerSecond());
+        this.metricsRepository = metricsRepository;
+    }
+
+    /**
+     * Writes every stored daily metric matching a filter, in no particular order
+     *
+     * @param filter the metrics to export
+     * @param format the format to write rows in
+     * @param destination where to write the export
+     * @return the number of rows written
+     * @throws ClientErrorException if the filter is invalid or too many exports are running
+     * @throws MetricsExportException if the metrics cannot be read or written
+     */
+    public long export(MetricsScanFilter filter, ExportFormat format, Destination destination)
+            throws ClientErrorException, MetricsExportException {
+        if (filter.from() != null && filter.to() != null && filter.from().isAfter(filter.to())) {
+            throw new ClientErrorException(
+                String.format("Export start (%s) must not be after its end (%s)!", filter.from(), filter.to()), HttpStatus.BAD_REQUEST, null);
+        }
+        if (!exports.tryAcquire()) {
+            throw new ClientErrorException(
+                String.format("At most %d exports may run at once, try again later!", maxConcurrentExports), HttpStatus.TOO_MANY_REQUESTS, null);
+        }
+
+        long start = System.nanoTime();
+        try (MetricsExportWriter writer = new MetricsExportWriter(format, destination.open())) {
+            long rows = scanInto(filter, writer);
+            double seconds = Math.max(1e-9, (System.nanoTime() - start) / 1e9);
+            LOGGER.info(String.format("Exported %d rows of stored metrics as %s in %.1fs (%.0f rows/s)", rows, format, seconds, rows / seconds));
+            return rows;
+
+        } catch (IOException exception) {
+            throw new MetricsExportException("Exception when writing export of stored metrics", exception);
+        } finally {
+            exports.release();
+        }
+    }
+
+    private long scanInto(MetricsScanFilter filter, MetricsExportWriter writer) throws IOException {
+        BlockingQueue<Page> pages = new ArrayBlockingQueue<>(segments * QUEUED_PAGES_PER_SEGMENT);
+        ExecutorService scans = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            for (int segment = 0; segment < segments; segment++) {
+                int scanned = segment;
+                scans.submit(() -> scanSegment(filter, scanned, pages));
+            }
+
+            long rows = 0;
+            for (int finished = 0; finished < segments;) {
+                Page page = pages.take();
+                if (page.failure() != null) {
+                    throw new MetricsExportException("Exception when reading stored metrics to export", page.failure());
+                }
+                if (page.metrics() == null) {
+                    finished++;
+                    continue;
+                }
+                for (DailyStockMetrics metric : page.metrics()) {
+                    writer.write(metric);
+                }
+                rows += page.metrics().size();
+            }
+            writer.flush();
+            return rows;
+
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new MetricsExportException("Interrupted while exporting stored metrics", exception);
+        } finally {
+            // Stops any scans still running, eg: once the reader of the export has gone
+            scans.shutdownNow();
+        }
+    }
+
+    // Once cancelled, puts fail straight away, so a cancelled scan never waits on the queue
+    private void scanSegment(MetricsScanFilter filter, int segment, BlockingQueue<Page> pages) {
+        Page end;
+        try {
+            metricsRepository.scan(filter, segment, segments, pageSize, metrics -> {
+                try {
+                    throttle.acquire(metrics.size());
+                    pages.put(new Page(metrics, null));
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Export cancelled");
+                }
+            });
+            end = new Page(null, null);
+        } catch (RuntimeException exception) {
+            end = new Page(null, exception);
+        }
+
+        try {
+            pages.put(end);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.github.jaycleverly.stock_info.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import com.github.jaycleverly.stock_info.config.properties.AppHttpCacheProperties;
+
+/**
+ * Class to track the latest metric date held for each stock so responses can be versioned without reading them
+ */
+@Service
+public class MetricsVersionService {
+    private final String dataVersion;
+    private final int maxRequestCounts;
+    private final Map<String, LocalDate> latestMetricDates = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> requestCounts = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new service that tracks the version of each stock's metrics
+     * 
+     * @param httpCacheProperties the properties set for http caching
+     */
+    public MetricsVersionService(AppHttpCacheProperties httpCacheProperties) {
+        this.dataVersion = httpCacheProperties.dataVersion();
+        this.maxRequestCounts = httpCacheProperties.maxRequestCounts();
+    }
+
+    /**
+     * Determines whether metrics ending on a date need updating
+     * 
+     * @param latestDate the date of the most recent metric held
+     * @return true if newer records may be available
+     */
+    public static boolean isStale(LocalDate latestDate) {
+        return latestDate.isBefore(LocalDate.now().minusDays(1));
+    }
+
+    /**
+     * Records the date of the most recent metric seen for a stock
+     * 
+     * @param symbol the stock symbol
+     * @param latestDate the date of the most recent metric
+     */
+    public void recordLatestDate(String symbol, LocalDate latestDate) {
+        latestMetricDates.merge(symbol, latestDate, (current, seen) -> seen.isAfter(current) ? seen : current);
+    }
+
+    /**
+     * Counts a request served for a stock, used to find the most requested stocks.
+     * Once the limit of counted stocks is reached, requests for stocks not yet counted are ignored
+     * 
+     * @param symbol the stock symbol
+     */
+    public void recordRequest(String symbol) {
+        addRequests(symbol, 1);
+    }
+
+    /**
+     * Returns the date of the most recent metric seen for a stock
+     * 
+     * @param symbol the stock symbol
+     * @return the latest date, empty if the stock has not been seen
+     */
+    public Optional<LocalDate> latestDate(String symbol) {
+        return Optional.ofNullable(latestMetricDates.get(symbol));
+    }
+
+    /**
+     * Returns the date of the most recent metric seen for a stock, provided it does not need updating
+     * 
+     * @param symbol the stock symbol
+     * @return the latest date, empty if the stock has not been seen or is stale
+     */
+    public Optional<LocalDate> freshLatestDate(String symbol) {
+        return latestDate(symbol).filter(date -> !isStale(date));
+    }
+
+    /**
+     * Builds a strong entity tag for a response of a stock's metrics
+     * 
+     * @param symbol the stock symbol
+     * @param latestDate the date of the most recent metric
+     * @param variant the shape of the response (output size or date range)
+     * @return a quoted entity tag
+     */
+    public String etag(String symbol, LocalDate latestDate, String variant) {
+        String version = String.join("|", symbol, latestDate.toString(), variant, dataVersion);
+        return "\"" + DigestUtils.md5DigestAsHex(version.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Writes the most requested stocks and their latest metric dates to a file
+     * 
+     * @param file the snapshot file to write
+     * @param maxSymbols the maximum number of stocks to include
+     * @throws IOException if the file cannot be written
+     */
+    public void writeSnapshot(Path file, int maxSymbols) throws IOException {
+        List<String> lines = latestMetricDates.entrySet().stream()
+            .sorted(Comparator.comparingLong((Map.Entry<String, LocalDate> entry) -> requests(entry.getKey())).reversed())
+            .limit(maxSymbols)
+            .map(entry -> String.join(",", entry.getKey(), entry.getValue().toString(), Long.toString(requests(entry.getKey()))))
+            .toList();
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Restores the latest metric dates and request counts from a snapshot file
+     * 
+     * @param file the snapshot file to read
+     * @return the stocks in the snapshot, most requested first
+     * @throws IOException if the file cannot be read
+     */
+    public List<String> loadSnapshot(Path file) throws IOException {
+        List<String> symbols = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String[] fields = line.split(",");
+            if (fields.length != 3) {
+                continue;
+            }
+            recordLatestDate(fields[0], LocalDate.parse(fields[1]));
+            addRequests(fields[0], Long.parseLong(fields[2]));
+            symbols.add(fields[0]);
+        }
+        return symbols;
+    }
+
+    /**
+     * @return the number of stocks whose requests are counted
+     */
+    public int requestCountSize() {
+        return requestCounts.size();
+    }
+
+    private void addRequests(String symbol, long requests) {
+        LongAdder count = requestCounts.get(symbol);
+        if (count == null) {
+            if (requestCounts.size() >= maxRequestCounts) {
+                return;
+            }
+            count = requestCounts.computeIfAbsent(symbol, key -> new LongAdder());
+        }
+        count.add(requests);
+    }
+
+    private long requests(String symbol) {
+        LongAdder count = requestCounts.get(symbol);
+        return count == null ? 0 : count.sum();
+    }
+}
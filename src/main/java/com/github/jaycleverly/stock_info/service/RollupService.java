@@ -0,0 +1,164 @@
+package com.github.jaycleverly.stock_info.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.stereotype.Service;
+
+import com.github.jaycleverly.stock_info.exception.MetricBuilderException;
+import com.github.jaycleverly.stock_info.exception.MetricsRepositoryException;
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+import com.github.jaycleverly.stock_info.model.DailyStockRecord;
+import com.github.jaycleverly.stock_info.model.Resolution;
+import com.github.jaycleverly.stock_info.repository.MetricsRepository;
+
+/**
+ * Class to maintain weekly and monthly rollups of each stock's daily records, with metrics calculated at those
+ * resolutions (eg: a 30 week moving average).
+ *
+ * Rollups are stored in the metrics repository under a partition of their own per stock and resolution, each bar
+ * keyed by the first day of its period. When new days arrive only the bars from the latest stored one onwards are
+ * rewritten, their metrics calculated over the stored bars before them, so the stored history keeps growing even
+ * though each refresh only fetches recent days.
+ */
+@Service
+public class RollupService {
+    private static final List<Resolution> ROLLUPS = List.of(Resolution.WEEKLY, Resolution.MONTHLY);
+
+    private final MetricsRepository metricsRepository;
+    private final MetricBuilderService metricBuilderService;
+
+    /**
+     * Creates a new service to maintain rollups of daily records
+     *
+     * @param metricsRepository the repository storing calculated metrics
+     * @param metricBuilderService the service to create metrics from stock records
+     */
+    public RollupService(MetricsRepository metricsRepository, MetricBuilderService metricBuilderService) {
+        this.metricsRepository = metricsRepository;
+        this.metricBuilderService = metricBuilderService;
+    }
+
+    /**
+     * Rolls up newly fetched daily records into every stored resolution
+     *
+     * @param history the stock's daily records, in date order
+     * @throws MetricBuilderException if the metrics of the rolled up bars cannot be calculated
+     * @throws MetricsRepositoryException if the stored rollups cannot be read or written
+     */
+    public void update(List<DailyStockRecord> history) throws MetricBuilderException, MetricsRepositoryException {
+        if (history.isEmpty()) {
+            return;
+        }
+        for (Resolution resolution : ROLLUPS) {
+            update(history, resolution);
+        }
+    }
+
+    /**
+     * Reads the most recent bars of a stock at a resolution
+     *
+     * @param symbol the stock symbol
+     * @param resolution the resolution of the bars
+     * @param maxRecords the maximum number of bars to return
+     * @return up to the latest maxRecords bars in ascending date order
+     * @throws MetricsRepositoryException if the bars cannot be read
+     */
+    public List<DailyStockMetrics> findLatest(String symbol, Resolution resolution, int maxRecords) throws MetricsRepositoryException {
+        return withSymbol(symbol, metricsRepository.findLatest(resolution.storageKey(symbol), maxRecords));
+    }
+
+    /**
+     * Reads the bars of a stock at a resolution whose periods overlap two dates (inclusive)
+     *
+     * @param symbol the stock symbol
+     * @param resolution the resolution of the bars
+     * @param from the earliest date to include
+     * @param to the latest date to include
+     * @param maxRecords the maximum number of bars to return
+     * @return up to the earliest maxRecords bars in the range in ascending date order
+     * @throws MetricsRepositoryException if the bars cannot be read
+     */
+    public List<DailyStockMetrics> findBetween(String symbol,
+                                               Resolution resolution,
+                                               LocalDate from,
+                                               LocalDate to,
+                                               int maxRecords) throws MetricsRepositoryException {
+        return withSymbol(symbol,
+            metricsRepository.findBetween(resolution.storageKey(symbol), resolution.periodStart(from), to, maxRecords));
+    }
+
+    /**
+     * Rolls daily records up into bars of a coarser resolution
+     *
+     * @param history the daily records, in date order
+     * @param resolution the resolution of the bars
+     * @return one bar per period holding any of the records, dated by the period's first day, in date order
+     */
+    public static List<DailyStockRecord> rollUp(List<DailyStockRecord> history, Resolution resolution) {
+        List<DailyStockRecord> bars = new ArrayList<>();
+        int start = 0;
+        while (start < history.size()) {
+            LocalDate period = resolution.periodStart(history.get(start).getDate());
+            double high = Double.NEGATIVE_INFINITY;
+            double low = Double.POSITIVE_INFINITY;
+            int end = start;
+            for (; end < history.size() && resolution.periodStart(history.get(end).getDate()).equals(period); end++) {
+                high = Math.max(high, history.get(end).getHigh());
+                low = Math.min(low, history.get(end).getLow());
+            }
+            DailyStockRecord first = history.get(start);
+            bars.add(new DailyStockRecord(first.getSymbol(), period, first.getOpen(), high, low, history.get(end - 1).getClose()));
+            start = end;
+        }
+        return bars;
+    }
+
+    private void update(List<DailyStockRecord> history, Resolution resolution) {
+        String symbol = history.getFirst().getSymbol();
+        String key = resolution.storageKey(symbol);
+        List<DailyStockRecord> fetched = rollUp(history, resolution);
+        // The fetched history likely starts part way through its first period
+        if (fetched.size() > 1) {
+            fetched = fetched.subList(1, fetched.size());
+        }
+
+        // Earlier bars are already stored, the latest stored bar may have gained days since
+        List<DailyStockMetrics> stored = metricsRepository.findLatest(key, metricBuilderService.longestPeriod() + 1);
+        LocalDate rewriteFrom = stored.isEmpty() ? fetched.getFirst().getDate() : stored.getLast().getDate();
+        List<DailyStockRecord> changed = fetched.stream()
+            .filter(bar -> !bar.getDate().isBefore(rewriteFrom))
+            .toList();
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        // Stored bars before the changed ones, for the changed bars' metrics to be calculated over
+        List<DailyStockRecord> bars = new ArrayList<>();
+        stored.stream()
+            .filter(bar -> bar.getDate().isBefore(changed.getFirst().getDate()))
+            .map(bar -> new DailyStockRecord(symbol, bar.getDate(), bar.getOpen(), bar.getHigh(), bar.getLow(), bar.getClose()))
+            .forEach(bars::add);
+        int unchanged = bars.size();
+        bars.addAll(changed);
+
+        List<DailyStockMetrics> metrics = metricBuilderService.calculateAllMetrics(bars);
+        List<DailyStockMetrics> rewritten = new ArrayList<>(bars.size() - unchanged);
+        for (int i = unchanged; i < bars.size(); i++) {
+            DailyStockRecord bar = bars.get(i);
+            DailyStockMetrics metric = metrics.get(i);
+            metric.setSymbol(key);
+            metric.setOpen(bar.getOpen());
+            metric.setHigh(bar.getHigh());
+            metric.setLow(bar.getLow());
+            rewritten.add(metric);
+        }
+        metricsRepository.upsertAll(rewritten);
+    }
+
+    private static List<DailyStockMetrics> withSymbol(String symbol, List<DailyStockMetrics> bars) {
+        bars.forEach(bar -> bar.setSymbol(symbol));
+        return bars;
+    }
+}
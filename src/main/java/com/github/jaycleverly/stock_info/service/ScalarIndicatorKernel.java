@@ -0,0 +1,89 @@
+package com.github.jaycleverly.stock_info.service;
+
+/**
+ * Indicator kernel over primitive arrays, summing volatility windows with the same compensated summation as {@link java.util.stream.DoubleStream#average()} and {@link java.util.stream.DoubleStream#sum()}
+ */
+class ScalarIndicatorKernel implements IndicatorKernel {
+    @Override
+    public void previousCloseChange(double[] closes, double[] out) {
+        for (int i = 1; i < closes.length; i++) {
+            out[i] = closes[i] - closes[i - 1];
+        }
+    }
+
+    @Override
+    public void movingAverage(double[] closes, int period, double[] out) {
+        for (int i = period - 1; i < closes.length; i++) {
+            out[i] = movingAverageAt(closes, period, i);
+        }
+    }
+
+    @Override
+    public void returns(double[] closes, double[] out) {
+        for (int i = 1; i < closes.length; i++) {
+            out[i] = (closes[i] - closes[i - 1]) / closes[i - 1];
+        }
+    }
+
+    @Override
+    public void volatility(double[] returns, int period, double[] out) {
+        for (int i = period; i < returns.length; i++) {
+            out[i] = volatilityAt(returns, period, i);
+        }
+    }
+
+    @Override
+    public void momentum(double[] closes, int period, double[] out) {
+        for (int i = period; i < closes.length; i++) {
+            out[i] = ((closes[i] - closes[i - period]) / closes[i - period]) * 100;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "scalar";
+    }
+
+    static double movingAverageAt(double[] closes, int period, int i) {
+        double sum = 0;
+        for (int j = i - period + 1; j <= i; j++) {
+            sum += closes[j];
+        }
+        return sum / period;
+    }
+
+    static double volatilityAt(double[] returns, int period, int i) {
+        int first = i - period + 1;
+
+        double sum = 0;
+        double compensation = 0;
+        double simpleSum = 0;
+        for (int j = first; j <= i; j++) {
+            double tmp = returns[j] - compensation;
+            double next = sum + tmp;
+            compensation = (next - sum) - tmp;
+            sum = next;
+            simpleSum += returns[j];
+        }
+        double mean = finalSum(sum, compensation, simpleSum) / period;
+
+        sum = 0;
+        compensation = 0;
+        simpleSum = 0;
+        for (int j = first; j <= i; j++) {
+            double deviation = returns[j] - mean;
+            double squared = deviation * deviation;
+            double tmp = squared - compensation;
+            double next = sum + tmp;
+            compensation = (next - sum) - tmp;
+            sum = next;
+            simpleSum += squared;
+        }
+        return Math.sqrt(finalSum(sum, compensation, simpleSum) / period) * 100;
+    }
+
+    private static double finalSum(double sum, double compensation, double simpleSum) {
+        double tmp = sum - compensation;
+        return Double.isNaN(tmp) && Double.isInfinite(simpleSum) ? simpleSum : tmp;
+    }
+}
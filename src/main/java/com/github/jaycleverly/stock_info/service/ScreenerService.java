@@ -0,0 +1,139 @@
+package com.github.jaycleverly.stock_info.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import com.github.jaycleverly.stock_info.config.properties.AppScreenerProperties;
+import com.github.jaycleverly.stock_info.exception.ClientErrorException;
+import com.github.jaycleverly.stock_info.exception.InternalServerErrorException;
+import com.github.jaycleverly.stock_info.exception.SerializerException;
+import com.github.jaycleverly.stock_info.model.ScreenerResult;
+import com.github.jaycleverly.stock_info.screener.MetricsScreenerIndex;
+import com.github.jaycleverly.stock_info.screener.ScreenerField;
+import com.github.jaycleverly.stock_info.screener.ScreenerQuery;
+import com.github.jaycleverly.stock_info.screener.ScreenerRange;
+import com.github.jaycleverly.stock_info.serializer.StockMetricsSerializer;
+
+/**
+ * Class to provide the stocks whose latest metrics match a screen
+ */
+@Service
+public class ScreenerService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScreenerService.class);
+    private static final String SORT_PARAMETER = "sort";
+    private static final String LIMIT_PARAMETER = "limit";
+    private static final String RANGE_SEPARATOR = "..";
+
+    private final int defaultLimit;
+    private final int maxLimit;
+    private final MetricsScreenerIndex screenerIndex;
+
+    /**
+     * Creates a new service that can screen stocks
+     *
+     * @param screenerProperties the properties set for screener requests
+     * @param screenerIndex the index of the latest metrics of every stock
+     */
+    public ScreenerService(AppScreenerProperties screenerProperties, MetricsScreenerIndex screenerIndex) {
+        this.defaultLimit = screenerProperties.defaultLimit();
+        this.maxLimit = screenerProperties.maxLimit();
+        this.screenerIndex = screenerIndex;
+    }
+
+    /**
+     * Produces a JSON response containing the latest metrics of the stocks matching a screen
+     *
+     * @param parameters the request parameters, metric ranges (eg: momentum=5..), sort (eg: -momentum) and limit
+     * @return the matching stocks as JSON
+     * @throws ClientErrorException if the screen is invalid
+     * @throws InternalServerErrorException if an error occurs while processing
+     */
+    public byte[] produceScreen(Map<String, String> parameters) throws ClientErrorException, InternalServerErrorException {
+        ScreenerQuery query = parseQuery(parameters);
+        ScreenerResult result = new ScreenerResult(screenerIndex.size(), screenerIndex.screen(query));
+        try {
+            return StockMetricsSerializer.serialize(result);
+        } catch (SerializerException exception) {
+            LOGGER.error("Exception when converting screen to JSON response", exception);
+            throw new InternalServerErrorException("Exception when producing screen!", HttpStatus.INTERNAL_SERVER_ERROR, exception);
+        }
+    }
+
+    /**
+     * Reads a screen from request parameters
+     *
+     * @param parameters the request parameters
+     * @return the screen to run
+     * @throws ClientErrorException if a parameter is unknown or malformed
+     */
+    ScreenerQuery parseQuery(Map<String, String> parameters) throws ClientErrorException {
+        List<ScreenerRange> ranges = new ArrayList<>();
+        ScreenerField sortBy = null;
+        boolean descending = false;
+        int limit = defaultLimit;
+
+        for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+            String value = parameter.getValue().trim();
+            switch (parameter.getKey()) {
+                case SORT_PARAMETER -> {
+                    descending = value.startsWith("-");
+                    sortBy = field(descending ? value.substring(1) : value);
+                }
+                case LIMIT_PARAMETER -> limit = parseLimit(value);
+                default -> ranges.add(parseRange(field(parameter.getKey()), value));
+            }
+        }
+        return new ScreenerQuery(ranges, sortBy, descending, limit);
+    }
+
+    private ScreenerField field(String name) throws ClientErrorException {
+        return ScreenerField.fromParameter(name).orElseThrow(() -> new ClientErrorException(
+            String.format("Unknown screener metric (%s)!", name), HttpStatus.BAD_REQUEST, null));
+    }
+
+    private int parseLimit(String value) throws ClientErrorException {
+        try {
+            int limit = Integer.parseInt(value);
+            if (limit >= 1 && limit <= maxLimit) {
+                return limit;
+            }
+        } catch (NumberFormatException exception) {
+            // Reported below
+        }
+        throw new ClientErrorException(
+            String.format("Screener limit (%s) must be between 1 and %d!", value, maxLimit), HttpStatus.BAD_REQUEST, null);
+    }
+
+    // Ranges are written min..max, either end can be left open
+    private static ScreenerRange parseRange(ScreenerField field, String value) throws ClientErrorException {
+        int separator = value.indexOf(RANGE_SEPARATOR);
+        if (separator < 0) {
+            throw new ClientErrorException(
+                String.format("Range for %s (%s) must be written as min..max!", field.parameter(), value), HttpStatus.BAD_REQUEST, null);
+        }
+
+        try {
+            String min = value.substring(0, separator).trim();
+            String max = value.substring(separator + RANGE_SEPARATOR.length()).trim();
+            ScreenerRange range = new ScreenerRange(
+                field,
+                min.isEmpty() ? Double.NEGATIVE_INFINITY : Double.parseDouble(min),
+                max.isEmpty() ? Double.POSITIVE_INFINITY : Double.parseDouble(max));
+            if (!(range.min() <= range.max())) {
+                throw new ClientErrorException(
+                    String.format("Range for %s (%s) is empty!", field.parameter(), value), HttpStatus.BAD_REQUEST, null);
+            }
+            return range;
+
+        } catch (NumberFormatException exception) {
+            throw new ClientErrorException(
+                String.format("Range for %s (%s) is not numeric!", field.parameter(), value), HttpStatus.BAD_REQUEST, exception);
+        }
+    }
+}
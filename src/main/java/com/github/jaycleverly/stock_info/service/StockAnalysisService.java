@@ -3,30 +3,41 @@ package com.github.jaycleverly.stock_info.service;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
-import software.amazon.awssdk.enhanced.dynamodb.Key;
-import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 
-import com.github.jaycleverly.stock_info.client.DynamoClient;
-import com.github.jaycleverly.stock_info.client.TimeSeriesApiClient;
+import com.github.jaycleverly.stock_info.client.TimeSeriesProvider;
+import com.github.jaycleverly.stock_info.config.beans.ResilienceConfig;
 import com.github.jaycleverly.stock_info.config.properties.AppLimitsProperties;
-import com.github.jaycleverly.stock_info.config.properties.DynamoDbProperties;
 import com.github.jaycleverly.stock_info.exception.ClientErrorException;
-import com.github.jaycleverly.stock_info.exception.DynamoClientException;
 import com.github.jaycleverly.stock_info.exception.InternalServerErrorException;
+import com.github.jaycleverly.stock_info.exception.MetricsRepositoryException;
 import com.github.jaycleverly.stock_info.exception.ParserException;
 import com.github.jaycleverly.stock_info.exception.MetricBuilderException;
 import com.github.jaycleverly.stock_info.exception.SerializerException;
 import com.github.jaycleverly.stock_info.exception.TimeSeriesApiException;
+import com.github.jaycleverly.stock_info.lease.RefreshLeaseManager;
 import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
 import com.github.jaycleverly.stock_info.model.DailyStockRecord;
+import com.github.jaycleverly.stock_info.model.Resolution;
 import com.github.jaycleverly.stock_info.parser.StockRecordsParser;
+import com.github.jaycleverly.stock_info.push.MetricsUpdateHub;
+import com.github.jaycleverly.stock_info.repository.MetricsRepository;
+import com.github.jaycleverly.stock_info.screener.MetricsScreenerIndex;
+import com.github.jaycleverly.stock_info.serializer.ResponseFormat;
 import com.github.jaycleverly.stock_info.serializer.StockMetricsSerializer;
+import com.github.jaycleverly.stock_info.store.UpstreamPayloadStore;
+import com.github.jaycleverly.stock_info.symbols.SymbolFilter;
+import com.github.jaycleverly.stock_info.util.SeriesDownsampler;
 
 /**
  * Class to provide a response containing metrics about a stock
@@ -37,31 +48,63 @@ public class StockAnalysisService {
     
     private final int defaultDaysToAnalyse;
     private final int maxDaysToAnalyse;
-    private final String dynamoTableName;
-    private final DynamoClient dynamoClient;
-    private final TimeSeriesApiClient timeSeriesApiClient;
+    private final MetricsRepository metricsRepository;
+    private final TimeSeriesProvider timeSeriesProvider;
     private final MetricBuilderService metricBuilderService;
+    private final RollupService rollupService;
+    private final MetricsVersionService metricsVersionService;
+    private final UpstreamPayloadStore upstreamPayloadStore;
+    private final MetricsUpdateHub metricsUpdateHub;
+    private final MetricsScreenerIndex screenerIndex;
+    private final RefreshLeaseManager refreshLeaseManager;
+    private final SymbolFilter symbolFilter;
+    private final Bulkhead refreshBulkhead;
+    private final Bulkhead readBulkhead;
 
     /**
      * Creates a new service that can provide an analysis response on a stock
      * 
      * @param limitsProperties the properties set for the application
-     * @param dynamoDbProperties the properties set for dynamodb
-     * @param dynamoClient the client to handle dynamo db interactions
-     * @param timeSeriesApiClient the client to handle external stock api interactions
+     * @param metricsRepository the repository storing calculated metrics
+     * @param timeSeriesProvider the provider of stock records from the upstream apis
      * @param metricBuilderService the service to create metrics from stock records
+     * @param rollupService the service to maintain weekly and monthly rollups of stock records
+     * @param metricsVersionService the service to track the latest metrics held for each stock
+     * @param upstreamPayloadStore the local store of raw api responses
+     * @param metricsUpdateHub the hub to push newly computed metrics to subscribers through
+     * @param screenerIndex the index of the latest metrics of every stock
+     * @param refreshLeaseManager the manager of leases letting one instance at a time refresh a stock
+     * @param symbolFilter the filter rejecting unlisted and recently not found stocks
+     * @param refreshBulkhead the bulkhead bounding concurrent refreshes of stale stocks
+     * @param readBulkhead the bulkhead bounding concurrent reads of stored metrics
      */
     public StockAnalysisService(AppLimitsProperties limitsProperties,
-                                DynamoDbProperties dynamoDbProperties,
-                                DynamoClient dynamoClient, 
-                                TimeSeriesApiClient timeSeriesApiClient, 
-                                MetricBuilderService metricBuilderService) {
+                                MetricsRepository metricsRepository,
+                                TimeSeriesProvider timeSeriesProvider,
+                                MetricBuilderService metricBuilderService,
+                                RollupService rollupService,
+                                MetricsVersionService metricsVersionService,
+                                UpstreamPayloadStore upstreamPayloadStore,
+                                MetricsUpdateHub metricsUpdateHub,
+                                MetricsScreenerIndex screenerIndex,
+                                RefreshLeaseManager refreshLeaseManager,
+                                SymbolFilter symbolFilter,
+                                @Qualifier(ResilienceConfig.REFRESH_BULKHEAD) Bulkhead refreshBulkhead,
+                                @Qualifier(ResilienceConfig.READ_BULKHEAD) Bulkhead readBulkhead) {
         this.defaultDaysToAnalyse = limitsProperties.compactRecords();
         this.maxDaysToAnalyse = limitsProperties.fullRecords();
-        this.dynamoTableName = dynamoDbProperties.tableName();
-        this.dynamoClient = dynamoClient;
-        this.timeSeriesApiClient = timeSeriesApiClient;
+        this.metricsRepository = metricsRepository;
+        this.timeSeriesProvider = timeSeriesProvider;
         this.metricBuilderService = metricBuilderService;
+        this.rollupService = rollupService;
+        this.metricsVersionService = metricsVersionService;
+        this.upstreamPayloadStore = upstreamPayloadStore;
+        this.metricsUpdateHub = metricsUpdateHub;
+        this.screenerIndex = screenerIndex;
+        this.refreshLeaseManager = refreshLeaseManager;
+        this.symbolFilter = symbolFilter;
+        this.refreshBulkhead = refreshBulkhead;
+        this.readBulkhead = readBulkhead;
     }
 
     /**
@@ -69,67 +112,411 @@ public class StockAnalysisService {
      * 
      * @param symbol the symbol of the stock to provide analysis on
      * @param fullOutputSize if true return a full output size, else compact
-     * @return a list of metrics in a json format
-     * @throws InternalServerErrorException if an error occurs while processing
+     * @param format the representation to serialize the metrics to
+     * @return a list of metrics in the requested format
+     * @throws InternalServerErrorException if an error occurs while processing, with a 503 status while a dependency is unavailable
+     */
+    public byte[] produceAnalysis(String symbol, boolean fullOutputSize, ResponseFormat format) throws InternalServerErrorException {
+        return produceAnalysis(symbol, Resolution.DAILY, fullOutputSize, null, format);
+    }
+
+    /**
+     * Produces a response containing metrics for a particular stock symbol at a resolution
+     * 
+     * @param symbol the symbol of the stock to provide analysis on
+     * @param resolution the resolution of the bars to return
+     * @param fullOutputSize if true return a full output size, else compact
+     * @param maxPoints the most records to return, downsampled to keep the shape of the close, null for no limit
+     * @param format the representation to serialize the metrics to
+     * @return a list of metrics in the requested format
+     * @throws ClientErrorException if the stock is unknown or no bars are held for it at a coarser resolution
+     * @throws InternalServerErrorException if an error occurs while processing, with a 503 status while a dependency is unavailable
      */
-    public String produceAnalysis(String symbol, boolean fullOutputSize) throws InternalServerErrorException {        
+    public byte[] produceAnalysis(String symbol,
+                                  Resolution resolution,
+                                  boolean fullOutputSize,
+                                  Integer maxPoints,
+                                  ResponseFormat format) throws ClientErrorException, InternalServerErrorException {
+        symbolFilter.check(symbol);
         final int numRecordsToReturn = fullOutputSize ? maxDaysToAnalyse : defaultDaysToAnalyse;
+        if (resolution != Resolution.DAILY) {
+            return produceRollupAnalysis(symbol, resolution, null, null, numRecordsToReturn, maxPoints, format);
+        }
        
         List<DailyStockMetrics> stockAnalysis = new ArrayList<>();
         try {
-            List<DailyStockMetrics> dynamoRecords = findLastNDynamoRecords(
-                symbol,
-                numRecordsToReturn,
-                DailyStockMetrics.class);
+            List<DailyStockMetrics> storedRecords = findLatestStoredRecords(symbol, numRecordsToReturn);
 
-            // If no record of stock in dynamo or records need updating
-            if (dynamoRecords.isEmpty() || dynamoRecords.getLast().getDate().isBefore(LocalDate.now().minusDays(1))) {
-                LOGGER.info(String.format("Dynamo records incomplete for stock %s, updating...", symbol));
-
-                List<DailyStockRecord> stockRecords = fetchAndConvertStockRecords(symbol);
-                List<DailyStockMetrics> stockMetrics = calculateAndUploadStockMetrics(stockRecords);
-
-                stockAnalysis.addAll(stockMetrics);
+            // If no record of stock stored or records need updating
+            if (storedRecords.isEmpty() || isStale(storedRecords)) {
+                LOGGER.info(String.format("Stored records incomplete for stock %s, updating...", symbol));
+                stockAnalysis.addAll(refreshStockMetrics(symbol, storedRecords));
 
             } else {
-                stockAnalysis = dynamoRecords;
+                stockAnalysis = storedRecords;
+                screenerIndex.update(storedRecords.getLast());
             }
 
-            return filterAndSerializeMetrics(stockAnalysis, numRecordsToReturn);
+            if (!stockAnalysis.isEmpty()) {
+                metricsVersionService.recordLatestDate(symbol, stockAnalysis.getLast().getDate());
+            }
 
-        } catch (DynamoClientException | TimeSeriesApiException | ParserException | MetricBuilderException | SerializerException exception) {
+            return filterAndSerializeMetrics(stockAnalysis, numRecordsToReturn, maxPoints, format, Resolution.DAILY);
+
+        } catch (MetricsRepositoryException | TimeSeriesApiException | ParserException | MetricBuilderException | SerializerException exception) {
             throw new InternalServerErrorException(
                 String.format("Exception when producing %s analysis!", symbol), 
-                HttpStatus.INTERNAL_SERVER_ERROR,
+                statusOf(exception),
                 exception);
         } 
     }
 
-    private <T> List<T> findLastNDynamoRecords(String partitionKey, 
-                                               int maxRecords,
-                                               Class<T> recordType) throws DynamoClientException {
+    /**
+     * Produces a response containing metrics for a particular stock symbol between two dates (inclusive)
+     * 
+     * @param symbol the symbol of the stock to provide analysis on
+     * @param from the earliest date to include
+     * @param to the latest date to include
+     * @param format the representation to serialize the metrics to
+     * @return a list of metrics in the requested format
+     * @throws ClientErrorException if the date range is invalid or exceeds the record limit
+     * @throws InternalServerErrorException if an error occurs while processing, with a 503 status while a dependency is unavailable
+     */
+    public byte[] produceAnalysis(String symbol, LocalDate from, LocalDate to, ResponseFormat format) throws ClientErrorException, InternalServerErrorException {
+        return produceAnalysis(symbol, Resolution.DAILY, from, to, null, format);
+    }
+
+    /**
+     * Produces a response containing metrics for a particular stock symbol at a resolution between two dates (inclusive)
+     * 
+     * @param symbol the symbol of the stock to provide analysis on
+     * @param resolution the resolution of the bars to return, bars whose period overlaps the range are included
+     * @param from the earliest date to include
+     * @param to the latest date to include
+     * @param maxPoints the most records to return, downsampled to keep the shape of the close, null for no limit
+     * @param format the representation to serialize the metrics to
+     * @return a list of metrics in the requested format
+     * @throws ClientErrorException if the stock is unknown, or the date range is invalid or exceeds the record limit
+     * @throws InternalServerErrorException if an error occurs while processing, with a 503 status while a dependency is unavailable
+     */
+    public byte[] produceAnalysis(String symbol,
+                                  Resolution resolution,
+                                  LocalDate from,
+                                  LocalDate to,
+                                  Integer maxPoints,
+                                  ResponseFormat format) throws ClientErrorException, InternalServerErrorException {
+        if (from.isAfter(to)) {
+            throw new ClientErrorException(
+                String.format("Date range start (%s) is after its end (%s)!", from, to), HttpStatus.BAD_REQUEST, null);
+        }
+        symbolFilter.check(symbol);
+        if (resolution != Resolution.DAILY) {
+            return produceRollupAnalysis(symbol, resolution, from, to, maxDaysToAnalyse, maxPoints, format);
+        }
+
+        try {
+            // Read one past the limit so an oversized range can be detected without draining the partition
+            List<DailyStockMetrics> stockAnalysis = findStoredRecordsBetween(symbol, from, to, maxDaysToAnalyse + 1);
+            // Before judging staleness, as an oversized read ends at the limit rather than the latest stored record
+            checkRangeSize(symbol, stockAnalysis);
+
+            // Range reaches the present but stored records do not
+            if (stockAnalysis.isEmpty() || (!MetricsVersionService.isStale(to) && isStale(stockAnalysis))) {
+                LOGGER.info(String.format("Stored records incomplete for stock %s, updating...", symbol));
+
+                stockAnalysis = refreshStockMetrics(symbol, stockAnalysis).stream()
+                    .filter(metric -> !metric.getDate().isBefore(from) && !metric.getDate().isAfter(to))
+                    .toList();
+            }
+
+            checkRangeSize(symbol, stockAnalysis);
+            if (stockAnalysis.isEmpty()) {
+                throw new ClientErrorException(
+                    String.format("No records for %s between %s and %s!", symbol, from, to), HttpStatus.NOT_FOUND, null);
+            }
+            metricsVersionService.recordLatestDate(symbol, stockAnalysis.getLast().getDate());
+
+            return filterAndSerializeMetrics(stockAnalysis, maxDaysToAnalyse, maxPoints, format, Resolution.DAILY);
+
+        } catch (MetricsRepositoryException | TimeSeriesApiException | ParserException | MetricBuilderException | SerializerException exception) {
+            throw new InternalServerErrorException(
+                String.format("Exception when producing %s analysis!", symbol), 
+                statusOf(exception),
+                exception);
+        }
+    }
+
+    /**
+     * Reads the latest metrics for a stock and serializes them without updating any records, to warm up the read path
+     * 
+     * @param symbol the symbol of the stock to preload
+     * @return true if metrics were found for the stock
+     * @throws InternalServerErrorException if an error occurs while processing
+     */
+    public boolean preloadAnalysis(String symbol) throws InternalServerErrorException {
+        try {
+            List<DailyStockMetrics> storedRecords = findLatestStoredRecords(symbol, defaultDaysToAnalyse);
+            if (storedRecords.isEmpty()) {
+                return false;
+            }
+
+            metricsVersionService.recordLatestDate(symbol, storedRecords.getLast().getDate());
+            screenerIndex.update(storedRecords.getLast());
+            filterAndSerializeMetrics(storedRecords, defaultDaysToAnalyse, null, ResponseFormat.JSON, Resolution.DAILY);
+            return true;
+
+        } catch (MetricsRepositoryException | SerializerException exception) {
+            throw new InternalServerErrorException(
+                String.format("Exception when preloading %s analysis!", symbol), 
+                statusOf(exception),
+                exception);
+        }
+    }
+
+    /**
+     * Recalculates and uploads metrics for every stock with a response in the local payload store
+     * 
+     * @return the number of stocks rebuilt
+     */
+    public int rebuildFromPayloadStore() {
+        int[] rebuilt = {0};
+        upstreamPayloadStore.forEachLatest((symbol, stockData) -> {
+            try {
+                List<DailyStockRecord> stockRecords = StockRecordsParser.parse(stockData);
+                List<DailyStockMetrics> stockMetrics = calculateAndUploadStockMetrics(stockRecords);
+                updateRollups(symbol, stockRecords);
+                if (!stockMetrics.isEmpty()) {
+                    metricsVersionService.recordLatestDate(symbol, stockMetrics.getLast().getDate());
+                }
+                rebuilt[0]++;
+            } catch (ParserException | MetricBuilderException | MetricsRepositoryException exception) {
+                LOGGER.error(String.format("Exception when rebuilding metrics for stock (%s) from stored payload", symbol), exception);
+            }
+        });
+        return rebuilt[0];
+    }
+
+    /**
+     * Refreshes a stock's metrics from the api within the refresh bulkhead. While the api is failing or too many
+     * refreshes are running, the stored metrics are served instead so reads keep working through an api outage.
+     * While another instance is refreshing the stock, the stored metrics are served or its refresh is waited for.
+     */
+    private List<DailyStockMetrics> refreshStockMetrics(String symbol, List<DailyStockMetrics> storedMetrics) {
         try {
-            return dynamoClient.query(
-                dynamoTableName, 
-                QueryConditional.keyEqualTo(Key.builder().partitionValue(partitionKey).build()),
-                maxRecords,
-                recordType);
-        } catch (DynamoClientException exception) {
-            LOGGER.error(String.format("Exception when finding the last %d dynamo records for key %s", maxRecords, partitionKey));
+            Optional<List<DailyStockMetrics>> refreshed = refreshBulkhead.executeSupplier(() -> refreshUnderLease(symbol));
+            return refreshed.isPresent() ? refreshed.get() : awaitRefreshElsewhere(symbol, storedMetrics);
+
+        } catch (BulkheadFullException exception) {
+            if (storedMetrics.isEmpty()) {
+                throw new InternalServerErrorException(
+                    String.format("Too many stocks refreshing to produce %s analysis!", symbol), HttpStatus.SERVICE_UNAVAILABLE, exception);
+            }
+            LOGGER.warn(String.format("Too many stocks refreshing, serving stored metrics for stock %s", symbol));
+            return storedMetrics;
+
+        } catch (TimeSeriesApiException exception) {
+            if (storedMetrics.isEmpty()) {
+                throw exception;
+            }
+            LOGGER.warn(String.format("API unavailable (%s), serving stored metrics for stock %s", exception.getMessage(), symbol));
+            return storedMetrics;
+        }
+    }
+
+    // Empty if another refresh of the stock holds its lease
+    private Optional<List<DailyStockMetrics>> refreshUnderLease(String symbol) {
+        Optional<RefreshLeaseManager.Lease> lease = refreshLeaseManager.tryAcquire(symbol);
+        if (lease.isEmpty()) {
+            return Optional.empty();
+        }
+
+        try (RefreshLeaseManager.Lease held = lease.get()) {
+            List<DailyStockRecord> records = fetchAndConvertStockRecords(symbol);
+            List<DailyStockMetrics> metrics = calculateStockMetrics(records);
+            // Renewed just before writing, so a refresh that stalled past its lease cannot overwrite a later one
+            if (!held.confirm()) {
+                LOGGER.warn(String.format("Lost refresh lease on stock %s, serving its metrics without storing them", symbol));
+                return Optional.of(metrics);
+            }
+            uploadStockMetrics(metrics);
+            updateRollups(symbol, records);
+            return Optional.of(metrics);
+        }
+    }
+
+    // Rollups are derived from the daily records, so failing to update them fails nothing else
+    private void updateRollups(String symbol, List<DailyStockRecord> records) {
+        try {
+            rollupService.update(records);
+        } catch (MetricBuilderException | MetricsRepositoryException exception) {
+            LOGGER.error(String.format("Exception when updating rollups of stock %s, they are retried on its next refresh", symbol), exception);
+        }
+    }
+
+    // Rollups are kept up to date by the daily refresh, so the daily records are brought up to date first
+    private byte[] produceRollupAnalysis(String symbol,
+                                         Resolution resolution,
+                                         LocalDate from,
+                                         LocalDate to,
+                                         int numRecordsToReturn,
+                                         Integer maxPoints,
+                                         ResponseFormat format) throws ClientErrorException, InternalServerErrorException {
+        try {
+            if (to == null || !MetricsVersionService.isStale(to)) {
+                refreshIfStale(symbol);
+            }
+            // One past the limit for a range, so an oversized range can be detected
+            int maxRecords = from == null ? numRecordsToReturn : numRecordsToReturn + 1;
+            List<DailyStockMetrics> bars = findStoredRollups(symbol, resolution, from, to, maxRecords);
+            // Stored before rollups were kept, the refresh backfills them
+            if (bars.isEmpty() && !refreshStockMetrics(symbol, List.of()).isEmpty()) {
+                bars = findStoredRollups(symbol, resolution, from, to, maxRecords);
+            }
+
+            if (from != null && bars.size() > numRecordsToReturn) {
+                throw new ClientErrorException(
+                    String.format("Date range for %s exceeds the maximum of %d records!", symbol, numRecordsToReturn),
+                    HttpStatus.BAD_REQUEST,
+                    null);
+            }
+            if (bars.isEmpty()) {
+                throw new ClientErrorException(
+                    String.format("No %s records for %s!", resolution.getLabel().toLowerCase(), symbol), HttpStatus.NOT_FOUND, null);
+            }
+            return filterAndSerializeMetrics(bars, numRecordsToReturn, maxPoints, format, resolution);
+
+        } catch (MetricsRepositoryException | TimeSeriesApiException | ParserException | MetricBuilderException | SerializerException exception) {
+            throw new InternalServerErrorException(
+                String.format("Exception when producing %s %s analysis!", symbol, resolution.getLabel().toLowerCase()),
+                statusOf(exception),
+                exception);
+        }
+    }
+
+    private void refreshIfStale(String symbol) {
+        if (metricsVersionService.freshLatestDate(symbol).isPresent()) {
+            return;
+        }
+        List<DailyStockMetrics> latest = findLatestStoredRecords(symbol, 1);
+        if (latest.isEmpty() || isStale(latest)) {
+            LOGGER.info(String.format("Stored records incomplete for stock %s, updating...", symbol));
+            latest = refreshStockMetrics(symbol, latest);
+        }
+        if (!latest.isEmpty()) {
+            metricsVersionService.recordLatestDate(symbol, latest.getLast().getDate());
+        }
+    }
+
+    private List<DailyStockMetrics> awaitRefreshElsewhere(String symbol, List<DailyStockMetrics> storedMetrics) {
+        if (!storedMetrics.isEmpty()) {
+            LOGGER.info(String.format("Stock %s is refreshing elsewhere, serving stored metrics", symbol));
+            return storedMetrics;
+        }
+
+        LOGGER.info(String.format("Stock %s is refreshing elsewhere, waiting for it...", symbol));
+        if (refreshLeaseManager.awaitRelease(symbol)) {
+            List<DailyStockMetrics> refreshed = findLatestStoredRecords(symbol, maxDaysToAnalyse);
+            if (!refreshed.isEmpty()) {
+                return refreshed;
+            }
+        }
+        throw new InternalServerErrorException(
+            String.format("Stock %s is refreshing elsewhere, no metrics to serve yet!", symbol), HttpStatus.SERVICE_UNAVAILABLE, null);
+    }
+
+    // Open circuits are reported as unavailable so clients back off, rather than as a server fault
+    private static HttpStatus statusOf(RuntimeException exception) {
+        boolean unavailable = exception instanceof TimeSeriesApiException apiException
+            && apiException.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE.value();
+        for (Throwable cause = exception.getCause(); cause != null && !unavailable; cause = cause.getCause()) {
+            unavailable = cause instanceof CallNotPermittedException;
+        }
+        return unavailable ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+
+    private void checkRangeSize(String symbol, List<DailyStockMetrics> metrics) throws ClientErrorException {
+        if (metrics.size() > maxDaysToAnalyse) {
+            throw new ClientErrorException(
+                String.format("Date range for %s exceeds the maximum of %d records!", symbol, maxDaysToAnalyse),
+                HttpStatus.BAD_REQUEST,
+                null);
+        }
+    }
+
+    private boolean isStale(List<DailyStockMetrics> metrics) {
+        return MetricsVersionService.isStale(metrics.getLast().getDate());
+    }
+
+    private List<DailyStockMetrics> findStoredRecordsBetween(String symbol,
+                                                             LocalDate from,
+                                                             LocalDate to,
+                                                             int maxRecords) throws MetricsRepositoryException {
+        try {
+            return readBulkhead.executeSupplier(() -> metricsRepository.findBetween(symbol, from, to, maxRecords));
+        } catch (BulkheadFullException exception) {
+            throw tooManyReads(symbol, exception);
+        } catch (MetricsRepositoryException exception) {
+            LOGGER.error(String.format("Exception when finding stored records between %s and %s for stock %s", from, to, symbol));
+            throw exception;
+        }
+    }
+
+    private List<DailyStockMetrics> findStoredRollups(String symbol,
+                                                      Resolution resolution,
+                                                      LocalDate from,
+                                                      LocalDate to,
+                                                      int maxRecords) throws MetricsRepositoryException {
+        try {
+            return readBulkhead.executeSupplier(() -> from == null
+                ? rollupService.findLatest(symbol, resolution, maxRecords)
+                : rollupService.findBetween(symbol, resolution, from, to, maxRecords));
+        } catch (BulkheadFullException exception) {
+            throw tooManyReads(symbol, exception);
+        } catch (MetricsRepositoryException exception) {
+            LOGGER.error(String.format("Exception when finding stored %s records for stock %s", resolution.getLabel().toLowerCase(), symbol));
             throw exception;
         }
     }
 
+    private List<DailyStockMetrics> findLatestStoredRecords(String symbol, int maxRecords) throws MetricsRepositoryException {
+        try {
+            return readBulkhead.executeSupplier(() -> metricsRepository.findLatest(symbol, maxRecords));
+        } catch (BulkheadFullException exception) {
+            throw tooManyReads(symbol, exception);
+        } catch (MetricsRepositoryException exception) {
+            LOGGER.error(String.format("Exception when finding the last %d stored records for stock %s", maxRecords, symbol));
+            throw exception;
+        }
+    }
+
+    private static InternalServerErrorException tooManyReads(String symbol, BulkheadFullException exception) {
+        return new InternalServerErrorException(
+            String.format("Too many concurrent reads to read records for stock %s!", symbol), HttpStatus.SERVICE_UNAVAILABLE, exception);
+    }
+
     private List<DailyStockRecord> fetchAndConvertStockRecords(String symbol) throws TimeSeriesApiException, ClientErrorException, ParserException {
         try {
-            return StockRecordsParser.parse(timeSeriesApiClient.getDailyTimeSeries(symbol));
+            // Reuse a response already fetched today, it is persisted before parsing so failures do not waste it
+            Optional<String> storedData = upstreamPayloadStore.find(symbol, LocalDate.now());
+            String stockData;
+            if (storedData.isPresent()) {
+                LOGGER.info(String.format("Using stored API response for stock %s", symbol));
+                stockData = storedData.get();
+            } else {
+                stockData = timeSeriesProvider.getDailyTimeSeries(symbol);
+                upstreamPayloadStore.append(symbol, LocalDate.now(), stockData);
+            }
+            return StockRecordsParser.parse(stockData);
         } catch (TimeSeriesApiException exception) {
             LOGGER.error(String.format("Exception when retrieving data from API for stock (%s)", symbol));
 
             // Client specific errors should be seperated from the internal exceptions
             switch (exception.getStatusCode()) {
-                case 401:
                 case 404:
+                    // Remembered so requests for the same unknown stock stop spending api quota
+                    symbolFilter.recordNotFound(symbol);
+                    throw new ClientErrorException(exception.getMessage(), HttpStatus.NOT_FOUND, exception);
+                case 401:
                 case 429:
                     throw new ClientErrorException(exception.getMessage(), HttpStatus.valueOf(exception.getStatusCode()), exception);
                 default:
@@ -142,35 +529,69 @@ public class StockAnalysisService {
         }
     }
 
-    private List<DailyStockMetrics> calculateAndUploadStockMetrics(List<DailyStockRecord> recordsToAnalyse) throws MetricBuilderException, DynamoClientException {
-        ArrayList<DailyStockMetrics> metricsToUpload = new ArrayList<>();
-        
-        for (DailyStockRecord record: recordsToAnalyse) {
-            try {
-                metricsToUpload.add(metricBuilderService.caclculateMetrics(record.getDate(), recordsToAnalyse));
-                dynamoClient.putItem(dynamoTableName, metricsToUpload.getLast(), DailyStockMetrics.class);
-            } catch (MetricBuilderException exception) {
-                LOGGER.error(String.format("Exception when generating metric record for stock on date (%s)", record.getDate()));
-                throw exception;
-            } catch (DynamoClientException exception) {
-                LOGGER.error(String.format("Exception when uplading metric record with date (%s) to dynamo", record.getDate()));
-                throw exception;
-            }
+    private List<DailyStockMetrics> calculateAndUploadStockMetrics(List<DailyStockRecord> recordsToAnalyse) throws MetricBuilderException, MetricsRepositoryException {
+        return uploadStockMetrics(calculateStockMetrics(recordsToAnalyse));
+    }
+
+    private List<DailyStockMetrics> calculateStockMetrics(List<DailyStockRecord> recordsToAnalyse) throws MetricBuilderException {
+        try {
+            return metricBuilderService.calculateAllMetrics(recordsToAnalyse);
+        } catch (MetricBuilderException exception) {
+            LOGGER.error(String.format("Exception when generating metric records from %d stock records", recordsToAnalyse.size()));
+            throw exception;
+        }
+    }
+
+    private List<DailyStockMetrics> uploadStockMetrics(List<DailyStockMetrics> metricsToUpload) throws MetricsRepositoryException {
+        try {
+            metricsRepository.upsertAll(metricsToUpload);
+        } catch (MetricsRepositoryException exception) {
+            LOGGER.error(String.format("Exception when storing %d metric records", metricsToUpload.size()));
+            throw exception;
+        }
+        // Only pushed once every record is stored, so subscribers re-reading the stock see the update
+        if (!metricsToUpload.isEmpty()) {
+            screenerIndex.update(metricsToUpload.getLast());
+            metricsUpdateHub.publish(metricsToUpload.getLast());
         }
         return metricsToUpload;
     }
 
-    private String filterAndSerializeMetrics(List<DailyStockMetrics> metrics, int numRecordsToReturn) throws SerializerException {
+    private byte[] filterAndSerializeMetrics(List<DailyStockMetrics> metrics,
+                                             int numRecordsToReturn,
+                                             Integer maxPoints,
+                                             ResponseFormat format,
+                                             Resolution resolution) throws SerializerException {
         // More recent metrics at start of list
         List<DailyStockMetrics> metricsToFormat = metrics.reversed().stream()
             .limit(numRecordsToReturn)
             .toList();
+        if (maxPoints != null && metricsToFormat.size() > maxPoints) {
+            metricsToFormat = downsample(metricsToFormat, maxPoints);
+        }
 
         try {
-            return StockMetricsSerializer.serialize(metricsToFormat);
+            return StockMetricsSerializer.serialize(metricsToFormat, format, resolution);
         } catch (SerializerException exception) {
-            LOGGER.error("Exception when converting metrics to JSON response", exception);
+            LOGGER.error(String.format("Exception when converting metrics to %s response", format), exception);
             throw exception;
         }
     }
+
+    // Whole records are kept or dropped, picked by the shape of the close so every metric stays on the same dates
+    private static List<DailyStockMetrics> downsample(List<DailyStockMetrics> metrics, int maxPoints) {
+        double[] days = new double[metrics.size()];
+        double[] closes = new double[metrics.size()];
+        for (int i = 0; i < metrics.size(); i++) {
+            days[i] = metrics.get(i).getDate().toEpochDay();
+            closes[i] = metrics.get(i).getClose();
+        }
+
+        int[] kept = SeriesDownsampler.largestTriangleThreeBuckets(days, closes, maxPoints);
+        List<DailyStockMetrics> downsampled = new ArrayList<>(kept.length);
+        for (int index : kept) {
+            downsampled.add(metrics.get(index));
+        }
+        return downsampled;
+    }
 }
@@ -0,0 +1,88 @@
+package com.github.jaycleverly.stock_info.service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import com.github.jaycleverly.stock_info.config.properties.AppSymbolsProperties;
+import com.github.jaycleverly.stock_info.exception.ClientErrorException;
+import com.github.jaycleverly.stock_info.exception.InternalServerErrorException;
+import com.github.jaycleverly.stock_info.exception.SerializerException;
+import com.github.jaycleverly.stock_info.model.SymbolMatch;
+import com.github.jaycleverly.stock_info.model.SymbolSearchResult;
+import com.github.jaycleverly.stock_info.serializer.StockMetricsSerializer;
+import com.github.jaycleverly.stock_info.symbols.SymbolListing;
+
+/**
+ * Class to provide the listed stocks matching a search, for clients to find symbols by
+ */
+@Service
+public class SymbolSearchService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SymbolSearchService.class);
+
+    private final int defaultLimit;
+    private final int maxLimit;
+    private final SymbolListing symbolListing;
+    private final MetricsVersionService metricsVersionService;
+
+    /**
+     * Creates a new service that can search the listed stocks
+     *
+     * @param symbolsProperties the properties set for symbols
+     * @param symbolListing the listing of known stocks
+     * @param metricsVersionService the service to track the latest metrics held for each stock
+     */
+    public SymbolSearchService(AppSymbolsProperties symbolsProperties,
+                               SymbolListing symbolListing,
+                               MetricsVersionService metricsVersionService) {
+        this.defaultLimit = symbolsProperties.searchDefaultLimit();
+        this.maxLimit = symbolsProperties.searchMaxLimit();
+        this.symbolListing = symbolListing;
+        this.metricsVersionService = metricsVersionService;
+    }
+
+    /**
+     * Produces a JSON response containing the listed stocks whose symbol or company name starts with a query
+     *
+     * @param query the start of a symbol or company name
+     * @param limit the most matches to return, null for the default
+     * @return the matching stocks as JSON, best first, each noting whether its metrics are held and up to date
+     * @throws ClientErrorException if the query or limit is invalid, or no listing is loaded to search
+     * @throws InternalServerErrorException if an error occurs while processing
+     */
+    public byte[] produceSearch(String query, Integer limit) throws ClientErrorException, InternalServerErrorException {
+        if (query == null || query.isBlank()) {
+            throw new ClientErrorException("Search query must not be empty!", HttpStatus.BAD_REQUEST, null);
+        }
+        if (limit != null && (limit < 1 || limit > maxLimit)) {
+            throw new ClientErrorException(
+                String.format("Search limit (%d) must be between 1 and %d!", limit, maxLimit), HttpStatus.BAD_REQUEST, null);
+        }
+        if (!symbolListing.isLoaded()) {
+            throw new ClientErrorException("No symbol listing is loaded to search!", HttpStatus.NOT_FOUND, null);
+        }
+
+        List<SymbolMatch> matches = symbolListing.search(query, limit == null ? defaultLimit : limit).stream()
+            .map(listed -> {
+                Optional<LocalDate> latestDate = metricsVersionService.latestDate(listed.symbol());
+                return new SymbolMatch(
+                    listed.symbol(),
+                    listed.name(),
+                    latestDate.orElse(null),
+                    latestDate.filter(date -> !MetricsVersionService.isStale(date)).isPresent());
+            })
+            .toList();
+
+        try {
+            return StockMetricsSerializer.serialize(new SymbolSearchResult(query.trim(), symbolListing.size(), matches));
+        } catch (SerializerException exception) {
+            LOGGER.error("Exception when converting symbol search to JSON response", exception);
+            throw new InternalServerErrorException("Exception when producing symbol search!", HttpStatus.INTERNAL_SERVER_ERROR, exception);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.github.jaycleverly.stock_info.service;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Indicator kernel using the incubating vector api, only loaded when the jdk.incubator.vector module is added.
+ *
+ * Each lane calculates the indicator of a different close, so every lane performs the same operations
+ * in the same order as the scalar kernel and the results are identical. Closes left over after the last
+ * full vector use the scalar kernel.
+ */
+class VectorIndicatorKernel implements IndicatorKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    private static final double MAX_BOUNDED = 1e150;
+
+    @Override
+    public void previousCloseChange(double[] closes, double[] out) {
+        int i = 1;
+        for (; i + LANES <= closes.length; i += LANES) {
+            DoubleVector.fromArray(SPECIES, closes, i)
+                .sub(DoubleVector.fromArray(SPECIES, closes, i - 1))
+                .intoArray(out, i);
+        }
+        for (; i < closes.length; i++) {
+            out[i] = closes[i] - closes[i - 1];
+        }
+    }
+
+    @Override
+    public void movingAverage(double[] closes, int period, double[] out) {
+        int i = period - 1;
+        for (; i + LANES <= closes.length; i += LANES) {
+            DoubleVector sum = DoubleVector.zero(SPECIES);
+            for (int j = i - period + 1; j <= i; j++) {
+                sum = sum.add(DoubleVector.fromArray(SPECIES, closes, j));
+            }
+            sum.div(period).intoArray(out, i);
+        }
+        for (; i < closes.length; i++) {
+            out[i] = ScalarIndicatorKernel.movingAverageAt(closes, period, i);
+        }
+    }
+
+    @Override
+    public void returns(double[] closes, double[] out) {
+        int i = 1;
+        for (; i + LANES <= closes.length; i += LANES) {
+            DoubleVector previous = DoubleVector.fromArray(SPECIES, closes, i - 1);
+            DoubleVector.fromArray(SPECIES, closes, i)
+                .sub(previous)
+                .div(previous)
+                .intoArray(out, i);
+        }
+        for (; i < closes.length; i++) {
+            out[i] = (closes[i] - closes[i - 1]) / closes[i - 1];
+        }
+    }
+
+    @Override
+    public void volatility(double[] returns, int period, double[] out) {
+        // Sums of bounded returns cannot overflow, so the compensated sum never needs the simple sum that covers infinities
+        int i = period;
+        for (int vectorEnd = isBounded(returns) ? returns.length : 0; i + LANES <= vectorEnd; i += LANES) {
+            int first = i - period + 1;
+
+            DoubleVector sum = DoubleVector.zero(SPECIES);
+            DoubleVector compensation = DoubleVector.zero(SPECIES);
+            for (int j = first; j <= i; j++) {
+                DoubleVector tmp = DoubleVector.fromArray(SPECIES, returns, j).sub(compensation);
+                DoubleVector next = sum.add(tmp);
+                compensation = next.sub(sum).sub(tmp);
+                sum = next;
+            }
+            DoubleVector mean = sum.sub(compensation).div(period);
+
+            sum = DoubleVector.zero(SPECIES);
+            compensation = DoubleVector.zero(SPECIES);
+            for (int j = first; j <= i; j++) {
+                DoubleVector deviation = DoubleVector.fromArray(SPECIES, returns, j).sub(mean);
+                DoubleVector tmp = deviation.mul(deviation).sub(compensation);
+                DoubleVector next = sum.add(tmp);
+                compensation = next.sub(sum).sub(tmp);
+                sum = next;
+            }
+            sum.sub(compensation).div(period).sqrt().mul(100).intoArray(out, i);
+        }
+        for (; i < returns.length; i++) {
+            out[i] = ScalarIndicatorKernel.volatilityAt(returns, period, i);
+        }
+    }
+
+    @Override
+    public void momentum(double[] closes, int period, double[] out) {
+        int i = period;
+        for (; i + LANES <= closes.length; i += LANES) {
+            DoubleVector historical = DoubleVector.fromArray(SPECIES, closes, i - period);
+            DoubleVector.fromArray(SPECIES, closes, i)
+                .sub(historical)
+                .div(historical)
+                .mul(100)
+                .intoArray(out, i);
+        }
+        for (; i < closes.length; i++) {
+            out[i] = ((closes[i] - closes[i - period]) / closes[i - period]) * 100;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("vector, %d lanes", LANES);
+    }
+
+    private static boolean isBounded(double[] values) {
+        for (double value : values) {
+            if (!(Math.abs(value) < MAX_BOUNDED)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,113 @@
+package com.github.jaycleverly.stock_info.shedding;
+
+/**
+ * Bounds the requests in flight at a limit that follows the latency they are served with.
+ *
+ * The latency of each request is compared with a slow moving average of recent latencies. While requests are served
+ * within a tolerance of that baseline the limit grows by about its square root per request, and once they are slower
+ * it shrinks in proportion, down to half per request. Requests slower than the tolerance move the baseline a tenth as
+ * fast as others, so an overload is not soon taken for the usual latency, while a lasting change is still adopted.
+ * A request that fails shrinks the limit by a tenth. The limit only grows while it is being used, so a quiet period
+ * does not leave it at its maximum.
+ */
+public class AdaptiveConcurrencyLimiter {
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double FAILURE_BACKOFF = 0.9;
+    private static final double BASELINE_DECAY = 0.95;
+    private static final double SLOW_BASELINE_SHARE = 0.1;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final double baselineWeight;
+    private double limit;
+    private double baselineNanos;
+    private int inFlight;
+
+    /**
+     * Creates a new limiter
+     *
+     * @param initialLimit the limit before any latency is measured
+     * @param minLimit the lowest the limit may fall to
+     * @param maxLimit the highest the limit may rise to
+     * @param tolerance how many times slower than the baseline a request may be before the limit shrinks
+     * @param smoothing the share of each adjustment applied at once, between 0 and 1
+     * @param baselineWindow roughly how many requests the baseline latency is averaged over
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing, int baselineWindow) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.baselineWeight = 2.0 / (Math.max(1, baselineWindow) + 1);
+        this.limit = Math.clamp(initialLimit, this.minLimit, this.maxLimit);
+    }
+
+    /**
+     * Admits a request if fewer than the limit are in flight
+     *
+     * @return true if the request was admitted, it must then be released
+     */
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Releases an admitted request and adjusts the limit by how it went
+     *
+     * @param latencyNanos how long the request took
+     * @param failed true if the request failed, eg: timed out or was rejected downstream
+     */
+    public synchronized void release(long latencyNanos, boolean failed) {
+        int used = inFlight--;
+        if (failed) {
+            limit = Math.max(minLimit, limit * FAILURE_BACKOFF);
+            return;
+        }
+
+        double latency = Math.max(1, latencyNanos);
+        if (baselineNanos == 0) {
+            baselineNanos = latency;
+        } else {
+            double weight = latency > tolerance * baselineNanos ? baselineWeight * SLOW_BASELINE_SHARE : baselineWeight;
+            baselineNanos += (latency - baselineNanos) * weight;
+        }
+        // Once latency has fallen well below the baseline, bring the baseline down faster than its average would
+        if (baselineNanos > 2 * latency) {
+            baselineNanos *= BASELINE_DECAY;
+        }
+        if (used < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.clamp(tolerance * baselineNanos / latency, MIN_GRADIENT, 1.0);
+        double target = limit * gradient + Math.sqrt(limit);
+        limit = Math.clamp((1 - smoothing) * limit + smoothing * target, minLimit, maxLimit);
+    }
+
+    /**
+     * @return the current limit on requests in flight
+     */
+    public synchronized int limit() {
+        return (int) limit;
+    }
+
+    /**
+     * @return the number of requests in flight
+     */
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    /**
+     * @return the share of the limit in use, 1 or more when full
+     */
+    public synchronized double utilisation() {
+        return inFlight / Math.floor(limit);
+    }
+}
@@ -0,0 +1,123 @@
+package com.github.jaycleverly.stock_info.shedding;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.github.jaycleverly.stock_info.config.properties.AppLoadSheddingProperties;
+import com.github.jaycleverly.stock_info.controller.StockMetricsController;
+import com.github.jaycleverly.stock_info.exception.InternalServerErrorException;
+import com.github.jaycleverly.stock_info.service.MetricsVersionService;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Sheds stock metrics requests beyond what the app can serve promptly, so requests that are admitted keep their
+ * latency through a spike rather than every request slowing until clients time out.
+ *
+ * Requests for stocks whose stored metrics are fresh are cheap reads, the rest may need a refresh from the api. Each
+ * kind is admitted up to its own adaptive concurrency limit. Cheap reads have priority: refreshes are also shed once
+ * cheap reads fill most of their limit. A shed request gets a 503 with a Retry-After header straight away.
+ */
+public class LoadSheddingInterceptor implements HandlerInterceptor {
+    private static final String ADMISSION_ATTRIBUTE = LoadSheddingInterceptor.class.getName() + ".admission";
+
+    private final AdaptiveConcurrencyLimiter cachedReads;
+    private final AdaptiveConcurrencyLimiter refreshes;
+    private final double refreshPriorityThreshold;
+    private final String retryAfterSeconds;
+    private final MetricsVersionService metricsVersionService;
+    private final AtomicLong shed = new AtomicLong();
+
+    /**
+     * A request admitted by a limiter, released when it completes
+     */
+    private record Admission(AdaptiveConcurrencyLimiter limiter, long startNanos) {}
+
+    /**
+     * Creates a new interceptor shedding excess stock metrics requests
+     *
+     * @param properties the properties set for load shedding
+     * @param metricsVersionService the service tracking which stocks have fresh metrics
+     */
+    public LoadSheddingInterceptor(AppLoadSheddingProperties properties, MetricsVersionService metricsVersionService) {
+        this.cachedReads = limiter(properties, properties.cachedReads());
+        this.refreshes = limiter(properties, properties.refreshes());
+        this.refreshPriorityThreshold = properties.refreshPriorityThreshold();
+        this.retryAfterSeconds = String.valueOf(Math.max(1, (properties.retryAfter().toMillis() + 999) / 1000));
+        this.metricsVersionService = metricsVersionService;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String symbol = requestedSymbol(request, handler);
+        if (symbol == null) {
+            return true;
+        }
+
+        boolean cached = metricsVersionService.freshLatestDate(symbol.toUpperCase()).isPresent();
+        AdaptiveConcurrencyLimiter limiter = cached ? cachedReads : refreshes;
+        boolean admitted = cached
+            ? cachedReads.tryAcquire()
+            : cachedReads.utilisation() < refreshPriorityThreshold && refreshes.tryAcquire();
+        if (!admitted) {
+            shed.incrementAndGet();
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            throw new InternalServerErrorException("Too many requests in progress, try again later!", HttpStatus.SERVICE_UNAVAILABLE, null);
+        }
+
+        request.setAttribute(ADMISSION_ATTRIBUTE, new Admission(limiter, System.nanoTime()));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception exception) {
+        if (request.getAttribute(ADMISSION_ATTRIBUTE) instanceof Admission admission) {
+            request.removeAttribute(ADMISSION_ATTRIBUTE);
+            // Server errors include requests rejected further in, eg: by a full refresh bulkhead
+            boolean failed = exception != null || response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+            admission.limiter().release(System.nanoTime() - admission.startNanos(), failed);
+        }
+    }
+
+    /**
+     * @return the limiter of requests for stocks with fresh metrics
+     */
+    public AdaptiveConcurrencyLimiter cachedReads() {
+        return cachedReads;
+    }
+
+    /**
+     * @return the limiter of requests that may need a refresh
+     */
+    public AdaptiveConcurrencyLimiter refreshes() {
+        return refreshes;
+    }
+
+    /**
+     * @return the number of requests shed so far
+     */
+    public long shedCount() {
+        return shed.get();
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(AppLoadSheddingProperties properties, AppLoadSheddingProperties.LimitProperties limit) {
+        return new AdaptiveConcurrencyLimiter(limit.initialLimit(), limit.minLimit(), limit.maxLimit(),
+            properties.latencyTolerance(), properties.smoothing(), properties.baselineWindow());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String requestedSymbol(HttpServletRequest request, Object handler) {
+        if (!(handler instanceof HandlerMethod method) || method.getBeanType() != StockMetricsController.class) {
+            return null;
+        }
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        return variables == null ? null : variables.get("symbol");
+    }
+}
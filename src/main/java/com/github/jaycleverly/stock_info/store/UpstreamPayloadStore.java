@@ -0,0 +1,238 @@
+package com.github.jaycleverly.stock_info.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.github.jaycleverly.stock_info.config.properties.AppPayloadStoreProperties;
+
+/**
+ * Append-only store of raw upstream api responses kept on local disk, so a paid-for response survives failures and restarts.
+ *
+ * Payloads are appended to fixed size segment files, each record laid out as
+ * [record length][crc32][symbol length][symbol][as-of epoch day][payload].
+ * Only the latest payload of each symbol is indexed, and the oldest segments are deleted once the store exceeds its size.
+ */
+@Component
+public class UpstreamPayloadStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(UpstreamPayloadStore.class);
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long maxBytes;
+    private final long segmentBytes;
+    private final ConcurrentNavigableMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+    private final Map<String, Location> latestPayloads = new ConcurrentHashMap<>();
+    private long totalBytes;
+
+    private record Location(long segmentId, long payloadOffset, int payloadLength, LocalDate asOf) {}
+
+    /**
+     * Creates a new store, rebuilding its index from any segments already on disk
+     *
+     * @param properties the properties set for the payload store
+     */
+    public UpstreamPayloadStore(AppPayloadStoreProperties properties) {
+        this.directory = Path.of(properties.directory());
+        this.maxBytes = properties.maxSize().toBytes();
+        this.segmentBytes = properties.segmentSize().toBytes();
+        this.enabled = properties.enabled() && open();
+    }
+
+    /**
+     * Returns the latest payload stored for a symbol if it was fetched on or after a date
+     *
+     * @param symbol the stock symbol
+     * @param notBefore the earliest as-of date that is acceptable
+     * @return the raw payload, empty if none is stored or it is too old
+     */
+    public Optional<String> find(String symbol, LocalDate notBefore) {
+        Location location = latestPayloads.get(symbol);
+        if (!enabled || location == null || location.asOf().isBefore(notBefore)) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.ofNullable(read(location));
+        } catch (IOException exception) {
+            LOGGER.warn(String.format("Exception when reading stored payload for %s", symbol), exception);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Appends a payload for a symbol, replacing any previous payload for that symbol
+     *
+     * @param symbol the stock symbol
+     * @param asOf the date the payload was fetched
+     * @param payload the raw upstream response
+     */
+    public synchronized void append(String symbol, LocalDate asOf, String payload) {
+        if (!enabled) {
+            return;
+        }
+
+        byte[] symbolBytes = symbol.getBytes(StandardCharsets.UTF_8);
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer body = ByteBuffer.allocate(Short.BYTES + symbolBytes.length + Long.BYTES + payloadBytes.length)
+            .putShort((short) symbolBytes.length)
+            .put(symbolBytes)
+            .putLong(asOf.toEpochDay())
+            .put(payloadBytes)
+            .flip();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+            .putInt(body.remaining())
+            .putInt(checksum(body))
+            .flip();
+
+        try {
+            long segmentId = activeSegment(HEADER_BYTES + body.remaining());
+            try (FileChannel channel = FileChannel.open(segments.get(segmentId), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                long recordOffset = channel.size();
+                channel.write(new ByteBuffer[] {header, body});
+                long payloadOffset = recordOffset + HEADER_BYTES + Short.BYTES + symbolBytes.length + Long.BYTES;
+                latestPayloads.put(symbol, new Location(segmentId, payloadOffset, payloadBytes.length, asOf));
+                totalBytes += HEADER_BYTES + body.capacity();
+            }
+            evictOldestSegments();
+
+        } catch (IOException exception) {
+            LOGGER.warn(String.format("Exception when storing payload for %s", symbol), exception);
+        }
+    }
+
+    /**
+     * Visits the latest stored payload of every symbol, eg: to rebuild the metrics table
+     *
+     * @param consumer receives each symbol and its raw payload
+     */
+    public void forEachLatest(BiConsumer<String, String> consumer) {
+        latestPayloads.keySet().forEach(symbol -> find(symbol, LocalDate.MIN).ifPresent(payload -> consumer.accept(symbol, payload)));
+    }
+
+    private boolean open() {
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .forEach(file -> segments.put(segmentId(file), file));
+            }
+            for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+                totalBytes += scan(segment.getKey(), segment.getValue());
+            }
+            LOGGER.info(String.format("Loaded %d stored payloads from %d segments", latestPayloads.size(), segments.size()));
+            return true;
+
+        } catch (IOException exception) {
+            LOGGER.warn(String.format("Exception when opening payload store (%s), continuing without it", directory), exception);
+            return false;
+        }
+    }
+
+    private long scan(long segmentId, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            while (buffer.remaining() >= HEADER_BYTES) {
+                int recordOffset = buffer.position();
+                int length = buffer.getInt();
+                int crc = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    buffer.position(recordOffset);
+                    break;
+                }
+
+                ByteBuffer body = buffer.slice(buffer.position(), length);
+                if (checksum(body) != crc) {
+                    buffer.position(recordOffset);
+                    break;
+                }
+                byte[] symbolBytes = new byte[body.getShort()];
+                body.get(symbolBytes);
+                LocalDate asOf = LocalDate.ofEpochDay(body.getLong());
+
+                int payloadOffset = buffer.position() + body.position();
+                latestPayloads.put(
+                    new String(symbolBytes, StandardCharsets.UTF_8),
+                    new Location(segmentId, payloadOffset, body.remaining(), asOf));
+                buffer.position(buffer.position() + length);
+            }
+
+            // Drop a record torn by a crash part way through an append
+            if (buffer.position() < channel.size()) {
+                LOGGER.warn(String.format("Truncating torn record at offset %d of %s", buffer.position(), file));
+                channel.truncate(buffer.position());
+            }
+            return buffer.position();
+        }
+    }
+
+    private String read(Location location) throws IOException {
+        Path file = segments.get(location.segmentId());
+        if (file == null) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, location.payloadOffset(), location.payloadLength());
+            return StandardCharsets.UTF_8.decode(buffer).toString();
+        }
+    }
+
+    private long activeSegment(int recordBytes) throws IOException {
+        if (!segments.isEmpty()) {
+            Map.Entry<Long, Path> last = segments.lastEntry();
+            if (Files.size(last.getValue()) + recordBytes <= segmentBytes) {
+                return last.getKey();
+            }
+        }
+
+        long segmentId = segments.isEmpty() ? 0 : segments.lastKey() + 1;
+        Path file = directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, segmentId, SEGMENT_SUFFIX));
+        Files.createFile(file);
+        segments.put(segmentId, file);
+        return segmentId;
+    }
+
+    private void evictOldestSegments() throws IOException {
+        while (totalBytes > maxBytes && segments.size() > 1) {
+            Map.Entry<Long, Path> oldest = segments.pollFirstEntry();
+            totalBytes -= Files.size(oldest.getValue());
+            latestPayloads.values().removeIf(location -> location.segmentId() == oldest.getKey());
+            Files.deleteIfExists(oldest.getValue());
+            LOGGER.info(String.format("Evicted payload segment %s", oldest.getValue().getFileName()));
+        }
+    }
+
+    private static long segmentId(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static int checksum(ByteBuffer body) {
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        return (int) crc.getValue();
+    }
+}
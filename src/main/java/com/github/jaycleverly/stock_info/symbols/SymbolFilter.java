@@ -0,0 +1,94 @@
+package com.github.jaycleverly.stock_info.symbols;
+
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import com.github.jaycleverly.stock_info.config.properties.AppSymbolsProperties;
+import com.github.jaycleverly.stock_info.exception.ClientErrorException;
+
+/**
+ * Rejects requests for stocks that cannot exist before they cost a repository read or an api call.
+ *
+ * A symbol is rejected if it is missing from the symbol listing, or if the api recently reported it as not found.
+ * Not found symbols are remembered for a time to live, so a stock listed since is found again once it expires. The
+ * number remembered is bounded: once full, expired symbols are dropped, and while none have expired new ones are not
+ * remembered.
+ */
+@Component
+public class SymbolFilter {
+    private final SymbolListing listing;
+    private final long notFoundTtlMillis;
+    private final int maxNotFound;
+    private final Clock clock;
+    private final Map<String, Long> notFoundUntil = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new filter of unknown stock symbols
+     *
+     * @param properties the properties set for symbols
+     * @param listing the listing of known stock symbols
+     */
+    @Autowired
+    public SymbolFilter(AppSymbolsProperties properties, SymbolListing listing) {
+        this(properties, listing, Clock.systemUTC());
+    }
+
+    SymbolFilter(AppSymbolsProperties properties, SymbolListing listing, Clock clock) {
+        this.listing = listing;
+        this.notFoundTtlMillis = properties.notFoundTtl() == null ? 0 : properties.notFoundTtl().toMillis();
+        this.maxNotFound = properties.maxNotFound();
+        this.clock = clock;
+    }
+
+    /**
+     * Checks that a stock may exist
+     *
+     * @param symbol the upper case symbol of the stock
+     * @throws ClientErrorException with a 404 status if the symbol is unlisted or was recently not found
+     */
+    public void check(String symbol) throws ClientErrorException {
+        if (!listing.contains(symbol)) {
+            throw new ClientErrorException(String.format("Symbol %s is not listed!", symbol), HttpStatus.NOT_FOUND, null);
+        }
+
+        Long until = notFoundUntil.get(symbol);
+        if (until != null) {
+            if (until > clock.millis()) {
+                throw new ClientErrorException(String.format("Symbol %s not found!", symbol), HttpStatus.NOT_FOUND, null);
+            }
+            notFoundUntil.remove(symbol, until);
+        }
+    }
+
+    /**
+     * Remembers that the api reported a stock as not found, so requests for it are rejected until the time to live passes
+     *
+     * @param symbol the upper case symbol of the stock
+     */
+    public void recordNotFound(String symbol) {
+        if (notFoundTtlMillis <= 0) {
+            return;
+        }
+
+        long now = clock.millis();
+        if (notFoundUntil.size() >= maxNotFound) {
+            notFoundUntil.values().removeIf(until -> until <= now);
+            if (notFoundUntil.size() >= maxNotFound) {
+                return;
+            }
+        }
+        notFoundUntil.put(symbol, now + notFoundTtlMillis);
+    }
+
+    /**
+     * @return the number of symbols remembered as not found, including any expired but not yet dropped
+     */
+    public int notFoundCount() {
+        return notFoundUntil.size();
+    }
+}
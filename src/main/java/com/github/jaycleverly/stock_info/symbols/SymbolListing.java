@@ -0,0 +1,154 @@
+package com.github.jaycleverly.stock_info.symbols;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.github.jaycleverly.stock_info.config.properties.AppSymbolsProperties;
+
+/**
+ * The symbols and company names of every listed stock, read from a local listing file on startup.
+ *
+ * The file is the csv served by Alpha Vantage's LISTING_STATUS function (symbol first, with optional name and status
+ * columns), or simply one symbol per line. Stocks are held in a {@link SymbolSearchIndex} of sorted arrays, so the
+ * listing costs a few bytes per symbol and never answers wrongly, unlike a bloom filter. Without a listing file, or
+ * if it cannot be read, every symbol is treated as listed and none can be searched for.
+ */
+@Component
+public class SymbolListing {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SymbolListing.class);
+    private static final String SYMBOL_COLUMN = "symbol";
+    private static final String NAME_COLUMN = "name";
+    private static final String STATUS_COLUMN = "status";
+    private static final String DELISTED = "Delisted";
+
+    private final SymbolSearchIndex index;
+
+    /**
+     * Creates a new listing of the stocks in the configured listing file
+     *
+     * @param properties the properties set for symbols
+     */
+    public SymbolListing(AppSymbolsProperties properties) {
+        this.index = properties.listingFile() == null || properties.listingFile().isBlank()
+            ? null
+            : loadOrSkip(Path.of(properties.listingFile()));
+    }
+
+    /**
+     * @return true if a listing was loaded, so unlisted symbols can be rejected
+     */
+    public boolean isLoaded() {
+        return index != null;
+    }
+
+    /**
+     * @return the number of listed symbols, 0 if no listing was loaded
+     */
+    public int size() {
+        return index == null ? 0 : index.size();
+    }
+
+    /**
+     * Determines whether a stock may exist according to the listing
+     *
+     * @param symbol the upper case symbol of the stock
+     * @return true if the symbol is listed, or no listing was loaded
+     */
+    public boolean contains(String symbol) {
+        return index == null || index.contains(symbol);
+    }
+
+    /**
+     * Finds the listed stocks whose symbol or company name starts with a query
+     *
+     * @param query the start of a symbol or company name
+     * @param limit the most matches to return
+     * @return the matching stocks, best first, empty if no listing was loaded
+     */
+    public List<SymbolSearchIndex.Listed> search(String query, int limit) {
+        return index == null ? List.of() : index.search(query, limit);
+    }
+
+    /**
+     * Reads the stocks of a listing file, leaving out delisted stocks
+     *
+     * @param file the listing file to read
+     * @return an index of the upper case symbols of the file and their company names
+     * @throws IOException if the file cannot be read
+     */
+    static SymbolSearchIndex load(Path file) throws IOException {
+        SortedMap<String, String> namesBySymbol = new TreeMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            int nameColumn = 1;
+            int statusColumn = -1;
+            boolean first = true;
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                List<String> fields = splitCsv(line);
+                if (first && fields.getFirst().equalsIgnoreCase(SYMBOL_COLUMN)) {
+                    nameColumn = fields.indexOf(NAME_COLUMN);
+                    statusColumn = fields.indexOf(STATUS_COLUMN);
+                    first = false;
+                    continue;
+                }
+                first = false;
+
+                String symbol = fields.getFirst().toUpperCase();
+                boolean delisted = statusColumn >= 0 && statusColumn < fields.size()
+                    && fields.get(statusColumn).equalsIgnoreCase(DELISTED);
+                if (!symbol.isEmpty() && !delisted) {
+                    String name = nameColumn >= 0 && nameColumn < fields.size() ? fields.get(nameColumn) : "";
+                    namesBySymbol.merge(symbol, name, (current, other) -> current.isEmpty() ? other : current);
+                }
+            }
+        }
+        return new SymbolSearchIndex(namesBySymbol);
+    }
+
+    // Company names may be quoted to hold commas
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char next = line.charAt(i);
+            if (next == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (next == ',' && !quoted) {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(next);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+    // Rejecting every request over a missing file would be worse than letting unknown symbols through
+    private static SymbolSearchIndex loadOrSkip(Path file) {
+        try {
+            SymbolSearchIndex index = load(file);
+            LOGGER.info(String.format("Loaded %d listed symbols from %s", index.size(), file));
+            return index;
+        } catch (IOException exception) {
+            LOGGER.error(String.format("Exception when reading symbol listing %s, every symbol is treated as listed", file), exception);
+            return null;
+        }
+    }
+}
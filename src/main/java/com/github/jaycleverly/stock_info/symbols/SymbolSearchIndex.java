@@ -0,0 +1,168 @@
+package com.github.jaycleverly.stock_info.symbols;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Prefix index over the symbols and company names of listed stocks.
+ *
+ * Symbols are held in a sorted array, and every word of every company name in a second sorted array alongside the
+ * position of the stock it came from. A prefix is found in either by binary search for its first match followed by
+ * a scan while entries still start with it, so a search costs a few comparisons per match and the index a few
+ * references per word. Matches are ranked: the exact symbol, then symbols starting with the query, then names
+ * starting with it, then names with a later word starting with it; shorter symbols (main listings before their
+ * share classes) first within each rank.
+ */
+public class SymbolSearchIndex {
+    private static final int EXACT_SYMBOL = 0;
+    private static final int SYMBOL_PREFIX = 1;
+    private static final int NAME_PREFIX = 2;
+    private static final int NAME_WORD_PREFIX = 3;
+    private static final String WORD_SEPARATOR = "[^\\p{Alnum}]+";
+
+    private final String[] symbols;
+    private final String[] names;
+    private final String[] words;
+    private final int[] wordOwners;
+    private final int[] wordPositions;
+
+    /**
+     * A listed stock
+     *
+     * @param symbol the symbol of the stock
+     * @param name the company name of the stock, empty if unknown
+     */
+    public record Listed(String symbol, String name) {}
+
+    /**
+     * Creates a new index over listed stocks
+     *
+     * @param namesBySymbol the company name of each upper case symbol, empty if unknown
+     */
+    public SymbolSearchIndex(SortedMap<String, String> namesBySymbol) {
+        this.symbols = namesBySymbol.keySet().toArray(String[]::new);
+        this.names = namesBySymbol.values().toArray(String[]::new);
+
+        List<String> unsortedWords = new ArrayList<>();
+        List<int[]> unsortedOwners = new ArrayList<>();
+        for (int stock = 0; stock < names.length; stock++) {
+            String[] nameWords = words(names[stock]);
+            for (int position = 0; position < nameWords.length; position++) {
+                unsortedWords.add(nameWords[position]);
+                unsortedOwners.add(new int[] {stock, position});
+            }
+        }
+
+        Integer[] order = new Integer[unsortedWords.size()];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparing(unsortedWords::get));
+        this.words = new String[order.length];
+        this.wordOwners = new int[order.length];
+        this.wordPositions = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            words[i] = unsortedWords.get(order[i]);
+            wordOwners[i] = unsortedOwners.get(order[i])[0];
+            wordPositions[i] = unsortedOwners.get(order[i])[1];
+        }
+    }
+
+    /**
+     * @return the number of listed stocks
+     */
+    public int size() {
+        return symbols.length;
+    }
+
+    /**
+     * Determines whether a stock is listed
+     *
+     * @param symbol the upper case symbol of the stock
+     * @return true if the symbol is listed
+     */
+    public boolean contains(String symbol) {
+        return Arrays.binarySearch(symbols, symbol) >= 0;
+    }
+
+    /**
+     * Finds the listed stocks whose symbol or company name starts with a query, best matches first
+     *
+     * @param query the start of a symbol, or the starts of words of a company name (eg: "inter bus")
+     * @param limit the most matches to return
+     * @return the matching stocks, best first
+     */
+    public List<Listed> search(String query, int limit) {
+        String normalized = query.trim().toUpperCase();
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+
+        // Best rank of each matching stock, by its position in the symbols
+        Map<Integer, Integer> ranks = new HashMap<>();
+        for (int stock = lowerBound(symbols, normalized); stock < symbols.length && symbols[stock].startsWith(normalized); stock++) {
+            ranks.put(stock, symbols[stock].length() == normalized.length() ? EXACT_SYMBOL : SYMBOL_PREFIX);
+        }
+
+        String[] queryWords = words(normalized);
+        if (queryWords.length > 0) {
+            for (int word = lowerBound(words, queryWords[0]); word < words.length && words[word].startsWith(queryWords[0]); word++) {
+                int stock = wordOwners[word];
+                if (queryWords.length == 1 || nameHasWordsStartingWith(stock, queryWords)) {
+                    ranks.merge(stock, wordPositions[word] == 0 ? NAME_PREFIX : NAME_WORD_PREFIX, Math::min);
+                }
+            }
+        }
+
+        return ranks.entrySet().stream()
+            .sorted(Comparator.comparingInt((Map.Entry<Integer, Integer> match) -> match.getValue())
+                .thenComparingInt(match -> symbols[match.getKey()].length())
+                .thenComparingInt(Map.Entry::getKey))
+            .limit(limit)
+            .map(match -> new Listed(symbols[match.getKey()], names[match.getKey()]))
+            .toList();
+    }
+
+    /**
+     * @return the listed symbols, sorted
+     */
+    String[] symbols() {
+        return symbols.clone();
+    }
+
+    // The later query words must each start some word of the name, the first is matched by the caller
+    private boolean nameHasWordsStartingWith(int stock, String[] queryWords) {
+        String[] nameWords = words(names[stock]);
+        for (int query = 1; query < queryWords.length; query++) {
+            String queryWord = queryWords[query];
+            if (Arrays.stream(nameWords).noneMatch(word -> word.startsWith(queryWord))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Position of the first entry not before the key, entries may repeat
+    private static int lowerBound(String[] sorted, String key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle].compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static String[] words(String text) {
+        return Arrays.stream(text.toUpperCase().split(WORD_SEPARATOR))
+            .filter(word -> !word.isEmpty())
+            .toArray(String[]::new);
+    }
+}
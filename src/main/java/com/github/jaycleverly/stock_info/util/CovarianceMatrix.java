@@ -0,0 +1,118 @@
+package com.github.jaycleverly.stock_info.util;
+
+import java.util.stream.IntStream;
+
+/**
+ * Class to calculate covariance and correlation matrices over series held in primitive arrays.
+ *
+ * Series are centred in place of their means and then multiplied in square tiles of rows, each tile a
+ * parallel task that walks the observations in chunks so the rows it reads stay in cache.
+ * Only the upper triangle is calculated and mirrored.
+ */
+public class CovarianceMatrix {
+    private static final int ROW_BLOCK = 32;
+    private static final int OBSERVATION_BLOCK = 512;
+
+    /**
+     * Calculates the sample covariance of every pair of series
+     * 
+     * @param series one row per series, every row of the same length (at least 2)
+     * @return a symmetric matrix of covariances, indexed the same as the series
+     * @throws IllegalArgumentException if the rows are too short or differ in length
+     */
+    public static double[][] covariance(double[][] series) throws IllegalArgumentException {
+        int count = series.length;
+        int observations = count == 0 ? 0 : series[0].length;
+        if (observations < 2) {
+            throw new IllegalArgumentException("At least 2 observations are needed for a covariance!");
+        }
+
+        double[][] centred = new double[count][];
+        IntStream.range(0, count).parallel().forEach(i -> centred[i] = centre(series[i], observations));
+
+        double[][] covariance = new double[count][count];
+        int blocks = (count + ROW_BLOCK - 1) / ROW_BLOCK;
+
+        // Tile (a, b) with b >= a, numbered so the triangle splits into even parallel tasks
+        IntStream.range(0, blocks * (blocks + 1) / 2).parallel().forEach(tile -> {
+            int a = 0;
+            int remaining = tile;
+            while (remaining >= blocks - a) {
+                remaining -= blocks - a;
+                a++;
+            }
+            multiplyTile(centred, covariance, a * ROW_BLOCK, (a + remaining) * ROW_BLOCK, observations);
+        });
+
+        double divisor = observations - 1;
+        for (int i = 0; i < count; i++) {
+            for (int j = i; j < count; j++) {
+                covariance[i][j] /= divisor;
+                covariance[j][i] = covariance[i][j];
+            }
+        }
+        return covariance;
+    }
+
+    /**
+     * Scales a covariance matrix to the correlation of every pair of series
+     * 
+     * @param covariance a symmetric covariance matrix
+     * @return a matrix of correlations, NaN where a series does not vary
+     */
+    public static double[][] correlation(double[][] covariance) {
+        int count = covariance.length;
+        double[] deviations = new double[count];
+        for (int i = 0; i < count; i++) {
+            deviations[i] = Math.sqrt(covariance[i][i]);
+        }
+
+        double[][] correlation = new double[count][count];
+        for (int i = 0; i < count; i++) {
+            for (int j = 0; j < count; j++) {
+                double denominator = deviations[i] * deviations[j];
+                correlation[i][j] = denominator == 0 ? Double.NaN : Math.max(-1, Math.min(1, covariance[i][j] / denominator));
+            }
+        }
+        return correlation;
+    }
+
+    private static double[] centre(double[] values, int observations) {
+        if (values.length != observations) {
+            throw new IllegalArgumentException("Every series must have the same number of observations!");
+        }
+        double mean = 0;
+        for (double value : values) {
+            mean += value;
+        }
+        mean /= observations;
+
+        double[] centred = new double[observations];
+        for (int t = 0; t < observations; t++) {
+            centred[t] = values[t] - mean;
+        }
+        return centred;
+    }
+
+    // Accumulates the dot products of rows [rowStart, rowStart + ROW_BLOCK) with rows [columnStart, columnStart + ROW_BLOCK)
+    private static void multiplyTile(double[][] centred, double[][] result, int rowStart, int columnStart, int observations) {
+        int rowEnd = Math.min(rowStart + ROW_BLOCK, centred.length);
+        int columnEnd = Math.min(columnStart + ROW_BLOCK, centred.length);
+
+        for (int tStart = 0; tStart < observations; tStart += OBSERVATION_BLOCK) {
+            int tEnd = Math.min(tStart + OBSERVATION_BLOCK, observations);
+            for (int i = rowStart; i < rowEnd; i++) {
+                double[] row = centred[i];
+                double[] resultRow = result[i];
+                for (int j = Math.max(columnStart, i); j < columnEnd; j++) {
+                    double[] column = centred[j];
+                    double sum = 0;
+                    for (int t = tStart; t < tEnd; t++) {
+                        sum += row[t] * column[t];
+                    }
+                    resultRow[j] += sum;
+                }
+            }
+        }
+    }
+}
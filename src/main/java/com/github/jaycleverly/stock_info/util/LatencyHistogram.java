@@ -0,0 +1,117 @@
+package com.github.jaycleverly.stock_info.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of recent latencies for estimating percentiles.
+ *
+ * Latencies are counted in microsecond buckets on a log-linear scale, 16 buckets per power of two, so any
+ * percentile is within about 6% of the true value. Samples are kept in two windows: once the current window
+ * holds the window size it replaces the previous one, so percentiles follow the latest one to two windows of samples.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final int windowSize;
+    private final AtomicLong currentCount = new AtomicLong();
+    private volatile AtomicLongArray current = new AtomicLongArray(BUCKETS);
+    private volatile AtomicLongArray previous = new AtomicLongArray(BUCKETS);
+    private volatile long previousCount;
+
+    /**
+     * Creates a new histogram
+     *
+     * @param windowSize the number of samples in each window
+     */
+    public LatencyHistogram(int windowSize) {
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Records a latency
+     *
+     * @param latency the latency to record
+     */
+    public void record(Duration latency) {
+        current.incrementAndGet(bucket(Math.max(0, latency.toNanos() / 1_000)));
+        if (currentCount.incrementAndGet() >= windowSize) {
+            rotate();
+        }
+    }
+
+    /**
+     * @return the number of samples percentiles are currently estimated from
+     */
+    public long count() {
+        return previousCount + currentCount.get();
+    }
+
+    /**
+     * Estimates a percentile of the recorded latencies, rounded up to the edge of its bucket
+     *
+     * @param percentile the percentile to estimate between 0 and 1, eg: 0.95
+     * @return the estimated latency, zero if nothing is recorded
+     */
+    public Duration percentile(double percentile) {
+        AtomicLongArray currentCounts = current;
+        AtomicLongArray previousCounts = previous;
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = currentCounts.get(i) + previousCounts.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return Duration.ZERO;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Duration.ofNanos(upperEdge(i) * 1_000);
+            }
+        }
+        return Duration.ofNanos(upperEdge(BUCKETS - 1) * 1_000);
+    }
+
+    private synchronized void rotate() {
+        // Another thread may already have rotated this window
+        long count = currentCount.get();
+        if (count < windowSize) {
+            return;
+        }
+        previous = current;
+        previousCount = count;
+        current = new AtomicLongArray(BUCKETS);
+        currentCount.set(0);
+    }
+
+    // Values below 16us have a bucket each, above that each power of two is split into 16 buckets
+    static int bucket(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    // Largest value (in micros) counted in a bucket, capped so it can be converted to nanos
+    static long upperEdge(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        if (shift >= Long.SIZE - SUB_BUCKET_BITS - 11) {
+            return Long.MAX_VALUE / 1_000;
+        }
+        return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+}
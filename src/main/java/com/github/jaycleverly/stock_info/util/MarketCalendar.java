@@ -0,0 +1,43 @@
+package com.github.jaycleverly.stock_info.util;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * Class to provide the times at which daily stock records change (market holidays are not considered)
+ */
+public class MarketCalendar {
+    public static final ZoneId MARKET_ZONE = ZoneId.of("US/Eastern");
+    private static final LocalTime MARKET_CLOSE = LocalTime.of(16, 0);
+
+    /**
+     * Returns the time the market closed on a particular date
+     * 
+     * @param date the trading date
+     * @return the closing time of the market on that date
+     */
+    public static ZonedDateTime marketClose(LocalDate date) {
+        return ZonedDateTime.of(date, MARKET_CLOSE, MARKET_ZONE);
+    }
+
+    /**
+     * Returns the next weekday market close strictly after a point in time
+     * 
+     * @param now the point in time to look from
+     * @return the next time the market closes
+     */
+    public static ZonedDateTime nextMarketClose(ZonedDateTime now) {
+        ZonedDateTime close = marketClose(now.withZoneSameInstant(MARKET_ZONE).toLocalDate());
+        while (!close.isAfter(now) || isWeekend(close.getDayOfWeek())) {
+            close = marketClose(close.toLocalDate().plusDays(1));
+        }
+        return close;
+    }
+
+    private static boolean isWeekend(DayOfWeek day) {
+        return day == DayOfWeek.SATURDAY || day == DayOfWeek.SUNDAY;
+    }
+}
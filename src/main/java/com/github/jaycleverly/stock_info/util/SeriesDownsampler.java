@@ -0,0 +1,80 @@
+package com.github.jaycleverly.stock_info.util;
+
+/**
+ * Class to downsample a series held in primitive arrays to a budget of points while keeping its visual shape, by the
+ * largest triangle three buckets (LTTB) algorithm.
+ *
+ * The first and last points are always kept. The points between are split into equal buckets, one point kept from
+ * each: the one forming the largest triangle with the point kept from the previous bucket and the average of the next
+ * bucket. Peaks and troughs are kept where an average or stride would smooth them away. Each point is read at most
+ * twice, so the cost is linear in the length of the series.
+ */
+public class SeriesDownsampler {
+    /**
+     * Picks the points of a series to keep
+     * 
+     * @param x the position of each point, in order (eg: epoch days)
+     * @param y the value of each point, the same length as x
+     * @param maxPoints the most points to keep (at least 2)
+     * @return the indexes of the points kept in order, every index if the series is within the budget
+     * @throws IllegalArgumentException if the budget is under 2 points or the arrays differ in length
+     */
+    public static int[] largestTriangleThreeBuckets(double[] x, double[] y, int maxPoints) throws IllegalArgumentException {
+        if (maxPoints < 2 || x.length != y.length) {
+            throw new IllegalArgumentException("Downsampling needs a budget of at least 2 points and one value per position!");
+        }
+        int size = x.length;
+        if (size <= maxPoints) {
+            int[] all = new int[size];
+            for (int i = 0; i < size; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+
+        int[] kept = new int[maxPoints];
+        int buckets = maxPoints - 2;
+        double bucketSize = (double) (size - 2) / buckets;
+        int previous = 0;
+        kept[0] = 0;
+
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            int start = (int) (bucket * bucketSize) + 1;
+            // The last bucket ends before the last point, whatever the rounding
+            int end = bucket == buckets - 1 ? size - 1 : (int) ((bucket + 1) * bucketSize) + 1;
+
+            // Average of the next bucket, or the last point after the last bucket
+            int nextStart = end;
+            int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, size);
+            if (bucket == buckets - 1) {
+                nextStart = size - 1;
+                nextEnd = size;
+            }
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageX += x[i];
+                averageY += y[i];
+            }
+            averageX /= nextEnd - nextStart;
+            averageY /= nextEnd - nextStart;
+
+            // Twice the triangle's area, the constant factor does not change which is largest
+            double largestArea = -1;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((x[previous] - averageX) * (y[i] - y[previous])
+                    - (x[previous] - x[i]) * (averageY - y[previous]));
+                if (area > largestArea) {
+                    largestArea = area;
+                    chosen = i;
+                }
+            }
+            kept[bucket + 1] = chosen;
+            previous = chosen;
+        }
+
+        kept[maxPoints - 1] = size - 1;
+        return kept;
+    }
+}
@@ -0,0 +1,48 @@
+package com.github.jaycleverly.stock_info.util;
+
+import java.time.Duration;
+
+/**
+ * Spaces out work so that, across every caller, no more than a set number of units start per second.
+ *
+ * Each caller reserves the next free slot for its units and sleeps until it starts, so a burst of callers is spread
+ * over time rather than rejected.
+ */
+public class ThroughputThrottle {
+    private final long nanosPerUnit;
+    private long nextFreeNanos;
+
+    /**
+     * Creates a new throttle
+     *
+     * @param unitsPerSecond the most units to start each second, 0 or less for no limit
+     */
+    public ThroughputThrottle(int unitsPerSecond) {
+        this.nanosPerUnit = unitsPerSecond > 0 ? 1_000_000_000L / unitsPerSecond : 0;
+        this.nextFreeNanos = System.nanoTime();
+    }
+
+    /**
+     * Waits until the given units may start
+     *
+     * @param units the units of work about to start, eg: rows read
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire(int units) throws InterruptedException {
+        long wait = reserve(units);
+        if (wait > 0) {
+            Thread.sleep(Duration.ofNanos(wait));
+        }
+    }
+
+    // Idle time is not banked, so a throttle left unused cannot then release a burst
+    private synchronized long reserve(int units) {
+        if (nanosPerUnit == 0) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        long start = Math.max(now, nextFreeNanos);
+        nextFreeNanos = start + units * nanosPerUnit;
+        return start - now;
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.jaycleverly.stock_info.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.configureFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.jaycleverly.stock_info.config.properties.AppUpstreamProperties.CsvProviderProperties;
+import com.github.jaycleverly.stock_info.exception.TimeSeriesApiException;
+import com.github.jaycleverly.stock_info.model.DailyStockRecord;
+import com.github.jaycleverly.stock_info.parser.StockRecordsParser;
+import com.github.tomakehurst.wiremock.WireMockServer;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+
+public class CsvTimeSeriesProviderTest {
+    private static final String MOCK_STOCK = "MOCK";
+    private static final String MOCK_PATH = "/q/d/l/MOCK.us";
+
+    private WireMockServer wireMockServer;
+    private CsvTimeSeriesProvider provider;
+
+    @BeforeEach
+    void setup() {
+        wireMockServer = new WireMockServer(options().dynamicPort());
+        wireMockServer.start();
+        configureFor("localhost", wireMockServer.port());
+
+        provider = new CsvTimeSeriesProvider(
+            new CsvProviderProperties("stooq", String.format("http://localhost:%d/q/d/l/%%s.us", wireMockServer.port()), null, Duration.ofSeconds(1), Duration.ofMillis(500)),
+            CircuitBreaker.ofDefaults("stooq"));
+    }
+
+    @AfterEach
+    void cleanup() {
+        wireMockServer.stop();
+    }
+
+    @Test
+    void shouldReturnNormalizedRecords() {
+        stubFor(get(urlPathEqualTo(MOCK_PATH))
+            .willReturn(aResponse()
+                .withStatus(200)
+                .withBody("Date,Open,High,Low,Close,Volume\n2025-08-26,100.5,105.0,99.5,102.3,1400000\n2025-08-27,101.0,104.0,100.0,103.0,1500000\n")));
+
+        List<DailyStockRecord> records = StockRecordsParser.parse(provider.getDailyTimeSeries(MOCK_STOCK));
+
+        assertEquals(2, records.size());
+        assertEquals(MOCK_STOCK, records.getFirst().getSymbol());
+        assertEquals(LocalDate.of(2025, 8, 26), records.getFirst().getDate());
+        assertEquals(103.0, records.getLast().getClose());
+    }
+
+    @Test
+    void shouldThrowExceptionOnNotFound() {
+        stubFor(get(urlPathEqualTo(MOCK_PATH))
+            .willReturn(aResponse()
+                .withStatus(200)
+                .withBody("No data")));
+
+        assertEquals(404, assertThrows(TimeSeriesApiException.class, () -> provider.getDailyTimeSeries(MOCK_STOCK)).getStatusCode());
+    }
+
+    @Test
+    void shouldThrowExceptionOnInvalidCsv() {
+        stubFor(get(urlPathEqualTo(MOCK_PATH))
+            .willReturn(aResponse()
+                .withStatus(200)
+                .withBody("Date,Close\n2025-08-26,102.3\n")));
+
+        assertEquals(500, assertThrows(TimeSeriesApiException.class, () -> provider.getDailyTimeSeries(MOCK_STOCK)).getStatusCode());
+    }
+
+    @Test
+    void shouldThrowExceptionOnServerError() {
+        stubFor(get(urlPathEqualTo(MOCK_PATH))
+            .willReturn(aResponse()
+                .withStatus(502)));
+
+        assertEquals(502, assertThrows(TimeSeriesApiException.class, () -> provider.getDailyTimeSeries(MOCK_STOCK)).getStatusCode());
+    }
+}
@@ -2,33 +2,55 @@ package com.github.jaycleverly.stock_info.client;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
+import com.github.jaycleverly.stock_info.config.beans.DynamoDbConfig;
+import com.github.jaycleverly.stock_info.config.properties.DynamoDbProperties;
 import com.github.jaycleverly.stock_info.exception.DynamoClientException;
 import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
 
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
 import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteResult;
+import software.amazon.awssdk.enhanced.dynamodb.model.GetItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
 import software.amazon.awssdk.enhanced.dynamodb.model.PageIterable;
+import software.amazon.awssdk.enhanced.dynamodb.model.PutItemEnhancedRequest;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
 
 public class DynamoClientTest {
+    private static final DynamoDbProperties DYNAMO_PROPERTIES = new DynamoDbProperties(null, null, "MockTable", null, Duration.ofSeconds(5), null);
     private final String MOCK_TABLE_NAME = "MockTable";
 
     private DynamoClient dynamoClient;
@@ -39,7 +61,7 @@ public class DynamoClientTest {
     void setUp() {
         mockClient = mock(DynamoDbEnhancedClient.class);
         mockTable = mock(DynamoDbTable.class);
-        dynamoClient = new DynamoClient(mockClient);
+        dynamoClient = new DynamoClient(mockClient, List.of(), CircuitBreaker.ofDefaults("dynamo"), DYNAMO_PROPERTIES);
 
         when(mockClient.table(anyString(), any(TableSchema.class))).thenReturn(mockTable);
     }
@@ -91,4 +113,175 @@ public class DynamoClientTest {
         assertTrue(exception.getMessage().equals("Exception when querying table (MockTable)"));
         verify(mockTable).query(any(QueryEnhancedRequest.class));
     }
+
+    @Test
+    void shouldSuccessfullyQueryTableBetweenSortKeys() {
+        List<DailyStockMetrics> mockMetricList = List.of(new DailyStockMetrics(), new DailyStockMetrics(), new DailyStockMetrics());
+
+        PageIterable<DailyStockMetrics> mockPageIterable = mock(PageIterable.class);
+        when(mockPageIterable.items()).thenReturn(() -> mockMetricList.iterator());
+        when(mockTable.query(any(QueryEnhancedRequest.class))).thenReturn(mockPageIterable);
+
+        List<DailyStockMetrics> result = dynamoClient.queryBetween(MOCK_TABLE_NAME, "1", "2025-01-01", "2025-02-01", 2, DailyStockMetrics.class);
+        assertEquals(mockMetricList.subList(0, 2), result);
+        verify(mockTable).query(any(QueryEnhancedRequest.class));
+    }
+
+    @Test
+    void shouldThrowErrorOnQueryBetweenFailure() {
+        doThrow(RuntimeException.class).when(mockTable).query(any(QueryEnhancedRequest.class));
+
+        Exception exception = assertThrows(DynamoClientException.class, () -> 
+            dynamoClient.queryBetween(MOCK_TABLE_NAME, "1", "2025-01-01", "2025-02-01", 10, DailyStockMetrics.class));
+        assertTrue(exception.getMessage().equals("Exception when querying table (MockTable)"));
+    }
+
+    @Test
+    void shouldUseRegisteredTableSchema() {
+        TableSchema<DailyStockMetrics> schema = new DynamoDbConfig().dailyStockMetricsSchema();
+        dynamoClient = new DynamoClient(mockClient, List.of(schema), CircuitBreaker.ofDefaults("dynamo"), DYNAMO_PROPERTIES);
+        DailyStockMetrics mockItem = new DailyStockMetrics("1", LocalDate.now(), 150.0, null, null, null, null);
+
+        dynamoClient.putItem(MOCK_TABLE_NAME, mockItem, DailyStockMetrics.class);
+        verify(mockClient).table(MOCK_TABLE_NAME, schema);
+    }
+
+    @Test
+    void shouldMatchBeanTableSchema() {
+        DailyStockMetrics mockItem = new DailyStockMetrics("1", LocalDate.of(2025, 9, 9), 150.0, 1.5, null, 2.0, -3.0);
+
+        assertEquals(
+            TableSchema.fromBean(DailyStockMetrics.class).itemToMap(mockItem, false),
+            new DynamoDbConfig().dailyStockMetricsSchema().itemToMap(mockItem, false));
+    }
+
+    @Test
+    void shouldFailFastWhileCircuitIsOpen() {
+        CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("dynamo");
+        circuitBreaker.transitionToOpenState();
+        dynamoClient = new DynamoClient(mockClient, List.of(), circuitBreaker, DYNAMO_PROPERTIES);
+        DailyStockMetrics mockItem = new DailyStockMetrics("1", LocalDate.now(), 150.0, null, null, null, null);
+
+        Exception exception = assertThrows(DynamoClientException.class, () -> dynamoClient.putItem(MOCK_TABLE_NAME, mockItem, DailyStockMetrics.class));
+        assertInstanceOf(CallNotPermittedException.class, exception.getCause());
+        verify(mockTable, never()).putItem(mockItem);
+    }
+
+    @Test
+    void shouldQueryLatestItemsInAscendingOrder() {
+        LocalDate today = LocalDate.now();
+        List<DailyStockMetrics> newestFirst = List.of(
+            new DailyStockMetrics("1", today, 3.0, null, null, null, null),
+            new DailyStockMetrics("1", today.minusDays(1), 2.0, null, null, null, null),
+            new DailyStockMetrics("1", today.minusDays(2), 1.0, null, null, null, null));
+        PageIterable<DailyStockMetrics> mockPageIterable = mock(PageIterable.class);
+        when(mockPageIterable.items()).thenReturn(() -> newestFirst.iterator());
+        when(mockTable.query(any(QueryEnhancedRequest.class))).thenReturn(mockPageIterable);
+
+        List<DailyStockMetrics> result = dynamoClient.queryLatest(MOCK_TABLE_NAME, "1", 2, DailyStockMetrics.class);
+
+        assertEquals(List.of(newestFirst.get(1), newestFirst.get(0)), result);
+        ArgumentCaptor<QueryEnhancedRequest> request = ArgumentCaptor.forClass(QueryEnhancedRequest.class);
+        verify(mockTable).query(request.capture());
+        assertEquals(false, request.getValue().scanIndexForward());
+        assertEquals(2, request.getValue().limit());
+    }
+
+    @Test
+    void shouldPutItemsInBatchesRetryingUnprocessedItems() {
+        TableSchema<DailyStockMetrics> schema = new DynamoDbConfig().dailyStockMetricsSchema();
+        when(mockTable.tableSchema()).thenReturn(schema);
+        when(mockTable.tableName()).thenReturn(MOCK_TABLE_NAME);
+        List<DailyStockMetrics> items = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            items.add(new DailyStockMetrics("1", LocalDate.now().minusDays(i), 150.0, null, null, null, null));
+        }
+        WriteRequest unprocessed = WriteRequest.builder()
+            .putRequest(PutRequest.builder().item(schema.itemToMap(items.getFirst(), true)).build())
+            .build();
+        when(mockClient.batchWriteItem(any(BatchWriteItemEnhancedRequest.class))).thenReturn(
+            BatchWriteResult.builder().unprocessedRequests(Map.of(MOCK_TABLE_NAME, List.of(unprocessed))).build(),
+            BatchWriteResult.builder().unprocessedRequests(Map.of()).build());
+
+        assertDoesNotThrow(() -> dynamoClient.batchPutItems(MOCK_TABLE_NAME, items, DailyStockMetrics.class));
+        // Two batches of 25 and 5 items, the first resent once for its unprocessed item
+        verify(mockClient, times(3)).batchWriteItem(any(BatchWriteItemEnhancedRequest.class));
+    }
+
+    @Test
+    void shouldThrowErrorOnBatchPutFailure() {
+        when(mockTable.tableSchema()).thenReturn(new DynamoDbConfig().dailyStockMetricsSchema());
+        when(mockTable.tableName()).thenReturn(MOCK_TABLE_NAME);
+        when(mockClient.batchWriteItem(any(BatchWriteItemEnhancedRequest.class))).thenThrow(RuntimeException.class);
+        List<DailyStockMetrics> items = List.of(new DailyStockMetrics("1", LocalDate.now(), 150.0, null, null, null, null));
+
+        Exception exception = assertThrows(DynamoClientException.class,
+            () -> dynamoClient.batchPutItems(MOCK_TABLE_NAME, items, DailyStockMetrics.class));
+        assertEquals("Exception when putting 1 items into table (MockTable)", exception.getMessage());
+    }
+
+    @Test
+    void shouldPutItemWhenConditionHolds() {
+        DailyStockMetrics mockItem = new DailyStockMetrics("1", LocalDate.now(), 150.0, null, null, null, null);
+        Expression condition = Expression.builder().expression("attribute_not_exists(symbol)").build();
+
+        assertTrue(dynamoClient.putItemIf(MOCK_TABLE_NAME, mockItem, condition, DailyStockMetrics.class));
+        ArgumentCaptor<PutItemEnhancedRequest<DailyStockMetrics>> request = ArgumentCaptor.forClass(PutItemEnhancedRequest.class);
+        verify(mockTable).putItem(request.capture());
+        assertEquals(mockItem, request.getValue().item());
+        assertEquals(condition, request.getValue().conditionExpression());
+    }
+
+    @Test
+    void shouldNotCountFailedConditionAsFailure() {
+        CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("dynamo");
+        dynamoClient = new DynamoClient(mockClient, List.of(), circuitBreaker, DYNAMO_PROPERTIES);
+        doThrow(ConditionalCheckFailedException.builder().build()).when(mockTable).putItem(any(PutItemEnhancedRequest.class));
+
+        assertEquals(false, dynamoClient.putItemIf(MOCK_TABLE_NAME, new DailyStockMetrics(), Expression.builder().expression("x").build(), DailyStockMetrics.class));
+        assertEquals(0, circuitBreaker.getMetrics().getNumberOfFailedCalls());
+    }
+
+    @Test
+    void shouldGetItemWithConsistentRead() {
+        DailyStockMetrics mockItem = new DailyStockMetrics("1", LocalDate.now(), 150.0, null, null, null, null);
+        when(mockTable.getItem(any(GetItemEnhancedRequest.class))).thenReturn(mockItem);
+
+        assertEquals(mockItem, dynamoClient.getItem(MOCK_TABLE_NAME, Key.builder().partitionValue("1").build(), DailyStockMetrics.class));
+        ArgumentCaptor<GetItemEnhancedRequest> request = ArgumentCaptor.forClass(GetItemEnhancedRequest.class);
+        verify(mockTable).getItem(request.capture());
+        assertTrue(request.getValue().consistentRead());
+    }
+
+    @Test
+    void shouldScanSegmentPageByPage() {
+        DailyStockMetrics first = new DailyStockMetrics("IBM", LocalDate.of(2025, 9, 1), 100.0, null, null, null, null);
+        DailyStockMetrics second = new DailyStockMetrics("AAPL", LocalDate.of(2025, 9, 1), 200.0, null, null, null, null);
+        List<Page<DailyStockMetrics>> pages = List.of(
+            page(List.of(first)), page(List.of()), page(List.of(second)));
+        when(mockTable.scan(any(ScanEnhancedRequest.class))).thenReturn(PageIterable.create(pages::iterator));
+
+        List<List<DailyStockMetrics>> consumed = new ArrayList<>();
+        dynamoClient.scanSegment(MOCK_TABLE_NAME, 2, 4, null, 100, DailyStockMetrics.class, consumed::add);
+
+        assertEquals(List.of(List.of(first), List.of(second)), consumed);
+        ArgumentCaptor<ScanEnhancedRequest> request = ArgumentCaptor.forClass(ScanEnhancedRequest.class);
+        verify(mockTable).scan(request.capture());
+        assertEquals(2, request.getValue().segment());
+        assertEquals(4, request.getValue().totalSegments());
+        assertEquals(100, request.getValue().limit());
+    }
+
+    @Test
+    void shouldThrowErrorOnScanFailure() {
+        doThrow(RuntimeException.class).when(mockTable).scan(any(ScanEnhancedRequest.class));
+
+        Exception exception = assertThrows(DynamoClientException.class, () ->
+            dynamoClient.scanSegment(MOCK_TABLE_NAME, 0, 1, null, 100, DailyStockMetrics.class, page -> {}));
+        assertEquals("Exception when scanning segment 0 of 1 of table (MockTable)", exception.getMessage());
+    }
+
+    private static Page<DailyStockMetrics> page(List<DailyStockMetrics> items) {
+        return Page.builder(DailyStockMetrics.class).items(items).build();
+    }
 }
@@ -0,0 +1,168 @@
+package com.github.jaycleverly.stock_info.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.configureFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.jaycleverly.stock_info.config.properties.AppApiProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppIntradayProperties;
+import com.github.jaycleverly.stock_info.exception.ParserException;
+import com.github.jaycleverly.stock_info.exception.TimeSeriesApiException;
+import com.github.jaycleverly.stock_info.model.IntradayInterval;
+import com.github.tomakehurst.wiremock.WireMockServer;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+
+public class IntradayApiClientTest {
+    private static final String MOCK_STOCK = "MOCK";
+    private static final String MOCK_API_TOKEN = "mockToken";
+    private static final String MOCK_PATH = String.format("/query/%s/5min/compact/%s", MOCK_STOCK, MOCK_API_TOKEN);
+    private static final String MOCK_RESPONSE = """
+        {
+            "Meta Data": {"1. Information": "Intraday (5min) open, high, low, close prices and volume", "2. Symbol": "MOCK"},
+            "Time Series (5min)": {
+                "2025-08-27 10:05:00": {"1. open": "101.50", "2. high": "102.00", "3. low": "101.00", "4. close": "101.75", "5. volume": "3000"},
+                "2025-08-27 10:00:00": {"1. open": "100.50", "2. high": "101.60", "3. low": "100.40", "4. close": "101.50", "5. volume": "2000"},
+                "2025-08-27 09:55:00": {"1. open": "100.00", "2. high": "100.60", "3. low": "99.90", "4. close": "100.50", "5. volume": "1000"}
+            }
+        }
+        """;
+
+    private WireMockServer wireMockServer;
+    private IntradayApiClient client;
+
+    /**
+     * Records the bars passed on
+     */
+    private static class RecordingSink implements IntradayBarSink {
+        private final List<Long> minutes = new ArrayList<>();
+        private final List<Double> closes = new ArrayList<>();
+        private final List<Long> volumes = new ArrayList<>();
+        private boolean missed;
+
+        @Override
+        public void missedBars() {
+            missed = true;
+        }
+
+        @Override
+        public void accept(long minute, double open, double high, double low, double close, long volume) {
+            minutes.add(minute);
+            closes.add(close);
+            volumes.add(volume);
+        }
+    }
+
+    @BeforeEach
+    void setup() {
+        wireMockServer = new WireMockServer(options().dynamicPort());
+        wireMockServer.start();
+        configureFor("localhost", wireMockServer.port());
+
+        client = new IntradayApiClient(
+            new AppApiProperties(null, MOCK_API_TOKEN, Duration.ofSeconds(1), Duration.ofMillis(500)),
+            new AppIntradayProperties(String.format("http://localhost:%d/query/%%s/%%s/%%s/%%s", wireMockServer.port()), 390, 20, 10, 10, 10, Duration.ZERO),
+            CircuitBreaker.ofDefaults("intraday"));
+    }
+
+    @AfterEach
+    void cleanup() {
+        wireMockServer.stop();
+    }
+
+    @Test
+    void shouldPassOnBarsOldestFirst() {
+        stub(MOCK_RESPONSE);
+        RecordingSink sink = new RecordingSink();
+
+        assertEquals(3, client.getIntradayBars(MOCK_STOCK, IntradayInterval.FIVE_MINUTES, false, Long.MIN_VALUE, sink));
+        assertEquals(List.of(minute(9, 55), minute(10, 0), minute(10, 5)), sink.minutes);
+        assertEquals(List.of(100.5, 101.5, 101.75), sink.closes);
+        assertEquals(List.of(1000L, 2000L, 3000L), sink.volumes);
+        assertFalse(sink.missed);
+    }
+
+    @Test
+    void shouldPassOnOnlyBarsNewerThanHeld() {
+        stub(MOCK_RESPONSE);
+        RecordingSink sink = new RecordingSink();
+
+        assertEquals(1, client.getIntradayBars(MOCK_STOCK, IntradayInterval.FIVE_MINUTES, false, minute(10, 0), sink));
+        assertEquals(List.of(minute(10, 5)), sink.minutes);
+        assertFalse(sink.missed);
+    }
+
+    @Test
+    void shouldTellSinkWhenResponseDoesNotReachBackToHeldBars() {
+        stub(MOCK_RESPONSE);
+        RecordingSink sink = new RecordingSink();
+
+        client.getIntradayBars(MOCK_STOCK, IntradayInterval.FIVE_MINUTES, false, minute(9, 45), sink);
+        assertTrue(sink.missed);
+        assertEquals(3, sink.minutes.size());
+    }
+
+    @Test
+    void shouldThrowExceptionOnNotFound() {
+        stub("{\"Error Message\": \"Invalid API call.\"}");
+
+        assertEquals(404, assertThrows(TimeSeriesApiException.class,
+            () -> client.getIntradayBars(MOCK_STOCK, IntradayInterval.FIVE_MINUTES, false, Long.MIN_VALUE, new RecordingSink())).getStatusCode());
+    }
+
+    @Test
+    void shouldThrowExceptionOnRateLimit() {
+        stub("{\"Information\": \"Thank you for using Alpha Vantage!\"}");
+
+        assertEquals(429, assertThrows(TimeSeriesApiException.class,
+            () -> client.getIntradayBars(MOCK_STOCK, IntradayInterval.FIVE_MINUTES, false, Long.MIN_VALUE, new RecordingSink())).getStatusCode());
+    }
+
+    @Test
+    void shouldThrowExceptionOnInvalidResponse() {
+        stub("{\"Time Series (5min)\": {\"yesterday\": {\"1. open\": \"1\"}}}");
+
+        assertEquals(500, assertThrows(TimeSeriesApiException.class,
+            () -> client.getIntradayBars(MOCK_STOCK, IntradayInterval.FIVE_MINUTES, false, Long.MIN_VALUE, new RecordingSink())).getStatusCode());
+    }
+
+    @Test
+    void shouldReadTimestampsAsMinutes() {
+        char[] text = "x1969-12-31 23:59:00".toCharArray();
+        assertEquals(-1, IntradayApiClient.epochMinute(text, 1, text.length - 1));
+
+        text = "2024-02-29 09:30:00".toCharArray();
+        assertEquals(LocalDateTime.of(2024, 2, 29, 9, 30).toEpochSecond(ZoneOffset.UTC) / 60, IntradayApiClient.epochMinute(text, 0, text.length));
+
+        char[] invalid = "2024-13-01 09:30:00".toCharArray();
+        assertThrows(ParserException.class, () -> IntradayApiClient.epochMinute(invalid, 0, invalid.length));
+    }
+
+    private static void stub(String body) {
+        stubFor(get(urlPathEqualTo(MOCK_PATH))
+            .willReturn(aResponse()
+                .withStatus(200)
+                .withBody(body)));
+    }
+
+    private static long minute(int hour, int minute) {
+        return LocalDateTime.of(2025, 8, 27, hour, minute).toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.jaycleverly.stock_info.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.jaycleverly.stock_info.config.properties.DynamoDbProperties.HedgingProperties;
+
+public class ReadHedgerTest {
+    private static final HedgingProperties HEDGING = new HedgingProperties(true, 0.95, Duration.ofMillis(5), 0.1, 20, 1000);
+
+    @Test
+    void shouldReturnReadWithoutHedgingWhenDisabled() throws Exception {
+        ReadHedger hedger = new ReadHedger(null, null);
+
+        assertEquals("result", hedger.read(() -> "result"));
+        assertEquals(0, hedger.hedgeCount());
+    }
+
+    @Test
+    void shouldNotHedgeBeforeEnoughReadsAreObserved() throws Exception {
+        ReadHedger hedger = new ReadHedger(Duration.ofSeconds(5), HEDGING);
+
+        assertEquals("slow", hedger.read(() -> {
+            Thread.sleep(50);
+            return "slow";
+        }));
+        assertEquals(0, hedger.hedgeCount());
+    }
+
+    @Test
+    void shouldHedgeSlowReadOnceDelayIsLearnt() throws Exception {
+        ReadHedger hedger = new ReadHedger(Duration.ofSeconds(5), HEDGING);
+        for (int i = 0; i < 20; i++) {
+            hedger.read(() -> "fast");
+        }
+        assertEquals(Duration.ofMillis(5), hedger.hedgeDelay());
+
+        // First attempt stalls, the hedge answers straight away
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch stalled = new CountDownLatch(1);
+        long start = System.nanoTime();
+        String result = hedger.read(() -> {
+            if (attempts.getAndIncrement() == 0) {
+                stalled.await();
+                return "stalled";
+            }
+            return "hedged";
+        });
+
+        assertEquals("hedged", result);
+        assertEquals(1, hedger.hedgeCount());
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(1)) < 0);
+    }
+
+    @Test
+    void shouldCapHedgeRate() throws Exception {
+        ReadHedger hedger = new ReadHedger(Duration.ofSeconds(5), HEDGING);
+        for (int i = 0; i < 20; i++) {
+            hedger.read(() -> "fast");
+        }
+
+        // Twenty reads at a 10% rate earn two hedges
+        for (int i = 0; i < 4; i++) {
+            hedger.read(() -> {
+                Thread.sleep(20);
+                return "slow";
+            });
+        }
+        assertEquals(2, hedger.hedgeCount());
+    }
+
+    @Test
+    void shouldFailReadsPastDeadline() {
+        ReadHedger hedger = new ReadHedger(Duration.ofMillis(100), HEDGING);
+
+        assertThrows(TimeoutException.class, () -> hedger.read(() -> {
+            Thread.sleep(10_000);
+            return "late";
+        }));
+    }
+
+    @Test
+    void shouldRethrowFailureOfRead() {
+        ReadHedger hedger = new ReadHedger(Duration.ofSeconds(5), HEDGING);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> hedger.read(() -> {
+            throw new IllegalStateException("failed");
+        }));
+        assertEquals("failed", exception.getMessage());
+    }
+}
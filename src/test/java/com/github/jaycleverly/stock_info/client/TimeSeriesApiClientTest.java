@@ -6,21 +6,34 @@ import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.configureFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.exactly;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
 
+import java.time.Duration;
+
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import com.github.jaycleverly.stock_info.config.beans.ResilienceConfig;
 import com.github.jaycleverly.stock_info.config.properties.AppApiProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppResilienceProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppResilienceProperties.BulkheadProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppResilienceProperties.CircuitBreakerProperties;
 import com.github.jaycleverly.stock_info.exception.TimeSeriesApiException;
 import com.github.tomakehurst.wiremock.WireMockServer;
 
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+
 public class TimeSeriesApiClientTest {
     private static final String MOCK_API_URL = "http://localhost:%d/mock_url&symbol=%s&apikey=%s";
     private static final String MOCK_API_TOKEN = "mockToken";
     private static final String MOCK_STOCK = "MOCK";
+    private static final String MOCK_PATH = String.format("/mock_url&symbol=%s&apikey=%s", MOCK_STOCK, MOCK_API_TOKEN);
+    private static final Duration MOCK_READ_TIMEOUT = Duration.ofMillis(500);
 
     private WireMockServer wireMockServer;
     private AppApiProperties apiProperties;
@@ -34,9 +47,11 @@ public class TimeSeriesApiClientTest {
 
         apiProperties = new AppApiProperties(
             String.format(MOCK_API_URL, wireMockServer.port(), "%s", "%s"),
-            MOCK_API_TOKEN
+            MOCK_API_TOKEN,
+            Duration.ofSeconds(1),
+            MOCK_READ_TIMEOUT
         );
-        timeSeriesApiClient = new TimeSeriesApiClient(apiProperties);
+        timeSeriesApiClient = new TimeSeriesApiClient(apiProperties, circuitBreaker());
     }
 
     @AfterEach
@@ -64,9 +79,11 @@ public class TimeSeriesApiClientTest {
 
         apiProperties = new AppApiProperties(
             String.format(MOCK_API_URL, wireMockServer.port(), "%s", "%s"),
-            ""
+            "",
+            null,
+            null
         );
-        timeSeriesApiClient = new TimeSeriesApiClient(apiProperties);
+        timeSeriesApiClient = new TimeSeriesApiClient(apiProperties, circuitBreaker());
 
         TimeSeriesApiException exception = assertThrows(TimeSeriesApiException.class, () -> timeSeriesApiClient.getDailyTimeSeries(MOCK_STOCK));
         assertEquals(String.format("Encountered a 4xx error when getting records for MOCK!", MOCK_STOCK), exception.getMessage());
@@ -104,4 +121,50 @@ public class TimeSeriesApiClientTest {
         TimeSeriesApiException exception = assertThrows(TimeSeriesApiException.class, () -> timeSeriesApiClient.getDailyTimeSeries(MOCK_STOCK));
         assertEquals(String.format("Error when getting API response for symbol %s!", MOCK_STOCK), exception.getMessage());
     }
+
+    @Test
+    void shouldThrowExceptionOnSlowResponse() {
+        stubFor(get(urlPathEqualTo(MOCK_PATH))
+            .willReturn(aResponse()
+                .withStatus(200)
+                .withFixedDelay((int) MOCK_READ_TIMEOUT.toMillis() * 4)
+                .withBody("{}")));
+
+        TimeSeriesApiException exception = assertThrows(TimeSeriesApiException.class, () -> timeSeriesApiClient.getDailyTimeSeries(MOCK_STOCK));
+        assertEquals(500, exception.getStatusCode());
+    }
+
+    @Test
+    void shouldFailFastOnceCircuitIsOpen() {
+        stubFor(get(urlPathEqualTo(MOCK_PATH))
+            .willReturn(aResponse()
+                .withStatus(502)));
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals(502, assertThrows(TimeSeriesApiException.class, () -> timeSeriesApiClient.getDailyTimeSeries(MOCK_STOCK)).getStatusCode());
+        }
+        TimeSeriesApiException exception = assertThrows(TimeSeriesApiException.class, () -> timeSeriesApiClient.getDailyTimeSeries(MOCK_STOCK));
+        assertEquals(503, exception.getStatusCode());
+        verify(exactly(2), getRequestedFor(urlPathEqualTo(MOCK_PATH)));
+    }
+
+    @Test
+    void shouldNotOpenCircuitOnClientErrors() {
+        stubFor(get(urlPathEqualTo(MOCK_PATH))
+            .willReturn(aResponse()
+                .withStatus(200)
+                .withBody("{\"Error Message\": \"Invalid API call.\"}")));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(404, assertThrows(TimeSeriesApiException.class, () -> timeSeriesApiClient.getDailyTimeSeries(MOCK_STOCK)).getStatusCode());
+        }
+        verify(exactly(3), getRequestedFor(urlPathEqualTo(MOCK_PATH)));
+    }
+
+    // Opens once both calls of a two call window fail
+    private static CircuitBreaker circuitBreaker() {
+        CircuitBreakerProperties breaker = new CircuitBreakerProperties(50, 100, Duration.ofSeconds(5), 2, 2, Duration.ofMinutes(1));
+        BulkheadProperties bulkhead = new BulkheadProperties(1, Duration.ZERO);
+        return new ResilienceConfig().upstreamApiCircuitBreaker(new AppResilienceProperties(breaker, breaker, bulkhead, bulkhead));
+    }
 }
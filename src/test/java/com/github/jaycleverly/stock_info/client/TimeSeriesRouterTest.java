@@ -0,0 +1,166 @@
+package com.github.jaycleverly.stock_info.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.jaycleverly.stock_info.config.properties.AppUpstreamProperties;
+import com.github.jaycleverly.stock_info.exception.TimeSeriesApiException;
+
+public class TimeSeriesRouterTest {
+    private static final String MOCK_STOCK = "MOCK";
+
+    private final OffsetClock clock = new OffsetClock();
+
+    /**
+     * The system clock moved on by a settable offset, so quotas and rate limits can be reset without waiting
+     */
+    private static class OffsetClock extends Clock {
+        private volatile long offsetMillis;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(System.currentTimeMillis() + offsetMillis);
+        }
+    }
+
+    /**
+     * A local provider answering with its name, or failing with a set status, after a set delay
+     */
+    private static class StubProvider implements TimeSeriesProvider {
+        private final String name;
+        private volatile int failureStatus;
+        private volatile long delayMillis;
+        private volatile int calls;
+
+        StubProvider(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public String getDailyTimeSeries(String symbol) {
+            calls++;
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failureStatus != 0) {
+                throw new TimeSeriesApiException(String.format("%s failed!", name), failureStatus, null);
+            }
+            return name;
+        }
+    }
+
+    @Test
+    void shouldFailOverAndThenPreferWorkingProvider() {
+        StubProvider primary = new StubProvider("primary");
+        StubProvider secondary = new StubProvider("secondary");
+        TimeSeriesRouter router = router(Map.of(), primary, secondary);
+        primary.failureStatus = 502;
+
+        assertEquals("secondary", router.getDailyTimeSeries(MOCK_STOCK));
+        // The failure penalty puts the failing provider behind the working one
+        assertEquals("secondary", router.getDailyTimeSeries(MOCK_STOCK));
+        assertEquals(1, primary.calls);
+        assertEquals(2, secondary.calls);
+    }
+
+    @Test
+    void shouldPreferFasterProvider() {
+        StubProvider slow = new StubProvider("slow");
+        StubProvider fast = new StubProvider("fast");
+        slow.delayMillis = 30;
+        TimeSeriesRouter router = router(Map.of(), slow, fast);
+
+        // Each is tried once while unmeasured
+        assertEquals("slow", router.getDailyTimeSeries(MOCK_STOCK));
+        assertEquals("fast", router.getDailyTimeSeries(MOCK_STOCK));
+        for (int i = 0; i < 5; i++) {
+            assertEquals("fast", router.getDailyTimeSeries(MOCK_STOCK));
+        }
+        assertEquals(1, slow.calls);
+    }
+
+    @Test
+    void shouldSkipProviderOnceDailyQuotaIsUsed() {
+        StubProvider limited = new StubProvider("limited");
+        StubProvider spare = new StubProvider("spare");
+        spare.delayMillis = 30;
+        TimeSeriesRouter router = router(Map.of("limited", 2), limited, spare);
+
+        assertEquals("limited", router.getDailyTimeSeries(MOCK_STOCK));
+        assertEquals("spare", router.getDailyTimeSeries(MOCK_STOCK));
+        // Under the low quota share with half used, so tried after the slower provider with quota to spare
+        assertEquals("spare", router.getDailyTimeSeries(MOCK_STOCK));
+        spare.failureStatus = 502;
+        assertEquals("limited", router.getDailyTimeSeries(MOCK_STOCK));
+        assertEquals(502, assertThrows(TimeSeriesApiException.class, () -> router.getDailyTimeSeries(MOCK_STOCK)).getStatusCode());
+
+        clock.offsetMillis = Duration.ofDays(1).toMillis();
+        assertEquals("limited", router.getDailyTimeSeries(MOCK_STOCK));
+    }
+
+    @Test
+    void shouldSkipRateLimitedProviderForAWhile() {
+        StubProvider limited = new StubProvider("limited");
+        TimeSeriesRouter router = router(Map.of(), limited);
+        limited.failureStatus = 429;
+
+        assertEquals(429, assertThrows(TimeSeriesApiException.class, () -> router.getDailyTimeSeries(MOCK_STOCK)).getStatusCode());
+        limited.failureStatus = 0;
+        TimeSeriesApiException exception = assertThrows(TimeSeriesApiException.class, () -> router.getDailyTimeSeries(MOCK_STOCK));
+        assertEquals(429, exception.getStatusCode());
+        assertEquals(1, limited.calls);
+
+        clock.offsetMillis = Duration.ofMinutes(61).toMillis();
+        assertEquals("limited", router.getDailyTimeSeries(MOCK_STOCK));
+    }
+
+    @Test
+    void shouldPassOnFailureSharedByEveryProvider() {
+        StubProvider first = new StubProvider("first");
+        StubProvider second = new StubProvider("second");
+        TimeSeriesRouter router = router(Map.of(), first, second);
+        first.failureStatus = 404;
+        second.failureStatus = 404;
+
+        assertEquals(404, assertThrows(TimeSeriesApiException.class, () -> router.getDailyTimeSeries(MOCK_STOCK)).getStatusCode());
+        assertEquals(1, first.calls);
+        assertEquals(1, second.calls);
+
+        second.failureStatus = 500;
+        assertEquals(503, assertThrows(TimeSeriesApiException.class, () -> router.getDailyTimeSeries(MOCK_STOCK)).getStatusCode());
+    }
+
+    private TimeSeriesRouter router(Map<String, Integer> dailyQuotas, TimeSeriesProvider... providers) {
+        AppUpstreamProperties properties = new AppUpstreamProperties(dailyQuotas, List.of(), 0.2, Duration.ofSeconds(5), Duration.ofHours(1), 0.6);
+        return new TimeSeriesRouter(properties, List.of(providers), clock);
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.jaycleverly.stock_info.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class ConsistentHashRingTest {
+    private static final List<String> MEMBERS = List.of("http://a:8080", "http://b:8080", "http://c:8080");
+    private static final int KEYS = 30_000;
+
+    @Test
+    void shouldAgreeOnOwnersWhateverTheMemberOrder() {
+        ConsistentHashRing ring = new ConsistentHashRing(MEMBERS, 128);
+        ConsistentHashRing reordered = new ConsistentHashRing(MEMBERS.reversed(), 128);
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(ring.ownerOf("SYM" + i), reordered.ownerOf("SYM" + i));
+        }
+    }
+
+    @Test
+    void shouldSpreadKeysEvenly() {
+        ConsistentHashRing ring = new ConsistentHashRing(MEMBERS, 128);
+        Map<String, Integer> owned = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            owned.merge(ring.ownerOf("SYM" + i), 1, Integer::sum);
+        }
+
+        for (String member : MEMBERS) {
+            double share = owned.get(member) / (double) KEYS;
+            assertTrue(Math.abs(share - 1.0 / 3) < 0.05, String.format("%s owns %.3f of keys", member, share));
+        }
+    }
+
+    @Test
+    void shouldOnlyMoveKeysToAddedMember() {
+        ConsistentHashRing ring = new ConsistentHashRing(MEMBERS, 128);
+        ConsistentHashRing grown = new ConsistentHashRing(List.of("http://a:8080", "http://b:8080", "http://c:8080", "http://d:8080"), 128);
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String before = ring.ownerOf("SYM" + i);
+            String after = grown.ownerOf("SYM" + i);
+            if (!before.equals(after)) {
+                assertEquals("http://d:8080", after);
+                moved++;
+            }
+        }
+        // About a quarter, where rehashing modulo the member count would move three quarters
+        double movedShare = moved / (double) KEYS;
+        assertTrue(movedShare > 0.15 && movedShare < 0.35, String.format("%.3f of keys moved", movedShare));
+    }
+
+    @Test
+    void shouldRejectEmptyRing() {
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of(), 128));
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(MEMBERS, 0));
+    }
+}
@@ -0,0 +1,226 @@
+package com.github.jaycleverly.stock_info.cluster;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.DelegatingServletOutputStream;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.github.jaycleverly.stock_info.config.properties.AppClusterProperties;
+import com.github.jaycleverly.stock_info.controller.StockMetricsController;
+import com.github.jaycleverly.stock_info.controller.StockScreenerController;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.http.Fault;
+
+import jakarta.servlet.ServletOutputStream;
+
+public class SymbolRoutingInterceptorTest {
+    private static final String SELF = "http://localhost:1";
+
+    private WireMockServer owner;
+    private String ownerUrl;
+    private SymbolRoutingInterceptor interceptor;
+
+    @BeforeEach
+    void setup() {
+        owner = new WireMockServer(options().dynamicPort());
+        owner.start();
+        ownerUrl = String.format("http://localhost:%d", owner.port());
+        interceptor = newInterceptor(AppClusterProperties.Routing.FORWARD);
+    }
+
+    @AfterEach
+    void cleanup() {
+        owner.stop();
+    }
+
+    private SymbolRoutingInterceptor newInterceptor(AppClusterProperties.Routing routing) {
+        return new SymbolRoutingInterceptor(new AppClusterProperties(
+            true, SELF, List.of(SELF, ownerUrl), 128, routing, Duration.ofMillis(200), Duration.ofSeconds(2), Duration.ofSeconds(10)));
+    }
+
+    @Test
+    void shouldServeOwnedStocksLocally() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(stockRequest(symbolOwnedBy(SELF)), response, metricsHandler()));
+        assertEquals(0, owner.getAllServeEvents().size());
+    }
+
+    @Test
+    void shouldForwardToOwnerAndRelayResponse() throws Exception {
+        String symbol = symbolOwnedBy(ownerUrl);
+        owner.stubFor(get(urlPathEqualTo("/stocks/" + symbol)).willReturn(aResponse()
+            .withStatus(200)
+            .withHeader(HttpHeaders.CONTENT_TYPE, "application/json")
+            .withHeader(HttpHeaders.ETAG, "\"v1\"")
+            .withBody("{\"owned\": true}")));
+        MockHttpServletRequest request = stockRequest(symbol);
+        request.setQueryString("outputSize=full");
+        request.addHeader(HttpHeaders.ACCEPT, "application/json");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"v0\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(interceptor.preHandle(request, response, metricsHandler()));
+
+        assertEquals(200, response.getStatus());
+        assertEquals("\"v1\"", response.getHeader(HttpHeaders.ETAG));
+        assertArrayEquals("{\"owned\": true}".getBytes(), response.getContentAsByteArray());
+        owner.verify(getRequestedFor(urlEqualTo("/stocks/" + symbol + "?outputSize=full"))
+            .withHeader(HttpHeaders.ACCEPT, equalTo("application/json"))
+            .withHeader(HttpHeaders.IF_NONE_MATCH, equalTo("\"v0\""))
+            .withHeader(SymbolRoutingInterceptor.FORWARDED_BY_HEADER, equalTo(SELF)));
+    }
+
+    @Test
+    void shouldRelayOwnerErrors() throws Exception {
+        String symbol = symbolOwnedBy(ownerUrl);
+        owner.stubFor(get(urlPathEqualTo("/stocks/" + symbol)).willReturn(aResponse().withStatus(404)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(interceptor.preHandle(stockRequest(symbol), response, metricsHandler()));
+        assertEquals(404, response.getStatus());
+    }
+
+    @Test
+    void shouldServeForwardedRequestsWhereTheyLand() throws Exception {
+        MockHttpServletRequest request = stockRequest(symbolOwnedBy(ownerUrl));
+        request.addHeader(SymbolRoutingInterceptor.FORWARDED_BY_HEADER, "http://elsewhere:8080");
+
+        assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), metricsHandler()));
+        assertEquals(0, owner.getAllServeEvents().size());
+    }
+
+    @Test
+    void shouldRedirectToOwner() throws Exception {
+        String symbol = symbolOwnedBy(ownerUrl);
+        MockHttpServletRequest request = stockRequest(symbol);
+        request.setQueryString("from=2025-01-01");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(newInterceptor(AppClusterProperties.Routing.REDIRECT).preHandle(request, response, metricsHandler()));
+        assertEquals(307, response.getStatus());
+        assertEquals(ownerUrl + "/stocks/" + symbol + "?from=2025-01-01", response.getHeader(HttpHeaders.LOCATION));
+    }
+
+    @Test
+    void shouldServeLocallyWhileOwnerIsDown() throws Exception {
+        String symbol = symbolOwnedBy(ownerUrl);
+        owner.stop();
+
+        assertTrue(interceptor.preHandle(stockRequest(symbol), new MockHttpServletResponse(), metricsHandler()));
+        // Not tried again until it has been down for a while
+        assertTrue(interceptor.preHandle(stockRequest(symbol), new MockHttpServletResponse(), metricsHandler()));
+    }
+
+    @Test
+    void shouldServeLocallyWithCleanResponseWhenOwnerFailsBeforeCommit() throws Exception {
+        String symbol = symbolOwnedBy(ownerUrl);
+        owner.stubFor(get(urlPathEqualTo("/stocks/" + symbol)).willReturn(aResponse()
+            .withHeader(HttpHeaders.ETAG, "\"v1\"")
+            .withFault(Fault.MALFORMED_RESPONSE_CHUNK)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(stockRequest(symbol), response, metricsHandler()));
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void shouldAbandonResponseWhenOwnerFailsAfterCommit() throws Exception {
+        String symbol = symbolOwnedBy(ownerUrl);
+        owner.stubFor(get(urlPathEqualTo("/stocks/" + symbol)).willReturn(aResponse().withFault(Fault.MALFORMED_RESPONSE_CHUNK)));
+        // The container commits the status as soon as it is set
+        MockHttpServletResponse response = new MockHttpServletResponse() {
+            @Override
+            public void setStatus(int status) {
+                super.setStatus(status);
+                setCommitted(true);
+            }
+        };
+
+        assertFalse(interceptor.preHandle(stockRequest(symbol), response, metricsHandler()));
+    }
+
+    @Test
+    void shouldNotMarkOwnerDownWhenClientGoesAway() throws Exception {
+        String symbol = symbolOwnedBy(ownerUrl);
+        owner.stubFor(get(urlPathEqualTo("/stocks/" + symbol)).willReturn(aResponse().withStatus(200).withBody("{\"owned\": true}")));
+        MockHttpServletResponse disconnected = new MockHttpServletResponse() {
+            @Override
+            public ServletOutputStream getOutputStream() {
+                return new DelegatingServletOutputStream(OutputStream.nullOutputStream()) {
+                    @Override
+                    public void write(byte[] bytes, int offset, int length) throws IOException {
+                        throw new IOException("Broken pipe");
+                    }
+                };
+            }
+        };
+
+        assertFalse(interceptor.preHandle(stockRequest(symbol), disconnected, metricsHandler()));
+        // The owner is still forwarded to
+        assertFalse(interceptor.preHandle(stockRequest(symbol), new MockHttpServletResponse(), metricsHandler()));
+        assertEquals(2, owner.getAllServeEvents().size());
+    }
+
+    @Test
+    void shouldNotRouteOtherEndpoints() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/stocks/screener");
+
+        assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(),
+            new HandlerMethod(new Object(), Object.class.getMethod("toString")) {
+                @Override
+                public Class<?> getBeanType() {
+                    return StockScreenerController.class;
+                }
+            }));
+    }
+
+    private String symbolOwnedBy(String member) {
+        return IntStream.range(0, 1000)
+            .mapToObj(i -> "SYM" + i)
+            .filter(symbol -> interceptor.ownerOf(symbol).equals(member))
+            .findFirst()
+            .get();
+    }
+
+    private static MockHttpServletRequest stockRequest(String symbol) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/stocks/" + symbol);
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("symbol", symbol.toLowerCase()));
+        return request;
+    }
+
+    private static HandlerMethod metricsHandler() throws NoSuchMethodException {
+        return new HandlerMethod(new Object(), Object.class.getMethod("toString")) {
+            @Override
+            public Class<?> getBeanType() {
+                return StockMetricsController.class;
+            }
+        };
+    }
+}
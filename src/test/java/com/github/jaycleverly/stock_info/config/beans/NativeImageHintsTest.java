@@ -0,0 +1,35 @@
+package com.github.jaycleverly.stock_info.config.beans;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+
+public class NativeImageHintsTest {
+    private final RuntimeHints hints = new RuntimeHints();
+
+    @Test
+    void shouldRegisterMetricsModel() {
+        new NativeImageHints.Registrar().registerHints(hints, getClass().getClassLoader());
+
+        assertTrue(RuntimeHintsPredicates.reflection()
+            .onType(DailyStockMetrics.class)
+            .withMemberCategory(MemberCategory.INVOKE_PUBLIC_METHODS)
+            .test(hints));
+    }
+
+    @Test
+    void shouldRegisterMessagePackBuffers() {
+        new NativeImageHints.Registrar().registerHints(hints, getClass().getClassLoader());
+
+        assertTrue(RuntimeHintsPredicates.reflection()
+            .onType(TypeReference.of("org.msgpack.core.buffer.MessageBufferU"))
+            .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)
+            .test(hints));
+    }
+}
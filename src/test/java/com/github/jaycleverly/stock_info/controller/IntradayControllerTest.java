@@ -0,0 +1,57 @@
+package com.github.jaycleverly.stock_info.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.github.jaycleverly.stock_info.exception.ClientErrorException;
+import com.github.jaycleverly.stock_info.service.IntradayService;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = IntradayController.class)
+public class IntradayControllerTest {
+    private static final byte[] MOCK_JSON_RESPONSE = "MOCK_JSON_RESPONSE".getBytes();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    IntradayService intradayServiceMock;
+
+    @Test
+    void shouldReturnBarsOfUpperCaseSymbol() throws Exception {
+        when(intradayServiceMock.produceIntraday(eq("IBM"), eq("1min"))).thenReturn(MOCK_JSON_RESPONSE);
+
+        mockMvc.perform(get("/stocks/ibm/intraday?interval=1min"))
+            .andExpect(status().isOk())
+            .andExpect(content().bytes(MOCK_JSON_RESPONSE));
+    }
+
+    @Test
+    void shouldDefaultToFiveMinuteBars() throws Exception {
+        when(intradayServiceMock.produceIntraday(eq("IBM"), eq("5min"))).thenReturn(MOCK_JSON_RESPONSE);
+
+        mockMvc.perform(get("/stocks/IBM/intraday"))
+            .andExpect(status().isOk())
+            .andExpect(content().bytes(MOCK_JSON_RESPONSE));
+    }
+
+    @Test
+    void shouldReturn4xxStatusCode() throws Exception {
+        when(intradayServiceMock.produceIntraday(any(), any()))
+            .thenThrow(new ClientErrorException(null, HttpStatus.BAD_REQUEST, null));
+
+        mockMvc.perform(get("/stocks/IBM/intraday?interval=2min"))
+            .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.jaycleverly.stock_info.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.github.jaycleverly.stock_info.exception.ClientErrorException;
+import com.github.jaycleverly.stock_info.repository.MetricsScanFilter;
+import com.github.jaycleverly.stock_info.serializer.ExportFormat;
+import com.github.jaycleverly.stock_info.service.MetricsExportService;
+
+@WebMvcTest(controllers = MetricsExportController.class)
+public class MetricsExportControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    MetricsExportService metricsExportServiceMock;
+
+    @Test
+    void shouldStreamExportAsAttachment() throws Exception {
+        when(metricsExportServiceMock.export(
+                eq(new MetricsScanFilter("IB", LocalDate.of(2024, 1, 1), null)), eq(ExportFormat.CSV), any()))
+            .thenAnswer(invocation -> {
+                invocation.getArgument(2, MetricsExportService.Destination.class).open().write("symbol,date\n".getBytes());
+                return 0L;
+            });
+
+        mockMvc.perform(get("/stocks/export?symbolPrefix=ib&from=2024-01-01&format=csv"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Content-Type", "text/csv"))
+            .andExpect(header().string("Content-Disposition", "attachment; filename=\"stock-metrics.csv\""))
+            .andExpect(content().string("symbol,date\n"));
+    }
+
+    @Test
+    void shouldExportEverythingAsNdjsonByDefault() throws Exception {
+        mockMvc.perform(get("/stocks/export"))
+            .andExpect(status().isOk());
+
+        verify(metricsExportServiceMock).export(eq(new MetricsScanFilter(null, null, null)), eq(ExportFormat.NDJSON), any());
+    }
+
+    @Test
+    void shouldRejectUnknownFormat() throws Exception {
+        mockMvc.perform(get("/stocks/export?format=parquet"))
+            .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(metricsExportServiceMock);
+    }
+
+    @Test
+    void shouldReturn429WhileExportsAreAtCapacity() throws Exception {
+        when(metricsExportServiceMock.export(any(), any(), any()))
+            .thenThrow(new ClientErrorException("Busy", HttpStatus.TOO_MANY_REQUESTS, null));
+
+        mockMvc.perform(get("/stocks/export"))
+            .andExpect(status().isTooManyRequests());
+    }
+}
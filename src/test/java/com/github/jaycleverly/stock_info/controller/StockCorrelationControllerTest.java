@@ -0,0 +1,59 @@
+package com.github.jaycleverly.stock_info.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.github.jaycleverly.stock_info.exception.ClientErrorException;
+import com.github.jaycleverly.stock_info.service.CorrelationService;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = StockCorrelationController.class)
+public class StockCorrelationControllerTest {
+    private static final byte[] MOCK_JSON_RESPONSE = "MOCK_JSON_RESPONSE".getBytes();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    CorrelationService correlationServiceMock;
+
+    @Test
+    void shouldReturnCorrelation() throws Exception {
+        when(correlationServiceMock.produceCorrelation(List.of("IBM", "AAPL"), LocalDate.of(2025, 1, 1), LocalDate.of(2025, 2, 1)))
+            .thenReturn(MOCK_JSON_RESPONSE);
+
+        mockMvc.perform(get("/stocks/correlation?symbols=IBM,AAPL&from=2025-01-01&to=2025-02-01"))
+            .andExpect(status().isOk())
+            .andExpect(content().bytes(MOCK_JSON_RESPONSE));
+    }
+
+    @Test
+    void shouldReturn4xxStatusCode() throws Exception {
+        when(correlationServiceMock.produceCorrelation(anyList(), any(), eq(LocalDate.now())))
+            .thenThrow(new ClientErrorException(null, HttpStatus.NOT_FOUND, null));
+
+        mockMvc.perform(get("/stocks/correlation?symbols=IBM,AAPL&from=2025-01-01"))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldRequireStartDate() throws Exception {
+        mockMvc.perform(get("/stocks/correlation?symbols=IBM,AAPL"))
+            .andExpect(status().isBadRequest());
+    }
+}
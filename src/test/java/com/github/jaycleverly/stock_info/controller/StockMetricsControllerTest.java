@@ -1,7 +1,17 @@
 package com.github.jaycleverly.stock_info.controller;
 
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.LocalDate;
+
+import java.util.Optional;
+
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -11,15 +21,22 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import com.github.jaycleverly.stock_info.exception.ClientErrorException;
 import com.github.jaycleverly.stock_info.exception.InternalServerErrorException;
+import com.github.jaycleverly.stock_info.model.Resolution;
+import com.github.jaycleverly.stock_info.serializer.ResponseFormat;
+import com.github.jaycleverly.stock_info.serializer.StockMetricsSerializer;
+import com.github.jaycleverly.stock_info.service.MetricsVersionService;
 import com.github.jaycleverly.stock_info.service.StockAnalysisService;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = StockMetricsController.class)
 public class StockMetricsControllerTest {
     private static final String MOCK_INPUT_SYMBOL = "MOCK_SYMBOL"; 
-    private static final String MOCK_JSON_RESPONSE = "MOCK_JSON_RESPONSE";
+    private static final byte[] MOCK_JSON_RESPONSE = "MOCK_JSON_RESPONSE".getBytes();
+    private static final String MOCK_ETAG = "\"mock-etag\"";
 
     @Autowired
     private MockMvc mockMvc;
@@ -27,30 +44,176 @@ public class StockMetricsControllerTest {
     @MockitoBean
     StockAnalysisService stockAnalysisMock;
 
+    @MockitoBean
+    MetricsVersionService metricsVersionMock;
+
     @Test
     void shouldReturn2xxStatusCode() throws Exception {
-        when(stockAnalysisMock.produceAnalysis(MOCK_INPUT_SYMBOL, false))
+        when(stockAnalysisMock.produceAnalysis(MOCK_INPUT_SYMBOL, Resolution.DAILY, false, null, ResponseFormat.JSON))
             .thenReturn(MOCK_JSON_RESPONSE);
 
         mockMvc.perform(get("/stocks/" + MOCK_INPUT_SYMBOL))
             .andExpect(status().isOk());
+        verify(metricsVersionMock).recordRequest(MOCK_INPUT_SYMBOL);
     }
 
     @Test
     void shouldReturn4xxStatusCode() throws Exception {
-        when(stockAnalysisMock.produceAnalysis(MOCK_INPUT_SYMBOL, false))
+        when(stockAnalysisMock.produceAnalysis(MOCK_INPUT_SYMBOL, Resolution.DAILY, false, null, ResponseFormat.JSON))
             .thenThrow(new ClientErrorException(null, HttpStatus.NOT_FOUND, null));
         
         mockMvc.perform(get("/stocks/" + MOCK_INPUT_SYMBOL))
             .andExpect(status().isNotFound());
+        verify(metricsVersionMock, never()).recordRequest(anyString());
     }
 
     @Test
     void shouldReturn5xxStatusCode() throws Exception {
-        when(stockAnalysisMock.produceAnalysis(MOCK_INPUT_SYMBOL, false))
+        when(stockAnalysisMock.produceAnalysis(MOCK_INPUT_SYMBOL, Resolution.DAILY, false, null, ResponseFormat.JSON))
             .thenThrow(new InternalServerErrorException(null, HttpStatus.INTERNAL_SERVER_ERROR, null));
         
         mockMvc.perform(get("/stocks/" + MOCK_INPUT_SYMBOL))
             .andExpect(status().isInternalServerError());
     }
+
+    @Test
+    void shouldReturn2xxStatusCodeForDateRange() throws Exception {
+        when(stockAnalysisMock.produceAnalysis(MOCK_INPUT_SYMBOL, Resolution.DAILY, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 2, 1), null, ResponseFormat.JSON))
+            .thenReturn(MOCK_JSON_RESPONSE);
+
+        mockMvc.perform(get("/stocks/" + MOCK_INPUT_SYMBOL + "?from=2025-01-01&to=2025-02-01"))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void shouldReturn4xxStatusCodeForRangeWithoutStart() throws Exception {
+        mockMvc.perform(get("/stocks/" + MOCK_INPUT_SYMBOL + "?to=2025-02-01"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldReturnCacheHeaders() throws Exception {
+        when(stockAnalysisMock.produceAnalysis(MOCK_INPUT_SYMBOL, Resolution.DAILY, false, null, ResponseFormat.JSON))
+            .thenReturn(MOCK_JSON_RESPONSE);
+        when(metricsVersionMock.latestDate(MOCK_INPUT_SYMBOL)).thenReturn(Optional.of(LocalDate.of(2025, 9, 9)));
+        when(metricsVersionMock.etag(MOCK_INPUT_SYMBOL, LocalDate.of(2025, 9, 9), "compact_JSON_identity")).thenReturn(MOCK_ETAG);
+
+        mockMvc.perform(get("/stocks/" + MOCK_INPUT_SYMBOL))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", MOCK_ETAG))
+            .andExpect(header().string("Last-Modified", "Tue, 09 Sep 2025 20:00:00 GMT"))
+            .andExpect(header().exists("Cache-Control"));
+    }
+
+    @Test
+    void shouldCacheCurrentMetricsUntilNextClose() throws Exception {
+        when(stockAnalysisMock.produceAnalysis(MOCK_INPUT_SYMBOL, Resolution.DAILY, false, null, ResponseFormat.JSON))
+            .thenReturn(MOCK_JSON_RESPONSE);
+        when(metricsVersionMock.latestDate(MOCK_INPUT_SYMBOL)).thenReturn(Optional.of(LocalDate.now()));
+
+        mockMvc.perform(get("/stocks/" + MOCK_INPUT_SYMBOL))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Cache-Control", matchesPattern("max-age=\\d+, public")));
+    }
+
+    @Test
+    void shouldNotCacheStaleMetricsServedAsFallback() throws Exception {
+        when(stockAnalysisMock.produceAnalysis(MOCK_INPUT_SYMBOL, Resolution.DAILY, false, null, ResponseFormat.JSON))
+            .thenReturn(MOCK_JSON_RESPONSE);
+        when(metricsVersionMock.latestDate(MOCK_INPUT_SYMBOL)).thenReturn(Optional.of(LocalDate.now().minusDays(5)));
+
+        mockMvc.perform(get("/stocks/" + MOCK_INPUT_SYMBOL))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Cache-Control", "no-cache"));
+    }
+
+    @Test
+    void shouldReturn304WithoutProducingAnalysis() throws Exception {
+        when(metricsVersionMock.freshLatestDate(MOCK_INPUT_SYMBOL)).thenReturn(Optional.of(LocalDate.now()));
+        when(metricsVersionMock.etag(MOCK_INPUT_SYMBOL, LocalDate.now(), "compact_JSON_identity")).thenReturn(MOCK_ETAG);
+
+        mockMvc.perform(get("/stocks/" + MOCK_INPUT_SYMBOL).header("If-None-Match", MOCK_ETAG))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string("ETag", MOCK_ETAG));
+
+        verify(stockAnalysisMock, never()).produceAnalysis(anyString(), any(Resolution.class), anyBoolean(), any(), any());
+    }
+
+    @Test
+    void shouldReturn2xxStatusCodeForChangedEtag() throws Exception {
+        when(stockAnalysisMock.produceAnalysis(MOCK_INPUT_SYMBOL, Resolution.DAILY, false, null, ResponseFormat.JSON))
+            .thenReturn(MOCK_JSON_RESPONSE);
+        when(metricsVersionMock.freshLatestDate(MOCK_INPUT_SYMBOL)).thenReturn(Optional.of(LocalDate.now()));
+        when(metricsVersionMock.latestDate(MOCK_INPUT_SYMBOL)).thenReturn(Optional.of(LocalDate.now()));
+        when(metricsVersionMock.etag(MOCK_INPUT_SYMBOL, LocalDate.now(), "compact_JSON_identity")).thenReturn(MOCK_ETAG);
+
+        mockMvc.perform(get("/stocks/" + MOCK_INPUT_SYMBOL).header("If-None-Match", "\"outdated\""))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void shouldReturnNegotiatedBinaryFormat() throws Exception {
+        when(stockAnalysisMock.produceAnalysis(MOCK_INPUT_SYMBOL, Resolution.DAILY, false, null, ResponseFormat.CBOR))
+            .thenReturn(MOCK_JSON_RESPONSE);
+
+        mockMvc.perform(get("/stocks/" + MOCK_INPUT_SYMBOL).header("Accept", "application/cbor"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Content-Type", "application/cbor"));
+    }
+
+    @Test
+    void shouldReturnGzipWhenAccepted() throws Exception {
+        when(stockAnalysisMock.produceAnalysis(MOCK_INPUT_SYMBOL, Resolution.DAILY, false, null, ResponseFormat.JSON))
+            .thenReturn(MOCK_JSON_RESPONSE);
+
+        mockMvc.perform(get("/stocks/" + MOCK_INPUT_SYMBOL).header("Accept-Encoding", "gzip, deflate"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Content-Encoding", "gzip"))
+            .andExpect(content().bytes(StockMetricsSerializer.gzip(MOCK_JSON_RESPONSE)));
+    }
+
+    @Test
+    void shouldReturnRequestedResolution() throws Exception {
+        when(stockAnalysisMock.produceAnalysis(MOCK_INPUT_SYMBOL, Resolution.WEEKLY, true, null, ResponseFormat.JSON))
+            .thenReturn(MOCK_JSON_RESPONSE);
+        when(metricsVersionMock.latestDate(MOCK_INPUT_SYMBOL)).thenReturn(Optional.of(LocalDate.now()));
+        when(metricsVersionMock.etag(MOCK_INPUT_SYMBOL, LocalDate.now(), "full_JSON_identity_WEEKLY")).thenReturn(MOCK_ETAG);
+
+        mockMvc.perform(get("/stocks/" + MOCK_INPUT_SYMBOL + "?outputSize=full&resolution=Weekly"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", MOCK_ETAG))
+            .andExpect(content().bytes(MOCK_JSON_RESPONSE));
+    }
+
+    @Test
+    void shouldReturn4xxStatusCodeForUnknownResolution() throws Exception {
+        mockMvc.perform(get("/stocks/" + MOCK_INPUT_SYMBOL + "?resolution=hourly"))
+            .andExpect(status().isBadRequest());
+
+        verify(stockAnalysisMock, never()).produceAnalysis(anyString(), any(Resolution.class), anyBoolean(), any(), any());
+    }
+
+    @Test
+    void shouldPassPointBudgetAndTagItsVariant() throws Exception {
+        when(stockAnalysisMock.produceAnalysis(MOCK_INPUT_SYMBOL, Resolution.DAILY, false, 20, ResponseFormat.JSON))
+            .thenReturn(MOCK_JSON_RESPONSE);
+        when(metricsVersionMock.latestDate(MOCK_INPUT_SYMBOL)).thenReturn(Optional.of(LocalDate.now()));
+        when(metricsVersionMock.etag(MOCK_INPUT_SYMBOL, LocalDate.now(), "compact_JSON_identity_max20")).thenReturn(MOCK_ETAG);
+
+        mockMvc.perform(get("/stocks/" + MOCK_INPUT_SYMBOL + "?maxPoints=20"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", MOCK_ETAG));
+    }
+
+    @Test
+    void shouldReturn4xxStatusCodeForTooSmallPointBudget() throws Exception {
+        mockMvc.perform(get("/stocks/" + MOCK_INPUT_SYMBOL + "?maxPoints=1"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldReturn4xxStatusCodeForUnsupportedFormat() throws Exception {
+        mockMvc.perform(get("/stocks/" + MOCK_INPUT_SYMBOL).header("Accept", "text/csv"))
+            .andExpect(status().isNotAcceptable());
+    }
 }
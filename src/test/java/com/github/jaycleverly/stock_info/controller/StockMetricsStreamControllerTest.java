@@ -0,0 +1,56 @@
+package com.github.jaycleverly.stock_info.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.github.jaycleverly.stock_info.config.beans.AppConfig;
+import com.github.jaycleverly.stock_info.exception.ClientErrorException;
+import com.github.jaycleverly.stock_info.push.MetricsUpdateHub;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = StockMetricsStreamController.class)
+@Import(AppConfig.class)
+public class StockMetricsStreamControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    MetricsUpdateHub metricsUpdateHubMock;
+
+    @Test
+    void shouldStartEventStream() throws Exception {
+        when(metricsUpdateHubMock.subscribe(anyList(), any())).thenReturn(mock(MetricsUpdateHub.Subscription.class));
+
+        mockMvc.perform(get("/stocks/stream?symbols=IBM,AAPL"))
+            .andExpect(status().isOk())
+            .andExpect(request().asyncStarted());
+
+        verify(metricsUpdateHubMock).subscribe(eq(List.of("IBM", "AAPL")), any());
+    }
+
+    @Test
+    void shouldRejectInvalidSubscription() throws Exception {
+        when(metricsUpdateHubMock.subscribe(anyList(), any()))
+            .thenThrow(new ClientErrorException("Too many symbols", HttpStatus.BAD_REQUEST, null));
+
+        mockMvc.perform(get("/stocks/stream?symbols=IBM"))
+            .andExpect(status().isBadRequest());
+    }
+}
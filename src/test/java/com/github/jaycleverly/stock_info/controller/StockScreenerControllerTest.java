@@ -0,0 +1,51 @@
+package com.github.jaycleverly.stock_info.controller;
+
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.github.jaycleverly.stock_info.exception.ClientErrorException;
+import com.github.jaycleverly.stock_info.service.ScreenerService;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = StockScreenerController.class)
+public class StockScreenerControllerTest {
+    private static final byte[] MOCK_JSON_RESPONSE = "MOCK_JSON_RESPONSE".getBytes();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    ScreenerService screenerServiceMock;
+
+    @Test
+    void shouldReturnScreen() throws Exception {
+        when(screenerServiceMock.produceScreen(eq(Map.of("momentum", "5..", "volatility", "..2", "sort", "-momentum"))))
+            .thenReturn(MOCK_JSON_RESPONSE);
+
+        mockMvc.perform(get("/stocks/screener?momentum=5..&volatility=..2&sort=-momentum"))
+            .andExpect(status().isOk())
+            .andExpect(content().bytes(MOCK_JSON_RESPONSE));
+    }
+
+    @Test
+    void shouldReturn4xxStatusCode() throws Exception {
+        when(screenerServiceMock.produceScreen(anyMap()))
+            .thenThrow(new ClientErrorException(null, HttpStatus.BAD_REQUEST, null));
+
+        mockMvc.perform(get("/stocks/screener?unknown=1.."))
+            .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.jaycleverly.stock_info.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.github.jaycleverly.stock_info.exception.ClientErrorException;
+import com.github.jaycleverly.stock_info.service.SymbolSearchService;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = SymbolSearchController.class)
+public class SymbolSearchControllerTest {
+    private static final byte[] MOCK_JSON_RESPONSE = "MOCK_JSON_RESPONSE".getBytes();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    SymbolSearchService symbolSearchServiceMock;
+
+    @Test
+    void shouldReturnMatches() throws Exception {
+        when(symbolSearchServiceMock.produceSearch(eq("inter bus"), eq(5))).thenReturn(MOCK_JSON_RESPONSE);
+
+        mockMvc.perform(get("/stocks/search?q=inter bus&limit=5"))
+            .andExpect(status().isOk())
+            .andExpect(content().bytes(MOCK_JSON_RESPONSE));
+    }
+
+    @Test
+    void shouldReturn4xxStatusCode() throws Exception {
+        when(symbolSearchServiceMock.produceSearch(any(), any()))
+            .thenThrow(new ClientErrorException(null, HttpStatus.BAD_REQUEST, null));
+
+        mockMvc.perform(get("/stocks/search?q=ib&limit=0"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldRequireQuery() throws Exception {
+        mockMvc.perform(get("/stocks/search"))
+            .andExpect(status().isBadRequest());
+    }
+}
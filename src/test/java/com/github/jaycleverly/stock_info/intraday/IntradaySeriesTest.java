@@ -0,0 +1,171 @@
+package com.github.jaycleverly.stock_info.intraday;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.jaycleverly.stock_info.model.DailyStockRecord;
+import com.github.jaycleverly.stock_info.model.IntradayInterval;
+import com.github.jaycleverly.stock_info.model.IntradaySnapshot;
+
+public class IntradaySeriesTest {
+    private static final String MOCK_STOCK = "MOCK";
+    private static final LocalDate SESSION = LocalDate.of(2025, 8, 27);
+    private static final double TOLERANCE = 1e-9;
+
+    @Test
+    void shouldKeepRollingMetricsEqualToRecalculatingThem() {
+        IntradaySeries series = new IntradaySeries(78, 20, 10, 10);
+        Random random = new Random(42);
+        int bars = 78;
+        double[] closes = new double[bars];
+        double[] highs = new double[bars];
+        double[] lows = new double[bars];
+        long[] volumes = new long[bars];
+        double price = 100;
+        for (int i = 0; i < bars; i++) {
+            price *= 1 + (random.nextDouble() - 0.5) / 50;
+            closes[i] = price;
+            highs[i] = price + random.nextDouble();
+            lows[i] = price - random.nextDouble();
+            volumes[i] = 1000 + random.nextInt(5000);
+            series.accept(minute(SESSION, 9, 30 + 5 * i), price, highs[i], lows[i], price, volumes[i]);
+        }
+
+        IntradaySnapshot snapshot = series.snapshot(MOCK_STOCK, IntradayInterval.FIVE_MINUTES);
+        assertEquals(bars, snapshot.size());
+        for (int i = 0; i < bars; i++) {
+            assertMetric(i >= 19 ? average(closes, i - 19, i) : Double.NaN, snapshot.movingAverage()[i]);
+            assertMetric(i >= 10 ? volatility(closes, i, 10) : Double.NaN, snapshot.volatility()[i]);
+            assertMetric(i >= 10 ? ((closes[i] - closes[i - 10]) / closes[i - 10]) * 100 : Double.NaN, snapshot.momentum()[i]);
+            assertMetric(vwap(highs, lows, closes, volumes, i), snapshot.vwap()[i]);
+        }
+    }
+
+    @Test
+    void shouldOverwriteOldestBarsOnceRingIsFull() {
+        IntradaySeries series = new IntradaySeries(5, 2, 2, 2);
+        for (int i = 0; i < 8; i++) {
+            series.accept(minute(SESSION, 10, i), 10 + i, 10 + i, 10 + i, 10 + i, 100);
+        }
+
+        IntradaySnapshot snapshot = series.snapshot(MOCK_STOCK, IntradayInterval.ONE_MINUTE);
+        assertEquals(5, series.capacity());
+        assertEquals(5, snapshot.size());
+        assertArrayEquals(new double[] {13, 14, 15, 16, 17}, snapshot.close());
+        assertEquals(minute(SESSION, 10, 7), series.latestMinute());
+        // Windows reach back past the overwritten bars correctly
+        assertEquals(16.5, snapshot.movingAverage()[4], TOLERANCE);
+        assertEquals(((17.0 - 15.0) / 15.0) * 100, snapshot.momentum()[4], TOLERANCE);
+    }
+
+    @Test
+    void shouldHoldAtLeastOneBarMoreThanLongestWindow() {
+        assertEquals(21, new IntradaySeries(10, 20, 5, 5).capacity());
+    }
+
+    @Test
+    void shouldIgnoreBarsNoNewerThanLatest() {
+        IntradaySeries series = new IntradaySeries(10, 2, 2, 2);
+        series.accept(minute(SESSION, 10, 0), 10, 10, 10, 10, 100);
+        series.accept(minute(SESSION, 10, 0), 11, 11, 11, 11, 100);
+        series.accept(minute(SESSION, 9, 59), 12, 12, 12, 12, 100);
+
+        assertEquals(1, series.size());
+        assertEquals(10, series.snapshot(MOCK_STOCK, IntradayInterval.ONE_MINUTE).close()[0]);
+    }
+
+    @Test
+    void shouldRestartMetricsAndKeepFinishedSessionOnNewDay() {
+        IntradaySeries series = new IntradaySeries(10, 2, 2, 2);
+        // The first session is joined part way through, the second is seen from its first bar
+        series.accept(minute(SESSION.minusDays(1), 15, 58), 50, 50, 50, 50, 100);
+        series.accept(minute(SESSION.minusDays(1), 15, 59), 51, 51, 51, 51, 100);
+        series.accept(minute(SESSION, 9, 30), 10, 12, 9, 11, 100);
+        series.accept(minute(SESSION, 9, 31), 11, 15, 10, 14, 100);
+
+        IntradaySnapshot snapshot = series.snapshot(MOCK_STOCK, IntradayInterval.ONE_MINUTE);
+        assertEquals(2, snapshot.size());
+        assertTrue(Double.isNaN(snapshot.momentum()[1]));
+        assertEquals(12.5, snapshot.movingAverage()[1], TOLERANCE);
+        assertEquals(Optional.empty(), series.completedSession(MOCK_STOCK, SESSION));
+
+        series.accept(minute(SESSION.plusDays(1), 9, 30), 14, 14, 14, 14, 100);
+        DailyStockRecord finished = series.completedSession(MOCK_STOCK, SESSION.plusDays(1)).orElseThrow();
+        assertEquals(SESSION, finished.getDate());
+        assertEquals(10, finished.getOpen());
+        assertEquals(15, finished.getHigh());
+        assertEquals(9, finished.getLow());
+        assertEquals(14, finished.getClose());
+
+        series.markCompacted(SESSION);
+        assertEquals(Optional.empty(), series.completedSession(MOCK_STOCK, SESSION.plusDays(1)));
+        // The current session is complete once its day has passed
+        assertEquals(SESSION.plusDays(1), series.completedSession(MOCK_STOCK, SESSION.plusDays(2)).orElseThrow().getDate());
+    }
+
+    @Test
+    void shouldNotCompleteSessionWithMissedBars() {
+        IntradaySeries series = new IntradaySeries(10, 2, 2, 2);
+        series.accept(minute(SESSION.minusDays(1), 15, 59), 50, 50, 50, 50, 100);
+        series.accept(minute(SESSION, 9, 30), 10, 10, 10, 10, 100);
+        series.missedBars();
+        series.accept(minute(SESSION, 11, 0), 11, 11, 11, 11, 100);
+
+        assertEquals(Optional.empty(), series.completedSession(MOCK_STOCK, SESSION.plusDays(1)));
+    }
+
+    private static long minute(LocalDate date, int hour, int minute) {
+        return LocalDateTime.of(date.getYear(), date.getMonth(), date.getDayOfMonth(), 0, 0)
+            .plusMinutes(hour * 60L + minute)
+            .toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    private static void assertMetric(double expected, double actual) {
+        if (Double.isNaN(expected)) {
+            assertTrue(Double.isNaN(actual));
+        } else {
+            assertEquals(expected, actual, TOLERANCE);
+        }
+    }
+
+    private static double average(double[] values, int first, int last) {
+        double sum = 0;
+        for (int i = first; i <= last; i++) {
+            sum += values[i];
+        }
+        return sum / (last - first + 1);
+    }
+
+    private static double volatility(double[] closes, int last, int period) {
+        double[] returns = new double[period];
+        for (int i = 0; i < period; i++) {
+            int bar = last - period + 1 + i;
+            returns[i] = (closes[bar] - closes[bar - 1]) / closes[bar - 1];
+        }
+        double mean = average(returns, 0, period - 1);
+        double squares = 0;
+        for (double value : returns) {
+            squares += (value - mean) * (value - mean);
+        }
+        return Math.sqrt(squares / period) * 100;
+    }
+
+    private static double vwap(double[] highs, double[] lows, double[] closes, long[] volumes, int last) {
+        double priceVolume = 0;
+        long volume = 0;
+        for (int i = 0; i <= last; i++) {
+            priceVolume += ((highs[i] + lows[i] + closes[i]) / 3) * volumes[i];
+            volume += volumes[i];
+        }
+        return priceVolume / volume;
+    }
+}
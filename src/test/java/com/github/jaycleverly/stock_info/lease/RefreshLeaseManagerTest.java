@@ -0,0 +1,169 @@
+package com.github.jaycleverly.stock_info.lease;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.jaycleverly.stock_info.client.DynamoClient;
+import com.github.jaycleverly.stock_info.config.properties.AppRefreshLeaseProperties;
+import com.github.jaycleverly.stock_info.exception.DynamoClientException;
+import com.github.jaycleverly.stock_info.model.RefreshLease;
+
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+
+public class RefreshLeaseManagerTest {
+    private static final String TABLE_NAME = "StockRefreshLeases";
+    private static final AppRefreshLeaseProperties PROPERTIES =
+        new AppRefreshLeaseProperties(true, TABLE_NAME, Duration.ofSeconds(30), Duration.ofMillis(100), Duration.ofMillis(10));
+
+    private final Map<String, RefreshLease> leases = new ConcurrentHashMap<>();
+    private final List<RefreshLeaseManager> managers = new ArrayList<>();
+    private final OffsetClock clock = new OffsetClock();
+    private DynamoClient dynamoClientMock;
+
+    /**
+     * The system clock moved on by a settable offset, so leases can be expired without waiting
+     */
+    private static class OffsetClock extends Clock {
+        private volatile long offsetMillis;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(System.currentTimeMillis() + offsetMillis);
+        }
+    }
+
+    @BeforeEach
+    void setup() {
+        // Evaluates the few conditions the manager writes with, as the table would
+        dynamoClientMock = mock(DynamoClient.class);
+        when(dynamoClientMock.getItem(eq(TABLE_NAME), any(Key.class), eq(RefreshLease.class)))
+            .thenAnswer(invocation -> leases.get(invocation.getArgument(1, Key.class).partitionKeyValue().s()));
+        when(dynamoClientMock.putItemIf(eq(TABLE_NAME), any(RefreshLease.class), any(Expression.class), eq(RefreshLease.class)))
+            .thenAnswer(invocation -> {
+                RefreshLease next = invocation.getArgument(1);
+                Expression condition = invocation.getArgument(2);
+                synchronized (leases) {
+                    RefreshLease current = leases.get(next.getSymbol());
+                    boolean holds = condition.expression().startsWith("attribute_not_exists")
+                        ? current == null
+                        : current != null
+                            && current.getToken().toString().equals(condition.expressionValues().get(":token").n())
+                            && (!condition.expressionValues().containsKey(":owner")
+                                || current.getOwner().equals(condition.expressionValues().get(":owner").s()));
+                    if (holds) {
+                        leases.put(next.getSymbol(), next);
+                    }
+                    return holds;
+                }
+            });
+    }
+
+    @AfterEach
+    void cleanup() {
+        managers.forEach(RefreshLeaseManager::shutdown);
+    }
+
+    private RefreshLeaseManager newManager(AppRefreshLeaseProperties properties) {
+        RefreshLeaseManager manager = new RefreshLeaseManager(properties, dynamoClientMock, clock);
+        managers.add(manager);
+        return manager;
+    }
+
+    @Test
+    void shouldGrantLeaseToOneInstanceAtATime() {
+        RefreshLeaseManager first = newManager(PROPERTIES);
+        RefreshLeaseManager second = newManager(PROPERTIES);
+
+        RefreshLeaseManager.Lease lease = first.tryAcquire("IBM").get();
+        assertEquals(1, lease.token());
+        assertTrue(second.tryAcquire("IBM").isEmpty());
+        assertTrue(first.tryAcquire("IBM").isEmpty());
+        assertTrue(second.tryAcquire("AAPL").isPresent());
+        assertTrue(lease.confirm());
+    }
+
+    @Test
+    void shouldTakeOverExpiredLeaseWithHigherToken() {
+        RefreshLeaseManager crashed = newManager(PROPERTIES);
+        RefreshLeaseManager survivor = newManager(PROPERTIES);
+        RefreshLeaseManager.Lease stalled = crashed.tryAcquire("IBM").get();
+
+        clock.offsetMillis = PROPERTIES.duration().toMillis() + 1;
+        RefreshLeaseManager.Lease takenOver = survivor.tryAcquire("IBM").get();
+
+        assertEquals(2, takenOver.token());
+        assertFalse(stalled.confirm());
+        assertTrue(takenOver.confirm());
+    }
+
+    @Test
+    void shouldReleaseLeaseOnClose() {
+        RefreshLeaseManager first = newManager(PROPERTIES);
+        RefreshLeaseManager second = newManager(PROPERTIES);
+        first.tryAcquire("IBM").get().close();
+
+        assertTrue(second.awaitRelease("IBM"));
+        assertEquals(2, second.tryAcquire("IBM").get().token());
+    }
+
+    @Test
+    void shouldStopWaitingForHeldLease() {
+        RefreshLeaseManager first = newManager(PROPERTIES);
+        RefreshLeaseManager second = newManager(PROPERTIES);
+        first.tryAcquire("IBM").get();
+
+        assertFalse(second.awaitRelease("IBM"));
+    }
+
+    @Test
+    void shouldRefreshWithoutLeaseWhileTableUnavailable() {
+        when(dynamoClientMock.getItem(anyString(), any(Key.class), eq(RefreshLease.class)))
+            .thenThrow(new DynamoClientException("Exception!", null));
+
+        RefreshLeaseManager.Lease lease = newManager(PROPERTIES).tryAcquire("IBM").get();
+        assertEquals(0, lease.token());
+        assertTrue(lease.confirm());
+    }
+
+    @Test
+    void shouldGrantEveryLeaseWhenDisabled() {
+        RefreshLeaseManager manager = newManager(new AppRefreshLeaseProperties(false, TABLE_NAME, null, null, null));
+
+        assertTrue(manager.tryAcquire("IBM").isPresent());
+        assertTrue(manager.tryAcquire("IBM").get().confirm());
+        assertTrue(manager.awaitRelease("IBM"));
+        verifyNoInteractions(dynamoClientMock);
+    }
+}
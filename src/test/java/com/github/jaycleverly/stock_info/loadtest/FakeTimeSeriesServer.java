@@ -0,0 +1,229 @@
+package com.github.jaycleverly.stock_info.loadtest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Stand-in for the Alpha Vantage daily time series api, serving a synthetic price series for any symbol.
+ *
+ * Closes follow a geometric brownian motion seeded by the symbol, so a symbol always gets the same series, ending
+ * today so stored metrics are not stale. Responses are delayed by a fixed latency plus exponentially distributed
+ * jitter. Symbols starting with UNKNOWN get the api's error message, and calls beyond the quota within a window get
+ * its rate limit message, both with a 200 status as the real api returns them.
+ */
+public class FakeTimeSeriesServer implements AutoCloseable {
+    public static final String UNKNOWN_PREFIX = "UNKNOWN";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final double DAILY_DRIFT = 0.0003;
+    private static final double DAILY_VOLATILITY = 0.02;
+
+    private final HttpServer server;
+    private final Settings settings;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private long quotaWindowStart = System.nanoTime();
+    private int quotaWindowCalls;
+
+    /**
+     * Behaviour of the fake api
+     *
+     * @param days the number of daily records in each series
+     * @param latency the fixed delay of every response
+     * @param jitter the mean of the exponentially distributed delay added to every response
+     * @param quota the calls allowed in each quota window, zero for no limit
+     * @param quotaWindow the length of a quota window
+     * @param errorRate the fraction of calls answered with a 500
+     * @param seed the seed mixed into every symbol's series
+     */
+    public record Settings(int days,
+                           Duration latency,
+                           Duration jitter,
+                           int quota,
+                           Duration quotaWindow,
+                           double errorRate,
+                           long seed) {}
+
+    /**
+     * Creates a new fake api, not yet serving
+     *
+     * @param port the port to listen on, zero for any free port
+     * @param settings the behaviour of the api
+     * @throws IOException if the port cannot be bound
+     */
+    public FakeTimeSeriesServer(int port, Settings settings) throws IOException {
+        this.settings = settings;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/query", this::handle);
+    }
+
+    /**
+     * Starts serving requests
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * @return the api url in the format of the app's external api url property
+     */
+    public String apiUrl() {
+        return String.format("http://localhost:%d/query?function=TIME_SERIES_DAILY&symbol=%%s&apikey=%%s", server.getAddress().getPort());
+    }
+
+    /**
+     * @return counts of the calls made to the api
+     */
+    public Map<String, Long> counts() {
+        return Map.of("requests", requests.get(), "throttled", throttled.get(), "failed", failed.get());
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    /**
+     * Builds the response of the api for a symbol's series
+     *
+     * @param symbol the stock symbol
+     * @param days the number of daily records
+     * @param seed the seed mixed into the symbol's series
+     * @return the series in the api's json format, most recent record first
+     */
+    static String timeSeries(String symbol, int days, long seed) {
+        Random random = new Random(seed * 31 + symbol.hashCode());
+        LocalDate[] dates = tradingDays(days);
+        double close = 20 + random.nextDouble() * 480;
+
+        ObjectNode[] records = new ObjectNode[days];
+        for (int i = 0; i < days; i++) {
+            double open = close;
+            close = open * Math.exp(DAILY_DRIFT - DAILY_VOLATILITY * DAILY_VOLATILITY / 2 + DAILY_VOLATILITY * random.nextGaussian());
+            double high = Math.max(open, close) * (1 + Math.abs(random.nextGaussian()) * DAILY_VOLATILITY / 4);
+            double low = Math.min(open, close) * (1 - Math.abs(random.nextGaussian()) * DAILY_VOLATILITY / 4);
+
+            ObjectNode record = OBJECT_MAPPER.createObjectNode();
+            record.put("1. open", String.format("%.4f", open));
+            record.put("2. high", String.format("%.4f", high));
+            record.put("3. low", String.format("%.4f", low));
+            record.put("4. close", String.format("%.4f", close));
+            record.put("5. volume", String.valueOf(100_000 + random.nextInt(10_000_000)));
+            records[i] = record;
+        }
+
+        ObjectNode root = OBJECT_MAPPER.createObjectNode();
+        ObjectNode metaData = root.putObject("Meta Data");
+        metaData.put("1. Information", "Daily Prices (open, high, low, close) and Volumes");
+        metaData.put("2. Symbol", symbol);
+        metaData.put("3. Last Refreshed", dates[dates.length - 1].toString());
+        metaData.put("4. Output Size", "Compact");
+        metaData.put("5. Time Zone", "US/Eastern");
+
+        // The api lists the most recent record first
+        ObjectNode timeSeries = root.putObject("Time Series (Daily)");
+        for (int i = dates.length - 1; i >= 0; i--) {
+            timeSeries.set(dates[i].toString(), records[i]);
+        }
+        return root.toString();
+    }
+
+    // Weekdays before today, oldest first, always ending with today so the series is never stale
+    private static LocalDate[] tradingDays(int days) {
+        LocalDate[] dates = new LocalDate[days];
+        LocalDate date = LocalDate.now();
+        for (int i = days - 1; i >= 0; i--) {
+            dates[i] = date;
+            do {
+                date = date.minusDays(1);
+            } while (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY);
+        }
+        return dates;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try (exchange) {
+            delay();
+            String symbol = queryParameters(exchange).getOrDefault("symbol", "");
+
+            if (!withinQuota()) {
+                throttled.incrementAndGet();
+                respond(exchange, 200, "{\"Information\": \"Thank you for using Alpha Vantage! You have exceeded the rate limit.\"}");
+            } else if (ThreadLocalRandom.current().nextDouble() < settings.errorRate()) {
+                failed.incrementAndGet();
+                respond(exchange, 500, "{}");
+            } else if (symbol.isBlank() || symbol.startsWith(UNKNOWN_PREFIX)) {
+                respond(exchange, 200, "{\"Error Message\": \"Invalid API call. Please retry or visit the documentation for TIME_SERIES_DAILY.\"}");
+            } else {
+                respond(exchange, 200, timeSeries(symbol, settings.days(), settings.seed()));
+            }
+        }
+    }
+
+    private synchronized boolean withinQuota() {
+        if (settings.quota() <= 0) {
+            return true;
+        }
+        long now = System.nanoTime();
+        if (now - quotaWindowStart >= settings.quotaWindow().toNanos()) {
+            quotaWindowStart = now;
+            quotaWindowCalls = 0;
+        }
+        return ++quotaWindowCalls <= settings.quota();
+    }
+
+    private void delay() {
+        long nanos = settings.latency().toNanos()
+            + (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * settings.jitter().toNanos());
+        try {
+            Thread.sleep(Duration.ofNanos(nanos));
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, String> queryParameters(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                int separator = parameter.indexOf('=');
+                if (separator > 0) {
+                    parameters.put(
+                        URLDecoder.decode(parameter.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return parameters;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.jaycleverly.stock_info.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.jaycleverly.stock_info.client.TimeSeriesApiClient;
+import com.github.jaycleverly.stock_info.config.properties.AppApiProperties;
+import com.github.jaycleverly.stock_info.exception.TimeSeriesApiException;
+import com.github.jaycleverly.stock_info.model.DailyStockRecord;
+import com.github.jaycleverly.stock_info.parser.StockRecordsParser;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+
+public class FakeTimeSeriesServerTest {
+    private FakeTimeSeriesServer server;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    void shouldServeSeriesTheAppCanParse() throws Exception {
+        List<DailyStockRecord> records = StockRecordsParser.parse(client(0).getDailyTimeSeries("IBM"));
+
+        assertEquals(30, records.size());
+        assertEquals("IBM", records.getFirst().getSymbol());
+        assertEquals(LocalDate.now(), records.getLast().getDate());
+        for (int i = 0; i < records.size(); i++) {
+            DailyStockRecord record = records.get(i);
+            assertTrue(record.getLow() <= Math.min(record.getOpen(), record.getClose()));
+            assertTrue(record.getHigh() >= Math.max(record.getOpen(), record.getClose()));
+            if (i > 0) {
+                assertTrue(records.get(i - 1).getDate().isBefore(record.getDate()));
+                assertEquals(records.get(i - 1).getClose(), record.getOpen());
+            }
+            if (i < records.size() - 1) {
+                assertNotEquals(DayOfWeek.SATURDAY, record.getDate().getDayOfWeek());
+                assertNotEquals(DayOfWeek.SUNDAY, record.getDate().getDayOfWeek());
+            }
+        }
+    }
+
+    @Test
+    void shouldServeSameSeriesForSymbol() {
+        assertEquals(FakeTimeSeriesServer.timeSeries("IBM", 30, 1), FakeTimeSeriesServer.timeSeries("IBM", 30, 1));
+        assertNotEquals(FakeTimeSeriesServer.timeSeries("IBM", 30, 1), FakeTimeSeriesServer.timeSeries("AAPL", 30, 1));
+        assertNotEquals(FakeTimeSeriesServer.timeSeries("IBM", 30, 1), FakeTimeSeriesServer.timeSeries("IBM", 30, 2));
+    }
+
+    @Test
+    void shouldRejectUnknownSymbol() throws IOException {
+        TimeSeriesApiException exception = assertThrows(TimeSeriesApiException.class,
+            () -> client(0).getDailyTimeSeries(FakeTimeSeriesServer.UNKNOWN_PREFIX + "1"));
+        assertEquals(404, exception.getStatusCode());
+    }
+
+    @Test
+    void shouldRateLimitCallsBeyondQuota() throws Exception {
+        TimeSeriesApiClient client = client(2);
+        client.getDailyTimeSeries("IBM");
+        client.getDailyTimeSeries("IBM");
+
+        TimeSeriesApiException exception = assertThrows(TimeSeriesApiException.class, () -> client.getDailyTimeSeries("IBM"));
+        assertEquals(429, exception.getStatusCode());
+        assertEquals(3L, server.counts().get("requests"));
+        assertEquals(1L, server.counts().get("throttled"));
+    }
+
+    private TimeSeriesApiClient client(int quota) throws IOException {
+        server = new FakeTimeSeriesServer(0, new FakeTimeSeriesServer.Settings(
+            30, Duration.ZERO, Duration.ZERO, quota, Duration.ofHours(1), 0, 1));
+        server.start();
+        return new TimeSeriesApiClient(new AppApiProperties(server.apiUrl(), "token", null, null), CircuitBreaker.ofDefaults("api"));
+    }
+}
@@ -0,0 +1,191 @@
+package com.github.jaycleverly.stock_info.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import software.amazon.awssdk.core.exception.AbortedException;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.TableDescription;
+import software.amazon.awssdk.services.dynamodb.model.TableStatus;
+
+/**
+ * In-memory stand-in for dynamo, replacing the low-level client so the app's circuit breaker, read deadline and
+ * hedging still run as they would against a real table.
+ *
+ * Supports the calls made through the enhanced client: putting items singly or in batches, describing a table, and paged queries whose key
+ * condition is an equality on the partition key, optionally with a between on the (string) sort key. Every call waits
+ * a fixed latency plus exponentially distributed jitter.
+ */
+public class InMemoryDynamoDbClient implements DynamoDbClient {
+    private static final Pattern EQUAL_CONDITION = Pattern.compile("(#\\w+) = (:\\w+)");
+    private static final Pattern BETWEEN_CONDITION = Pattern.compile("(#\\w+) BETWEEN (:\\w+) AND (:\\w+)");
+
+    private final String partitionKey;
+    private final String sortKey;
+    private final Duration latency;
+    private final Duration jitter;
+    private final Map<String, Map<String, NavigableMap<String, Map<String, AttributeValue>>>> tables = new ConcurrentHashMap<>();
+    private final AtomicLong puts = new AtomicLong();
+    private final AtomicLong batchWrites = new AtomicLong();
+    private final AtomicLong queries = new AtomicLong();
+
+    /**
+     * Creates a new empty stand-in, tables are created on their first put
+     *
+     * @param partitionKey the name of the partition key attribute of every table
+     * @param sortKey the name of the sort key attribute of every table
+     * @param latency the fixed delay of every call
+     * @param jitter the mean of the exponentially distributed delay added to every call
+     */
+    public InMemoryDynamoDbClient(String partitionKey, String sortKey, Duration latency, Duration jitter) {
+        this.partitionKey = partitionKey;
+        this.sortKey = sortKey;
+        this.latency = latency;
+        this.jitter = jitter;
+    }
+
+    /**
+     * @return counts of the calls made to the stand-in, items put in batches are counted as puts
+     */
+    public Map<String, Long> counts() {
+        return Map.of("puts", puts.get(), "batchWrites", batchWrites.get(), "queries", queries.get());
+    }
+
+    @Override
+    public PutItemResponse putItem(PutItemRequest request) {
+        delay();
+        puts.incrementAndGet();
+        Map<String, AttributeValue> item = request.item();
+        partition(request.tableName(), keyValue(item, partitionKey)).put(keyValue(item, sortKey), Map.copyOf(item));
+        return PutItemResponse.builder().build();
+    }
+
+    // Every item is processed, so nothing is ever returned unprocessed
+    @Override
+    public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+        delay();
+        batchWrites.incrementAndGet();
+        request.requestItems().forEach((tableName, writes) -> writes.forEach(write -> {
+            if (write.putRequest() == null) {
+                throw DynamoDbException.builder().message("Only put requests are supported in batches").build();
+            }
+            puts.incrementAndGet();
+            Map<String, AttributeValue> item = write.putRequest().item();
+            partition(tableName, keyValue(item, partitionKey)).put(keyValue(item, sortKey), Map.copyOf(item));
+        }));
+        return BatchWriteItemResponse.builder().unprocessedItems(Map.of()).build();
+    }
+
+    @Override
+    public QueryResponse query(QueryRequest request) {
+        delay();
+        queries.incrementAndGet();
+        String condition = request.keyConditionExpression();
+        Map<String, String> names = request.expressionAttributeNames();
+        Map<String, AttributeValue> values = request.expressionAttributeValues();
+
+        String partitionValue = null;
+        Matcher equal = EQUAL_CONDITION.matcher(condition);
+        while (equal.find()) {
+            if (partitionKey.equals(names.get(equal.group(1)))) {
+                partitionValue = values.get(equal.group(2)).s();
+            }
+        }
+        if (partitionValue == null) {
+            throw DynamoDbException.builder().message(String.format("Unsupported key condition (%s)", condition)).build();
+        }
+
+        NavigableMap<String, Map<String, AttributeValue>> items = partition(request.tableName(), partitionValue);
+        Matcher between = BETWEEN_CONDITION.matcher(condition);
+        if (between.find() && sortKey.equals(names.get(between.group(1)))) {
+            items = items.subMap(values.get(between.group(2)).s(), true, values.get(between.group(3)).s(), true);
+        }
+        if (Boolean.FALSE.equals(request.scanIndexForward())) {
+            items = items.descendingMap();
+        }
+        if (request.hasExclusiveStartKey()) {
+            items = items.tailMap(keyValue(request.exclusiveStartKey(), sortKey), false);
+        }
+
+        int limit = request.limit() != null ? request.limit() : Integer.MAX_VALUE;
+        List<Map<String, AttributeValue>> page = new ArrayList<>();
+        for (Map<String, AttributeValue> item : items.values()) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(item);
+        }
+
+        QueryResponse.Builder response = QueryResponse.builder().items(page).count(page.size()).scannedCount(page.size());
+        if (page.size() == limit && items.size() > limit) {
+            Map<String, AttributeValue> last = page.getLast();
+            response.lastEvaluatedKey(Map.of(partitionKey, last.get(partitionKey), sortKey, last.get(sortKey)));
+        }
+        return response.build();
+    }
+
+    @Override
+    public DescribeTableResponse describeTable(DescribeTableRequest request) {
+        delay();
+        long itemCount = tables.getOrDefault(request.tableName(), Map.of()).values().stream().mapToLong(Map::size).sum();
+        return DescribeTableResponse.builder()
+            .table(TableDescription.builder()
+                .tableName(request.tableName())
+                .tableStatus(TableStatus.ACTIVE)
+                .itemCount(itemCount)
+                .build())
+            .build();
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private NavigableMap<String, Map<String, AttributeValue>> partition(String tableName, String partitionValue) {
+        return tables.computeIfAbsent(tableName, name -> new ConcurrentHashMap<>())
+            .computeIfAbsent(partitionValue, value -> new ConcurrentSkipListMap<>());
+    }
+
+    private static String keyValue(Map<String, AttributeValue> item, String key) {
+        AttributeValue value = item.get(key);
+        if (value == null || value.s() == null) {
+            throw DynamoDbException.builder().message(String.format("Missing string key attribute (%s)", key)).build();
+        }
+        return value.s();
+    }
+
+    // Cancelled reads are interrupted, which the sdk reports as an aborted call
+    private void delay() {
+        long nanos = latency.toNanos() + (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * jitter.toNanos());
+        try {
+            Thread.sleep(Duration.ofNanos(nanos));
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw AbortedException.builder().message("Call was interrupted").cause(exception).build();
+        }
+    }
+}
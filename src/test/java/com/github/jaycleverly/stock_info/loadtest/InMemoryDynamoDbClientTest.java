@@ -0,0 +1,104 @@
+package com.github.jaycleverly.stock_info.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.jaycleverly.stock_info.client.DynamoClient;
+import com.github.jaycleverly.stock_info.config.beans.DynamoDbConfig;
+import com.github.jaycleverly.stock_info.config.properties.DynamoDbProperties;
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+
+public class InMemoryDynamoDbClientTest {
+    private static final String TABLE_NAME = "StockMetrics";
+    private static final LocalDate START = LocalDate.of(2025, 9, 1);
+
+    private InMemoryDynamoDbClient dynamo;
+    private DynamoClient dynamoClient;
+
+    @BeforeEach
+    void setUp() {
+        dynamo = new InMemoryDynamoDbClient("symbol", "date", Duration.ZERO, Duration.ZERO);
+        DynamoDbConfig config = new DynamoDbConfig();
+        dynamoClient = new DynamoClient(
+            DynamoDbEnhancedClient.builder().dynamoDbClient(dynamo).build(),
+            List.of(config.dailyStockMetricsSchema()),
+            CircuitBreaker.ofDefaults("dynamo"),
+            new DynamoDbProperties(null, null, TABLE_NAME, null, Duration.ofSeconds(5), null));
+
+        for (int day = 0; day < 30; day++) {
+            dynamoClient.putItem(TABLE_NAME, metrics("IBM", day), DailyStockMetrics.class);
+        }
+        dynamoClient.putItem(TABLE_NAME, metrics("AAPL", 0), DailyStockMetrics.class);
+    }
+
+    @Test
+    void shouldReadEveryPageOfPartition() {
+        List<DailyStockMetrics> items = dynamoClient.query(
+            TABLE_NAME, QueryConditional.keyEqualTo(Key.builder().partitionValue("IBM").build()), 7, DailyStockMetrics.class);
+
+        assertEquals(30, items.size());
+        assertEquals(START, items.getFirst().getDate());
+        assertEquals(START.plusDays(29), items.getLast().getDate());
+        assertEquals(129.0, items.getLast().getClose());
+    }
+
+    @Test
+    void shouldReadSortKeyRange() {
+        List<DailyStockMetrics> items = dynamoClient.queryBetween(
+            TABLE_NAME, "IBM", START.plusDays(10).toString(), START.plusDays(19).toString(), 100, DailyStockMetrics.class);
+
+        assertEquals(10, items.size());
+        assertEquals(START.plusDays(10), items.getFirst().getDate());
+        assertEquals(START.plusDays(19), items.getLast().getDate());
+    }
+
+    @Test
+    void shouldReadLatestItemsOfPartition() {
+        List<DailyStockMetrics> items = dynamoClient.queryLatest(TABLE_NAME, "IBM", 5, DailyStockMetrics.class);
+
+        assertEquals(5, items.size());
+        assertEquals(START.plusDays(25), items.getFirst().getDate());
+        assertEquals(START.plusDays(29), items.getLast().getDate());
+    }
+
+    @Test
+    void shouldPutItemsInBatches() {
+        List<DailyStockMetrics> items = new ArrayList<>();
+        for (int day = 0; day < 60; day++) {
+            items.add(metrics("MSFT", day));
+        }
+        dynamoClient.batchPutItems(TABLE_NAME, items, DailyStockMetrics.class);
+
+        assertEquals(60, dynamoClient.queryLatest(TABLE_NAME, "MSFT", 100, DailyStockMetrics.class).size());
+        assertEquals(3L, dynamo.counts().get("batchWrites"));
+    }
+
+    @Test
+    void shouldReplaceItemWithSameKey() {
+        DailyStockMetrics replacement = metrics("AAPL", 0);
+        replacement.setClose(1.0);
+        dynamoClient.putItem(TABLE_NAME, replacement, DailyStockMetrics.class);
+
+        List<DailyStockMetrics> items = dynamoClient.query(
+            TABLE_NAME, QueryConditional.keyEqualTo(Key.builder().partitionValue("AAPL").build()), 10, DailyStockMetrics.class);
+        assertEquals(1, items.size());
+        assertEquals(1.0, items.getFirst().getClose());
+        assertEquals(32L, dynamo.counts().get("puts"));
+    }
+
+    private static DailyStockMetrics metrics(String symbol, int day) {
+        return new DailyStockMetrics(symbol, START.plusDays(day), 100.0 + day, 0.5, 101.0, 1.2, 3.0);
+    }
+}
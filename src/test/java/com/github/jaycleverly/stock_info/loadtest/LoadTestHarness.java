@@ -0,0 +1,267 @@
+package com.github.jaycleverly.stock_info.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.jaycleverly.stock_info.StockInfoApplication;
+
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.ResourceInUseException;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+
+/**
+ * Drives an open-model request mix at the app and writes a json report of latency percentiles, throughput and error
+ * rates, for comparing builds. See the README for how to run.
+ *
+ * The app is started in process against a fake Alpha Vantage api and an in-memory (or DynamoDB Local) table, unless
+ * a target url of an already running app is given. Requests start at exponentially distributed intervals whatever
+ * the number outstanding, so a slow app faces a growing queue as it would in production.
+ */
+public class LoadTestHarness {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+        .findAndRegisterModules()
+        .enable(SerializationFeature.INDENT_OUTPUT)
+        .disable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS);
+    private static final String TABLE_NAME = "StockMetrics";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        Files.createDirectories(options.report().toAbsolutePath().getParent());
+
+        try (FakeTimeSeriesServer upstream = new FakeTimeSeriesServer(options.upstreamPort(), options.upstream())) {
+            upstream.start();
+            System.out.println(String.format("Fake api serving at %s", upstream.apiUrl()));
+
+            InMemoryDynamoDbClient dynamo = LoadTestOptions.IN_MEMORY_DYNAMO.equals(options.dynamo())
+                ? new InMemoryDynamoDbClient("symbol", "date", options.dynamoLatency(), options.dynamoJitter())
+                : null;
+            ConfigurableApplicationContext app = options.target() == null ? startApp(options, upstream, dynamo) : null;
+            try {
+                URI target = app != null
+                    ? URI.create(String.format("http://localhost:%d", ((WebServerApplicationContext) app).getWebServer().getPort()))
+                    : options.target();
+                System.out.println(String.format("Driving %s at %.0f requests/s for %s after a %s warm-up",
+                    target, options.rate(), options.duration(), options.warmUp()));
+
+                Instant startedAt = Instant.now();
+                LoadTestResults results = drive(target, options);
+
+                ObjectNode report = OBJECT_MAPPER.createObjectNode();
+                report.put("label", options.label());
+                report.put("startedAt", startedAt.toString());
+                report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+                report.set("options", OBJECT_MAPPER.valueToTree(options));
+                ObjectNode summary = results.summary(options.duration());
+                report.set("results", summary);
+                report.set("upstream", OBJECT_MAPPER.valueToTree(upstream.counts()));
+                if (dynamo != null) {
+                    report.set("dynamo", OBJECT_MAPPER.valueToTree(dynamo.counts()));
+                }
+                if (options.baseline() != null) {
+                    ObjectNode baseline = (ObjectNode) OBJECT_MAPPER.readTree(options.baseline().toFile());
+                    report.put("baseline", baseline.path("label").asText());
+                    report.set("change", LoadTestResults.compare(summary, baseline.path("results")));
+                }
+
+                OBJECT_MAPPER.writeValue(options.report().toFile(), report);
+                System.out.println(OBJECT_MAPPER.writeValueAsString(summary.get("all")));
+                System.out.println(String.format("Report written to %s", options.report().toAbsolutePath()));
+
+            } finally {
+                if (app != null) {
+                    app.close();
+                }
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startApp(LoadTestOptions options,
+                                                           FakeTimeSeriesServer upstream,
+                                                           InMemoryDynamoDbClient dynamo) throws Exception {
+        Path workDirectory = options.report().toAbsolutePath().getParent();
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", 0);
+        properties.put("app.external-api.url", upstream.apiUrl());
+        properties.put("app.external-api.token", "load-test");
+        properties.put("app.payload-store.directory", Files.createTempDirectory(workDirectory, "payload-store").toString());
+        properties.put("app.warm-up.enabled", false);
+        properties.put("app.metrics-repository.type", options.repository());
+        properties.put("app.metrics-repository.directory", Files.createTempDirectory(workDirectory, "metrics-store").toString());
+        // Failures are counted in the report, the app's logs are kept out of the way
+        properties.put("logging.file.name", workDirectory.resolve("app.log").toString());
+        properties.put("logging.threshold.console", "OFF");
+
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(StockInfoApplication.class);
+        if (dynamo != null) {
+            builder.initializers(context -> context.addBeanFactoryPostProcessor(replaceDynamoDbClient(dynamo)));
+        } else {
+            properties.put("aws.dynamodb.endpoint", options.dynamo());
+            createTable(options.dynamo());
+        }
+        // Passed as arguments, default properties would be overridden by application.yml
+        return builder.run(properties.entrySet().stream()
+            .map(property -> String.format("--%s=%s", property.getKey(), property.getValue()))
+            .toArray(String[]::new));
+    }
+
+    // Runs once every configuration class has registered its beans, so the app's client is the one replaced
+    private static BeanFactoryPostProcessor replaceDynamoDbClient(InMemoryDynamoDbClient dynamo) {
+        return beanFactory -> {
+            BeanDefinitionRegistry registry = (BeanDefinitionRegistry) beanFactory;
+            registry.removeBeanDefinition("dynamoDbClient");
+            registry.registerBeanDefinition("dynamoDbClient", new RootBeanDefinition(DynamoDbClient.class, () -> dynamo));
+        };
+    }
+
+    // DynamoDB Local accepts any credentials but the app's default provider still needs some
+    private static void createTable(String endpoint) {
+        System.setProperty("aws.accessKeyId", System.getProperty("aws.accessKeyId", "load-test"));
+        System.setProperty("aws.secretAccessKey", System.getProperty("aws.secretAccessKey", "load-test"));
+
+        try (DynamoDbClient client = DynamoDbClient.builder()
+                .endpointOverride(URI.create(endpoint))
+                .region(Region.EU_WEST_2)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("load-test", "load-test")))
+                .build()) {
+            client.createTable(request -> request
+                .tableName(TABLE_NAME)
+                .billingMode(BillingMode.PAY_PER_REQUEST)
+                .attributeDefinitions(
+                    AttributeDefinition.builder().attributeName("symbol").attributeType(ScalarAttributeType.S).build(),
+                    AttributeDefinition.builder().attributeName("date").attributeType(ScalarAttributeType.S).build())
+                .keySchema(
+                    KeySchemaElement.builder().attributeName("symbol").keyType(KeyType.HASH).build(),
+                    KeySchemaElement.builder().attributeName("date").keyType(KeyType.RANGE).build()));
+        } catch (ResourceInUseException exception) {
+            // Left from a previous run
+        }
+    }
+
+    private static LoadTestResults drive(URI target, LoadTestOptions options) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(REQUEST_TIMEOUT)
+            .build();
+        RequestMix mix = new RequestMix(options);
+        Random arrivals = new Random(options.seed() + 1);
+        LoadTestResults results = new LoadTestResults();
+        List<CompletableFuture<?>> outstanding = new ArrayList<>();
+
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmUp().toNanos();
+        long end = measureFrom + options.duration().toNanos();
+        double meanIntervalNanos = 1e9 / options.rate();
+        long scheduled = start;
+
+        while (scheduled < end) {
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            Request request = mix.next();
+            long intended = scheduled;
+            outstanding.add(client.sendAsync(HttpRequest.newBuilder(target.resolve(request.path()))
+                    .header("Accept", "application/json")
+                    .timeout(REQUEST_TIMEOUT)
+                    .build(), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, failure) -> {
+                    if (intended >= measureFrom) {
+                        results.record(request.scenario(), failure == null ? response.statusCode() : 0, System.nanoTime() - intended);
+                    }
+                }));
+            outstanding.removeIf(CompletableFuture::isDone);
+
+            scheduled += (long) (-Math.log(1 - arrivals.nextDouble()) * meanIntervalNanos);
+        }
+
+        try {
+            CompletableFuture.allOf(outstanding.toArray(CompletableFuture[]::new))
+                .get(REQUEST_TIMEOUT.toSeconds() + 5, TimeUnit.SECONDS);
+        } catch (Exception exception) {
+            // Failed requests are already recorded
+        }
+        return results;
+    }
+
+    private record Request(String scenario, String path) {}
+
+    /**
+     * Picks the scenario and path of each request: hot symbols by a zipf distribution, cold and unknown symbols uniformly
+     */
+    private static class RequestMix {
+        private final LoadTestOptions options;
+        private final Random random;
+        private final double[] hotCumulative;
+
+        RequestMix(LoadTestOptions options) {
+            this.options = options;
+            this.random = new Random(options.seed());
+            this.hotCumulative = new double[options.hotSymbols()];
+            double total = 0;
+            for (int i = 0; i < hotCumulative.length; i++) {
+                total += 1.0 / (i + 1);
+                hotCumulative[i] = total;
+            }
+            for (int i = 0; i < hotCumulative.length; i++) {
+                hotCumulative[i] /= total;
+            }
+        }
+
+        Request next() {
+            double kind = random.nextDouble();
+            String temperature;
+            String symbol;
+            if (kind < options.unknownShare()) {
+                temperature = "unknown";
+                symbol = FakeTimeSeriesServer.UNKNOWN_PREFIX + random.nextInt(1_000_000);
+            } else if (kind < options.unknownShare() + options.hotShare() && hotCumulative.length > 0) {
+                temperature = "hot";
+                int index = Arrays.binarySearch(hotCumulative, random.nextDouble());
+                symbol = String.format("HOT%03d", index >= 0 ? index : Math.min(-index - 1, hotCumulative.length - 1));
+            } else {
+                temperature = "cold";
+                symbol = String.format("COLD%05d", random.nextInt(Math.max(1, options.coldSymbols())));
+            }
+
+            boolean full = random.nextDouble() < options.fullShare();
+            return new Request(
+                temperature + (full ? "-full" : "-compact"),
+                String.format("/stocks/%s?outputSize=%s", symbol, full ? "full" : "compact"));
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.github.jaycleverly.stock_info.loadtest;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * Options of a load test run, read from --name=value arguments
+ *
+ * @param label the name of the build under test, recorded in the report
+ * @param target the url of an already running app to drive, null to start the app in process
+ * @param rate the mean number of requests started per second, regardless of how many are outstanding
+ * @param warmUp how long requests are sent before any are measured
+ * @param duration how long requests are measured for
+ * @param hotSymbols the number of frequently requested symbols, requested with a zipf distribution
+ * @param coldSymbols the number of rarely requested symbols, requested uniformly
+ * @param hotShare the fraction of requests for hot symbols
+ * @param fullShare the fraction of requests for the full output size
+ * @param unknownShare the fraction of requests for symbols the api does not know
+ * @param upstream the behaviour of the fake api
+ * @param upstreamPort the port of the fake api, zero for any free port
+ * @param repository the metrics repository of the app started in process, dynamo or local
+ * @param dynamo "memory" for the in-memory stand-in, otherwise the endpoint of a DynamoDB Local instance
+ * @param dynamoLatency the fixed delay of every call to the in-memory stand-in
+ * @param dynamoJitter the mean exponentially distributed delay added to every call to the in-memory stand-in
+ * @param report the file the json report is written to
+ * @param baseline a previous report to compare against, null for none
+ * @param seed the seed of the request mix
+ */
+public record LoadTestOptions(String label,
+                              URI target,
+                              double rate,
+                              Duration warmUp,
+                              Duration duration,
+                              int hotSymbols,
+                              int coldSymbols,
+                              double hotShare,
+                              double fullShare,
+                              double unknownShare,
+                              FakeTimeSeriesServer.Settings upstream,
+                              int upstreamPort,
+                              String repository,
+                              String dynamo,
+                              Duration dynamoLatency,
+                              Duration dynamoJitter,
+                              Path report,
+                              Path baseline,
+                              long seed) {
+    public static final String IN_MEMORY_DYNAMO = "memory";
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("label", "local");
+        DEFAULTS.put("target", "");
+        DEFAULTS.put("rate", "100");
+        DEFAULTS.put("warm-up", "10s");
+        DEFAULTS.put("duration", "60s");
+        DEFAULTS.put("hot-symbols", "20");
+        DEFAULTS.put("cold-symbols", "2000");
+        DEFAULTS.put("hot-share", "0.8");
+        DEFAULTS.put("full-share", "0.2");
+        DEFAULTS.put("unknown-share", "0");
+        DEFAULTS.put("upstream-port", "0");
+        DEFAULTS.put("upstream-days", "100");
+        DEFAULTS.put("upstream-latency", "150ms");
+        DEFAULTS.put("upstream-jitter", "50ms");
+        DEFAULTS.put("upstream-quota", "0");
+        DEFAULTS.put("upstream-quota-window", "60s");
+        DEFAULTS.put("upstream-error-rate", "0");
+        DEFAULTS.put("repository", "dynamo");
+        DEFAULTS.put("dynamo", IN_MEMORY_DYNAMO);
+        DEFAULTS.put("dynamo-latency", "3ms");
+        DEFAULTS.put("dynamo-jitter", "2ms");
+        DEFAULTS.put("report", "target/load-test/report.json");
+        DEFAULTS.put("baseline", "");
+        DEFAULTS.put("seed", "42");
+    }
+
+    /**
+     * Reads options from arguments, unset options take their defaults
+     *
+     * @param args arguments of the form --name=value
+     * @return the options of the run
+     * @throws IllegalArgumentException if an argument is unknown or malformed
+     */
+    public static LoadTestOptions parse(String... args) {
+        Map<String, String> values = new HashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            String name = arg.startsWith("--") && separator > 2 ? arg.substring(2, separator) : null;
+            if (name == null || !DEFAULTS.containsKey(name)) {
+                throw new IllegalArgumentException(String.format("Unknown argument (%s), options are %s", arg, DEFAULTS));
+            }
+            values.put(name, arg.substring(separator + 1));
+        }
+
+        long seed = value(values, "seed", Long::parseLong);
+        return new LoadTestOptions(
+            values.get("label"),
+            values.get("target").isBlank() ? null : URI.create(values.get("target")),
+            value(values, "rate", Double::parseDouble),
+            value(values, "warm-up", DurationStyle::detectAndParse),
+            value(values, "duration", DurationStyle::detectAndParse),
+            value(values, "hot-symbols", Integer::parseInt),
+            value(values, "cold-symbols", Integer::parseInt),
+            value(values, "hot-share", Double::parseDouble),
+            value(values, "full-share", Double::parseDouble),
+            value(values, "unknown-share", Double::parseDouble),
+            new FakeTimeSeriesServer.Settings(
+                value(values, "upstream-days", Integer::parseInt),
+                value(values, "upstream-latency", DurationStyle::detectAndParse),
+                value(values, "upstream-jitter", DurationStyle::detectAndParse),
+                value(values, "upstream-quota", Integer::parseInt),
+                value(values, "upstream-quota-window", DurationStyle::detectAndParse),
+                value(values, "upstream-error-rate", Double::parseDouble),
+                seed),
+            value(values, "upstream-port", Integer::parseInt),
+            values.get("repository"),
+            values.get("dynamo"),
+            value(values, "dynamo-latency", DurationStyle::detectAndParse),
+            value(values, "dynamo-jitter", DurationStyle::detectAndParse),
+            Path.of(values.get("report")),
+            values.get("baseline").isBlank() ? null : Path.of(values.get("baseline")),
+            seed);
+    }
+
+    private static <T> T value(Map<String, String> values, String name, Function<String, T> parser) {
+        try {
+            return parser.apply(values.get(name).trim());
+        } catch (RuntimeException exception) {
+            throw new IllegalArgumentException(String.format("Invalid value for %s (%s)", name, values.get(name)), exception);
+        }
+    }
+}
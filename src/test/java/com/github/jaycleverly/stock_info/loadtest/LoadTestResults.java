@@ -0,0 +1,150 @@
+package com.github.jaycleverly.stock_info.loadtest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Outcomes of the measured requests of a load test, by scenario.
+ *
+ * Latencies are kept exactly and measured from when a request was scheduled to start rather than when it was sent,
+ * so a stalled app is charged for the requests queued behind it. A request fails if it gets anything but a 2xx or
+ * 304 response, transport failures are recorded with status 0.
+ */
+public class LoadTestResults {
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String ALL_SCENARIOS = "all";
+
+    private final Map<String, Scenario> scenarios = new ConcurrentHashMap<>();
+
+    private static class Scenario {
+        private long[] latencies = new long[1024];
+        private int count;
+        private final Map<Integer, Long> statuses = new TreeMap<>();
+
+        synchronized void record(int status, long latencyNanos) {
+            addLatency(latencyNanos);
+            statuses.merge(status, 1L, Long::sum);
+        }
+
+        synchronized void addTo(Scenario total) {
+            for (int i = 0; i < count; i++) {
+                total.addLatency(latencies[i]);
+            }
+            statuses.forEach((status, requests) -> total.statuses.merge(status, requests, Long::sum));
+        }
+
+        private void addLatency(long latencyNanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+        }
+
+        synchronized ObjectNode summary(Duration measured) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            long failures = statuses.entrySet().stream()
+                .filter(entry -> !isSuccess(entry.getKey()))
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+
+            ObjectNode summary = OBJECT_MAPPER.createObjectNode();
+            summary.put("requests", count);
+            summary.put("throughputPerSecond", count / (measured.toNanos() / 1e9));
+            summary.put("errorRate", count == 0 ? 0 : (double) failures / count);
+            ObjectNode latency = summary.putObject("latencyMillis");
+            latency.put("mean", count == 0 ? 0 : Arrays.stream(sorted).average().orElse(0) / 1e6);
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                latency.put(PERCENTILE_NAMES[i], percentile(sorted, PERCENTILES[i]) / 1e6);
+            }
+            latency.put("max", count == 0 ? 0 : sorted[count - 1] / 1e6);
+            ObjectNode statusCounts = summary.putObject("statuses");
+            statuses.forEach((status, requests) -> statusCounts.put(String.valueOf(status), requests));
+            return summary;
+        }
+    }
+
+    /**
+     * Records the outcome of a request
+     *
+     * @param scenario the kind of request, eg: hot-compact
+     * @param status the response status, 0 if no response was received
+     * @param latencyNanos the time from when the request was scheduled until it completed
+     */
+    public void record(String scenario, int status, long latencyNanos) {
+        scenarios.computeIfAbsent(scenario, name -> new Scenario()).record(status, latencyNanos);
+    }
+
+    /**
+     * Summarises the recorded requests, overall and by scenario
+     *
+     * @param measured the length of the measured period
+     * @return latency percentiles, throughput, error rate and status counts of all requests and each scenario
+     */
+    public ObjectNode summary(Duration measured) {
+        Scenario total = new Scenario();
+        ObjectNode summary = OBJECT_MAPPER.createObjectNode();
+        ObjectNode byScenario = OBJECT_MAPPER.createObjectNode();
+        new TreeMap<>(scenarios).forEach((name, scenario) -> {
+            scenario.addTo(total);
+            byScenario.set(name, scenario.summary(measured));
+        });
+        summary.set(ALL_SCENARIOS, total.summary(measured));
+        summary.setAll(byScenario);
+        return summary;
+    }
+
+    /**
+     * Compares the summary of a run with that of a baseline run
+     *
+     * @param summary the summary of this run
+     * @param baseline the summary of the baseline run
+     * @return the change of throughput, error rate and each latency percentile, by scenario present in both runs
+     */
+    public static ObjectNode compare(JsonNode summary, JsonNode baseline) {
+        ObjectNode comparison = OBJECT_MAPPER.createObjectNode();
+        for (Iterator<String> names = summary.fieldNames(); names.hasNext();) {
+            String name = names.next();
+            JsonNode current = summary.get(name);
+            JsonNode previous = baseline.get(name);
+            if (previous == null) {
+                continue;
+            }
+
+            ObjectNode change = comparison.putObject(name);
+            change.put("throughputPerSecond", current.path("throughputPerSecond").asDouble() - previous.path("throughputPerSecond").asDouble());
+            change.put("errorRate", current.path("errorRate").asDouble() - previous.path("errorRate").asDouble());
+            ObjectNode latency = change.putObject("latencyMillis");
+            for (Iterator<String> statistics = current.path("latencyMillis").fieldNames(); statistics.hasNext();) {
+                String statistic = statistics.next();
+                latency.put(statistic, current.path("latencyMillis").path(statistic).asDouble()
+                    - previous.path("latencyMillis").path(statistic).asDouble());
+            }
+        }
+        return comparison;
+    }
+
+    // Nearest rank, so the reported latency was observed
+    static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static boolean isSuccess(int status) {
+        return (status >= 200 && status < 300) || status == 304;
+    }
+}
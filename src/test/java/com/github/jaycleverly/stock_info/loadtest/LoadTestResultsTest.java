@@ -0,0 +1,69 @@
+package com.github.jaycleverly.stock_info.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+public class LoadTestResultsTest {
+
+    @Test
+    void shouldSummariseByScenarioAndOverall() {
+        LoadTestResults results = new LoadTestResults();
+        for (int i = 1; i <= 100; i++) {
+            results.record("hot-compact", 200, i * 1_000_000L);
+        }
+        results.record("cold-full", 503, 500_000_000L);
+        results.record("cold-full", 0, 30_000_000_000L);
+        results.record("cold-full", 304, 1_000_000L);
+
+        JsonNode summary = results.summary(Duration.ofSeconds(10));
+
+        JsonNode hot = summary.get("hot-compact");
+        assertEquals(100, hot.get("requests").asInt());
+        assertEquals(10.0, hot.get("throughputPerSecond").asDouble());
+        assertEquals(0.0, hot.get("errorRate").asDouble());
+        assertEquals(50.0, hot.get("latencyMillis").get("p50").asDouble());
+        assertEquals(99.0, hot.get("latencyMillis").get("p99").asDouble());
+        assertEquals(100.0, hot.get("latencyMillis").get("max").asDouble());
+
+        JsonNode cold = summary.get("cold-full");
+        assertEquals(2.0 / 3, cold.get("errorRate").asDouble(), 1e-9);
+        assertEquals(1, cold.get("statuses").get("0").asInt());
+
+        JsonNode all = summary.get("all");
+        assertEquals(103, all.get("requests").asInt());
+        assertEquals(30_000.0, all.get("latencyMillis").get("max").asDouble());
+        assertEquals(2.0 / 103, all.get("errorRate").asDouble(), 1e-9);
+    }
+
+    @Test
+    void shouldTakeNearestRankPercentile() {
+        long[] sorted = {10, 20, 30, 40};
+
+        assertEquals(20, LoadTestResults.percentile(sorted, 0.5));
+        assertEquals(40, LoadTestResults.percentile(sorted, 0.99));
+        assertEquals(10, LoadTestResults.percentile(sorted, 0));
+        assertEquals(0, LoadTestResults.percentile(new long[0], 0.5));
+    }
+
+    @Test
+    void shouldCompareWithBaseline() {
+        LoadTestResults baseline = new LoadTestResults();
+        LoadTestResults current = new LoadTestResults();
+        baseline.record("hot-compact", 200, 20_000_000L);
+        current.record("hot-compact", 200, 15_000_000L);
+        current.record("hot-compact", 200, 15_000_000L);
+        current.record("cold-compact", 200, 15_000_000L);
+
+        JsonNode change = LoadTestResults.compare(current.summary(Duration.ofSeconds(1)), baseline.summary(Duration.ofSeconds(1)));
+
+        assertEquals(1.0, change.get("hot-compact").get("throughputPerSecond").asDouble());
+        assertEquals(-5.0, change.get("hot-compact").get("latencyMillis").get("p99").asDouble());
+        assertFalse(change.has("cold-compact"));
+    }
+}
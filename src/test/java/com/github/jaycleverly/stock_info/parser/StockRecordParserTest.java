@@ -137,4 +137,77 @@ public class StockRecordParserTest {
         assertTrue(exception.getMessage().equals("Exception when parsing stock records!"));
         assertTrue(exception.getCause().getClass().getSimpleName().equals("NullPointerException"));
     }
+
+    @Test
+    void shouldParseCsvRecordsOldestFirst() {
+        String csv = """
+            timestamp,open,high,low,close,volume
+            2025-08-27,101.0,104.0,100.0,103.0,1500000
+            2025-08-26,100.5,105.0,99.5,102.3,1400000
+
+            """;
+
+        List<DailyStockRecord> records = StockRecordsParser.parseCsv("IBM", csv);
+
+        assertEquals(2, records.size());
+        assertEquals(LocalDate.of(2025, 8, 26), records.get(0).getDate());
+        assertEquals("IBM", records.get(0).getSymbol());
+        assertEquals(100.5, records.get(0).getOpen());
+        assertEquals(105.0, records.get(0).getHigh());
+        assertEquals(99.5, records.get(0).getLow());
+        assertEquals(102.3, records.get(0).getClose());
+        assertEquals(103.0, records.get(1).getClose());
+    }
+
+    @Test
+    void shouldParseCsvColumnsInAnyOrder() {
+        String csv = """
+            date,close,low,high,open
+            2025-08-26,102.3,99.5,105.0,100.5
+            """;
+
+        DailyStockRecord record = StockRecordsParser.parseCsv("IBM", csv).getFirst();
+
+        assertEquals(100.5, record.getOpen());
+        assertEquals(102.3, record.getClose());
+    }
+
+    @Test
+    void shouldThrowExceptionOnCsvMissingColumn() {
+        String csv = """
+            timestamp,open,high,close
+            2025-08-26,100.5,105.0,102.3
+            """;
+
+        assertThrows(ParserException.class, () -> StockRecordsParser.parseCsv("IBM", csv));
+    }
+
+    @Test
+    void shouldThrowExceptionOnInvalidCsvValue() {
+        String csv = """
+            timestamp,open,high,low,close
+            2025-08-26,100.5,105.0,not-a-price,102.3
+            """;
+
+        ParserException exception = assertThrows(ParserException.class, () -> StockRecordsParser.parseCsv("IBM", csv));
+        assertTrue(exception.getCause() instanceof NumberFormatException);
+    }
+
+    @Test
+    void shouldReadNormalizedRecordsBack() {
+        List<DailyStockRecord> records = List.of(
+            new DailyStockRecord("IBM", LocalDate.of(2025, 8, 26), 100.5, 105.0, 99.5, 102.3),
+            new DailyStockRecord("IBM", LocalDate.of(2025, 8, 27), 101.0, 104.0, 100.0, 103.0));
+
+        List<DailyStockRecord> result = StockRecordsParser.parse(StockRecordsParser.normalize("IBM", "stooq", records));
+
+        assertEquals(2, result.size());
+        assertEquals(LocalDate.of(2025, 8, 26), result.get(0).getDate());
+        assertEquals("IBM", result.get(0).getSymbol());
+        assertEquals(100.5, result.get(0).getOpen());
+        assertEquals(105.0, result.get(0).getHigh());
+        assertEquals(99.5, result.get(0).getLow());
+        assertEquals(102.3, result.get(0).getClose());
+        assertEquals(103.0, result.get(1).getClose());
+    }
 }
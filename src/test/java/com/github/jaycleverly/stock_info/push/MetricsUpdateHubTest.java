@@ -0,0 +1,131 @@
+package com.github.jaycleverly.stock_info.push;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.jaycleverly.stock_info.config.properties.AppPushProperties;
+import com.github.jaycleverly.stock_info.exception.ClientErrorException;
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+
+public class MetricsUpdateHubTest {
+    private static final DailyStockMetrics MOCK_METRICS = new DailyStockMetrics("IBM", LocalDate.of(2025, 9, 9), 259.11, 3.02, 245.95, 1.26, 7.39);
+
+    private final MetricsUpdateHub hub = new MetricsUpdateHub(new AppPushProperties(2, 3, Duration.ofMinutes(1), false));
+
+    private static class RecordingSubscriber implements MetricsUpdateHub.Subscriber {
+        private final LinkedBlockingQueue<byte[]> received = new LinkedBlockingQueue<>();
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        @Override
+        public void send(String symbol, byte[] update) throws IOException {
+            received.add(update);
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+    }
+
+    @AfterEach
+    void cleanup() {
+        hub.close();
+    }
+
+    @Test
+    void shouldShareSerializedUpdateBetweenSubscribers() throws InterruptedException {
+        RecordingSubscriber first = new RecordingSubscriber();
+        RecordingSubscriber second = new RecordingSubscriber();
+        hub.subscribe(List.of("ibm"), first);
+        hub.subscribe(List.of("IBM", "AAPL"), second);
+
+        hub.publish(MOCK_METRICS);
+
+        byte[] firstUpdate = first.received.poll(5, TimeUnit.SECONDS);
+        byte[] secondUpdate = second.received.poll(5, TimeUnit.SECONDS);
+        assertTrue(new String(firstUpdate).contains("259.11"));
+        assertSame(firstUpdate, secondUpdate);
+    }
+
+    @Test
+    void shouldNotSendOtherSymbols() throws InterruptedException {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        hub.subscribe(List.of("AAPL"), subscriber);
+
+        hub.publish(MOCK_METRICS);
+
+        assertEquals(null, subscriber.received.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void shouldEvictSlowSubscriber() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        RecordingSubscriber slow = new RecordingSubscriber() {
+            @Override
+            public void send(String symbol, byte[] update) {
+                try {
+                    blocked.await();
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        hub.subscribe(List.of("IBM"), slow);
+
+        // One update is held by the blocked send, the queue then fills
+        for (int i = 0; i < 5; i++) {
+            hub.publish(MOCK_METRICS);
+        }
+
+        assertTrue(slow.closed.await(5, TimeUnit.SECONDS));
+        assertEquals(0, hub.subscriberCount("IBM"));
+        blocked.countDown();
+    }
+
+    @Test
+    void shouldEvictDisconnectedSubscriber() throws InterruptedException {
+        RecordingSubscriber disconnected = new RecordingSubscriber() {
+            @Override
+            public void send(String symbol, byte[] update) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+        hub.subscribe(List.of("IBM"), disconnected);
+
+        hub.publish(MOCK_METRICS);
+
+        assertTrue(disconnected.closed.await(5, TimeUnit.SECONDS));
+        assertEquals(0, hub.subscriberCount("IBM"));
+    }
+
+    @Test
+    void shouldUnsubscribeOnCancel() {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        MetricsUpdateHub.Subscription subscription = hub.subscribe(List.of("IBM"), subscriber);
+
+        subscription.cancel();
+        subscription.cancel();
+
+        assertEquals(0, hub.subscriberCount("IBM"));
+        assertEquals(0, subscriber.closed.getCount());
+    }
+
+    @Test
+    void shouldRejectInvalidSymbolCount() {
+        assertThrows(ClientErrorException.class, () -> hub.subscribe(List.of(" "), new RecordingSubscriber()));
+        assertThrows(ClientErrorException.class, () -> hub.subscribe(List.of("A", "B", "C", "D"), new RecordingSubscriber()));
+    }
+}
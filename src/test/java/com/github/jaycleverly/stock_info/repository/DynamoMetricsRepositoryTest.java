@@ -0,0 +1,100 @@
+package com.github.jaycleverly.stock_info.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.jaycleverly.stock_info.client.DynamoClient;
+import com.github.jaycleverly.stock_info.config.properties.DynamoDbProperties;
+import com.github.jaycleverly.stock_info.exception.DynamoClientException;
+import com.github.jaycleverly.stock_info.exception.MetricsRepositoryException;
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+
+public class DynamoMetricsRepositoryTest {
+    private static final String TABLE_NAME = "StockMetrics";
+    private static final LocalDate DATE = LocalDate.of(2025, 9, 9);
+
+    private DynamoClient dynamoClientMock;
+    private DynamoMetricsRepository repository;
+
+    @BeforeEach
+    void setup() {
+        dynamoClientMock = mock(DynamoClient.class);
+        repository = new DynamoMetricsRepository(new DynamoDbProperties(null, null, TABLE_NAME, null, null, null), dynamoClientMock);
+    }
+
+    @Test
+    void shouldReadFromTable() {
+        List<DailyStockMetrics> metrics = List.of(new DailyStockMetrics("IBM", DATE, 100.0, null, null, null, null));
+        when(dynamoClientMock.queryLatest(TABLE_NAME, "IBM", 25, DailyStockMetrics.class)).thenReturn(metrics);
+        when(dynamoClientMock.queryBetween(TABLE_NAME, "IBM", DATE.minusDays(7).toString(), DATE.toString(), 100, DailyStockMetrics.class))
+            .thenReturn(metrics);
+
+        assertEquals(metrics, repository.findLatest("IBM", 25));
+        assertEquals(metrics, repository.findBetween("IBM", DATE.minusDays(7), DATE, 100));
+    }
+
+    @Test
+    void shouldWriteAllMetricsInBatches() {
+        List<DailyStockMetrics> metrics = List.of(new DailyStockMetrics("IBM", DATE, 100.0, null, null, null, null));
+
+        repository.upsertAll(metrics);
+        verify(dynamoClientMock).batchPutItems(TABLE_NAME, metrics, DailyStockMetrics.class);
+    }
+
+    @Test
+    void shouldWrapClientFailures() {
+        DynamoClientException failure = new DynamoClientException("Exception!", null);
+        when(dynamoClientMock.queryLatest(anyString(), anyString(), anyInt(), eq(DailyStockMetrics.class))).thenThrow(failure);
+
+        MetricsRepositoryException exception = assertThrows(MetricsRepositoryException.class, () -> repository.findLatest("IBM", 25));
+        assertInstanceOf(DynamoClientException.class, exception.getCause());
+        assertEquals("Exception when reading the latest 25 metrics of IBM", exception.getMessage());
+    }
+
+    @Test
+    void shouldWarmUpTable() {
+        repository.warmUp();
+        verify(dynamoClientMock).warmUp(eq(TABLE_NAME), any());
+    }
+
+    @Test
+    void shouldScanSegmentWithFilterExpression() {
+        MetricsScanFilter filter = new MetricsScanFilter("IB", DATE.minusDays(7), null);
+        Consumer<List<DailyStockMetrics>> pageConsumer = page -> {};
+
+        repository.scan(filter, 1, 4, 500, pageConsumer);
+        verify(dynamoClientMock).scanSegment(eq(TABLE_NAME), eq(1), eq(4), any(), eq(500), eq(DailyStockMetrics.class), eq(pageConsumer));
+
+        Expression expression = DynamoMetricsRepository.filterExpression(filter);
+        assertEquals("NOT contains(#symbol, :separator) AND begins_with(#symbol, :prefix) AND #date >= :from", expression.expression());
+        assertEquals("IB", expression.expressionValues().get(":prefix").s());
+        assertEquals(DATE.minusDays(7).toString(), expression.expressionValues().get(":from").s());
+        assertEquals(Map.of("#symbol", "symbol", "#date", "date"), expression.expressionNames());
+    }
+
+    @Test
+    void shouldOnlyNameAttributesUsedByFilterExpression() {
+        Expression expression = DynamoMetricsRepository.filterExpression(new MetricsScanFilter(null, null, null));
+
+        assertEquals("NOT contains(#symbol, :separator)", expression.expression());
+        assertEquals(Map.of("#symbol", "symbol"), expression.expressionNames());
+    }
+}
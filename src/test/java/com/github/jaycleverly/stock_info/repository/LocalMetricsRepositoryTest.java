@@ -0,0 +1,209 @@
+package com.github.jaycleverly.stock_info.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import com.github.jaycleverly.stock_info.config.properties.AppMetricsRepositoryProperties;
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+
+public class LocalMetricsRepositoryTest {
+    private static final LocalDate START = LocalDate.of(2025, 9, 1);
+
+    @TempDir
+    private Path directory;
+
+    private final List<LocalMetricsRepository> opened = new ArrayList<>();
+
+    @AfterEach
+    void cleanup() {
+        opened.forEach(LocalMetricsRepository::close);
+    }
+
+    private LocalMetricsRepository newRepository(DataSize compactionThreshold) {
+        LocalMetricsRepository repository = new LocalMetricsRepository(
+            new AppMetricsRepositoryProperties(AppMetricsRepositoryProperties.Type.LOCAL, directory.toString(), compactionThreshold));
+        opened.add(repository);
+        return repository;
+    }
+
+    private LocalMetricsRepository newRepository(int replayWindowBytes) {
+        LocalMetricsRepository repository = new LocalMetricsRepository(
+            new AppMetricsRepositoryProperties(AppMetricsRepositoryProperties.Type.LOCAL, directory.toString(), DataSize.ofMegabytes(1)),
+            replayWindowBytes);
+        opened.add(repository);
+        return repository;
+    }
+
+    @Test
+    void shouldReturnLatestMetricsInDateOrder() {
+        LocalMetricsRepository repository = newRepository(DataSize.ofMegabytes(1));
+        repository.upsertAll(metrics("IBM", 20, 30).reversed());
+        repository.upsertAll(metrics("IBM", 0, 20));
+
+        List<DailyStockMetrics> latest = repository.findLatest("IBM", 5);
+        assertEquals(5, latest.size());
+        assertEquals(START.plusDays(25), latest.getFirst().getDate());
+        assertEquals(START.plusDays(29), latest.getLast().getDate());
+        assertEquals(129.0, latest.getLast().getClose());
+        assertEquals(30, repository.findLatest("IBM", 100).size());
+        assertTrue(repository.findLatest("AAPL", 5).isEmpty());
+    }
+
+    @Test
+    void shouldReturnEarliestMetricsBetweenDates() {
+        LocalMetricsRepository repository = newRepository(DataSize.ofMegabytes(1));
+        repository.upsertAll(metrics("IBM", 0, 30));
+
+        List<DailyStockMetrics> between = repository.findBetween("IBM", START.plusDays(10), START.plusDays(19), 100);
+        assertEquals(10, between.size());
+        assertEquals(START.plusDays(10), between.getFirst().getDate());
+        assertEquals(START.plusDays(19), between.getLast().getDate());
+
+        List<DailyStockMetrics> limited = repository.findBetween("IBM", START.minusDays(5), START.plusDays(19), 3);
+        assertEquals(List.of(START, START.plusDays(1), START.plusDays(2)), limited.stream().map(DailyStockMetrics::getDate).toList());
+        assertTrue(repository.findBetween("IBM", START.plusDays(40), START.plusDays(50), 100).isEmpty());
+    }
+
+    @Test
+    void shouldReplaceMetricsOfSameDate() {
+        LocalMetricsRepository repository = newRepository(DataSize.ofMegabytes(1));
+        repository.upsertAll(metrics("IBM", 0, 3));
+        DailyStockMetrics replacement = new DailyStockMetrics("IBM", START.plusDays(1), 1.0, null, null, null, null);
+        repository.upsertAll(List.of(replacement));
+
+        List<DailyStockMetrics> latest = repository.findLatest("IBM", 10);
+        assertEquals(3, latest.size());
+        assertEquals(1.0, latest.get(1).getClose());
+        assertNull(latest.get(1).getMovingAverage());
+        assertEquals(101.0, latest.get(2).getMovingAverage());
+    }
+
+    @Test
+    void shouldSurviveRestart() {
+        LocalMetricsRepository repository = newRepository(DataSize.ofMegabytes(1));
+        repository.upsertAll(metrics("IBM", 0, 10));
+        repository.upsertAll(metrics("AAPL", 0, 5));
+        repository.upsertAll(List.of(new DailyStockMetrics("IBM", START, 1.0, null, null, null, null)));
+        repository.close();
+
+        LocalMetricsRepository restarted = newRepository(DataSize.ofMegabytes(1));
+        assertEquals(10, restarted.findLatest("IBM", 100).size());
+        assertEquals(1.0, restarted.findLatest("IBM", 100).getFirst().getClose());
+        assertEquals(5, restarted.findLatest("AAPL", 100).size());
+    }
+
+    @Test
+    void shouldReplayRecordsAcrossWindowBoundaries() throws IOException {
+        LocalMetricsRepository repository = newRepository(DataSize.ofMegabytes(1));
+        for (int day = 0; day < 20; day++) {
+            repository.upsertAll(metrics("IBM", day, day + 1));
+        }
+        // Larger than a window
+        repository.upsertAll(metrics("AAPL", 0, 10));
+        repository.close();
+        Files.write(directory.resolve("metrics.log"), new byte[] {0, 0, 0, 50, 1, 2}, StandardOpenOption.APPEND);
+
+        // Windows that never line up with the records, which are 89 bytes for a single day of IBM
+        LocalMetricsRepository restarted = newRepository(250);
+        assertEquals(20, restarted.findLatest("IBM", 100).size());
+        assertEquals(119.0, restarted.findLatest("IBM", 1).getFirst().getClose());
+        assertEquals(10, restarted.findLatest("AAPL", 100).size());
+        assertEquals(20 * 89 + 8 + 2 + 4 + 4 + 10 * 72, restarted.logBytes());
+    }
+
+    @Test
+    void shouldDropTornRecordOnRestart() throws IOException {
+        LocalMetricsRepository repository = newRepository(DataSize.ofMegabytes(1));
+        repository.upsertAll(metrics("IBM", 0, 10));
+        repository.close();
+        Files.write(directory.resolve("metrics.log"), new byte[] {0, 0, 0, 50, 1, 2}, StandardOpenOption.APPEND);
+
+        LocalMetricsRepository restarted = newRepository(DataSize.ofMegabytes(1));
+        assertEquals(10, restarted.findLatest("IBM", 100).size());
+
+        restarted.upsertAll(metrics("AAPL", 0, 5));
+        restarted.close();
+        assertEquals(5, newRepository(DataSize.ofMegabytes(1)).findLatest("AAPL", 100).size());
+    }
+
+    @Test
+    void shouldCompactSupersededRecords() throws IOException {
+        LocalMetricsRepository repository = newRepository(DataSize.ofKilobytes(4));
+        for (int i = 0; i < 50; i++) {
+            repository.upsertAll(metrics("IBM", 0, 30));
+        }
+
+        // A single record of 30 days is about 2KB, so the log is compacted before it grows past twice that
+        assertTrue(repository.logBytes() < DataSize.ofKilobytes(5).toBytes());
+        assertEquals(repository.logBytes(), Files.size(directory.resolve("metrics.log")));
+        repository.upsertAll(metrics("AAPL", 0, 5));
+        repository.close();
+
+        LocalMetricsRepository restarted = newRepository(DataSize.ofKilobytes(4));
+        assertEquals(30, restarted.findLatest("IBM", 100).size());
+        assertEquals(5, restarted.findLatest("AAPL", 100).size());
+    }
+
+    @Test
+    void shouldKeepBarPricesOfRollups() {
+        DailyStockMetrics week = new DailyStockMetrics("IBM#WEEKLY", START, 101.0, 1.0, null, null, null);
+        week.setOpen(99.5);
+        week.setHigh(103.25);
+        week.setLow(98.0);
+        LocalMetricsRepository repository = newRepository(DataSize.ofMegabytes(1));
+        repository.upsertAll(List.of(week));
+        repository.close();
+
+        DailyStockMetrics restored = newRepository(DataSize.ofMegabytes(1)).findLatest("IBM#WEEKLY", 1).getFirst();
+        assertEquals(99.5, restored.getOpen());
+        assertEquals(103.25, restored.getHigh());
+        assertEquals(98.0, restored.getLow());
+        assertEquals(101.0, restored.getClose());
+    }
+
+    @Test
+    void shouldScanEachMatchingMetricOnceAcrossSegments() {
+        LocalMetricsRepository repository = newRepository(DataSize.ofMegabytes(1));
+        for (String symbol : List.of("IBM", "IBKR", "AAPL", "MSFT", "IBM#WEEKLY")) {
+            repository.upsertAll(metrics(symbol, 0, 30));
+        }
+
+        List<DailyStockMetrics> scanned = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        MetricsScanFilter filter = new MetricsScanFilter("IB", START.plusDays(5), START.plusDays(14));
+        for (int segment = 0; segment < 3; segment++) {
+            repository.scan(filter, segment, 3, 4, page -> {
+                pageSizes.add(page.size());
+                scanned.addAll(page);
+            });
+        }
+
+        assertEquals(20, scanned.size());
+        assertEquals(20, scanned.stream().map(metric -> metric.getSymbol() + metric.getDate()).distinct().count());
+        assertTrue(scanned.stream().allMatch(metric -> metric.getSymbol().equals("IBM") || metric.getSymbol().equals("IBKR")));
+        assertTrue(scanned.stream().allMatch(metric -> !metric.getDate().isBefore(START.plusDays(5)) && !metric.getDate().isAfter(START.plusDays(14))));
+        assertTrue(pageSizes.stream().allMatch(size -> size <= 4));
+    }
+
+    private static List<DailyStockMetrics> metrics(String symbol, int fromDay, int toDay) {
+        List<DailyStockMetrics> metrics = new ArrayList<>();
+        for (int day = fromDay; day < toDay; day++) {
+            metrics.add(new DailyStockMetrics(symbol, START.plusDays(day), 100.0 + day, 0.5, 101.0, 1.2, 3.0));
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.jaycleverly.stock_info.runner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.jaycleverly.stock_info.config.properties.AppScreenerProperties;
+import com.github.jaycleverly.stock_info.exception.MetricsRepositoryException;
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+import com.github.jaycleverly.stock_info.repository.MetricsRepository;
+import com.github.jaycleverly.stock_info.screener.MetricsScreenerIndex;
+import com.github.jaycleverly.stock_info.screener.ScreenerField;
+import com.github.jaycleverly.stock_info.screener.ScreenerQuery;
+
+public class ScreenerIndexRunnerTest {
+    private static final LocalDate DATE = LocalDate.of(2025, 9, 5);
+
+    private final MetricsRepository metricsRepositoryMock = mock(MetricsRepository.class);
+    private final MetricsScreenerIndex screenerIndex = new MetricsScreenerIndex();
+
+    @Test
+    void shouldSeedIndexWithLatestMetricsOfEveryStock() {
+        answerScan(0, List.of(metrics("IBM", DATE, 5.0), metrics("IBM", DATE.plusDays(1), 2.0)), List.of(metrics("AAPL", DATE, 1.0)));
+        answerScan(1, List.of(metrics("MSFT", DATE.plusDays(1), 3.0), metrics("IBM", DATE.minusDays(1), 9.0)));
+
+        new ScreenerIndexRunner(new AppScreenerProperties(25, 100, true, 2), metricsRepositoryMock, screenerIndex).run(null);
+
+        assertEquals(3, screenerIndex.size());
+        List<DailyStockMetrics> byMomentum = screenerIndex.screen(new ScreenerQuery(List.of(), ScreenerField.MOMENTUM, true, 10));
+        assertEquals(List.of("MSFT", "IBM", "AAPL"), byMomentum.stream().map(DailyStockMetrics::getSymbol).toList());
+        assertEquals(DATE.plusDays(1), byMomentum.get(1).getDate());
+    }
+
+    @Test
+    void shouldIndexStocksReadBeforeScanFails() {
+        answerScan(0, List.of(metrics("IBM", DATE, 5.0)));
+        doThrow(new MetricsRepositoryException("Unavailable", null))
+            .when(metricsRepositoryMock).scan(any(), eq(1), anyInt(), anyInt(), any());
+
+        new ScreenerIndexRunner(new AppScreenerProperties(25, 100, true, 2), metricsRepositoryMock, screenerIndex).run(null);
+
+        assertEquals(1, screenerIndex.size());
+    }
+
+    @Test
+    void shouldNotScanWhenSeedingDisabled() {
+        new ScreenerIndexRunner(new AppScreenerProperties(25, 100, false, 2), metricsRepositoryMock, screenerIndex).run(null);
+
+        verify(metricsRepositoryMock, never()).scan(any(), anyInt(), anyInt(), anyInt(), any());
+    }
+
+    @SafeVarargs
+    @SuppressWarnings("unchecked")
+    private void answerScan(int segment, List<DailyStockMetrics>... pages) {
+        doAnswer(invocation -> {
+            Consumer<List<DailyStockMetrics>> consumer = invocation.getArgument(4);
+            for (List<DailyStockMetrics> page : pages) {
+                consumer.accept(page);
+            }
+            return null;
+        }).when(metricsRepositoryMock).scan(any(), eq(segment), anyInt(), anyInt(), any(Consumer.class));
+    }
+
+    private static DailyStockMetrics metrics(String symbol, LocalDate date, Double momentum) {
+        return new DailyStockMetrics(symbol, date, 100.0, null, null, 1.0, momentum);
+    }
+}
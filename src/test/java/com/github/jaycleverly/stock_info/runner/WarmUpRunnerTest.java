@@ -0,0 +1,81 @@
+package com.github.jaycleverly.stock_info.runner;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+
+import com.github.jaycleverly.stock_info.config.properties.AppHttpCacheProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppWarmUpProperties;
+import com.github.jaycleverly.stock_info.exception.InternalServerErrorException;
+import com.github.jaycleverly.stock_info.exception.MetricsRepositoryException;
+import com.github.jaycleverly.stock_info.repository.MetricsRepository;
+import com.github.jaycleverly.stock_info.service.MetricBuilderService;
+import com.github.jaycleverly.stock_info.service.MetricsVersionService;
+import com.github.jaycleverly.stock_info.service.StockAnalysisService;
+
+public class WarmUpRunnerTest {
+    @TempDir
+    private Path directory;
+
+    private MetricsRepository metricsRepositoryMock;
+    private StockAnalysisService stockAnalysisMock;
+    private MetricsVersionService metricsVersionService;
+    private WarmUpRunner warmUpRunner;
+
+    @BeforeEach
+    void setup() throws IOException {
+        Path snapshot = directory.resolve("snapshot.csv");
+        Files.write(snapshot, List.of("AAPL,2025-09-09,10", "IBM,2025-09-09,5"));
+
+        metricsRepositoryMock = mock(MetricsRepository.class);
+        stockAnalysisMock = mock(StockAnalysisService.class);
+        metricsVersionService = new MetricsVersionService(new AppHttpCacheProperties("1", 100));
+        warmUpRunner = new WarmUpRunner(
+            new AppWarmUpProperties(true, List.of("msft", "IBM"), snapshot.toString(), 100, 2),
+            metricsRepositoryMock,
+            stockAnalysisMock,
+            new MetricBuilderService(),
+            metricsVersionService);
+    }
+
+    @Test
+    void shouldPreloadConfiguredThenSnapshotSymbols() {
+        assertEquals(List.of("MSFT", "IBM", "AAPL"), warmUpRunner.symbolsToPreload());
+    }
+
+    @Test
+    void shouldWarmUpDespiteFailures() {
+        doThrow(new MetricsRepositoryException("Exception!", null)).when(metricsRepositoryMock).warmUp();
+        when(stockAnalysisMock.preloadAnalysis("MSFT"))
+            .thenThrow(new InternalServerErrorException("Exception!", HttpStatus.INTERNAL_SERVER_ERROR, null));
+
+        assertDoesNotThrow(() -> warmUpRunner.run(null));
+
+        verify(metricsRepositoryMock, times(1)).warmUp();
+        verify(stockAnalysisMock, times(1)).preloadAnalysis("IBM");
+        verify(stockAnalysisMock, times(1)).preloadAnalysis("AAPL");
+    }
+
+    @Test
+    void shouldSaveSnapshotOnShutdown() throws IOException {
+        warmUpRunner.symbolsToPreload();
+        Files.delete(directory.resolve("snapshot.csv"));
+
+        warmUpRunner.saveSnapshot();
+        assertEquals(List.of("AAPL,2025-09-09,10", "IBM,2025-09-09,5"), Files.readAllLines(directory.resolve("snapshot.csv")));
+    }
+}
@@ -0,0 +1,158 @@
+package com.github.jaycleverly.stock_info.screener;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+
+public class MetricsScreenerIndexTest {
+    private static final LocalDate DATE = LocalDate.of(2025, 9, 5);
+
+    private final MetricsScreenerIndex index = new MetricsScreenerIndex();
+
+    @Test
+    void shouldReturnStocksWithinRangesBySymbol() {
+        index.update(metrics("C", 10.0, 1.0));
+        index.update(metrics("A", 6.0, 3.0));
+        index.update(metrics("B", 5.0, 1.5));
+        index.update(metrics("D", 2.0, 0.5));
+
+        List<DailyStockMetrics> result = index.screen(new ScreenerQuery(
+            List.of(range(ScreenerField.MOMENTUM, 5, Double.POSITIVE_INFINITY), range(ScreenerField.VOLATILITY, Double.NEGATIVE_INFINITY, 2)),
+            null,
+            false,
+            10));
+
+        assertEquals(List.of("B", "C"), symbols(result));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void shouldReturnTopStocksBySortedMetric() {
+        index.update(metrics("A", 1.0, 3.0));
+        index.update(metrics("B", 3.0, 2.0));
+        index.update(metrics("C", 2.0, 1.0));
+
+        assertEquals(List.of("B", "C"), symbols(index.screen(new ScreenerQuery(List.of(), ScreenerField.MOMENTUM, true, 2))));
+        assertEquals(List.of("C", "B", "A"), symbols(index.screen(new ScreenerQuery(List.of(), ScreenerField.VOLATILITY, false, 5))));
+    }
+
+    @Test
+    void shouldReplaceOlderMetricsOfStock() {
+        index.update(metrics("A", 10.0, 1.0));
+        index.update(new DailyStockMetrics("A", DATE.plusDays(1), 100.0, null, null, 1.0, -4.0));
+        index.update(new DailyStockMetrics("A", DATE.minusDays(1), 100.0, null, null, 1.0, 50.0));
+
+        List<DailyStockMetrics> result = index.screen(new ScreenerQuery(List.of(), ScreenerField.MOMENTUM, false, 10));
+
+        assertEquals(1, result.size());
+        assertEquals(-4.0, result.getFirst().getMomentum());
+        assertTrue(index.screen(new ScreenerQuery(
+            List.of(range(ScreenerField.MOMENTUM, 0, Double.POSITIVE_INFINITY)), null, false, 10)).isEmpty());
+    }
+
+    @Test
+    void shouldExcludeUnsetMetrics() {
+        index.update(metrics("A", null, 1.0));
+        index.update(metrics("B", 1.0, 1.0));
+
+        assertEquals(List.of("B"), symbols(index.screen(new ScreenerQuery(List.of(), ScreenerField.MOMENTUM, false, 10))));
+        assertEquals(List.of("B"), symbols(index.screen(new ScreenerQuery(
+            List.of(range(ScreenerField.MOMENTUM, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY)), null, false, 10))));
+        assertEquals(List.of("A", "B"), symbols(index.screen(new ScreenerQuery(List.of(), null, false, 10))));
+    }
+
+    @Test
+    void shouldMatchFullScanForRandomScreens() {
+        Random random = new Random(42);
+        Map<String, DailyStockMetrics> latest = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            // Refresh some stocks more than once to exercise removal from the sorted arrays
+            String symbol = "S" + random.nextInt(2000);
+            Double momentum = random.nextInt(20) == 0 ? null : Math.round(random.nextGaussian() * 1000) / 100.0;
+            DailyStockMetrics metrics = new DailyStockMetrics(
+                symbol, DATE.plusDays(i), 100.0, random.nextDouble(), null, Math.round(random.nextDouble() * 400) / 100.0, momentum);
+            index.update(metrics);
+            latest.put(symbol, metrics);
+        }
+
+        for (int i = 0; i < 200; i++) {
+            List<ScreenerRange> ranges = new ArrayList<>();
+            if (random.nextBoolean()) {
+                double min = random.nextGaussian() * 10;
+                ranges.add(range(ScreenerField.MOMENTUM, min, min + random.nextDouble() * 20));
+            }
+            if (random.nextBoolean()) {
+                ranges.add(range(ScreenerField.VOLATILITY, Double.NEGATIVE_INFINITY, random.nextDouble() * 4));
+            }
+            ScreenerField sortBy = random.nextBoolean() ? ScreenerField.MOMENTUM : random.nextBoolean() ? ScreenerField.PREVIOUS_CLOSE_CHANGE : null;
+            ScreenerQuery query = new ScreenerQuery(ranges, sortBy, random.nextBoolean(), 1 + random.nextInt(100));
+
+            assertEquals(fullScan(latest, query), symbols(index.screen(query)), query.toString());
+        }
+    }
+
+    @Test
+    void shouldScreenBulkLoadedStocksAsIfUpdatedOneAtATime() {
+        Random random = new Random(7);
+        MetricsScreenerIndex bulkLoaded = new MetricsScreenerIndex();
+        bulkLoaded.update(metrics("S1", 1.0, 1.0));
+        List<DailyStockMetrics> loaded = new ArrayList<>();
+        index.update(metrics("S1", 1.0, 1.0));
+        for (int i = 0; i < 500; i++) {
+            // Equal values and older metrics of a stock in the same load
+            DailyStockMetrics metrics = new DailyStockMetrics(
+                "S" + random.nextInt(200), DATE.plusDays(random.nextInt(5)), 100.0, null, null, 1.0, random.nextInt(10) == 0 ? null : (double) random.nextInt(20));
+            loaded.add(metrics);
+            index.update(metrics);
+        }
+        bulkLoaded.updateAll(loaded);
+        bulkLoaded.update(metrics("NEW", 5.0, 1.0));
+        index.update(metrics("NEW", 5.0, 1.0));
+
+        assertEquals(index.size(), bulkLoaded.size());
+        for (boolean descending : new boolean[] {false, true}) {
+            ScreenerQuery query = new ScreenerQuery(List.of(range(ScreenerField.MOMENTUM, 3, 15)), ScreenerField.MOMENTUM, descending, 1000);
+            assertEquals(symbols(index.screen(query)), symbols(bulkLoaded.screen(query)));
+            assertEquals(symbols(index.screen(new ScreenerQuery(List.of(), null, descending, 1000))),
+                symbols(bulkLoaded.screen(new ScreenerQuery(List.of(), null, descending, 1000))));
+        }
+    }
+
+    private static List<String> fullScan(Map<String, DailyStockMetrics> latest, ScreenerQuery query) {
+        Comparator<DailyStockMetrics> order = Comparator.comparing(DailyStockMetrics::getSymbol);
+        if (query.sortBy() != null) {
+            Comparator<DailyStockMetrics> byValue = Comparator.comparingDouble(query.sortBy()::valueOf);
+            order = (query.descending() ? byValue.reversed() : byValue).thenComparing(DailyStockMetrics::getSymbol);
+        }
+        return latest.values().stream()
+            .filter(metrics -> query.ranges().stream().allMatch(range -> range.contains(range.field().valueOf(metrics))))
+            .filter(metrics -> query.sortBy() == null || !Double.isNaN(query.sortBy().valueOf(metrics)))
+            .sorted(order)
+            .limit(query.limit())
+            .map(DailyStockMetrics::getSymbol)
+            .toList();
+    }
+
+    private static DailyStockMetrics metrics(String symbol, Double momentum, Double volatility) {
+        return new DailyStockMetrics(symbol, DATE, 100.0, null, null, volatility, momentum);
+    }
+
+    private static ScreenerRange range(ScreenerField field, double min, double max) {
+        return new ScreenerRange(field, min, max);
+    }
+
+    private static List<String> symbols(List<DailyStockMetrics> metrics) {
+        return metrics.stream().map(DailyStockMetrics::getSymbol).toList();
+    }
+}
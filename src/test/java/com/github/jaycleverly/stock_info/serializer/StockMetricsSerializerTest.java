@@ -1,18 +1,34 @@
 package com.github.jaycleverly.stock_info.serializer;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.msgpack.jackson.dataformat.MessagePackMapper;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.github.jaycleverly.stock_info.model.CorrelationMatrix;
 import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+import com.github.jaycleverly.stock_info.model.IntradayInterval;
+import com.github.jaycleverly.stock_info.model.IntradaySnapshot;
+import com.github.jaycleverly.stock_info.model.Resolution;
+import com.github.jaycleverly.stock_info.model.ScreenerResult;
 
 public class StockMetricsSerializerTest {
-    private static List<DailyStockMetrics> inputListMock = new ArrayList<>();
+    private final List<DailyStockMetrics> inputListMock = new ArrayList<>();
 
     @BeforeEach
     void setup() {
@@ -52,4 +68,131 @@ public class StockMetricsSerializerTest {
         String result = StockMetricsSerializer.serialize(inputListMock);
         assertEquals(expectedResult, result);
     }
+
+    @Test
+    void shouldReturnCompactNumericJson() {
+        String expectedResult = "{\"Meta Data\":{\"1. Information\":\"Daily Time Series with custom metrics\",\"2. Symbol\":\"symbol\","
+            + "\"3. Last Refreshed\":\"2025-09-06\",\"4. Time Zone\":\"US/Eastern\",\"5. Record Count\":2},"
+            + "\"Time Series (Daily)\":{\"2025-09-06\":{\"1. close\":100.0,\"2. previousCloseChange\":10.0,\"3. movingAverage(30d)\":null,"
+            + "\"4. volatility(7d%)\":null,\"5. momentum(14d%)\":null},\"2025-09-05\":{\"1. close\":90.0,\"2. previousCloseChange\":null,"
+            + "\"3. movingAverage(30d)\":null,\"4. volatility(7d%)\":null,\"5. momentum(14d%)\":null}}}";
+
+        byte[] result = StockMetricsSerializer.serialize(inputListMock, ResponseFormat.COMPACT_JSON);
+        assertEquals(expectedResult, new String(result, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldReturnBinaryFormatsMatchingCompactJson() throws IOException {
+        JsonNode expected = new ObjectMapper().readTree(StockMetricsSerializer.serialize(inputListMock, ResponseFormat.COMPACT_JSON));
+
+        assertEquals(expected, new SmileMapper().readTree(StockMetricsSerializer.serialize(inputListMock, ResponseFormat.SMILE)));
+        assertEquals(expected, new CBORMapper().readTree(StockMetricsSerializer.serialize(inputListMock, ResponseFormat.CBOR)));
+    }
+
+    @Test
+    void shouldReturnColumnarMessagePack() throws IOException {
+        JsonNode result = new MessagePackMapper().readTree(StockMetricsSerializer.serialize(inputListMock, ResponseFormat.MESSAGE_PACK));
+
+        assertEquals(2, result.path("Meta Data").path("5. Record Count").asInt());
+        assertEquals("2025-09-05", result.path("date").get(1).asText());
+        assertEquals(100.0, result.path("close").get(0).asDouble());
+        assertTrue(result.path("previousCloseChange").get(1).isNull());
+    }
+
+    @Test
+    void shouldReturnBarPricesAndPeriodUnitsOfRollups() throws IOException {
+        DailyStockMetrics week = new DailyStockMetrics("symbol", LocalDate.of(2025, 9, 1), 101.0, 1.0, 98.0, null, null);
+        week.setOpen(99.5);
+        week.setHigh(103.25);
+        week.setLow(97.0);
+
+        JsonNode json = new ObjectMapper().readTree(StockMetricsSerializer.serialize(List.of(week), Resolution.WEEKLY));
+        assertEquals("Weekly Time Series with custom metrics", json.path("Meta Data").path("1. Information").asText());
+        JsonNode bar = json.path("Time Series (Weekly)").path("2025-09-01");
+        assertEquals("99.50", bar.path("1. open").asText());
+        assertEquals("103.25", bar.path("2. high").asText());
+        assertEquals("97.00", bar.path("3. low").asText());
+        assertEquals("101.00", bar.path("4. close").asText());
+        assertEquals("98.00", bar.path("6. movingAverage(30w)").asText());
+        assertTrue(bar.path("8. momentum(14w%)").isNull());
+
+        JsonNode columns = new MessagePackMapper().readTree(
+            StockMetricsSerializer.serialize(List.of(week), ResponseFormat.MESSAGE_PACK, Resolution.MONTHLY));
+        assertEquals(103.25, columns.path("high").get(0).asDouble());
+        assertEquals(98.0, columns.path("movingAverage(30m)").get(0).asDouble());
+    }
+
+    @Test
+    void shouldReturnDecompressibleGzip() throws IOException {
+        byte[] json = StockMetricsSerializer.serialize(inputListMock, ResponseFormat.JSON);
+
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(StockMetricsSerializer.gzip(json)))) {
+            assertArrayEquals(json, gzip.readAllBytes());
+        }
+    }
+
+    @Test
+    void shouldReturnCorrelationMatrixWithNullForUndefinedValues() throws IOException {
+        CorrelationMatrix matrix = new CorrelationMatrix(
+            List.of("A", "B"),
+            LocalDate.of(2025, 9, 1),
+            LocalDate.of(2025, 9, 5),
+            4,
+            new double[][] {{0.5, 0.0}, {0.0, 0.0}},
+            new double[][] {{1.0, Double.NaN}, {Double.NaN, Double.NaN}});
+
+        JsonNode result = new ObjectMapper().readTree(StockMetricsSerializer.serialize(matrix));
+
+        assertEquals(4, result.path("Meta Data").path("4. Observations").asInt());
+        assertEquals("B", result.path("symbols").get(1).asText());
+        assertEquals(0.5, result.path("covariance").get(0).get(0).asDouble());
+        assertEquals(1.0, result.path("correlation").get(0).get(0).asDouble());
+        assertTrue(result.path("correlation").get(0).get(1).isNull());
+    }
+
+    @Test
+    void shouldReturnScreenMatchesInOrder() throws IOException {
+        JsonNode result = new ObjectMapper().readTree(StockMetricsSerializer.serialize(new ScreenerResult(10, inputListMock)));
+
+        assertEquals(10, result.path("Meta Data").path("2. Stocks Screened").asInt());
+        assertEquals(2, result.path("Meta Data").path("3. Match Count").asInt());
+        assertEquals("2025-09-06", result.path("matches").get(0).path("date").asText());
+        assertEquals(10.0, result.path("matches").get(0).path("2. previousCloseChange").asDouble());
+        assertTrue(result.path("matches").get(1).path("2. previousCloseChange").isNull());
+    }
+
+    @Test
+    void shouldReturnIntradayBarsMostRecentFirst() throws IOException {
+        // 2025-09-05 09:30 and 09:35 in minutes since the epoch
+        long first = LocalDate.of(2025, 9, 5).toEpochDay() * 24 * 60 + 9 * 60 + 30;
+        IntradaySnapshot snapshot = new IntradaySnapshot(
+            "symbol",
+            IntradayInterval.FIVE_MINUTES,
+            new long[] {first, first + 5},
+            new double[] {100, 101},
+            new double[] {102, 103},
+            new double[] {99, 100},
+            new double[] {101, 102.5},
+            new long[] {1000, 2000},
+            new double[] {Double.NaN, 101.75},
+            new double[] {Double.NaN, Double.NaN},
+            new double[] {Double.NaN, 1.49},
+            new double[] {100.67, 101.3},
+            2,
+            7,
+            1);
+
+        JsonNode result = new ObjectMapper().readTree(StockMetricsSerializer.serialize(snapshot));
+
+        assertEquals("2025-09-05 09:35:00", result.path("Meta Data").path("3. Last Refreshed").asText());
+        assertEquals("5min", result.path("Meta Data").path("4. Interval").asText());
+        assertEquals(2, result.path("Meta Data").path("6. Record Count").asInt());
+        JsonNode timeSeries = result.path("Time Series (5min)");
+        assertEquals("2025-09-05 09:35:00", timeSeries.fieldNames().next());
+        assertEquals("102.50", timeSeries.path("2025-09-05 09:35:00").path("4. close").asText());
+        assertEquals("2000", timeSeries.path("2025-09-05 09:35:00").path("5. volume").asText());
+        assertEquals("101.75", timeSeries.path("2025-09-05 09:35:00").path("6. movingAverage(2 bars)").asText());
+        assertTrue(timeSeries.path("2025-09-05 09:30:00").path("6. movingAverage(2 bars)").isNull());
+        assertTrue(timeSeries.path("2025-09-05 09:35:00").path("7. volatility(7 bars%)").isNull());
+    }
 }
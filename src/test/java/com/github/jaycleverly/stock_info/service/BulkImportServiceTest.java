@@ -0,0 +1,242 @@
+package com.github.jaycleverly.stock_info.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import com.github.jaycleverly.stock_info.config.properties.AppBulkImportProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppMetricsRepositoryProperties;
+import com.github.jaycleverly.stock_info.exception.BulkImportException;
+import com.github.jaycleverly.stock_info.exception.MetricBuilderException;
+import com.github.jaycleverly.stock_info.exception.MetricsRepositoryException;
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+import com.github.jaycleverly.stock_info.model.DailyStockRecord;
+import com.github.jaycleverly.stock_info.model.Resolution;
+import com.github.jaycleverly.stock_info.repository.LocalMetricsRepository;
+import com.github.jaycleverly.stock_info.repository.MetricsRepository;
+import com.github.jaycleverly.stock_info.screener.MetricsScreenerIndex;
+
+public class BulkImportServiceTest {
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final AppBulkImportProperties PROPERTIES =
+        new AppBulkImportProperties(true, null, 2, 4, 3, Duration.ofMillis(1), Duration.ofMinutes(1));
+
+    @TempDir
+    private Path directory;
+    @TempDir
+    private Path storeDirectory;
+
+    private final MetricsScreenerIndex screenerIndex = new MetricsScreenerIndex();
+    private LocalMetricsRepository repository;
+    private BulkImportService bulkImportService;
+
+    @BeforeEach
+    void setup() {
+        repository = new LocalMetricsRepository(
+            new AppMetricsRepositoryProperties(AppMetricsRepositoryProperties.Type.LOCAL, storeDirectory.toString(), DataSize.ofMegabytes(1)));
+        MetricBuilderService metricBuilderService = new MetricBuilderService();
+        bulkImportService = new BulkImportService(
+            PROPERTIES, repository, metricBuilderService, new RollupService(repository, metricBuilderService), screenerIndex);
+    }
+
+    @AfterEach
+    void cleanup() {
+        repository.close();
+    }
+
+    @Test
+    void shouldImportCsvAndJsonFiles() throws IOException {
+        Files.writeString(directory.resolve("ibm.csv"), csv(40));
+        Files.writeString(directory.resolve("aapl.json"), json("AAPL", 3));
+        Files.writeString(directory.resolve("notes.txt"), "not a price file");
+
+        BulkImportService.Summary summary = bulkImportService.importDirectory(directory);
+
+        assertEquals(2, summary.files());
+        assertEquals(2, summary.imported());
+        assertEquals(0, summary.failed());
+        assertEquals(43, summary.rows());
+        assertEquals(40, repository.findLatest("IBM", 100).size());
+        assertEquals(3, repository.findLatest("AAPL", 100).size());
+        assertEquals(2, screenerIndex.size());
+        assertTrue(new RollupService(repository, new MetricBuilderService()).findLatest("IBM", Resolution.WEEKLY, 100).size() > 0);
+    }
+
+    @Test
+    void shouldSkipFilesImportedByEarlierRun() throws IOException {
+        Files.writeString(directory.resolve("IBM.csv"), csv(10));
+        bulkImportService.importDirectory(directory);
+        Files.writeString(directory.resolve("MSFT.csv"), csv(5));
+
+        BulkImportService.Summary summary = bulkImportService.importDirectory(directory);
+
+        assertEquals(2, summary.files());
+        assertEquals(1, summary.skipped());
+        assertEquals(1, summary.imported());
+        assertEquals(5, summary.rows());
+        assertEquals(List.of("IBM.csv", "MSFT.csv"), Files.readAllLines(directory.resolve(BulkImportService.CHECKPOINT_FILE)));
+    }
+
+    @Test
+    void shouldCountInvalidFileAsFailedAndRetryItNextRun() throws IOException {
+        Files.writeString(directory.resolve("IBM.csv"), csv(10));
+        Files.writeString(directory.resolve("BAD.csv"), "timestamp,open,high,close\n2024-01-01,1,2,3\n");
+
+        BulkImportService.Summary summary = bulkImportService.importDirectory(directory);
+        assertEquals(1, summary.imported());
+        assertEquals(1, summary.failed());
+
+        Files.writeString(directory.resolve("BAD.csv"), csv(4));
+        summary = bulkImportService.importDirectory(directory);
+        assertEquals(1, summary.skipped());
+        assertEquals(1, summary.imported());
+        assertEquals(4, repository.findLatest("BAD", 100).size());
+    }
+
+    @Test
+    void shouldRetryFailedWrite() throws IOException {
+        MetricsRepository failingRepository = mock(MetricsRepository.class);
+        RollupService rollupService = mock(RollupService.class);
+        doThrow(new MetricsRepositoryException("Throttled", null)).doNothing().when(failingRepository).upsertAll(anyList());
+        doNothing().when(rollupService).update(anyList());
+        Files.writeString(directory.resolve("IBM.csv"), csv(10));
+
+        BulkImportService.Summary summary = new BulkImportService(PROPERTIES, failingRepository, new MetricBuilderService(), rollupService, screenerIndex)
+            .importDirectory(directory);
+
+        assertEquals(1, summary.imported());
+        assertEquals(10, summary.rows());
+        verify(failingRepository, times(2)).upsertAll(anyList());
+        verify(rollupService, times(1)).update(anyList());
+    }
+
+    @Test
+    void shouldGiveUpAfterMaxWriteAttempts() throws IOException {
+        MetricsRepository failingRepository = mock(MetricsRepository.class);
+        doThrow(new MetricsRepositoryException("Throttled", null)).when(failingRepository).upsertAll(anyList());
+        Files.writeString(directory.resolve("IBM.csv"), csv(10));
+
+        BulkImportService.Summary summary = new BulkImportService(PROPERTIES, failingRepository, new MetricBuilderService(), mock(RollupService.class), screenerIndex)
+            .importDirectory(directory);
+
+        assertEquals(1, summary.failed());
+        verify(failingRepository, times(3)).upsertAll(anyList());
+        assertTrue(Files.notExists(directory.resolve(BulkImportService.CHECKPOINT_FILE)));
+    }
+
+    @Test
+    void shouldNotRetryRollupCalculationError() throws IOException {
+        MetricsRepository repositoryMock = mock(MetricsRepository.class);
+        RollupService rollupService = mock(RollupService.class);
+        doThrow(new MetricBuilderException("Invalid bars", null)).when(rollupService).update(anyList());
+        Files.writeString(directory.resolve("IBM.csv"), csv(10));
+
+        BulkImportService.Summary summary = new BulkImportService(PROPERTIES, repositoryMock, new MetricBuilderService(), rollupService, screenerIndex)
+            .importDirectory(directory);
+
+        assertEquals(1, summary.failed());
+        verify(repositoryMock, times(1)).upsertAll(anyList());
+    }
+
+    @Test
+    void shouldBoundFilesHeldBetweenParseAndWrite() throws IOException {
+        AtomicInteger held = new AtomicInteger();
+        AtomicInteger maxHeld = new AtomicInteger();
+        MetricBuilderService countingBuilder = new MetricBuilderService() {
+            @Override
+            public List<DailyStockMetrics> calculateAllMetrics(List<DailyStockRecord> history) {
+                maxHeld.accumulateAndGet(held.incrementAndGet(), Math::max);
+                return super.calculateAllMetrics(history);
+            }
+        };
+        // Writes far slower than parsing, as with a remote table
+        MetricsRepository slowRepository = mock(MetricsRepository.class);
+        doAnswer(invocation -> {
+            Thread.sleep(10);
+            held.decrementAndGet();
+            return null;
+        }).when(slowRepository).upsertAll(anyList());
+        for (int file = 0; file < 40; file++) {
+            Files.writeString(directory.resolve(String.format("S%d.csv", file)), csv(10));
+        }
+
+        BulkImportService.Summary summary = new BulkImportService(PROPERTIES, slowRepository, countingBuilder, mock(RollupService.class), screenerIndex)
+            .importDirectory(directory);
+
+        assertEquals(40, summary.imported());
+        assertTrue(maxHeld.get() <= PROPERTIES.parallelism() + PROPERTIES.writeConcurrency(), "held " + maxHeld.get());
+    }
+
+    @Test
+    void shouldThrowExceptionOnMissingDirectory() {
+        assertThrows(BulkImportException.class, () -> bulkImportService.importDirectory(directory.resolve("missing")));
+    }
+
+    @Test
+    void shouldHalveWriteLimitOnFailureAndRecover() throws InterruptedException {
+        BulkImportService.WriteLimiter limiter = new BulkImportService.WriteLimiter(8);
+
+        limiter.acquire();
+        limiter.release(true);
+        assertEquals(4, limiter.limit());
+
+        for (int write = 0; write < 4; write++) {
+            limiter.acquire();
+            limiter.release(false);
+        }
+        assertEquals(5, limiter.limit());
+    }
+
+    // Weekdays counted from the start, newest first as the api returns them
+    private static String csv(int days) {
+        StringBuilder csv = new StringBuilder("timestamp,open,high,low,close,volume\n");
+        LocalDate date = START;
+        StringBuilder rows = new StringBuilder();
+        for (int day = 0; day < days; date = date.plusDays(1)) {
+            if (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                continue;
+            }
+            double close = 100 + day;
+            rows.insert(0, String.format("%s,%.1f,%.1f,%.1f,%.1f,1000%n", date, close - 1, close + 2, close - 2, close));
+            day++;
+        }
+        return csv.append(rows).toString();
+    }
+
+    private static String json(String symbol, int days) {
+        StringBuilder series = new StringBuilder();
+        for (int day = 0; day < days; day++) {
+            series.append(String.format("""
+                %s"%s": {"1. open": "%d.0", "2. high": "%d.0", "3. low": "%d.0", "4. close": "%d.0", "5. volume": "1000"}
+                """, day == 0 ? "" : ",", START.plusDays(day), 100 + day, 102 + day, 98 + day, 101 + day));
+        }
+        return String.format("""
+            {
+              "Meta Data": {"1. Information": "Daily Prices (open, high, low, close) and Volumes", "2. Symbol": "%s", "3. Last Refreshed": "%s"},
+              "Time Series (Daily)": {%s}
+            }
+            """, symbol, START.plusDays(days - 1), series);
+    }
+}
@@ -0,0 +1,171 @@
+package com.github.jaycleverly.stock_info.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+
+import com.github.jaycleverly.stock_info.config.properties.AppCorrelationProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppSymbolsProperties;
+import com.github.jaycleverly.stock_info.exception.ClientErrorException;
+import com.github.jaycleverly.stock_info.exception.InternalServerErrorException;
+import com.github.jaycleverly.stock_info.model.CorrelationMatrix;
+import com.github.jaycleverly.stock_info.exception.MetricsRepositoryException;
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+import com.github.jaycleverly.stock_info.repository.MetricsRepository;
+import com.github.jaycleverly.stock_info.symbols.SymbolFilter;
+import com.github.jaycleverly.stock_info.symbols.SymbolListing;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+
+public class CorrelationServiceTest {
+    private static final LocalDate FROM = LocalDate.of(2025, 9, 1);
+    private static final LocalDate TO = LocalDate.of(2025, 9, 30);
+
+    private final AppSymbolsProperties symbolsProperties = new AppSymbolsProperties(null, Duration.ofMinutes(10), 100, 10, 100);
+    private final SymbolFilter symbolFilter = new SymbolFilter(symbolsProperties, new SymbolListing(symbolsProperties));
+
+    @Mock
+    private MetricsRepository metricsRepositoryMock;
+    private CorrelationService correlationService;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        correlationService = new CorrelationService(
+            new AppCorrelationProperties(3, 366, 2), metricsRepositoryMock, symbolFilter, Bulkhead.ofDefaults("read"));
+    }
+
+    @Test
+    void shouldCorrelateOnCommonDates() {
+        // B misses a date and mirrors A's returns, C has an extra date
+        mockCloses("A", new double[] {100, 110, 99, 120}, 0, 1, 2, 3);
+        mockCloses("B", new double[] {50, 55, 60}, 0, 1, 3);
+        mockCloses("C", new double[] {10, 20, 10, 20, 5}, 0, 1, 2, 3, 4);
+
+        CorrelationMatrix matrix = correlationService.calculateCorrelation(List.of("a", "B", "c"), FROM, TO);
+
+        assertEquals(List.of("A", "B", "C"), matrix.symbols());
+        assertEquals(FROM, matrix.from());
+        assertEquals(FROM.plusDays(3), matrix.to());
+        assertEquals(2, matrix.observations());
+        assertEquals(1.0, matrix.correlation()[0][1], 1e-12);
+        assertEquals(matrix.covariance()[0][2], matrix.covariance()[2][0]);
+    }
+
+    @Test
+    void shouldRejectInvalidSymbolCount() {
+        ClientErrorException exception = assertThrows(ClientErrorException.class,
+            () -> correlationService.calculateCorrelation(List.of("A"), FROM, TO));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+
+        assertThrows(ClientErrorException.class,
+            () -> correlationService.calculateCorrelation(List.of("A", "B", "C", "D"), FROM, TO));
+    }
+
+    @Test
+    void shouldRejectDateRangeAboveLimit() {
+        assertThrows(ClientErrorException.class,
+            () -> correlationService.calculateCorrelation(List.of("A", "B"), FROM, FROM.plusDays(366)));
+        assertThrows(ClientErrorException.class,
+            () -> correlationService.calculateCorrelation(List.of("A", "B"), TO, FROM));
+    }
+
+    @Test
+    void shouldReturnNotFoundForMissingSymbol() {
+        mockCloses("A", new double[] {100, 110, 99}, 0, 1, 2);
+        mockCloses("B", new double[] {});
+
+        ClientErrorException exception = assertThrows(ClientErrorException.class,
+            () -> correlationService.calculateCorrelation(List.of("A", "B"), FROM, TO));
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+    }
+
+    @Test
+    void shouldReturnNotFoundWithoutEnoughCommonDates() {
+        mockCloses("A", new double[] {100, 110, 99}, 0, 1, 2);
+        mockCloses("B", new double[] {50, 55, 60}, 2, 3, 4);
+
+        ClientErrorException exception = assertThrows(ClientErrorException.class,
+            () -> correlationService.calculateCorrelation(List.of("A", "B"), FROM, TO));
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+    }
+
+    @Test
+    void shouldFailWhenRepositoryFails() {
+        when(metricsRepositoryMock.findBetween(anyString(), any(), any(), anyInt()))
+            .thenThrow(new MetricsRepositoryException("Exception!", null));
+
+        assertThrows(InternalServerErrorException.class,
+            () -> correlationService.calculateCorrelation(List.of("A", "B"), FROM, TO));
+    }
+
+    @Test
+    void shouldRejectStockRecentlyNotFoundWithoutReading() {
+        symbolFilter.recordNotFound("B");
+
+        ClientErrorException exception = assertThrows(ClientErrorException.class,
+            () -> correlationService.calculateCorrelation(List.of("A", "B"), FROM, TO));
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+        verify(metricsRepositoryMock, never()).findBetween(anyString(), any(), any(), anyInt());
+    }
+
+    @Test
+    void shouldReadAtMostReadConcurrencyStocksAtOnce() {
+        AtomicInteger reading = new AtomicInteger();
+        AtomicInteger maxReading = new AtomicInteger();
+        when(metricsRepositoryMock.findBetween(anyString(), any(), any(), anyInt())).thenAnswer(invocation -> {
+            maxReading.accumulateAndGet(reading.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            reading.decrementAndGet();
+            List<DailyStockMetrics> metrics = new ArrayList<>();
+            for (int day = 0; day < 4; day++) {
+                metrics.add(new DailyStockMetrics(invocation.getArgument(0), FROM.plusDays(day), 100.0 + day * day, null, null, null, null));
+            }
+            return metrics;
+        });
+
+        new CorrelationService(new AppCorrelationProperties(10, 366, 2), metricsRepositoryMock, symbolFilter, Bulkhead.ofDefaults("read"))
+            .calculateCorrelation(List.of("A", "B", "C", "D", "E", "F"), FROM, TO);
+
+        assertEquals(2, maxReading.get());
+    }
+
+    @Test
+    void shouldReturnServiceUnavailableWhenReadBulkheadIsFull() {
+        Bulkhead fullBulkhead = Bulkhead.of("read", BulkheadConfig.custom().maxConcurrentCalls(1).maxWaitDuration(Duration.ZERO).build());
+        fullBulkhead.acquirePermission();
+
+        InternalServerErrorException exception = assertThrows(InternalServerErrorException.class,
+            () -> new CorrelationService(new AppCorrelationProperties(3, 366, 2), metricsRepositoryMock, symbolFilter, fullBulkhead)
+                .calculateCorrelation(List.of("A", "B"), FROM, TO));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+    }
+
+    private void mockCloses(String symbol, double[] closes, int... dayOffsets) {
+        List<DailyStockMetrics> metrics = new ArrayList<>();
+        for (int i = 0; i < closes.length; i++) {
+            metrics.add(new DailyStockMetrics(symbol, FROM.plusDays(dayOffsets[i]), closes[i], null, null, null, null));
+        }
+        when(metricsRepositoryMock.findBetween(eq(symbol), any(), any(), anyInt()))
+            .thenReturn(metrics);
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.jaycleverly.stock_info.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+import com.github.jaycleverly.stock_info.model.DailyStockRecord;
+
+/**
+ * Compares the scalar and vector indicator kernels, see the README for how to run
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class IndicatorKernelBenchmark {
+    @Param({"100", "1000"})
+    private int records;
+
+    private List<DailyStockRecord> history;
+    private MetricBuilderService scalar;
+    private MetricBuilderService vector;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        history = new ArrayList<>();
+        double close = 100;
+        for (int i = 0; i < records; i++) {
+            close = Math.round(close * (1 + random.nextGaussian() * 0.02) * 100) / 100.0;
+            history.add(new DailyStockRecord("BENCH", LocalDate.of(2020, 1, 1).plusDays(i), 0, 0, 0, close));
+        }
+        scalar = new MetricBuilderService(new ScalarIndicatorKernel());
+        vector = new MetricBuilderService(new VectorIndicatorKernel());
+    }
+
+    @Benchmark
+    public List<DailyStockMetrics> scalarKernel() {
+        return scalar.calculateAllMetrics(history);
+    }
+
+    @Benchmark
+    public List<DailyStockMetrics> vectorKernel() {
+        return vector.calculateAllMetrics(history);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(IndicatorKernelBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.jaycleverly.stock_info.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+import com.github.jaycleverly.stock_info.model.DailyStockRecord;
+
+public class IndicatorKernelTest {
+    private static final int[] HISTORY_SIZES = {0, 1, 7, 8, 15, 30, 31, 37, 100, 257};
+    private static final int MOVING_AVERAGE_PERIOD = 30;
+    private static final int VOLATILITY_PERIOD = 7;
+    private static final int MOMENTUM_PERIOD = 14;
+
+    @Test
+    void shouldMatchPerRecordCalculationsWithScalarKernel() {
+        assertMatchesPerRecordCalculations(new ScalarIndicatorKernel());
+    }
+
+    @Test
+    void shouldMatchPerRecordCalculationsWithVectorKernel() {
+        assumeTrue(ModuleLayer.boot().findModule(IndicatorKernel.VECTOR_MODULE).isPresent());
+        assertMatchesPerRecordCalculations(new VectorIndicatorKernel());
+    }
+
+    @Test
+    void shouldMatchPerRecordCalculationsWithNonFiniteReturns() {
+        assumeTrue(ModuleLayer.boot().findModule(IndicatorKernel.VECTOR_MODULE).isPresent());
+        List<DailyStockRecord> history = randomHistory(40, 2, new Random(1));
+        history.set(20, new DailyStockRecord("TEST", history.get(20).getDate(), 0, 0, 0, 0));
+
+        List<DailyStockMetrics> expected = new MetricBuilderService(new ScalarIndicatorKernel()).calculateAllMetrics(history);
+        List<DailyStockMetrics> actual = new MetricBuilderService(new VectorIndicatorKernel()).calculateAllMetrics(history);
+        for (int i = 0; i < history.size(); i++) {
+            assertEquals(expected.get(i).getVolatility(), actual.get(i).getVolatility(), "record " + i);
+            assertEquals(expected.get(i).getMomentum(), actual.get(i).getMomentum(), "record " + i);
+        }
+    }
+
+    @Test
+    void shouldUseVectorKernelWhenModuleAdded() {
+        assumeTrue(ModuleLayer.boot().findModule(IndicatorKernel.VECTOR_MODULE).isPresent());
+        assertInstanceOf(VectorIndicatorKernel.class, IndicatorKernel.available());
+    }
+
+    private static void assertMatchesPerRecordCalculations(IndicatorKernel kernel) {
+        MetricBuilderService bulk = new MetricBuilderService(kernel);
+        Random random = new Random(2025);
+
+        for (int size : HISTORY_SIZES) {
+            // Closes quoted to 2 and 4 decimal places, as averages of these often land on rounding boundaries
+            for (int decimals : new int[] {2, 4}) {
+                List<DailyStockRecord> history = randomHistory(size, decimals, random);
+                List<DailyStockMetrics> metrics = bulk.calculateAllMetrics(history);
+
+                assertEquals(size, metrics.size());
+                for (int i = 0; i < size; i++) {
+                    DailyStockMetrics expected = perRecordMetrics(history, i);
+                    DailyStockMetrics actual = metrics.get(i);
+                    String context = String.format("%s kernel, record %d of %d", kernel, i, size);
+
+                    assertEquals(expected.getDate(), actual.getDate(), context);
+                    assertEquals(expected.getClose(), actual.getClose(), context);
+                    assertEquals(expected.getPreviousCloseChange(), actual.getPreviousCloseChange(), context);
+                    assertEquals(expected.getMovingAverage(), actual.getMovingAverage(), context);
+                    assertEquals(expected.getVolatility(), actual.getVolatility(), context);
+                    assertEquals(expected.getMomentum(), actual.getMomentum(), context);
+                }
+            }
+        }
+    }
+
+    // Calculates the metrics of one record directly from their definitions, as a reference for the kernels
+    private static DailyStockMetrics perRecordMetrics(List<DailyStockRecord> history, int index) {
+        double close = history.get(index).getClose();
+        Double previousCloseChange = index >= 1 ? close - history.get(index - 1).getClose() : null;
+        Double movingAverage = null;
+        if (index >= MOVING_AVERAGE_PERIOD - 1) {
+            double sum = 0;
+            for (int j = index - MOVING_AVERAGE_PERIOD + 1; j <= index; j++) {
+                sum += history.get(j).getClose();
+            }
+            movingAverage = sum / MOVING_AVERAGE_PERIOD;
+        }
+        Double volatility = null;
+        if (index > VOLATILITY_PERIOD - 1) {
+            double[] returns = IntStream.rangeClosed(index - VOLATILITY_PERIOD + 1, index)
+                .mapToDouble(j -> (history.get(j).getClose() - history.get(j - 1).getClose()) / history.get(j - 1).getClose())
+                .toArray();
+            double mean = DoubleStream.of(returns).average().orElse(0);
+            volatility = Math.sqrt(DoubleStream.of(returns).map(r -> Math.pow(r - mean, 2)).sum() / returns.length) * 100;
+        }
+        Double momentum = null;
+        if (index > MOMENTUM_PERIOD - 1) {
+            double historicalClose = history.get(index - MOMENTUM_PERIOD).getClose();
+            momentum = ((close - historicalClose) / historicalClose) * 100;
+        }
+        return new DailyStockMetrics(history.get(index).getSymbol(), history.get(index).getDate(), round2dp(close),
+            round2dp(previousCloseChange), round2dp(movingAverage), round2dp(volatility), round2dp(momentum));
+    }
+
+    private static Double round2dp(Double value) {
+        return value == null ? null : Math.round(value * 100.0) / 100.0;
+    }
+
+    private static List<DailyStockRecord> randomHistory(int size, int decimals, Random random) {
+        double scale = Math.pow(10, decimals);
+        List<DailyStockRecord> history = new ArrayList<>();
+        double close = 50 + random.nextDouble() * 200;
+        for (int i = 0; i < size; i++) {
+            close = Math.max(1, close * (1 + random.nextGaussian() * 0.02));
+            double quoted = Math.round(close * scale) / scale;
+            history.add(new DailyStockRecord("TEST", LocalDate.of(2024, 1, 1).plusDays(i), 0, 0, 0, quoted));
+        }
+        return history;
+    }
+}
@@ -0,0 +1,239 @@
+package com.github.jaycleverly.stock_info.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.jaycleverly.stock_info.client.IntradayApiClient;
+import com.github.jaycleverly.stock_info.client.IntradayBarSink;
+import com.github.jaycleverly.stock_info.config.properties.AppHttpCacheProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppIntradayProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppSymbolsProperties;
+import com.github.jaycleverly.stock_info.exception.ClientErrorException;
+import com.github.jaycleverly.stock_info.exception.InternalServerErrorException;
+import com.github.jaycleverly.stock_info.exception.TimeSeriesApiException;
+import com.github.jaycleverly.stock_info.intraday.IntradaySeries;
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+import com.github.jaycleverly.stock_info.model.IntradayInterval;
+import com.github.jaycleverly.stock_info.repository.MetricsRepository;
+import com.github.jaycleverly.stock_info.screener.MetricsScreenerIndex;
+import com.github.jaycleverly.stock_info.symbols.SymbolFilter;
+import com.github.jaycleverly.stock_info.symbols.SymbolListing;
+import com.github.jaycleverly.stock_info.util.MarketCalendar;
+
+public class IntradayServiceTest {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String MOCK_SYMBOL = "MOCK";
+    // A Wednesday, the bars of the Tuesday before are a finished session
+    private static final LocalDate TODAY = LocalDate.of(2025, 8, 27);
+    private static final LocalDate YESTERDAY = TODAY.minusDays(1);
+
+    private final IntradayApiClient clientMock = mock(IntradayApiClient.class);
+    private final MetricsRepository metricsRepositoryMock = mock(MetricsRepository.class);
+    private final AppSymbolsProperties symbolsProperties = new AppSymbolsProperties(null, Duration.ofMinutes(10), 100, 10, 100);
+    private final OffsetClock clock = new OffsetClock(LocalDateTime.of(TODAY, LocalTime.of(10, 10)).atZone(MarketCalendar.MARKET_ZONE).toInstant());
+    private final MetricsScreenerIndex screenerIndex = new MetricsScreenerIndex();
+    private MetricsVersionService metricsVersionService;
+    private IntradayService service;
+
+    /**
+     * A fixed time at the exchange moved on by a settable offset, so bars can age without waiting
+     */
+    private static class OffsetClock extends Clock {
+        private final Instant start;
+        private volatile long offsetMillis;
+
+        private OffsetClock(Instant start) {
+            this.start = start;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return MarketCalendar.MARKET_ZONE;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return start.plusMillis(offsetMillis);
+        }
+    }
+
+    @BeforeEach
+    void setup() {
+        metricsVersionService = new MetricsVersionService(new AppHttpCacheProperties("1", 100));
+        service = new IntradayService(
+            new AppIntradayProperties(null, 390, 3, 2, 2, 2, Duration.ZERO),
+            clientMock,
+            new SymbolFilter(symbolsProperties, new SymbolListing(symbolsProperties)),
+            metricsRepositoryMock,
+            new MetricBuilderService(),
+            metricsVersionService,
+            screenerIndex,
+            clock);
+    }
+
+    @AfterEach
+    void cleanup() {
+        service.shutdown();
+    }
+
+    @Test
+    void shouldServeBarsAndRefreshOncePerInterval() throws Exception {
+        answerWithBars(bar(YESTERDAY, 15, 55, 99), bar(TODAY, 9, 30, 100), bar(TODAY, 9, 35, 101), bar(TODAY, 9, 40, 102));
+
+        JsonNode response = OBJECT_MAPPER.readTree(service.produceIntraday(MOCK_SYMBOL, "5min"));
+        service.produceIntraday(MOCK_SYMBOL, "5MIN");
+
+        assertEquals(MOCK_SYMBOL, response.get("Meta Data").get("2. Symbol").asText());
+        assertEquals(3, response.get("Meta Data").get("6. Record Count").asInt());
+        assertEquals("2025-08-27 09:40:00", response.get("Meta Data").get("3. Last Refreshed").asText());
+        assertEquals("101.00", response.get("Time Series (5min)").get("2025-08-27 09:40:00").get("6. movingAverage(3 bars)").asText());
+        verify(clientMock, times(1)).getIntradayBars(eq(MOCK_SYMBOL), eq(IntradayInterval.FIVE_MINUTES), eq(true), eq(IntradaySeries.NONE), any());
+
+        // Only bars after those held are asked for once the latest is an interval old
+        clock.offsetMillis = Duration.ofMinutes(5).toMillis();
+        service.produceIntraday(MOCK_SYMBOL, "5min");
+        verify(clientMock).getIntradayBars(eq(MOCK_SYMBOL), eq(IntradayInterval.FIVE_MINUTES), eq(false), eq(minute(TODAY, 9, 40)), any());
+    }
+
+    @Test
+    void shouldRejectUnknownInterval() {
+        ClientErrorException exception = assertThrows(ClientErrorException.class, () -> service.produceIntraday(MOCK_SYMBOL, "2min"));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+    }
+
+    @Test
+    void shouldRememberStocksNotFoundUpstream() {
+        when(clientMock.getIntradayBars(any(), any(), anyBoolean(), anyLong(), any()))
+            .thenThrow(new TimeSeriesApiException("Not found", 404, null));
+
+        assertEquals(HttpStatus.NOT_FOUND, assertThrows(ClientErrorException.class, () -> service.produceIntraday(MOCK_SYMBOL, "1min")).getStatus());
+        assertEquals(HttpStatus.NOT_FOUND, assertThrows(ClientErrorException.class, () -> service.produceIntraday(MOCK_SYMBOL, "1min")).getStatus());
+        assertEquals(0, service.seriesCount());
+        verify(clientMock, times(1)).getIntradayBars(any(), any(), anyBoolean(), anyLong(), any());
+    }
+
+    @Test
+    void shouldServeHeldBarsWhileApiIsUnavailable() {
+        answerWithBars(bar(TODAY, 9, 30, 100));
+        service.produceIntraday(MOCK_SYMBOL, "5min");
+
+        doThrow(new TimeSeriesApiException("Unavailable", 503, null))
+            .when(clientMock).getIntradayBars(any(), any(), anyBoolean(), anyLong(), any());
+        clock.offsetMillis = Duration.ofMinutes(5).toMillis();
+        service.produceIntraday(MOCK_SYMBOL, "5min");
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE,
+            assertThrows(InternalServerErrorException.class, () -> service.produceIntraday(MOCK_SYMBOL, "15min")).getStatus());
+    }
+
+    @Test
+    void shouldDropLeastRecentlyReadSeriesWhenFull() {
+        answerWithBars(bar(TODAY, 9, 30, 100));
+        service.produceIntraday(MOCK_SYMBOL, "1min");
+        clock.offsetMillis = 1;
+        service.produceIntraday(MOCK_SYMBOL, "5min");
+        clock.offsetMillis = 2;
+        service.produceIntraday(MOCK_SYMBOL, "1min");
+        service.produceIntraday("OTHER", "1min");
+
+        assertEquals(2, service.seriesCount());
+        // The 1min series of MOCK was kept, so is not fetched again within its interval
+        service.produceIntraday(MOCK_SYMBOL, "1min");
+        verify(clientMock, times(1)).getIntradayBars(eq(MOCK_SYMBOL), eq(IntradayInterval.ONE_MINUTE), anyBoolean(), anyLong(), any());
+    }
+
+    @Test
+    void shouldCompactFinishedSessionIntoDailyMetrics() {
+        when(metricsRepositoryMock.findLatest(eq(MOCK_SYMBOL), anyInt())).thenReturn(storedDays(YESTERDAY.minusDays(1), 40));
+        answerWithBars(bar(YESTERDAY.minusDays(1), 15, 55, 90), bar(YESTERDAY, 9, 30, 95), bar(YESTERDAY, 12, 0, 97), bar(YESTERDAY, 15, 55, 96), bar(TODAY, 9, 30, 100));
+        service.produceIntraday(MOCK_SYMBOL, "5min");
+
+        service.compactSessions();
+        service.compactSessions();
+
+        verify(metricsRepositoryMock, times(1)).upsertAll(argThat(metrics -> metrics.size() == 1
+            && metrics.getFirst().getDate().equals(YESTERDAY)
+            && metrics.getFirst().getClose() == 96
+            && metrics.getFirst().getMovingAverage() != null));
+        assertEquals(YESTERDAY, metricsVersionService.latestDate(MOCK_SYMBOL).orElseThrow());
+        assertEquals(1, screenerIndex.size());
+    }
+
+    @Test
+    void shouldLeaveSessionsAfterMissingDaysToDailyRefresh() {
+        when(metricsRepositoryMock.findLatest(eq(MOCK_SYMBOL), anyInt())).thenReturn(storedDays(YESTERDAY.minusDays(2), 40));
+        answerWithBars(bar(YESTERDAY.minusDays(1), 15, 55, 90), bar(YESTERDAY, 9, 30, 95), bar(TODAY, 9, 30, 100));
+        service.produceIntraday(MOCK_SYMBOL, "5min");
+
+        service.compactSessions();
+
+        verify(metricsRepositoryMock, never()).upsertAll(anyList());
+    }
+
+    private void answerWithBars(double[]... bars) {
+        when(clientMock.getIntradayBars(any(), any(), anyBoolean(), anyLong(), any())).thenAnswer(invocation -> {
+            long after = invocation.getArgument(3);
+            IntradayBarSink sink = invocation.getArgument(4);
+            int passed = 0;
+            for (double[] bar : bars) {
+                if ((long) bar[0] > after) {
+                    sink.accept((long) bar[0], bar[1], bar[1], bar[1], bar[1], 100);
+                    passed++;
+                }
+            }
+            return passed;
+        });
+    }
+
+    private static double[] bar(LocalDate date, int hour, int minute, double price) {
+        return new double[] {minute(date, hour, minute), price};
+    }
+
+    private static long minute(LocalDate date, int hour, int minute) {
+        return LocalDateTime.of(date, LocalTime.of(hour, minute)).toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    private static List<DailyStockMetrics> storedDays(LocalDate latest, int days) {
+        List<DailyStockMetrics> stored = new ArrayList<>();
+        for (int i = days - 1; i >= 0; i--) {
+            stored.add(new DailyStockMetrics(MOCK_SYMBOL, latest.minusDays(i), 80.0 + i % 5, null, null, null, null));
+        }
+        return stored;
+    }
+}
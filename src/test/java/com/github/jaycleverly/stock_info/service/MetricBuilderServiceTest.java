@@ -29,10 +29,10 @@ public class MetricBuilderServiceTest {
     
     @Test
     void shouldReturnCorrectMetrics() {
-        LocalDate dateToTest = LocalDate.of(2025, 2, 19);
         MetricBuilderService metricBuilderService = new MetricBuilderService();
-        DailyStockMetrics analysis = metricBuilderService.caclculateMetrics(dateToTest, mockStockHistory);
+        DailyStockMetrics analysis = metricBuilderService.calculateAllMetrics(mockStockHistory).get(49);
 
+        assertEquals(LocalDate.of(2025, 2, 19), analysis.getDate());
         assertEquals(149, analysis.getClose());
         assertEquals(1.0, analysis.getPreviousCloseChange());
         assertEquals(134.5, analysis.getMovingAverage());
@@ -42,9 +42,8 @@ public class MetricBuilderServiceTest {
 
     @Test
     void shouldReturnNullsForUnsuitableRecords() {
-        LocalDate dateToTest = LocalDate.of(2025, 1, 1);
         MetricBuilderService metricBuilderService = new MetricBuilderService();
-        DailyStockMetrics analysis = metricBuilderService.caclculateMetrics(dateToTest, mockStockHistory);
+        DailyStockMetrics analysis = metricBuilderService.calculateAllMetrics(mockStockHistory).getFirst();
 
         assertEquals(100, analysis.getClose());
         assertEquals(null, analysis.getPreviousCloseChange());
@@ -54,12 +53,26 @@ public class MetricBuilderServiceTest {
     }
 
     @Test
-    void shouldThrowErrorForInvalidDate() {
-        LocalDate dateToTest = LocalDate.of(2025, 2, 20);
+    void shouldThrowErrorForInvalidRecord() {
+        List<DailyStockRecord> history = new ArrayList<>(mockStockHistory);
+        history.add(null);
         MetricBuilderService metricBuilderService = new MetricBuilderService();
 
-        MetricBuilderException exception = assertThrows(MetricBuilderException.class, () -> metricBuilderService.caclculateMetrics(dateToTest, mockStockHistory));
+        MetricBuilderException exception = assertThrows(MetricBuilderException.class, () -> metricBuilderService.calculateAllMetrics(history));
         assertTrue(exception.getMessage().equals("Exception when building metrics for stock!"));
-        assertTrue(exception.getCause().getClass().getSimpleName().equals("IllegalArgumentException"));
+        assertTrue(exception.getCause().getClass().getSimpleName().equals("NullPointerException"));
+    }
+
+    @Test
+    void shouldReturnCorrectMetricsForWholeHistory() {
+        MetricBuilderService metricBuilderService = new MetricBuilderService();
+        List<DailyStockMetrics> analysis = metricBuilderService.calculateAllMetrics(mockStockHistory);
+
+        assertEquals(mockStockHistory.size(), analysis.size());
+        assertEquals(null, analysis.getFirst().getPreviousCloseChange());
+        assertEquals(LocalDate.of(2025, 2, 19), analysis.getLast().getDate());
+        assertEquals(134.5, analysis.getLast().getMovingAverage());
+        assertEquals(0.01, analysis.getLast().getVolatility());
+        assertEquals(10.37, analysis.getLast().getMomentum());
     }
 }
@@ -0,0 +1,173 @@
+package com.github.jaycleverly.stock_info.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.jaycleverly.stock_info.config.properties.AppExportProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppMetricsRepositoryProperties;
+import com.github.jaycleverly.stock_info.exception.ClientErrorException;
+import com.github.jaycleverly.stock_info.exception.MetricsExportException;
+import com.github.jaycleverly.stock_info.exception.MetricsRepositoryException;
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+import com.github.jaycleverly.stock_info.repository.LocalMetricsRepository;
+import com.github.jaycleverly.stock_info.repository.MetricsRepository;
+import com.github.jaycleverly.stock_info.repository.MetricsScanFilter;
+import com.github.jaycleverly.stock_info.serializer.ExportFormat;
+
+public class MetricsExportServiceTest {
+    private static final LocalDate START = LocalDate.of(2025, 9, 1);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final MetricsScanFilter EVERYTHING = new MetricsScanFilter(null, null, null);
+
+    @TempDir
+    private Path directory;
+
+    private LocalMetricsRepository repository;
+    private MetricsExportService metricsExportService;
+
+    @BeforeEach
+    void setup() {
+        repository = new LocalMetricsRepository(
+            new AppMetricsRepositoryProperties(AppMetricsRepositoryProperties.Type.LOCAL, directory.toString(), DataSize.ofMegabytes(1)));
+        for (int stock = 0; stock < 20; stock++) {
+            repository.upsertAll(metrics(String.format("S%02d", stock), 50));
+        }
+        repository.upsertAll(metrics("S00#WEEKLY", 10));
+        metricsExportService = new MetricsExportService(properties(4, 0, 1), repository);
+    }
+
+    @AfterEach
+    void cleanup() {
+        repository.close();
+    }
+
+    @Test
+    void shouldExportEveryDailyMetricOnceAsNdjson() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = metricsExportService.export(EVERYTHING, ExportFormat.NDJSON, () -> out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(1000, rows);
+        assertEquals(1000, lines.length);
+        List<String> keys = new ArrayList<>();
+        for (String line : lines) {
+            JsonNode row = OBJECT_MAPPER.readTree(line);
+            keys.add(row.get("symbol").asText() + row.get("date").asText());
+        }
+        assertEquals(1000, keys.stream().distinct().count());
+        assertTrue(keys.stream().noneMatch(key -> key.contains("#")));
+
+        JsonNode first = OBJECT_MAPPER.readTree(lines[0]);
+        assertTrue(first.get("close").isNumber());
+        assertTrue(first.get("open").isNull());
+    }
+
+    @Test
+    void shouldExportFilteredMetricsAsCsv() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MetricsScanFilter filter = new MetricsScanFilter("S1", START.plusDays(10), START.plusDays(19));
+
+        long rows = metricsExportService.export(filter, ExportFormat.CSV, () -> out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(100, rows);
+        assertEquals("symbol,date,open,high,low,close,previousCloseChange,movingAverage,volatility,momentum", lines.getFirst());
+        assertEquals(101, lines.size());
+        assertTrue(lines.stream().skip(1).allMatch(line -> line.startsWith("S1")));
+        assertTrue(lines.contains("S15,2025-09-11,,,,110.0,0.5,101.0,1.2,3.0"));
+    }
+
+    @Test
+    void shouldRejectExportBeyondConcurrencyLimit() {
+        ClientErrorException exception = assertThrows(ClientErrorException.class, () ->
+            metricsExportService.export(EVERYTHING, ExportFormat.NDJSON, () -> {
+                metricsExportService.export(EVERYTHING, ExportFormat.NDJSON, ByteArrayOutputStream::new);
+                return new ByteArrayOutputStream();
+            }));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exception.getStatus());
+
+        // The permit is returned once the export ends
+        assertEquals(1000, metricsExportService.export(EVERYTHING, ExportFormat.NDJSON, ByteArrayOutputStream::new));
+    }
+
+    @Test
+    void shouldRejectReversedDateRange() {
+        ClientErrorException exception = assertThrows(ClientErrorException.class, () -> metricsExportService.export(
+            new MetricsScanFilter(null, START.plusDays(2), START), ExportFormat.NDJSON, ByteArrayOutputStream::new));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+    }
+
+    @Test
+    void shouldFailWhenSegmentCannotBeRead() {
+        MetricsRepository failingRepository = mock(MetricsRepository.class);
+        doThrow(new MetricsRepositoryException("Exception!", null))
+            .when(failingRepository).scan(any(), eq(1), anyInt(), anyInt(), any());
+
+        MetricsExportException exception = assertThrows(MetricsExportException.class, () ->
+            new MetricsExportService(properties(2, 0, 1), failingRepository).export(EVERYTHING, ExportFormat.NDJSON, ByteArrayOutputStream::new));
+        assertInstanceOf(MetricsRepositoryException.class, exception.getCause());
+    }
+
+    @Test
+    void shouldStopScanningWhenReaderGoesAway() {
+        OutputStream closed = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Connection reset");
+            }
+        };
+
+        assertThrows(MetricsExportException.class, () -> metricsExportService.export(EVERYTHING, ExportFormat.NDJSON, () -> closed));
+        assertEquals(1000, metricsExportService.export(EVERYTHING, ExportFormat.NDJSON, ByteArrayOutputStream::new));
+    }
+
+    @Test
+    void shouldThrottleRowsRead() {
+        MetricsExportService throttled = new MetricsExportService(properties(2, 4000, 1), repository);
+
+        long start = System.nanoTime();
+        throttled.export(EVERYTHING, ExportFormat.NDJSON, ByteArrayOutputStream::new);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // 1000 rows at 4000 rows/s, less the first page which starts straight away
+        assertTrue(elapsedMillis >= 200, String.format("Export took %dms", elapsedMillis));
+    }
+
+    private static AppExportProperties properties(int segments, int maxRowsPerSecond, int maxConcurrentExports) {
+        return new AppExportProperties(segments, 10, maxRowsPerSecond, maxConcurrentExports, null, null, null, null, "ndjson");
+    }
+
+    private static List<DailyStockMetrics> metrics(String symbol, int days) {
+        List<DailyStockMetrics> metrics = new ArrayList<>();
+        for (int day = 0; day < days; day++) {
+            metrics.add(new DailyStockMetrics(symbol, START.plusDays(day), 100.0 + day, 0.5, 101.0, 1.2, 3.0));
+        }
+        return metrics;
+    }
+}
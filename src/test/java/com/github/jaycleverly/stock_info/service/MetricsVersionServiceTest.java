@@ -0,0 +1,90 @@
+package com.github.jaycleverly.stock_info.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.jaycleverly.stock_info.config.properties.AppHttpCacheProperties;
+
+public class MetricsVersionServiceTest {
+    private static final String MOCK_SYMBOL = "MOCK";
+
+    private MetricsVersionService metricsVersionService;
+
+    @BeforeEach
+    void setup() {
+        metricsVersionService = new MetricsVersionService(new AppHttpCacheProperties("1", 100));
+    }
+
+    @Test
+    void shouldKeepMostRecentDate() {
+        metricsVersionService.recordLatestDate(MOCK_SYMBOL, LocalDate.of(2025, 9, 9));
+        metricsVersionService.recordLatestDate(MOCK_SYMBOL, LocalDate.of(2025, 9, 1));
+
+        assertEquals(LocalDate.of(2025, 9, 9), metricsVersionService.latestDate(MOCK_SYMBOL).get());
+    }
+
+    @Test
+    void shouldOnlyReturnFreshDates() {
+        metricsVersionService.recordLatestDate(MOCK_SYMBOL, LocalDate.now().minusDays(5));
+        assertTrue(metricsVersionService.freshLatestDate(MOCK_SYMBOL).isEmpty());
+
+        metricsVersionService.recordLatestDate(MOCK_SYMBOL, LocalDate.now());
+        assertEquals(LocalDate.now(), metricsVersionService.freshLatestDate(MOCK_SYMBOL).get());
+    }
+
+    @Test
+    void shouldProduceDistinctStrongEtags() {
+        LocalDate date = LocalDate.of(2025, 9, 9);
+        String etag = metricsVersionService.etag(MOCK_SYMBOL, date, "compact");
+
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+        assertEquals(etag, metricsVersionService.etag(MOCK_SYMBOL, date, "compact"));
+        assertNotEquals(etag, metricsVersionService.etag(MOCK_SYMBOL, date, "full"));
+        assertNotEquals(etag, metricsVersionService.etag(MOCK_SYMBOL, date.plusDays(1), "compact"));
+        assertNotEquals(etag, new MetricsVersionService(new AppHttpCacheProperties("2", 100)).etag(MOCK_SYMBOL, date, "compact"));
+    }
+
+    @Test
+    void shouldRestoreMostRequestedFromSnapshot(@TempDir Path directory) throws IOException {
+        Path snapshot = directory.resolve("snapshot.csv");
+        metricsVersionService.recordLatestDate("IBM", LocalDate.of(2025, 9, 9));
+        metricsVersionService.recordLatestDate("AAPL", LocalDate.of(2025, 9, 8));
+        metricsVersionService.recordLatestDate("MSFT", LocalDate.of(2025, 9, 7));
+        metricsVersionService.recordRequest("AAPL");
+        metricsVersionService.recordRequest("AAPL");
+        metricsVersionService.recordRequest("IBM");
+        metricsVersionService.writeSnapshot(snapshot, 2);
+
+        MetricsVersionService restored = new MetricsVersionService(new AppHttpCacheProperties("1", 100));
+        assertEquals(List.of("AAPL", "IBM"), restored.loadSnapshot(snapshot));
+        assertEquals(LocalDate.of(2025, 9, 8), restored.latestDate("AAPL").get());
+        assertTrue(restored.latestDate("MSFT").isEmpty());
+    }
+
+    @Test
+    void shouldStopCountingNewStocksOnceFull(@TempDir Path directory) throws IOException {
+        MetricsVersionService limited = new MetricsVersionService(new AppHttpCacheProperties("1", 2));
+        limited.recordRequest("IBM");
+        limited.recordRequest("AAPL");
+        limited.recordRequest("MSFT");
+        limited.recordRequest("IBM");
+
+        assertEquals(2, limited.requestCountSize());
+        Path snapshot = directory.resolve("snapshot.csv");
+        limited.recordLatestDate("IBM", LocalDate.of(2025, 9, 9));
+        limited.recordLatestDate("MSFT", LocalDate.of(2025, 9, 9));
+        limited.writeSnapshot(snapshot, 2);
+        assertEquals(List.of("IBM,2025-09-09,2", "MSFT,2025-09-09,0"), Files.readAllLines(snapshot));
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.jaycleverly.stock_info.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import com.github.jaycleverly.stock_info.config.properties.AppMetricsRepositoryProperties;
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+import com.github.jaycleverly.stock_info.model.DailyStockRecord;
+import com.github.jaycleverly.stock_info.model.Resolution;
+import com.github.jaycleverly.stock_info.repository.LocalMetricsRepository;
+
+public class RollupServiceTest {
+    // A Monday
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    @TempDir
+    private Path directory;
+
+    private LocalMetricsRepository repository;
+    private RollupService rollupService;
+
+    @BeforeEach
+    void setup() {
+        repository = new LocalMetricsRepository(
+            new AppMetricsRepositoryProperties(AppMetricsRepositoryProperties.Type.LOCAL, directory.toString(), DataSize.ofMegabytes(1)));
+        rollupService = new RollupService(repository, new MetricBuilderService());
+    }
+
+    @AfterEach
+    void cleanup() {
+        repository.close();
+    }
+
+    @Test
+    void shouldRollUpWeeks() {
+        List<DailyStockRecord> bars = RollupService.rollUp(tradingDays(0, 10), Resolution.WEEKLY);
+
+        assertEquals(2, bars.size());
+        DailyStockRecord second = bars.get(1);
+        assertEquals(START.plusWeeks(1), second.getDate());
+        assertEquals(104.0, second.getOpen());
+        assertEquals(111.0, second.getHigh());
+        assertEquals(103.0, second.getLow());
+        assertEquals(109.0, second.getClose());
+    }
+
+    @Test
+    void shouldRollUpMonths() {
+        List<DailyStockRecord> bars = RollupService.rollUp(tradingDays(0, 30), Resolution.MONTHLY);
+
+        assertEquals(List.of(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 1)), bars.stream().map(DailyStockRecord::getDate).toList());
+        // January has 23 weekdays
+        assertEquals(122.0, bars.get(0).getClose());
+        assertEquals(122.0, bars.get(1).getOpen());
+    }
+
+    @Test
+    void shouldStoreRollupsLeavingOutFirstPeriod() {
+        rollupService.update(tradingDays(2, 50));
+
+        List<DailyStockMetrics> weeks = rollupService.findLatest("IBM", Resolution.WEEKLY, 100);
+        assertEquals(9, weeks.size());
+        assertEquals(START.plusWeeks(1), weeks.getFirst().getDate());
+        assertEquals("IBM", weeks.getFirst().getSymbol());
+        assertEquals(149.0, weeks.getLast().getClose());
+        assertEquals(2, rollupService.findLatest("IBM", Resolution.MONTHLY, 100).size());
+        // Daily metrics of the stock are untouched
+        assertTrue(repository.findLatest("IBM", 100).isEmpty());
+    }
+
+    @Test
+    void shouldRewriteOnlyBarsFromLatestStoredOne() {
+        rollupService.update(tradingDays(0, 200));
+        List<DailyStockMetrics> before = rollupService.findLatest("IBM", Resolution.WEEKLY, 100);
+
+        // A later refresh fetches only the last few weeks
+        rollupService.update(tradingDays(185, 215));
+
+        List<DailyStockMetrics> after = rollupService.findLatest("IBM", Resolution.WEEKLY, 100);
+        assertEquals(before.size() + 3, after.size());
+        assertEquals(before.getFirst().getDate(), after.getFirst().getDate());
+        assertEquals(before.get(before.size() - 2).getClose(), after.get(before.size() - 2).getClose());
+        DailyStockMetrics latest = after.getLast();
+        assertEquals(START.plusWeeks(42), latest.getDate());
+        assertEquals(314.0, latest.getClose());
+        // Calculated over the stored bars, the fetched weeks alone are too few for a 30 week average
+        assertNotNull(latest.getMovingAverage());
+    }
+
+    @Test
+    void shouldReadRollupsOverlappingRange() {
+        rollupService.update(tradingDays(0, 50));
+
+        List<DailyStockMetrics> weeks = rollupService.findBetween("IBM", Resolution.WEEKLY, START.plusDays(10), START.plusDays(20), 100);
+        assertEquals(List.of(START.plusWeeks(1), START.plusWeeks(2)), weeks.stream().map(DailyStockMetrics::getDate).toList());
+    }
+
+    // Weekdays counted from the start, closing 1 higher each day
+    private static List<DailyStockRecord> tradingDays(int from, int to) {
+        List<DailyStockRecord> records = new ArrayList<>();
+        LocalDate date = START;
+        for (int day = 0; day < to; date = date.plusDays(1)) {
+            if (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                continue;
+            }
+            if (day >= from) {
+                double close = 100 + day;
+                records.add(new DailyStockRecord("IBM", date, close - 1, close + 2, close - 2, close));
+            }
+            day++;
+        }
+        return records;
+    }
+}
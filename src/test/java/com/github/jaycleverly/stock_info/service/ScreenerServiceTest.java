@@ -0,0 +1,85 @@
+package com.github.jaycleverly.stock_info.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.jaycleverly.stock_info.config.properties.AppScreenerProperties;
+import com.github.jaycleverly.stock_info.exception.ClientErrorException;
+import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
+import com.github.jaycleverly.stock_info.screener.MetricsScreenerIndex;
+import com.github.jaycleverly.stock_info.screener.ScreenerField;
+import com.github.jaycleverly.stock_info.screener.ScreenerQuery;
+import com.github.jaycleverly.stock_info.screener.ScreenerRange;
+
+public class ScreenerServiceTest {
+    private final MetricsScreenerIndex screenerIndex = new MetricsScreenerIndex();
+    private ScreenerService screenerService;
+
+    @BeforeEach
+    void setup() {
+        screenerService = new ScreenerService(new AppScreenerProperties(25, 100, false, 1), screenerIndex);
+    }
+
+    @Test
+    void shouldParseRangesSortAndLimit() {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        parameters.put("momentum", "5..");
+        parameters.put("volatility", "..2");
+        parameters.put("close", "10.5..20");
+        parameters.put("sort", "-momentum");
+        parameters.put("limit", "10");
+
+        ScreenerQuery query = screenerService.parseQuery(parameters);
+
+        assertEquals(List.of(
+            new ScreenerRange(ScreenerField.MOMENTUM, 5, Double.POSITIVE_INFINITY),
+            new ScreenerRange(ScreenerField.VOLATILITY, Double.NEGATIVE_INFINITY, 2),
+            new ScreenerRange(ScreenerField.CLOSE, 10.5, 20)), query.ranges());
+        assertEquals(ScreenerField.MOMENTUM, query.sortBy());
+        assertEquals(true, query.descending());
+        assertEquals(10, query.limit());
+    }
+
+    @Test
+    void shouldUseDefaultLimit() {
+        assertEquals(25, screenerService.parseQuery(Map.of()).limit());
+    }
+
+    @Test
+    void shouldRejectInvalidParameters() {
+        for (Map<String, String> parameters : List.of(
+                Map.of("unknown", "1.."),
+                Map.of("momentum", "5"),
+                Map.of("momentum", "a..b"),
+                Map.of("momentum", "5..1"),
+                Map.of("sort", "unknown"),
+                Map.of("limit", "0"),
+                Map.of("limit", "101"))) {
+            ClientErrorException exception = assertThrows(ClientErrorException.class, () -> screenerService.parseQuery(parameters));
+            assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus(), parameters.toString());
+        }
+    }
+
+    @Test
+    void shouldProduceMatchingStocks() throws Exception {
+        screenerIndex.update(new DailyStockMetrics("IBM", LocalDate.of(2025, 9, 5), 250.0, 1.0, 245.0, 1.2, 7.0));
+        screenerIndex.update(new DailyStockMetrics("AAPL", LocalDate.of(2025, 9, 5), 230.0, -1.0, 228.0, 2.5, 6.0));
+
+        JsonNode result = new ObjectMapper().readTree(screenerService.produceScreen(Map.of("momentum", "5..", "volatility", "..2")));
+
+        assertEquals(2, result.path("Meta Data").path("2. Stocks Screened").asInt());
+        assertEquals(1, result.path("matches").size());
+        assertEquals("IBM", result.path("matches").get(0).path("symbol").asText());
+    }
+}
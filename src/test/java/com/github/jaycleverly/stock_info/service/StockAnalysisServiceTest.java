@@ -1,46 +1,71 @@
 package com.github.jaycleverly.stock_info.service;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.Random;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 
-import com.github.jaycleverly.stock_info.client.DynamoClient;
-import com.github.jaycleverly.stock_info.client.TimeSeriesApiClient;
+import com.github.jaycleverly.stock_info.client.TimeSeriesProvider;
+import com.github.jaycleverly.stock_info.config.properties.AppHttpCacheProperties;
 import com.github.jaycleverly.stock_info.config.properties.AppLimitsProperties;
-import com.github.jaycleverly.stock_info.config.properties.DynamoDbProperties;
-import com.github.jaycleverly.stock_info.exception.DynamoClientException;
+import com.github.jaycleverly.stock_info.config.properties.AppRefreshLeaseProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppSymbolsProperties;
+import com.github.jaycleverly.stock_info.exception.ClientErrorException;
 import com.github.jaycleverly.stock_info.exception.InternalServerErrorException;
+import com.github.jaycleverly.stock_info.exception.MetricsRepositoryException;
+import com.github.jaycleverly.stock_info.exception.TimeSeriesApiException;
+import com.github.jaycleverly.stock_info.lease.RefreshLeaseManager;
 import com.github.jaycleverly.stock_info.model.DailyStockMetrics;
 import com.github.jaycleverly.stock_info.model.DailyStockRecord;
+import com.github.jaycleverly.stock_info.model.Resolution;
 import com.github.jaycleverly.stock_info.parser.StockRecordsParser;
+import com.github.jaycleverly.stock_info.push.MetricsUpdateHub;
+import com.github.jaycleverly.stock_info.repository.MetricsRepository;
+import com.github.jaycleverly.stock_info.screener.MetricsScreenerIndex;
+import com.github.jaycleverly.stock_info.serializer.ResponseFormat;
 import com.github.jaycleverly.stock_info.serializer.StockMetricsSerializer;
+import com.github.jaycleverly.stock_info.store.UpstreamPayloadStore;
+import com.github.jaycleverly.stock_info.symbols.SymbolFilter;
+import com.github.jaycleverly.stock_info.symbols.SymbolListing;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
 
 public class StockAnalysisServiceTest {
     private static final String MOCK_SYMBOL = "MOCK";
     private static final String MOCK_JSON_RECORDS = "Mocked JSON records";
-    private static final String MOCK_JSON_METRICS = "Mocked JSON metrics";
+    private static final byte[] MOCK_JSON_METRICS = "Mocked JSON metrics".getBytes();
 
     private static MockedStatic<StockRecordsParser> parserMock;
     private static MockedStatic<StockMetricsSerializer> serializerMock;
@@ -48,15 +73,27 @@ public class StockAnalysisServiceTest {
     private final List<DailyStockRecord> mockRecordHistory = new ArrayList<>();
     private final List<DailyStockMetrics> mockMetricHistory = new ArrayList<>();
     private final AppLimitsProperties appLimitsProperties = new AppLimitsProperties(50, 100);
-    private final DynamoDbProperties dynamoDbProperties = new DynamoDbProperties(null, null, "StockMetrics");
     private final int numRecords = appLimitsProperties.compactRecords();
 
     @Mock
-    private DynamoClient dynamoClientMock;
+    private MetricsRepository metricsRepositoryMock;
     @Mock
-    private TimeSeriesApiClient timeSeriesApiClient;
+    private TimeSeriesProvider timeSeriesProvider;
     @Mock
     private MetricBuilderService metricBuilderServiceMock;
+    @Mock
+    private RollupService rollupServiceMock;
+    @Mock
+    private UpstreamPayloadStore payloadStoreMock;
+    @Mock
+    private MetricsUpdateHub metricsUpdateHubMock;
+    @Mock
+    private MetricsScreenerIndex screenerIndexMock;
+    private final AppSymbolsProperties symbolsProperties = new AppSymbolsProperties(null, Duration.ofMinutes(10), 100, 10, 100);
+    private final SymbolFilter symbolFilter = new SymbolFilter(symbolsProperties, new SymbolListing(symbolsProperties));
+    private final Bulkhead refreshBulkhead = Bulkhead.of("refresh", BulkheadConfig.custom().maxConcurrentCalls(1).build());
+    private final Bulkhead readBulkhead = Bulkhead.of("read", BulkheadConfig.custom().maxConcurrentCalls(1).build());
+    private MetricsVersionService metricsVersionService;
     private StockAnalysisService stockAnalysisService;
 
     @BeforeEach
@@ -65,7 +102,8 @@ public class StockAnalysisServiceTest {
         serializerMock = mockStatic(StockMetricsSerializer.class);
 
         MockitoAnnotations.openMocks(this);
-        stockAnalysisService = new StockAnalysisService(appLimitsProperties, dynamoDbProperties, dynamoClientMock, timeSeriesApiClient, metricBuilderServiceMock);
+        metricsVersionService = new MetricsVersionService(new AppHttpCacheProperties("1", 100));
+        stockAnalysisService = new StockAnalysisService(appLimitsProperties, metricsRepositoryMock, timeSeriesProvider, metricBuilderServiceMock, rollupServiceMock, metricsVersionService, payloadStoreMock, metricsUpdateHubMock, screenerIndexMock, new RefreshLeaseManager(new AppRefreshLeaseProperties(false, null, null, null, null), null), symbolFilter, refreshBulkhead, readBulkhead);
 
         // Generate data for stock history + metrics
         LocalDate startDate = LocalDate.now().minusDays(numRecords);
@@ -85,23 +123,19 @@ public class StockAnalysisServiceTest {
 
     @Test
     void shouldAddAllNewRecordsInDynamo() {
-        when(dynamoClientMock.query(any(), any(), anyInt(), eq(DailyStockMetrics.class))).thenReturn(Collections.emptyList());
-        when(timeSeriesApiClient.getDailyTimeSeries(eq(MOCK_SYMBOL))).thenReturn(MOCK_JSON_RECORDS);
+        when(metricsRepositoryMock.findLatest(any(), anyInt())).thenReturn(Collections.emptyList());
+        when(timeSeriesProvider.getDailyTimeSeries(eq(MOCK_SYMBOL))).thenReturn(MOCK_JSON_RECORDS);
         parserMock.when(() -> StockRecordsParser.parse(eq(MOCK_JSON_RECORDS))).thenReturn(mockRecordHistory);
-        when(metricBuilderServiceMock.caclculateMetrics(any(LocalDate.class), eq(mockRecordHistory)))
-            .thenAnswer(invocation -> {
-                return mockMetricHistory.stream()
-                    .filter(m -> m.getDate().equals(invocation.getArgument(0)))
-                    .findFirst()
-                    .orElse(null);
-            });
-        serializerMock.when(() -> StockMetricsSerializer.serialize(anyList())).thenReturn(MOCK_JSON_METRICS);
+        when(metricBuilderServiceMock.calculateAllMetrics(eq(mockRecordHistory)))
+            .thenAnswer(invocation -> mockMetricsFor(invocation.getArgument(0)));
+        serializerMock.when(() -> StockMetricsSerializer.serialize(anyList(), eq(ResponseFormat.JSON), eq(Resolution.DAILY))).thenReturn(MOCK_JSON_METRICS);
 
-        String result = stockAnalysisService.produceAnalysis(MOCK_SYMBOL,false);
-        assertEquals(MOCK_JSON_METRICS, result);
+        byte[] result = stockAnalysisService.produceAnalysis(MOCK_SYMBOL, false, ResponseFormat.JSON);
+        assertArrayEquals(MOCK_JSON_METRICS, result);
 
-        verify(dynamoClientMock, times(numRecords))
-                .putItem(anyString(), any(DailyStockMetrics.class), eq(DailyStockMetrics.class));
+        verify(metricsRepositoryMock).upsertAll(argThat(metrics -> metrics.size() == numRecords));
+        verify(metricsUpdateHubMock).publish(mockMetricHistory.getLast());
+        verify(screenerIndexMock).update(mockMetricHistory.getLast());
     }
 
     @Test
@@ -109,37 +143,33 @@ public class StockAnalysisServiceTest {
         int recordsPresent = new Random().nextInt(numRecords) + 1;
         List<DailyStockRecord> mockApiRecords = mockRecordHistory.subList(recordsPresent, mockRecordHistory.size());
 
-        when(dynamoClientMock.query(any(), any(), anyInt(), eq(DailyStockMetrics.class)))
+        when(metricsRepositoryMock.findLatest(any(), anyInt()))
             .thenAnswer(invocation -> new ArrayList<>(mockMetricHistory.subList(0, recordsPresent)));
-        when(timeSeriesApiClient.getDailyTimeSeries(eq(MOCK_SYMBOL))).thenReturn(MOCK_JSON_RECORDS);
+        when(timeSeriesProvider.getDailyTimeSeries(eq(MOCK_SYMBOL))).thenReturn(MOCK_JSON_RECORDS);
         parserMock.when(() -> StockRecordsParser.parse(eq(MOCK_JSON_RECORDS))).thenReturn(mockApiRecords);
-        when(metricBuilderServiceMock.caclculateMetrics(any(LocalDate.class), eq(mockApiRecords)))
-            .thenAnswer(invocation -> {
-                return mockMetricHistory.stream()
-                    .filter(m -> m.getDate().equals(invocation.getArgument(0)))
-                    .findFirst()
-                    .orElse(null);
-            });
-        serializerMock.when(() -> StockMetricsSerializer.serialize(anyList())).thenReturn(MOCK_JSON_METRICS);
+        when(metricBuilderServiceMock.calculateAllMetrics(eq(mockApiRecords)))
+            .thenAnswer(invocation -> mockMetricsFor(invocation.getArgument(0)));
+        serializerMock.when(() -> StockMetricsSerializer.serialize(anyList(), eq(ResponseFormat.JSON), eq(Resolution.DAILY))).thenReturn(MOCK_JSON_METRICS);
 
-        String result = stockAnalysisService.produceAnalysis(MOCK_SYMBOL, false);
-        assertEquals(MOCK_JSON_METRICS, result);
+        byte[] result = stockAnalysisService.produceAnalysis(MOCK_SYMBOL, false, ResponseFormat.JSON);
+        assertArrayEquals(MOCK_JSON_METRICS, result);
 
-        verify(dynamoClientMock, times(numRecords - recordsPresent))
-                .putItem(anyString(), any(DailyStockMetrics.class), eq(DailyStockMetrics.class));
+        verify(metricsRepositoryMock).upsertAll(argThat(metrics -> metrics.size() == numRecords - recordsPresent));
     }
 
     @Test
     void shouldAddNoNewRecordsInDynamo() {
-        when(dynamoClientMock.query(any(), any(), anyInt(), eq(DailyStockMetrics.class)))
+        when(metricsRepositoryMock.findLatest(any(), anyInt()))
             .thenAnswer(invocation -> new ArrayList<>(mockMetricHistory));
-        serializerMock.when(() -> StockMetricsSerializer.serialize(anyList())).thenReturn(MOCK_JSON_METRICS);
+        serializerMock.when(() -> StockMetricsSerializer.serialize(anyList(), eq(ResponseFormat.JSON), eq(Resolution.DAILY))).thenReturn(MOCK_JSON_METRICS);
 
-        String result = stockAnalysisService.produceAnalysis(MOCK_SYMBOL, false);
-        assertEquals(MOCK_JSON_METRICS, result);
+        byte[] result = stockAnalysisService.produceAnalysis(MOCK_SYMBOL, false, ResponseFormat.JSON);
+        assertArrayEquals(MOCK_JSON_METRICS, result);
 
-        verify(dynamoClientMock, times(0))
-                .putItem(anyString(), any(DailyStockMetrics.class), eq(DailyStockMetrics.class));
+        verify(metricsRepositoryMock, never()).upsertAll(any());
+        verify(metricsUpdateHubMock, never()).publish(any());
+        verify(screenerIndexMock).update(mockMetricHistory.getLast());
+        assertEquals(mockMetricHistory.getLast().getDate(), metricsVersionService.latestDate(MOCK_SYMBOL).get());
     }
 
     @Test
@@ -150,36 +180,328 @@ public class StockAnalysisServiceTest {
         List<DailyStockRecord> mockRecordCustomRange = mockRecordHistory;
         mockRecordCustomRange.addAll(mockRecordCustomRange);
 
-        when(dynamoClientMock.query(any(), any(), anyInt(), eq(DailyStockMetrics.class))).thenReturn(Collections.emptyList());
-        when(timeSeriesApiClient.getDailyTimeSeries(eq(MOCK_SYMBOL))).thenReturn(MOCK_JSON_RECORDS);
+        when(metricsRepositoryMock.findLatest(any(), anyInt())).thenReturn(Collections.emptyList());
+        when(timeSeriesProvider.getDailyTimeSeries(eq(MOCK_SYMBOL))).thenReturn(MOCK_JSON_RECORDS);
         parserMock.when(() -> StockRecordsParser.parse(eq(MOCK_JSON_RECORDS))).thenReturn(mockRecordCustomRange);
-        when(metricBuilderServiceMock.caclculateMetrics(any(LocalDate.class), eq(mockRecordCustomRange)))
-            .thenAnswer(invocation -> {
-                return mockMetricHistory.stream()
-                    .filter(m -> m.getDate().equals(invocation.getArgument(0)))
-                    .findFirst()
-                    .orElse(null);
-            });
-        serializerMock.when(() -> StockMetricsSerializer.serialize(anyList())).thenReturn(MOCK_JSON_METRICS);
+        when(metricBuilderServiceMock.calculateAllMetrics(eq(mockRecordCustomRange)))
+            .thenAnswer(invocation -> mockMetricsFor(invocation.getArgument(0)));
+        serializerMock.when(() -> StockMetricsSerializer.serialize(anyList(), eq(ResponseFormat.JSON), eq(Resolution.DAILY))).thenReturn(MOCK_JSON_METRICS);
         
-        String result = stockAnalysisService.produceAnalysis(
+        byte[] result = stockAnalysisService.produceAnalysis(
             MOCK_SYMBOL, 
-            true);
-        assertEquals(MOCK_JSON_METRICS, result);
+            true,
+            ResponseFormat.JSON);
+        assertArrayEquals(MOCK_JSON_METRICS, result);
 
-        verify(dynamoClientMock, times(appLimitsProperties.fullRecords()))
-                .putItem(anyString(), any(DailyStockMetrics.class), eq(DailyStockMetrics.class));
+        verify(metricsRepositoryMock).upsertAll(argThat(metrics -> metrics.size() == appLimitsProperties.fullRecords()));
     }
 
     @Test
     void shouldFailToProduceAnalysis() {
-        when(dynamoClientMock.query(any(), any(), anyInt(), eq(DailyStockMetrics.class))).thenThrow(new DynamoClientException("Exception!", null));
+        when(metricsRepositoryMock.findLatest(any(), anyInt())).thenThrow(new MetricsRepositoryException("Exception!", null));
 
         InternalServerErrorException exception = assertThrows(InternalServerErrorException.class, () -> 
-            stockAnalysisService.produceAnalysis(MOCK_SYMBOL, false));
+            stockAnalysisService.produceAnalysis(MOCK_SYMBOL, false, ResponseFormat.JSON));
 
         assertEquals(String.format("Exception when producing %s analysis!", MOCK_SYMBOL), exception.getMessage());
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, exception.getStatus());
-        assertEquals("DynamoClientException", exception.getCause().getClass().getSimpleName());
+        assertEquals("MetricsRepositoryException", exception.getCause().getClass().getSimpleName());
+    }
+
+    @Test
+    void shouldProduceAnalysisForDateRangeFromDynamo() {
+        LocalDate from = mockMetricHistory.getFirst().getDate();
+        LocalDate to = mockMetricHistory.getLast().getDate();
+        when(metricsRepositoryMock.findBetween(eq(MOCK_SYMBOL), eq(from), eq(to), anyInt()))
+            .thenAnswer(invocation -> new ArrayList<>(mockMetricHistory));
+        serializerMock.when(() -> StockMetricsSerializer.serialize(anyList(), eq(ResponseFormat.JSON), eq(Resolution.DAILY))).thenReturn(MOCK_JSON_METRICS);
+
+        byte[] result = stockAnalysisService.produceAnalysis(MOCK_SYMBOL, from, to, ResponseFormat.JSON);
+        assertArrayEquals(MOCK_JSON_METRICS, result);
+
+        verify(metricsRepositoryMock, times(1))
+            .findBetween(eq(MOCK_SYMBOL), any(), any(), eq(appLimitsProperties.fullRecords() + 1));
+        verify(timeSeriesProvider, times(0)).getDailyTimeSeries(anyString());
+    }
+
+    @Test
+    void shouldRejectInvertedDateRange() {
+        LocalDate from = LocalDate.of(2025, 2, 1);
+        LocalDate to = LocalDate.of(2025, 1, 1);
+
+        ClientErrorException exception = assertThrows(ClientErrorException.class, () -> 
+            stockAnalysisService.produceAnalysis(MOCK_SYMBOL, from, to, ResponseFormat.JSON));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+    }
+
+    @Test
+    void shouldRejectDateRangeAboveLimit() {
+        List<DailyStockMetrics> oversizedRange = new ArrayList<>();
+        LocalDate from = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i <= appLimitsProperties.fullRecords(); i++) {
+            oversizedRange.add(new DailyStockMetrics(MOCK_SYMBOL, from.plusDays(i), 100.0, null, null, null, null));
+        }
+        when(metricsRepositoryMock.findBetween(any(), any(), any(), anyInt())).thenReturn(oversizedRange);
+
+        ClientErrorException exception = assertThrows(ClientErrorException.class, () -> 
+            stockAnalysisService.produceAnalysis(MOCK_SYMBOL, from, LocalDate.of(2021, 1, 1), ResponseFormat.JSON));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+    }
+
+    @Test
+    void shouldRejectDateRangeAboveLimitEndingTodayWithoutRefreshing() {
+        // The earliest records of a range ending today, read one past the limit, end long before today
+        List<DailyStockMetrics> oversizedRange = new ArrayList<>();
+        LocalDate from = LocalDate.now().minusDays(300);
+        for (int i = 0; i <= appLimitsProperties.fullRecords(); i++) {
+            oversizedRange.add(new DailyStockMetrics(MOCK_SYMBOL, from.plusDays(i), 100.0, null, null, null, null));
+        }
+        when(metricsRepositoryMock.findBetween(any(), any(), any(), anyInt())).thenReturn(oversizedRange);
+
+        ClientErrorException exception = assertThrows(ClientErrorException.class, () -> 
+            stockAnalysisService.produceAnalysis(MOCK_SYMBOL, from, LocalDate.now(), ResponseFormat.JSON));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        verify(timeSeriesProvider, never()).getDailyTimeSeries(any());
+        verify(metricsRepositoryMock, never()).upsertAll(anyList());
+    }
+
+    @Test
+    void shouldStoreFetchedPayload() {
+        when(metricsRepositoryMock.findLatest(any(), anyInt())).thenReturn(Collections.emptyList());
+        when(timeSeriesProvider.getDailyTimeSeries(eq(MOCK_SYMBOL))).thenReturn(MOCK_JSON_RECORDS);
+        parserMock.when(() -> StockRecordsParser.parse(eq(MOCK_JSON_RECORDS))).thenReturn(mockRecordHistory);
+        when(metricBuilderServiceMock.calculateAllMetrics(eq(mockRecordHistory)))
+            .thenAnswer(invocation -> mockMetricsFor(invocation.getArgument(0)));
+        serializerMock.when(() -> StockMetricsSerializer.serialize(anyList(), eq(ResponseFormat.JSON), eq(Resolution.DAILY))).thenReturn(MOCK_JSON_METRICS);
+
+        stockAnalysisService.produceAnalysis(MOCK_SYMBOL, false, ResponseFormat.JSON);
+
+        verify(payloadStoreMock, times(1)).append(eq(MOCK_SYMBOL), eq(LocalDate.now()), eq(MOCK_JSON_RECORDS));
+    }
+
+    @Test
+    void shouldUseStoredPayloadInsteadOfApi() {
+        when(metricsRepositoryMock.findLatest(any(), anyInt())).thenReturn(Collections.emptyList());
+        when(payloadStoreMock.find(eq(MOCK_SYMBOL), eq(LocalDate.now()))).thenReturn(Optional.of(MOCK_JSON_RECORDS));
+        parserMock.when(() -> StockRecordsParser.parse(eq(MOCK_JSON_RECORDS))).thenReturn(mockRecordHistory);
+        when(metricBuilderServiceMock.calculateAllMetrics(eq(mockRecordHistory)))
+            .thenAnswer(invocation -> mockMetricsFor(invocation.getArgument(0)));
+        serializerMock.when(() -> StockMetricsSerializer.serialize(anyList(), eq(ResponseFormat.JSON), eq(Resolution.DAILY))).thenReturn(MOCK_JSON_METRICS);
+
+        byte[] result = stockAnalysisService.produceAnalysis(MOCK_SYMBOL, false, ResponseFormat.JSON);
+        assertArrayEquals(MOCK_JSON_METRICS, result);
+
+        verify(timeSeriesProvider, times(0)).getDailyTimeSeries(anyString());
+    }
+
+    @Test
+    void shouldRememberSymbolsNotFoundUpstream() {
+        when(metricsRepositoryMock.findLatest(any(), anyInt())).thenReturn(Collections.emptyList());
+        when(timeSeriesProvider.getDailyTimeSeries(eq(MOCK_SYMBOL))).thenThrow(new TimeSeriesApiException("Symbol MOCK not found!", 404, null));
+
+        for (int i = 0; i < 3; i++) {
+            ClientErrorException exception = assertThrows(ClientErrorException.class, () ->
+                stockAnalysisService.produceAnalysis(MOCK_SYMBOL, false, ResponseFormat.JSON));
+            assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+        }
+        // Later requests are rejected before reaching the repository or the api
+        verify(timeSeriesProvider, times(1)).getDailyTimeSeries(MOCK_SYMBOL);
+        verify(metricsRepositoryMock, times(1)).findLatest(any(), anyInt());
+    }
+
+    @Test
+    void shouldRejectUnlistedSymbolsBeforeReadingRecords(@TempDir Path directory) throws Exception {
+        Path listingFile = Files.writeString(directory.resolve("listing.csv"), "symbol,name\nIBM,International Business Machines\n");
+        AppSymbolsProperties listed = new AppSymbolsProperties(listingFile.toString(), Duration.ofMinutes(10), 100, 10, 100);
+        stockAnalysisService = new StockAnalysisService(appLimitsProperties, metricsRepositoryMock, timeSeriesProvider, metricBuilderServiceMock, rollupServiceMock, metricsVersionService, payloadStoreMock, metricsUpdateHubMock, screenerIndexMock, new RefreshLeaseManager(new AppRefreshLeaseProperties(false, null, null, null, null), null), new SymbolFilter(listed, new SymbolListing(listed)), refreshBulkhead, readBulkhead);
+
+        ClientErrorException exception = assertThrows(ClientErrorException.class, () ->
+            stockAnalysisService.produceAnalysis(MOCK_SYMBOL, Resolution.DAILY, LocalDate.now().minusDays(5), LocalDate.now(), null, ResponseFormat.JSON));
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+        verify(metricsRepositoryMock, never()).findBetween(any(), any(), any(), anyInt());
+        verify(timeSeriesProvider, never()).getDailyTimeSeries(anyString());
+    }
+
+    @Test
+    void shouldServeStoredMetricsWhileApiUnavailable() {
+        List<DailyStockMetrics> staleMetrics = List.of(new DailyStockMetrics(MOCK_SYMBOL, LocalDate.of(2020, 1, 2), 100.0, null, null, null, null));
+        when(metricsRepositoryMock.findLatest(any(), anyInt())).thenReturn(staleMetrics);
+        when(timeSeriesProvider.getDailyTimeSeries(eq(MOCK_SYMBOL))).thenThrow(new TimeSeriesApiException("Circuit open!", 503, null));
+        serializerMock.when(() -> StockMetricsSerializer.serialize(eq(staleMetrics), eq(ResponseFormat.JSON), eq(Resolution.DAILY))).thenReturn(MOCK_JSON_METRICS);
+
+        assertArrayEquals(MOCK_JSON_METRICS, stockAnalysisService.produceAnalysis(MOCK_SYMBOL, false, ResponseFormat.JSON));
+        verify(metricsRepositoryMock, never()).upsertAll(any());
+    }
+
+    @Test
+    void shouldReturnServiceUnavailableWithoutStoredMetrics() {
+        when(metricsRepositoryMock.findLatest(any(), anyInt())).thenReturn(Collections.emptyList());
+        when(timeSeriesProvider.getDailyTimeSeries(eq(MOCK_SYMBOL))).thenThrow(new TimeSeriesApiException("Circuit open!", 503, null));
+
+        InternalServerErrorException exception = assertThrows(InternalServerErrorException.class, () -> 
+            stockAnalysisService.produceAnalysis(MOCK_SYMBOL, false, ResponseFormat.JSON));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+    }
+
+    @Test
+    void shouldServeStoredMetricsWhileRefreshesAreFull() {
+        List<DailyStockMetrics> staleMetrics = List.of(new DailyStockMetrics(MOCK_SYMBOL, LocalDate.of(2020, 1, 2), 100.0, null, null, null, null));
+        when(metricsRepositoryMock.findLatest(any(), anyInt())).thenReturn(staleMetrics);
+        serializerMock.when(() -> StockMetricsSerializer.serialize(eq(staleMetrics), eq(ResponseFormat.JSON), eq(Resolution.DAILY))).thenReturn(MOCK_JSON_METRICS);
+        refreshBulkhead.acquirePermission();
+
+        assertArrayEquals(MOCK_JSON_METRICS, stockAnalysisService.produceAnalysis(MOCK_SYMBOL, false, ResponseFormat.JSON));
+        verify(timeSeriesProvider, never()).getDailyTimeSeries(anyString());
+    }
+
+    @Test
+    void shouldReturnServiceUnavailableWhileReadsAreFull() {
+        readBulkhead.acquirePermission();
+
+        InternalServerErrorException exception = assertThrows(InternalServerErrorException.class, () -> 
+            stockAnalysisService.produceAnalysis(MOCK_SYMBOL, false, ResponseFormat.JSON));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+        verify(metricsRepositoryMock, never()).findLatest(any(), anyInt());
+    }
+
+    @Test
+    void shouldServeStoredMetricsWhileRefreshingElsewhere() {
+        List<DailyStockMetrics> staleMetrics = List.of(new DailyStockMetrics(MOCK_SYMBOL, LocalDate.of(2020, 1, 2), 100.0, null, null, null, null));
+        when(metricsRepositoryMock.findLatest(any(), anyInt())).thenReturn(staleMetrics);
+        serializerMock.when(() -> StockMetricsSerializer.serialize(eq(staleMetrics), eq(ResponseFormat.JSON), eq(Resolution.DAILY))).thenReturn(MOCK_JSON_METRICS);
+        RefreshLeaseManager leaseManagerMock = mock(RefreshLeaseManager.class);
+        when(leaseManagerMock.tryAcquire(MOCK_SYMBOL)).thenReturn(Optional.empty());
+
+        assertArrayEquals(MOCK_JSON_METRICS, serviceWithLeases(leaseManagerMock).produceAnalysis(MOCK_SYMBOL, false, ResponseFormat.JSON));
+        verify(timeSeriesProvider, never()).getDailyTimeSeries(anyString());
+        verify(leaseManagerMock, never()).awaitRelease(anyString());
+    }
+
+    @Test
+    void shouldWaitForRefreshElsewhereWithoutStoredMetrics() {
+        when(metricsRepositoryMock.findLatest(any(), anyInt()))
+            .thenReturn(Collections.emptyList())
+            .thenAnswer(invocation -> new ArrayList<>(mockMetricHistory));
+        serializerMock.when(() -> StockMetricsSerializer.serialize(anyList(), eq(ResponseFormat.JSON), eq(Resolution.DAILY))).thenReturn(MOCK_JSON_METRICS);
+        RefreshLeaseManager leaseManagerMock = mock(RefreshLeaseManager.class);
+        when(leaseManagerMock.tryAcquire(MOCK_SYMBOL)).thenReturn(Optional.empty());
+        when(leaseManagerMock.awaitRelease(MOCK_SYMBOL)).thenReturn(true);
+
+        assertArrayEquals(MOCK_JSON_METRICS, serviceWithLeases(leaseManagerMock).produceAnalysis(MOCK_SYMBOL, false, ResponseFormat.JSON));
+        verify(timeSeriesProvider, never()).getDailyTimeSeries(anyString());
+        verify(metricsRepositoryMock, never()).upsertAll(any());
+    }
+
+    @Test
+    void shouldReturnServiceUnavailableWhileRefreshElsewhereIsUnfinished() {
+        when(metricsRepositoryMock.findLatest(any(), anyInt())).thenReturn(Collections.emptyList());
+        RefreshLeaseManager leaseManagerMock = mock(RefreshLeaseManager.class);
+        when(leaseManagerMock.tryAcquire(MOCK_SYMBOL)).thenReturn(Optional.empty());
+        when(leaseManagerMock.awaitRelease(MOCK_SYMBOL)).thenReturn(false);
+
+        InternalServerErrorException exception = assertThrows(InternalServerErrorException.class, () ->
+            serviceWithLeases(leaseManagerMock).produceAnalysis(MOCK_SYMBOL, false, ResponseFormat.JSON));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+    }
+
+    @Test
+    void shouldRollUpRefreshedRecords() {
+        when(metricsRepositoryMock.findLatest(any(), anyInt())).thenReturn(Collections.emptyList());
+        when(timeSeriesProvider.getDailyTimeSeries(eq(MOCK_SYMBOL))).thenReturn(MOCK_JSON_RECORDS);
+        parserMock.when(() -> StockRecordsParser.parse(eq(MOCK_JSON_RECORDS))).thenReturn(mockRecordHistory);
+        when(metricBuilderServiceMock.calculateAllMetrics(eq(mockRecordHistory)))
+            .thenAnswer(invocation -> mockMetricsFor(invocation.getArgument(0)));
+        serializerMock.when(() -> StockMetricsSerializer.serialize(anyList(), eq(ResponseFormat.JSON), eq(Resolution.DAILY))).thenReturn(MOCK_JSON_METRICS);
+
+        stockAnalysisService.produceAnalysis(MOCK_SYMBOL, false, ResponseFormat.JSON);
+
+        verify(rollupServiceMock).update(mockRecordHistory);
+    }
+
+    @Test
+    void shouldServeDailyMetricsWhenRollupsFail() {
+        when(metricsRepositoryMock.findLatest(any(), anyInt())).thenReturn(Collections.emptyList());
+        when(timeSeriesProvider.getDailyTimeSeries(eq(MOCK_SYMBOL))).thenReturn(MOCK_JSON_RECORDS);
+        parserMock.when(() -> StockRecordsParser.parse(eq(MOCK_JSON_RECORDS))).thenReturn(mockRecordHistory);
+        when(metricBuilderServiceMock.calculateAllMetrics(eq(mockRecordHistory)))
+            .thenAnswer(invocation -> mockMetricsFor(invocation.getArgument(0)));
+        serializerMock.when(() -> StockMetricsSerializer.serialize(anyList(), eq(ResponseFormat.JSON), eq(Resolution.DAILY))).thenReturn(MOCK_JSON_METRICS);
+        doThrow(new MetricsRepositoryException("Exception!", null)).when(rollupServiceMock).update(any());
+
+        assertArrayEquals(MOCK_JSON_METRICS, stockAnalysisService.produceAnalysis(MOCK_SYMBOL, false, ResponseFormat.JSON));
+        verify(metricsRepositoryMock).upsertAll(argThat(metrics -> metrics.size() == numRecords));
+    }
+
+    @Test
+    void shouldServeStoredRollupsOfFreshStock() {
+        List<DailyStockMetrics> weeks = List.of(new DailyStockMetrics(MOCK_SYMBOL, LocalDate.of(2025, 9, 1), 100.0, null, null, null, null));
+        metricsVersionService.recordLatestDate(MOCK_SYMBOL, LocalDate.now());
+        when(rollupServiceMock.findLatest(MOCK_SYMBOL, Resolution.WEEKLY, numRecords)).thenReturn(weeks);
+        serializerMock.when(() -> StockMetricsSerializer.serialize(eq(weeks), eq(ResponseFormat.JSON), eq(Resolution.WEEKLY))).thenReturn(MOCK_JSON_METRICS);
+
+        assertArrayEquals(MOCK_JSON_METRICS, stockAnalysisService.produceAnalysis(MOCK_SYMBOL, Resolution.WEEKLY, false, null, ResponseFormat.JSON));
+        verify(metricsRepositoryMock, never()).findLatest(any(), anyInt());
+        verify(timeSeriesProvider, never()).getDailyTimeSeries(anyString());
+    }
+
+    @Test
+    void shouldRefreshStaleStockBeforeServingRollups() {
+        List<DailyStockMetrics> months = List.of(new DailyStockMetrics(MOCK_SYMBOL, LocalDate.of(2025, 9, 1), 100.0, null, null, null, null));
+        when(metricsRepositoryMock.findLatest(any(), anyInt())).thenReturn(Collections.emptyList());
+        when(timeSeriesProvider.getDailyTimeSeries(eq(MOCK_SYMBOL))).thenReturn(MOCK_JSON_RECORDS);
+        parserMock.when(() -> StockRecordsParser.parse(eq(MOCK_JSON_RECORDS))).thenReturn(mockRecordHistory);
+        when(metricBuilderServiceMock.calculateAllMetrics(eq(mockRecordHistory)))
+            .thenAnswer(invocation -> mockMetricsFor(invocation.getArgument(0)));
+        when(rollupServiceMock.findLatest(MOCK_SYMBOL, Resolution.MONTHLY, appLimitsProperties.fullRecords())).thenReturn(months);
+        serializerMock.when(() -> StockMetricsSerializer.serialize(eq(months), eq(ResponseFormat.JSON), eq(Resolution.MONTHLY))).thenReturn(MOCK_JSON_METRICS);
+
+        assertArrayEquals(MOCK_JSON_METRICS, stockAnalysisService.produceAnalysis(MOCK_SYMBOL, Resolution.MONTHLY, true, null, ResponseFormat.JSON));
+        verify(rollupServiceMock).update(mockRecordHistory);
+        assertEquals(mockMetricHistory.getLast().getDate(), metricsVersionService.latestDate(MOCK_SYMBOL).get());
+    }
+
+    @Test
+    void shouldReturnNotFoundWithoutRollups() {
+        metricsVersionService.recordLatestDate(MOCK_SYMBOL, LocalDate.now());
+        when(rollupServiceMock.findLatest(any(), any(), anyInt())).thenReturn(Collections.emptyList());
+        when(timeSeriesProvider.getDailyTimeSeries(eq(MOCK_SYMBOL))).thenReturn(MOCK_JSON_RECORDS);
+        parserMock.when(() -> StockRecordsParser.parse(eq(MOCK_JSON_RECORDS))).thenReturn(mockRecordHistory);
+        when(metricBuilderServiceMock.calculateAllMetrics(eq(mockRecordHistory)))
+            .thenAnswer(invocation -> mockMetricsFor(invocation.getArgument(0)));
+
+        ClientErrorException exception = assertThrows(ClientErrorException.class, () ->
+            stockAnalysisService.produceAnalysis(MOCK_SYMBOL, Resolution.WEEKLY, false, null, ResponseFormat.JSON));
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+        // A backfill was attempted before giving up
+        verify(rollupServiceMock).update(mockRecordHistory);
+    }
+
+    @Test
+    void shouldDownsampleToPointBudget() {
+        when(metricsRepositoryMock.findLatest(any(), anyInt()))
+            .thenAnswer(invocation -> new ArrayList<>(mockMetricHistory));
+        serializerMock.when(() -> StockMetricsSerializer.serialize(anyList(), eq(ResponseFormat.JSON), eq(Resolution.DAILY))).thenReturn(MOCK_JSON_METRICS);
+
+        stockAnalysisService.produceAnalysis(MOCK_SYMBOL, Resolution.DAILY, false, 10, ResponseFormat.JSON);
+
+        serializerMock.verify(() -> StockMetricsSerializer.serialize(argThat(metrics -> metrics.size() == 10
+            && metrics.getFirst() == mockMetricHistory.getLast()
+            && metrics.getLast() == mockMetricHistory.get(mockMetricHistory.size() - numRecords)), eq(ResponseFormat.JSON), eq(Resolution.DAILY)));
+    }
+
+    private StockAnalysisService serviceWithLeases(RefreshLeaseManager refreshLeaseManager) {
+        return new StockAnalysisService(appLimitsProperties, metricsRepositoryMock, timeSeriesProvider, metricBuilderServiceMock, rollupServiceMock, metricsVersionService, payloadStoreMock, metricsUpdateHubMock, screenerIndexMock, refreshLeaseManager, symbolFilter, refreshBulkhead, readBulkhead);
+    }
+
+    private List<DailyStockMetrics> mockMetricsFor(List<DailyStockRecord> records) {
+        return records.stream()
+            .map(record -> mockMetricHistory.stream()
+                .filter(m -> m.getDate().equals(record.getDate()))
+                .findFirst()
+                .orElse(null))
+            .toList();
     }
 }
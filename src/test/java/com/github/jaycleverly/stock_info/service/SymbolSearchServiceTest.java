@@ -0,0 +1,88 @@
+package com.github.jaycleverly.stock_info.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.jaycleverly.stock_info.config.properties.AppHttpCacheProperties;
+import com.github.jaycleverly.stock_info.config.properties.AppSymbolsProperties;
+import com.github.jaycleverly.stock_info.exception.ClientErrorException;
+import com.github.jaycleverly.stock_info.symbols.SymbolListing;
+
+public class SymbolSearchServiceTest {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final MetricsVersionService metricsVersionService = new MetricsVersionService(new AppHttpCacheProperties("1", 100));
+    private SymbolSearchService symbolSearchService;
+
+    @BeforeEach
+    void setup(@TempDir Path directory) throws Exception {
+        Path file = Files.writeString(directory.resolve("listing.csv"), """
+            symbol,name,exchange,assetType,ipoDate,delistingDate,status
+            IBM,International Business Machines Corp,NYSE,Stock,1962-01-02,null,Active
+            IBKR,"Interactive Brokers Group, Inc",NASDAQ,Stock,2007-05-04,null,Active
+            AAPL,Apple Inc,NASDAQ,Stock,1980-12-12,null,Active
+            """);
+        AppSymbolsProperties properties = new AppSymbolsProperties(file.toString(), Duration.ZERO, 0, 10, 100);
+        symbolSearchService = new SymbolSearchService(properties, new SymbolListing(properties), metricsVersionService);
+    }
+
+    @Test
+    void shouldAnnotateMatchesWithHeldMetrics() throws Exception {
+        metricsVersionService.recordLatestDate("IBM", LocalDate.now());
+        metricsVersionService.recordLatestDate("IBKR", LocalDate.of(2020, 1, 2));
+
+        JsonNode response = OBJECT_MAPPER.readTree(symbolSearchService.produceSearch(" ib ", null));
+
+        assertEquals("ib", response.path("Meta Data").path("2. Query").asText());
+        assertEquals(3, response.path("Meta Data").path("3. Stocks Listed").asInt());
+        JsonNode matches = response.path("matches");
+        assertEquals(2, matches.size());
+        assertEquals("IBM", matches.get(0).path("symbol").asText());
+        assertEquals(LocalDate.now().toString(), matches.get(0).path("latestDate").asText());
+        assertTrue(matches.get(0).path("warm").asBoolean());
+        assertEquals("IBKR", matches.get(1).path("symbol").asText());
+        assertEquals("Interactive Brokers Group, Inc", matches.get(1).path("name").asText());
+        assertEquals(false, matches.get(1).path("warm").asBoolean());
+    }
+
+    @Test
+    void shouldReportStocksWithoutHeldMetrics() throws Exception {
+        JsonNode match = OBJECT_MAPPER.readTree(symbolSearchService.produceSearch("apple", 1)).path("matches").get(0);
+
+        assertEquals("AAPL", match.path("symbol").asText());
+        assertTrue(match.path("latestDate").isNull());
+        assertEquals(false, match.path("warm").asBoolean());
+    }
+
+    @Test
+    void shouldRejectInvalidSearches() {
+        assertEquals(HttpStatus.BAD_REQUEST, assertThrows(ClientErrorException.class, () ->
+            symbolSearchService.produceSearch(" ", null)).getStatus());
+        assertEquals(HttpStatus.BAD_REQUEST, assertThrows(ClientErrorException.class, () ->
+            symbolSearchService.produceSearch("ib", 0)).getStatus());
+        assertEquals(HttpStatus.BAD_REQUEST, assertThrows(ClientErrorException.class, () ->
+            symbolSearchService.produceSearch("ib", 101)).getStatus());
+    }
+
+    @Test
+    void shouldReturnNotFoundWithoutListing() {
+        AppSymbolsProperties properties = new AppSymbolsProperties(null, Duration.ZERO, 0, 10, 100);
+        SymbolSearchService unlisted = new SymbolSearchService(properties, new SymbolListing(properties), metricsVersionService);
+
+        assertEquals(HttpStatus.NOT_FOUND, assertThrows(ClientErrorException.class, () ->
+            unlisted.produceSearch("ib", null)).getStatus());
+    }
+}
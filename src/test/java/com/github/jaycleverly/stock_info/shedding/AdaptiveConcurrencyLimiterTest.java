@@ -0,0 +1,85 @@
+package com.github.jaycleverly.stock_info.shedding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class AdaptiveConcurrencyLimiterTest {
+    private static final long FAST = 10_000_000;
+    private static final long SLOW = 100_000_000;
+
+    @Test
+    void shouldRejectRequestsBeyondLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 2.0, 0.2, 100);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(1.0, limiter.utilisation());
+
+        limiter.release(FAST, false);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void shouldGrowWhileLatencyHoldsUnderLoad() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 50, 2.0, 0.2, 100);
+
+        for (int round = 0; round < 20; round++) {
+            saturate(limiter, FAST);
+        }
+        assertEquals(50, limiter.limit());
+    }
+
+    @Test
+    void shouldNotGrowWhileMostlyIdle() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 50, 2.0, 0.2, 100);
+
+        for (int request = 0; request < 100; request++) {
+            limiter.tryAcquire();
+            limiter.release(FAST, false);
+        }
+        assertEquals(10, limiter.limit());
+    }
+
+    @Test
+    void shouldShrinkOnceLatencyRises() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(40, 1, 50, 2.0, 0.2, 100);
+        saturate(limiter, FAST);
+        int before = limiter.limit();
+
+        for (int round = 0; round < 5; round++) {
+            saturate(limiter, SLOW);
+        }
+        assertTrue(limiter.limit() < before / 2, String.format("Limit %d was %d", limiter.limit(), before));
+        assertTrue(limiter.limit() >= 1);
+    }
+
+    @Test
+    void shouldBackOffOnFailures() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 5, 50, 2.0, 0.2, 100);
+
+        limiter.tryAcquire();
+        limiter.release(FAST, true);
+        assertEquals(18, limiter.limit());
+
+        for (int request = 0; request < 50; request++) {
+            limiter.tryAcquire();
+            limiter.release(FAST, true);
+        }
+        assertEquals(5, limiter.limit());
+    }
+
+    // Fills the limit then releases every request with the same latency
+    private static void saturate(AdaptiveConcurrencyLimiter limiter, long latencyNanos) {
+        int admitted = 0;
+        while (limiter.tryAcquire()) {
+            admitted++;
+        }
+        for (int request = 0; request < admitted; request++) {
+            limiter.release(latencyNanos, false);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.github.jaycleverly.stock_info.shedding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.github.jaycleverly.stock_info.config.properties.AppLoadSheddingProperties;
+import com.github.jaycleverly.stock_info.controller.StockMetricsController;
+import com.github.jaycleverly.stock_info.controller.StockScreenerController;
+import com.github.jaycleverly.stock_info.exception.InternalServerErrorException;
+import com.github.jaycleverly.stock_info.service.MetricsVersionService;
+
+public class LoadSheddingInterceptorTest {
+    private MetricsVersionService metricsVersionServiceMock;
+    private LoadSheddingInterceptor interceptor;
+
+    @BeforeEach
+    void setup() {
+        metricsVersionServiceMock = mock(MetricsVersionService.class);
+        when(metricsVersionServiceMock.freshLatestDate("IBM")).thenReturn(Optional.of(LocalDate.of(2025, 9, 1)));
+        when(metricsVersionServiceMock.freshLatestDate("AAPL")).thenReturn(Optional.empty());
+        interceptor = new LoadSheddingInterceptor(new AppLoadSheddingProperties(
+            true,
+            new AppLoadSheddingProperties.LimitProperties(4, 1, 4),
+            new AppLoadSheddingProperties.LimitProperties(2, 1, 2),
+            0.75, 2.0, 0.2, 100, Duration.ofMillis(1500)), metricsVersionServiceMock);
+    }
+
+    @Test
+    void shouldAdmitCachedReadsAndRefreshesUnderSeparateLimits() throws Exception {
+        admit("IBM");
+        admit("AAPL");
+        admit("AAPL");
+
+        assertEquals(1, interceptor.cachedReads().inFlight());
+        assertEquals(2, interceptor.refreshes().inFlight());
+        assertShed("AAPL");
+        admit("IBM");
+    }
+
+    @Test
+    void shouldShedWithRetryAfter() throws Exception {
+        for (int request = 0; request < 4; request++) {
+            admit("IBM");
+        }
+
+        MockHttpServletResponse response = assertShed("IBM");
+        assertEquals("2", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(1, interceptor.shedCount());
+    }
+
+    @Test
+    void shouldShedRefreshesFirstWhileCachedReadsAreBusy() throws Exception {
+        for (int request = 0; request < 3; request++) {
+            admit("IBM");
+        }
+
+        assertShed("AAPL");
+        assertEquals(0, interceptor.refreshes().inFlight());
+        admit("IBM");
+    }
+
+    @Test
+    void shouldReleaseOnCompletion() throws Exception {
+        MockHttpServletRequest request = admit("AAPL");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+
+        interceptor.afterCompletion(request, response, metricsHandler(), null);
+        assertEquals(0, interceptor.refreshes().inFlight());
+        // A request rejected further in counts as a failure
+        assertEquals(1, interceptor.refreshes().limit());
+
+        interceptor.afterCompletion(request, response, metricsHandler(), null);
+        assertEquals(0, interceptor.refreshes().inFlight());
+    }
+
+    @Test
+    void shouldIgnoreOtherEndpoints() throws Exception {
+        HandlerMethod screenerHandler = new HandlerMethod(new Object(), Object.class.getMethod("toString")) {
+            @Override
+            public Class<?> getBeanType() {
+                return StockScreenerController.class;
+            }
+        };
+
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest("GET", "/stocks/screener"), new MockHttpServletResponse(), screenerHandler));
+        assertEquals(0, interceptor.cachedReads().inFlight());
+    }
+
+    private MockHttpServletRequest admit(String symbol) throws Exception {
+        MockHttpServletRequest request = request(symbol);
+        assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), metricsHandler()));
+        return request;
+    }
+
+    private MockHttpServletResponse assertShed(String symbol) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        InternalServerErrorException exception = assertThrows(InternalServerErrorException.class,
+            () -> interceptor.preHandle(request(symbol), response, metricsHandler()));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String symbol) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/stocks/" + symbol);
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("symbol", symbol.toLowerCase()));
+        return request;
+    }
+
+    private static HandlerMethod metricsHandler() throws NoSuchMethodException {
+        return new HandlerMethod(new Object(), Object.class.getMethod("toString")) {
+            @Override
+            public Class<?> getBeanType() {
+                return StockMetricsController.class;
+            }
+        };
+    }
+}
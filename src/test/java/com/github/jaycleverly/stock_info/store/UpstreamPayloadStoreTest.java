@@ -0,0 +1,86 @@
+package com.github.jaycleverly.stock_info.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import com.github.jaycleverly.stock_info.config.properties.AppPayloadStoreProperties;
+
+public class UpstreamPayloadStoreTest {
+    private static final LocalDate AS_OF = LocalDate.of(2025, 9, 9);
+
+    @TempDir
+    private Path directory;
+
+    private UpstreamPayloadStore newStore(DataSize maxSize, DataSize segmentSize) {
+        return new UpstreamPayloadStore(new AppPayloadStoreProperties(true, directory.toString(), maxSize, segmentSize, false));
+    }
+
+    @Test
+    void shouldReturnLatestPayloadForSymbol() {
+        UpstreamPayloadStore store = newStore(DataSize.ofMegabytes(1), DataSize.ofKilobytes(64));
+        store.append("IBM", AS_OF.minusDays(1), "old");
+        store.append("IBM", AS_OF, "new");
+
+        assertEquals("new", store.find("IBM", AS_OF).get());
+        assertTrue(store.find("IBM", AS_OF.plusDays(1)).isEmpty());
+        assertTrue(store.find("AAPL", AS_OF).isEmpty());
+    }
+
+    @Test
+    void shouldSurviveRestart() {
+        newStore(DataSize.ofMegabytes(1), DataSize.ofKilobytes(64)).append("IBM", AS_OF, "{\"payload\": \"ibm\"}");
+
+        assertEquals("{\"payload\": \"ibm\"}", newStore(DataSize.ofMegabytes(1), DataSize.ofKilobytes(64)).find("IBM", AS_OF).get());
+    }
+
+    @Test
+    void shouldDropTornRecordOnRestart() throws IOException {
+        newStore(DataSize.ofMegabytes(1), DataSize.ofKilobytes(64)).append("IBM", AS_OF, "complete");
+        try (var files = Files.list(directory)) {
+            Path segment = files.findFirst().get();
+            Files.write(segment, new byte[] {0, 0, 0, 50, 1, 2}, StandardOpenOption.APPEND);
+        }
+
+        UpstreamPayloadStore store = newStore(DataSize.ofMegabytes(1), DataSize.ofKilobytes(64));
+        assertEquals("complete", store.find("IBM", AS_OF).get());
+
+        store.append("AAPL", AS_OF, "appended");
+        assertEquals("appended", newStore(DataSize.ofMegabytes(1), DataSize.ofKilobytes(64)).find("AAPL", AS_OF).get());
+    }
+
+    @Test
+    void shouldEvictOldestSegmentsWhenFull() {
+        UpstreamPayloadStore store = newStore(DataSize.ofBytes(300), DataSize.ofBytes(100));
+        String payload = "x".repeat(60);
+        for (int i = 0; i < 10; i++) {
+            store.append("SYM" + i, AS_OF, payload);
+        }
+
+        assertTrue(store.find("SYM0", AS_OF).isEmpty());
+        assertEquals(payload, store.find("SYM9", AS_OF).get());
+    }
+
+    @Test
+    void shouldVisitLatestPayloads() {
+        UpstreamPayloadStore store = newStore(DataSize.ofMegabytes(1), DataSize.ofKilobytes(64));
+        store.append("IBM", AS_OF, "ibm-old");
+        store.append("AAPL", AS_OF, "aapl");
+        store.append("IBM", AS_OF, "ibm-new");
+
+        Map<String, String> visited = new HashMap<>();
+        store.forEachLatest(visited::put);
+        assertEquals(Map.of("IBM", "ibm-new", "AAPL", "aapl"), visited);
+    }
+}
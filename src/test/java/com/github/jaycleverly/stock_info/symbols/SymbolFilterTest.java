@@ -0,0 +1,99 @@
+package com.github.jaycleverly.stock_info.symbols;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+
+import com.github.jaycleverly.stock_info.config.properties.AppSymbolsProperties;
+import com.github.jaycleverly.stock_info.exception.ClientErrorException;
+
+public class SymbolFilterTest {
+    private static final AppSymbolsProperties PROPERTIES = new AppSymbolsProperties(null, Duration.ofMinutes(10), 2, 10, 100);
+
+    private final OffsetClock clock = new OffsetClock();
+
+    /**
+     * The system clock moved on by a settable offset, so remembered symbols can be expired without waiting
+     */
+    private static class OffsetClock extends Clock {
+        private volatile long offsetMillis;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(System.currentTimeMillis() + offsetMillis);
+        }
+    }
+
+    @Test
+    void shouldRejectSymbolsNotFoundUntilTtlPasses() {
+        SymbolFilter filter = new SymbolFilter(PROPERTIES, new SymbolListing(PROPERTIES), clock);
+        filter.recordNotFound("IMB");
+
+        ClientErrorException exception = assertThrows(ClientErrorException.class, () -> filter.check("IMB"));
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+        assertDoesNotThrow(() -> filter.check("IBM"));
+
+        clock.offsetMillis = Duration.ofMinutes(10).toMillis();
+        assertDoesNotThrow(() -> filter.check("IMB"));
+        assertEquals(0, filter.notFoundCount());
+    }
+
+    @Test
+    void shouldBoundSymbolsRemembered() {
+        SymbolFilter filter = new SymbolFilter(PROPERTIES, new SymbolListing(PROPERTIES), clock);
+        filter.recordNotFound("AAA");
+        filter.recordNotFound("BBB");
+        filter.recordNotFound("CCC");
+
+        assertEquals(2, filter.notFoundCount());
+        assertDoesNotThrow(() -> filter.check("CCC"));
+
+        // Expired symbols make room for new ones
+        clock.offsetMillis = Duration.ofMinutes(11).toMillis();
+        filter.recordNotFound("CCC");
+        assertEquals(1, filter.notFoundCount());
+        assertThrows(ClientErrorException.class, () -> filter.check("CCC"));
+    }
+
+    @Test
+    void shouldNotRememberWithoutTtl() {
+        AppSymbolsProperties properties = new AppSymbolsProperties(null, Duration.ZERO, 2, 10, 100);
+        SymbolFilter filter = new SymbolFilter(properties, new SymbolListing(properties));
+        filter.recordNotFound("IMB");
+
+        assertDoesNotThrow(() -> filter.check("IMB"));
+    }
+
+    @Test
+    void shouldRejectUnlistedSymbols(@TempDir Path directory) throws Exception {
+        Path file = Files.writeString(directory.resolve("listing.csv"), "symbol\nIBM\n");
+        AppSymbolsProperties properties = new AppSymbolsProperties(file.toString(), Duration.ofMinutes(10), 2, 10, 100);
+        SymbolFilter filter = new SymbolFilter(properties, new SymbolListing(properties));
+
+        assertDoesNotThrow(() -> filter.check("IBM"));
+        ClientErrorException exception = assertThrows(ClientErrorException.class, () -> filter.check("IMB"));
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.jaycleverly.stock_info.symbols;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.jaycleverly.stock_info.config.properties.AppSymbolsProperties;
+
+public class SymbolListingTest {
+    private static final String LISTING_STATUS = """
+        symbol,name,exchange,assetType,ipoDate,delistingDate,status
+        IBM,International Business Machines Corp,NYSE,Stock,1962-01-02,null,Active
+        AAPL,Apple Inc,NASDAQ,Stock,1980-12-12,null,Active
+        OLDCO,Old Company Inc,NYSE,Stock,1990-01-02,2020-06-30,Delisted
+        """;
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void shouldLoadListedSymbolsSorted() throws Exception {
+        Path file = Files.writeString(directory.resolve("listing.csv"), LISTING_STATUS);
+
+        assertArrayEquals(new String[] {"AAPL", "IBM"}, SymbolListing.load(file).symbols());
+    }
+
+    @Test
+    void shouldLoadOneSymbolPerLine() throws Exception {
+        Path file = Files.writeString(directory.resolve("symbols.txt"), "msft\nIBM\n\nMSFT\n");
+
+        assertArrayEquals(new String[] {"IBM", "MSFT"}, SymbolListing.load(file).symbols());
+    }
+
+    @Test
+    void shouldLookUpListedSymbols() throws Exception {
+        Path file = Files.writeString(directory.resolve("listing.csv"), LISTING_STATUS);
+        SymbolListing listing = new SymbolListing(new AppSymbolsProperties(file.toString(), Duration.ZERO, 0, 10, 100));
+
+        assertTrue(listing.isLoaded());
+        assertEquals(2, listing.size());
+        assertTrue(listing.contains("IBM"));
+        assertFalse(listing.contains("IMB"));
+        assertFalse(listing.contains("OLDCO"));
+    }
+
+    @Test
+    void shouldTreatEverySymbolAsListedWithoutListing() {
+        SymbolListing unconfigured = new SymbolListing(new AppSymbolsProperties("", Duration.ZERO, 0, 10, 100));
+        SymbolListing missing = new SymbolListing(new AppSymbolsProperties(directory.resolve("missing.csv").toString(), Duration.ZERO, 0, 10, 100));
+
+        assertFalse(unconfigured.isLoaded());
+        assertTrue(unconfigured.contains("ANY"));
+        assertFalse(missing.isLoaded());
+        assertTrue(missing.contains("ANY"));
+    }
+}
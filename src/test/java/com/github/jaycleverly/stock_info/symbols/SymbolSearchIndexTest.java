@@ -0,0 +1,71 @@
+package com.github.jaycleverly.stock_info.symbols;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class SymbolSearchIndexTest {
+    private SymbolSearchIndex index;
+
+    @BeforeEach
+    void setup() {
+        TreeMap<String, String> namesBySymbol = new TreeMap<>();
+        namesBySymbol.put("IBM", "International Business Machines Corp");
+        namesBySymbol.put("IBMX", "IBM Exchange Traded Fund");
+        namesBySymbol.put("IBKR", "Interactive Brokers Group Inc");
+        namesBySymbol.put("AAPL", "Apple Inc");
+        namesBySymbol.put("APLE", "Apple Hospitality REIT Inc");
+        namesBySymbol.put("PINE", "Alpine Income Property Trust Inc");
+        namesBySymbol.put("BRK-B", "Berkshire Hathaway Inc");
+        namesBySymbol.put("XYZ", "");
+        index = new SymbolSearchIndex(namesBySymbol);
+    }
+
+    @Test
+    void shouldRankExactSymbolThenSymbolPrefixesThenNames() {
+        assertEquals(List.of("IBM", "IBMX"), symbols(index.search("ibm", 10)));
+        assertEquals(List.of("IBM", "IBKR", "IBMX"), symbols(index.search("IB", 10)));
+        assertEquals(List.of("IBM", "IBKR"), symbols(index.search("inter", 10)));
+        // Names starting with the query before names with a later word starting with it
+        assertEquals(List.of("IBM", "IBKR", "AAPL", "APLE", "PINE", "BRK-B"), symbols(index.search("in", 10)));
+        assertEquals(List.of("AAPL", "APLE"), symbols(index.search("apple", 10)));
+    }
+
+    @Test
+    void shouldMatchWordsAfterTheFirst() {
+        assertEquals(List.of("IBM"), symbols(index.search("business", 10)));
+        assertEquals(List.of("APLE"), symbols(index.search("apple hosp", 10)));
+        assertEquals(List.of("IBM"), symbols(index.search("inter bus", 10)));
+        assertEquals(List.of(), symbols(index.search("inter trad", 10)));
+    }
+
+    @Test
+    void shouldLimitMatches() {
+        assertEquals(List.of("IBM", "IBKR"), symbols(index.search("ib", 2)));
+        assertEquals(List.of(), index.search("  ", 10));
+        assertEquals(List.of(), index.search("QQQ", 10));
+    }
+
+    @Test
+    void shouldMatchSymbolsWithPunctuation() {
+        assertEquals(List.of("BRK-B"), symbols(index.search("brk-", 10)));
+        assertEquals("Berkshire Hathaway Inc", index.search("brk", 1).getFirst().name());
+    }
+
+    @Test
+    void shouldLookUpListedSymbols() {
+        assertEquals(8, index.size());
+        assertTrue(index.contains("XYZ"));
+        assertFalse(index.contains("IB"));
+    }
+
+    private static List<String> symbols(List<SymbolSearchIndex.Listed> matches) {
+        return matches.stream().map(SymbolSearchIndex.Listed::symbol).toList();
+    }
+}
@@ -0,0 +1,86 @@
+package com.github.jaycleverly.stock_info.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class CovarianceMatrixTest {
+    private static final double TOLERANCE = 1e-12;
+
+    @Test
+    void shouldMatchNaiveCovarianceAcrossTiles() {
+        // Sizes that do not divide evenly into tiles or observation chunks
+        double[][] series = randomSeries(70, 600, new Random(42));
+
+        double[][] covariance = CovarianceMatrix.covariance(series);
+
+        for (int i = 0; i < series.length; i++) {
+            for (int j = 0; j < series.length; j++) {
+                assertEquals(naiveCovariance(series[i], series[j]), covariance[i][j], TOLERANCE);
+            }
+        }
+    }
+
+    @Test
+    void shouldReturnUnitDiagonalCorrelation() {
+        double[][] series = randomSeries(5, 20, new Random(7));
+
+        double[][] correlation = CovarianceMatrix.correlation(CovarianceMatrix.covariance(series));
+
+        for (int i = 0; i < series.length; i++) {
+            assertEquals(1.0, correlation[i][i], TOLERANCE);
+            for (int j = 0; j < series.length; j++) {
+                assertTrue(Math.abs(correlation[i][j]) <= 1);
+                assertEquals(correlation[i][j], correlation[j][i]);
+            }
+        }
+    }
+
+    @Test
+    void shouldReturnPerfectNegativeCorrelation() {
+        double[][] series = {{1, 2, 3, 5}, {-1, -2, -3, -5}};
+
+        assertEquals(-1.0, CovarianceMatrix.correlation(CovarianceMatrix.covariance(series))[0][1], TOLERANCE);
+    }
+
+    @Test
+    void shouldReturnNaNForConstantSeries() {
+        double[][] series = {{1, 2, 3}, {4, 4, 4}};
+
+        assertTrue(Double.isNaN(CovarianceMatrix.correlation(CovarianceMatrix.covariance(series))[0][1]));
+    }
+
+    @Test
+    void shouldRejectUnevenSeries() {
+        assertThrows(IllegalArgumentException.class, () -> CovarianceMatrix.covariance(new double[][] {{1, 2, 3}, {1, 2}}));
+        assertThrows(IllegalArgumentException.class, () -> CovarianceMatrix.covariance(new double[][] {{1}, {2}}));
+    }
+
+    private static double[][] randomSeries(int count, int observations, Random random) {
+        double[][] series = new double[count][observations];
+        for (double[] row : series) {
+            for (int t = 0; t < observations; t++) {
+                row[t] = random.nextGaussian() * 0.02;
+            }
+        }
+        return series;
+    }
+
+    private static double naiveCovariance(double[] x, double[] y) {
+        double meanX = 0;
+        double meanY = 0;
+        for (int t = 0; t < x.length; t++) {
+            meanX += x[t] / x.length;
+            meanY += y[t] / y.length;
+        }
+        double sum = 0;
+        for (int t = 0; t < x.length; t++) {
+            sum += (x[t] - meanX) * (y[t] - meanY);
+        }
+        return sum / (x.length - 1);
+    }
+}
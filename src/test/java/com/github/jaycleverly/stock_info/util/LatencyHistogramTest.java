@@ -0,0 +1,59 @@
+package com.github.jaycleverly.stock_info.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    void shouldEstimatePercentilesWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram(10_000);
+        for (int millis = 1; millis <= 100; millis++) {
+            histogram.record(Duration.ofMillis(millis));
+        }
+
+        assertWithin(Duration.ofMillis(95), histogram.percentile(0.95));
+        assertWithin(Duration.ofMillis(50), histogram.percentile(0.5));
+        assertWithin(Duration.ofMillis(100), histogram.percentile(1));
+        assertEquals(100, histogram.count());
+    }
+
+    @Test
+    void shouldForgetSamplesOlderThanTwoWindows() {
+        LatencyHistogram histogram = new LatencyHistogram(10);
+        for (int i = 0; i < 10; i++) {
+            histogram.record(Duration.ofSeconds(1));
+        }
+        for (int i = 0; i < 15; i++) {
+            histogram.record(Duration.ofMillis(1));
+        }
+
+        assertWithin(Duration.ofMillis(1), histogram.percentile(1));
+        assertEquals(15, histogram.count());
+    }
+
+    @Test
+    void shouldReturnZeroWhenEmpty() {
+        assertEquals(Duration.ZERO, new LatencyHistogram(10).percentile(0.95));
+    }
+
+    @Test
+    void shouldMapEveryValueIntoBucketBelowItsUpperEdge() {
+        for (long micros = 0; micros < 1 << 20; micros += 7) {
+            int bucket = LatencyHistogram.bucket(micros);
+            assertTrue(micros <= LatencyHistogram.upperEdge(bucket));
+            assertTrue(bucket == 0 || micros > LatencyHistogram.upperEdge(bucket - 1));
+        }
+        assertTrue(LatencyHistogram.upperEdge(LatencyHistogram.bucket(Long.MAX_VALUE)) > 0);
+    }
+
+    // Bucket edges are at most 1/16 above the value
+    private static void assertWithin(Duration expected, Duration actual) {
+        assertTrue(actual.compareTo(expected) >= 0 && actual.toNanos() <= expected.toNanos() * 17 / 16,
+            String.format("%s not within bucket error of %s", actual, expected));
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.jaycleverly.stock_info.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+
+import org.junit.jupiter.api.Test;
+
+public class MarketCalendarTest {
+    @Test
+    void shouldReturnSameDayCloseBeforeClose() {
+        ZonedDateTime tuesdayMorning = ZonedDateTime.of(2025, 9, 9, 10, 0, 0, 0, MarketCalendar.MARKET_ZONE);
+
+        assertEquals(MarketCalendar.marketClose(LocalDate.of(2025, 9, 9)), MarketCalendar.nextMarketClose(tuesdayMorning));
+    }
+
+    @Test
+    void shouldSkipWeekendAfterFridayClose() {
+        ZonedDateTime fridayEvening = ZonedDateTime.of(2025, 9, 12, 18, 0, 0, 0, MarketCalendar.MARKET_ZONE);
+
+        assertEquals(MarketCalendar.marketClose(LocalDate.of(2025, 9, 15)), MarketCalendar.nextMarketClose(fridayEvening));
+    }
+}
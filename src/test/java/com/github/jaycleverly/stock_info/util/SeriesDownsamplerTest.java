@@ -0,0 +1,73 @@
+package com.github.jaycleverly.stock_info.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class SeriesDownsamplerTest {
+    @Test
+    void shouldKeepEveryPointWithinBudget() {
+        double[] x = {0, 1, 2, 3};
+        double[] y = {5, 6, 5, 6};
+
+        assertArrayEquals(new int[] {0, 1, 2, 3}, SeriesDownsampler.largestTriangleThreeBuckets(x, y, 4));
+        assertArrayEquals(new int[] {0, 1, 2, 3}, SeriesDownsampler.largestTriangleThreeBuckets(x, y, 10));
+    }
+
+    @Test
+    void shouldKeepEndsAndBudgetOfPointsInOrder() {
+        Random random = new Random(7);
+        double[] x = new double[1000];
+        double[] y = new double[1000];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = i;
+            y[i] = 100 + random.nextGaussian();
+        }
+
+        int[] kept = SeriesDownsampler.largestTriangleThreeBuckets(x, y, 50);
+        assertEquals(50, kept.length);
+        assertEquals(0, kept[0]);
+        assertEquals(999, kept[49]);
+        for (int i = 1; i < kept.length; i++) {
+            assertTrue(kept[i] > kept[i - 1]);
+        }
+    }
+
+    @Test
+    void shouldKeepSpikesAnAverageWouldSmoothAway() {
+        double[] x = new double[100];
+        double[] y = new double[100];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = i;
+            y[i] = 10;
+        }
+        y[37] = 50;
+        y[71] = -30;
+
+        int[] kept = SeriesDownsampler.largestTriangleThreeBuckets(x, y, 10);
+        assertTrue(Arrays.stream(kept).anyMatch(index -> index == 37));
+        assertTrue(Arrays.stream(kept).anyMatch(index -> index == 71));
+    }
+
+    @Test
+    void shouldKeepEndsOnlyWithBudgetOfTwo() {
+        double[] x = {0, 1, 2, 3, 4};
+        double[] y = {1, 9, 1, 9, 1};
+
+        assertArrayEquals(new int[] {0, 4}, SeriesDownsampler.largestTriangleThreeBuckets(x, y, 2));
+    }
+
+    @Test
+    void shouldRejectInvalidBudget() {
+        assertThrows(IllegalArgumentException.class, () ->
+            SeriesDownsampler.largestTriangleThreeBuckets(new double[3], new double[3], 1));
+        assertThrows(IllegalArgumentException.class, () ->
+            SeriesDownsampler.largestTriangleThreeBuckets(new double[3], new double[2], 2));
+    }
+}